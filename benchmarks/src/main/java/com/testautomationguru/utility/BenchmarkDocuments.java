@@ -0,0 +1,107 @@
+package com.testautomationguru.utility;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+
+/**
+ * Documents used by the benchmarks: the sample documents of the pdf-util tests, bundled in the benchmarks jar,
+ * and synthetic documents of any size.
+ */
+final class BenchmarkDocuments {
+
+	private BenchmarkDocuments(){
+	}
+
+	/**
+	 * @param name path of the document below src/test/resources
+	 * @return the document copied into the directory
+	 */
+	static File sample(String name, File dir) throws IOException{
+		File file = new File(dir, name.replace('/', '_'));
+		InputStream in = BenchmarkDocuments.class.getResourceAsStream("/pdf/" + name);
+		if(null==in){
+			throw new IOException("Missing sample document " + name);
+		}
+		try{
+			Files.copy(in, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}finally{
+			in.close();
+		}
+		return file;
+	}
+
+	/**
+	 * Creates a document with a page header, 45 lines of text, a few vector shapes and an image on every page.
+	 *
+	 * @param pages number of pages
+	 * @param altered true to change one line of the last page
+	 * @return the document
+	 */
+	static File synthetic(File dir, String name, int pages, boolean altered) throws IOException{
+		File file = new File(dir, name);
+		PDDocument document = new PDDocument();
+		try{
+			PDImageXObject image = LosslessFactory.createFromImage(document, gradient(160, 120));
+			for(int p=1; p<=pages; p++){
+				PDPage page = new PDPage(PDRectangle.A4);
+				document.addPage(page);
+				PDPageContentStream content = new PDPageContentStream(document, page);
+				try{
+					content.beginText();
+					content.setFont(PDType1Font.HELVETICA_BOLD, 14);
+					content.newLineAtOffset(50, 790);
+					content.showText("Synthetic report - page " + p + " of " + pages);
+					content.setFont(PDType1Font.HELVETICA, 10);
+					for(int line=1; line<=45; line++){
+						content.newLineAtOffset(0, -14);
+						boolean changed = altered && p==pages && line==20;
+						content.showText("Line " + line + " : order " + (p * 1000 + line) + " shipped to customer "
+								+ (changed ? "#00000" : "#" + ((p * 7919 + line * 104729) % 100000)) + " in " + (1990 + line % 30));
+					}
+					content.endText();
+					content.setLineWidth(1.5f);
+					for(int i=0; i<8; i++){
+						content.addRect(360 + i * 25, 60 + (i * 37 + p * 11) % 90, 20, 40 + (i * p) % 60);
+					}
+					content.fill();
+					content.moveTo(50, 50);
+					content.lineTo(545, 50);
+					content.stroke();
+					content.drawImage(image, 400, 640, 120, 90);
+				}finally{
+					content.close();
+				}
+			}
+			document.save(file);
+		}finally{
+			document.close();
+		}
+		return file;
+	}
+
+	private static BufferedImage gradient(int width, int height){
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		for(int y=0; y<height; y++){
+			for(int x=0; x<width; x++){
+				image.setRGB(x, y, (x * 255 / width) << 16 | (y * 255 / height) << 8 | 0x80);
+			}
+		}
+		return image;
+	}
+
+	static File createTempDirectory() throws IOException{
+		return Files.createTempDirectory("pdf-util-benchmark").toFile();
+	}
+}
@@ -0,0 +1,100 @@
+package com.testautomationguru.utility;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.pdfbox.rendering.ImageType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Text and visual comparison of two synthetic documents which differ on one line of the last page,
+ * all the pages being compared.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class CompareBenchmark {
+
+	@Param({ "10", "100" })
+	public int pages;
+
+	/**
+	 * false to render every page, even the pages with the same content
+	 */
+	@Param({ "true", "false" })
+	public boolean skipIdenticalPages;
+
+	@Param({ "1", "4" })
+	public int parallelism;
+
+	@Param({ "300" })
+	public float dpi;
+
+	/**
+	 * resolution of the adaptive pre-screen, 0 to compare every page at the render dpi only
+	 */
+	@Param({ "0" })
+	public float prescreenDpi;
+
+	private File dir;
+	private String expected;
+	private String actual;
+	private PDFUtil textUtil;
+	private PDFUtil visualUtil;
+
+	@Setup
+	public void setup() throws IOException{
+		this.dir = BenchmarkDocuments.createTempDirectory();
+		this.expected = BenchmarkDocuments.synthetic(this.dir, "expected.pdf", this.pages, false).getAbsolutePath();
+		this.actual = BenchmarkDocuments.synthetic(this.dir, "actual.pdf", this.pages, true).getAbsolutePath();
+
+		this.textUtil = new PDFUtil();
+		this.textUtil.setCompareMode(CompareMode.TEXT_MODE);
+		this.textUtil.compareAllPages(true);
+		this.textUtil.setParallelism(this.parallelism);
+
+		this.visualUtil = new PDFUtil();
+		this.visualUtil.setCompareMode(CompareMode.VISUAL_MODE);
+		this.visualUtil.compareAllPages(true);
+		this.visualUtil.skipIdenticalPages(this.skipIdenticalPages);
+		this.visualUtil.setParallelism(this.parallelism);
+		this.visualUtil.setRenderDpi(this.dpi);
+		this.visualUtil.prescreenPages(this.prescreenDpi, ImageType.GRAY);
+	}
+
+	@TearDown
+	public void tearDown() throws IOException{
+		FileUtils.deleteDirectory(this.dir);
+	}
+
+	@Benchmark
+	public boolean textCompare() throws IOException{
+		return this.textUtil.compare(this.expected, this.actual);
+	}
+
+	@Benchmark
+	public CompareResult textCompareWithDiff() throws IOException{
+		return this.textUtil.compareText(this.expected, this.actual);
+	}
+
+	@Benchmark
+	public boolean visualCompare() throws IOException{
+		return this.visualUtil.compare(this.expected, this.actual);
+	}
+}
@@ -0,0 +1,78 @@
+package com.testautomationguru.utility;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Single document operations: page count, text, rendering every page to a PNG file and image extraction.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class DocumentBenchmark {
+
+	/**
+	 * sample documents of the tests, or synthetic-N for a generated document of N pages
+	 */
+	@Param({ "image-extract/sample.pdf", "text-extract/sample.pdf", "synthetic-10", "synthetic-100" })
+	public String document;
+
+	private File dir;
+	private String file;
+	private PDFUtil pdfUtil;
+
+	@Setup
+	public void setup() throws IOException{
+		this.dir = BenchmarkDocuments.createTempDirectory();
+		this.file = (this.document.startsWith("synthetic-")
+				? BenchmarkDocuments.synthetic(this.dir, this.document + ".pdf", Integer.parseInt(this.document.substring(10)), false)
+				: BenchmarkDocuments.sample(this.document, this.dir)).getAbsolutePath();
+		this.pdfUtil = new PDFUtil();
+		this.pdfUtil.setImageDestinationPath(new File(this.dir, "images").getAbsolutePath() + File.separator);
+		new File(this.dir, "images").mkdirs();
+	}
+
+	@TearDown
+	public void tearDown() throws IOException{
+		FileUtils.deleteDirectory(this.dir);
+	}
+
+	@Benchmark
+	public int getPageCount() throws IOException{
+		return this.pdfUtil.getPageCount(this.file);
+	}
+
+	@Benchmark
+	public String getText() throws IOException{
+		return this.pdfUtil.getText(this.file);
+	}
+
+	@Benchmark
+	public List<String> savePdfAsImage() throws IOException{
+		return this.pdfUtil.savePdfAsImage(this.file);
+	}
+
+	@Benchmark
+	public List<String> extractImages() throws IOException{
+		return this.pdfUtil.extractImages(this.file);
+	}
+}
@@ -0,0 +1,83 @@
+package com.testautomationguru.utility;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The two halves of a visual comparison of one page at several resolutions: rendering the page and comparing
+ * the rendered images (the page 2 of the image-compare-diff samples, which differs).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class RenderCompareBenchmark {
+
+	@Param({ "72", "150", "300" })
+	public int dpi;
+
+	private File dir;
+	private PDDocument document1;
+	private PDDocument document2;
+	private BufferedImage image1;
+	private BufferedImage image2;
+
+	@Setup
+	public void setup() throws IOException{
+		this.dir = BenchmarkDocuments.createTempDirectory();
+		this.document1 = PDDocument.load(BenchmarkDocuments.sample("image-compare-diff/sample1.pdf", this.dir));
+		this.document2 = PDDocument.load(BenchmarkDocuments.sample("image-compare-diff/sample2.pdf", this.dir));
+		this.image1 = new PDFRenderer(this.document1).renderImageWithDPI(1, this.dpi, ImageType.RGB);
+		this.image2 = new PDFRenderer(this.document2).renderImageWithDPI(1, this.dpi, ImageType.RGB);
+	}
+
+	@TearDown
+	public void tearDown() throws IOException{
+		this.document1.close();
+		this.document2.close();
+		FileUtils.deleteDirectory(this.dir);
+	}
+
+	@Benchmark
+	public BufferedImage render() throws IOException{
+		return new PDFRenderer(this.document1).renderImageWithDPI(1, this.dpi, ImageType.RGB);
+	}
+
+	@Benchmark
+	public boolean compareImages(){
+		return new TiledImageComparator().compare(this.image1, this.image2, false, 0);
+	}
+
+	@Benchmark
+	public BufferedImage compareAndHighlight(){
+		TiledImageComparator comparator = new TiledImageComparator();
+		comparator.compare(this.image1, this.image2, true, 0xFFFF00FF);
+		return comparator.getHighlightedImage();
+	}
+
+	@Benchmark
+	public boolean compareIdenticalImages(){
+		return new TiledImageComparator().compare(this.image1, this.image1, false, 0);
+	}
+}
@@ -1,31 +1,158 @@
-package com.testautomationguru;
-
-import java.io.IOException;
-
-import com.testautomationguru.utility.CompareMode;
-import com.testautomationguru.utility.PDFUtil;
-
-public final class Main {
-
-	public static void main(String[] args) throws IOException {
-		
-		if(args.length<2){
-			showUsage();
-		}else{
-			PDFUtil pdfutil = new PDFUtil();
-			pdfutil.setCompareMode(CompareMode.VISUAL_MODE);
-			
-			if(args.length>2){
-				pdfutil.highlightPdfDifference(true);
-				pdfutil.setImageDestinationPath(args[2]);				
-			}
-
-			pdfutil.compare(args[0], args[1]);
-		}
-		
-	}
-
-	private static void showUsage(){
-		System.out.println("Usage: java -jar pdf-util.jar file1.pdf file2.pdf [Optional:image-destination-path]");
-	}
-}
+package com.testautomationguru;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.testautomationguru.utility.BatchResultListener;
+import com.testautomationguru.utility.BatchSummary;
+import com.testautomationguru.utility.CompareMode;
+import com.testautomationguru.utility.ComparePair;
+import com.testautomationguru.utility.JUnitXmlBatchWriter;
+import com.testautomationguru.utility.JsonLinesBatchWriter;
+import com.testautomationguru.utility.PDFBatchCompare;
+import com.testautomationguru.utility.PDFUtil;
+import com.testautomationguru.utility.PDFUtilConfig;
+import com.testautomationguru.utility.PDFUtilMetrics;
+
+public final class Main {
+
+	public static void main(String[] args) throws IOException {
+
+		if(args.length>0 && "--batch".equals(args[0])){
+			System.exit(batch(args) ? 0 : 1);
+		}else if(args.length<2){
+			showUsage();
+		}else{
+			PDFUtil pdfutil = new PDFUtil();
+			pdfutil.setCompareMode(CompareMode.VISUAL_MODE);
+			PDFUtilMetrics metrics = new PDFUtilMetrics();
+			pdfutil.setMetricsListener(metrics);
+
+			if(args.length>2){
+				pdfutil.highlightPdfDifference(true);
+				pdfutil.setImageDestinationPath(args[2]);
+			}
+
+			pdfutil.compare(args[0], args[1]);
+			System.err.print(metrics);
+		}
+
+	}
+
+	/**
+	 * --batch (expected-dir actual-dir | --manifest file) [--threads n] [--format jsonl|junit] [--output file] [--diff-path dir]
+	 * 
+	 * The images of the differences of each pair are written to a sub directory of the diff path named after the pair.
+	 */
+	private static boolean batch(String[] args) throws IOException {
+
+		List<String> dirs = new ArrayList<String>();
+		String manifest = null;
+		String format = "jsonl";
+		String output = null;
+		String diffPath = null;
+		int threads = Runtime.getRuntime().availableProcessors();
+
+		for(int i=1; i<args.length; i++){
+			String arg = args[i];
+			if(arg.startsWith("--") && i+1>=args.length){
+				showUsage();
+				return false;
+			}
+			if("--manifest".equals(arg)){
+				manifest = args[++i];
+			}else if("--threads".equals(arg)){
+				threads = parseThreads(args[++i]);
+				if(threads < 1){
+					System.out.println("Invalid number of threads : " + args[i]);
+					showUsage();
+					return false;
+				}
+			}else if("--format".equals(arg)){
+				format = args[++i];
+			}else if("--output".equals(arg)){
+				output = args[++i];
+			}else if("--diff-path".equals(arg)){
+				diffPath = args[++i];
+			}else{
+				dirs.add(arg);
+			}
+		}
+
+		if(!"jsonl".equals(format) && !"junit".equals(format)){
+			System.out.println("Unknown format : " + format);
+			showUsage();
+			return false;
+		}
+
+		List<ComparePair> pairs;
+		if(null!=manifest && dirs.isEmpty()){
+			pairs = PDFBatchCompare.pairs(new File(manifest));
+		}else if(null==manifest && dirs.size()==2){
+			pairs = PDFBatchCompare.pairs(new File(dirs.get(0)), new File(dirs.get(1)));
+		}else{
+			showUsage();
+			return false;
+		}
+
+		PDFUtilMetrics metrics = new PDFUtilMetrics();
+		PDFUtilConfig.Builder config = PDFUtilConfig.builder().compareMode(CompareMode.VISUAL_MODE).metricsListener(metrics);
+		if(null!=diffPath){
+			config.highlightPdfDifference(true).imageDestinationPath(diffPath);
+		}
+		// one instance serves all the worker threads
+		PDFUtil pdfutil = new PDFUtil(config.build());
+
+		// closing the listener must not close stdout
+		OutputStream out = null==output ? new FilterOutputStream(System.out){
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException{
+				this.out.write(b, off, len);
+			}
+			@Override
+			public void close() throws IOException{
+				this.flush();
+			}
+		} : new FileOutputStream(output);
+		Writer writer = new OutputStreamWriter(out, Charset.forName("UTF-8"));
+		Closeable listener = "junit".equals(format) ? new JUnitXmlBatchWriter(writer, "pdf-util") : new JsonLinesBatchWriter(writer);
+		BatchSummary summary;
+		try{
+			summary = new PDFBatchCompare(pdfutil, threads).compare(pairs, (BatchResultListener) listener);
+		}finally{
+			listener.close();
+		}
+
+		// the results may be written to stdout
+		System.err.println(summary);
+		System.err.print(metrics);
+		return summary.isSuccess();
+	}
+
+	/**
+	 * @return the number of threads, 0 when it is not a number
+	 */
+	private static int parseThreads(String value){
+		try{
+			return Integer.parseInt(value);
+		}catch(NumberFormatException e){
+			return 0;
+		}
+	}
+
+	private static void showUsage(){
+		System.out.println("Usage: java -jar pdf-util.jar file1.pdf file2.pdf [Optional:image-destination-path]");
+		System.out.println("       java -jar pdf-util.jar --batch expected-dir actual-dir [options]");
+		System.out.println("       java -jar pdf-util.jar --batch --manifest pairs.csv [options]");
+		System.out.println("Options: --threads n  --format jsonl|junit  --output file  --diff-path image-destination-path");
+	}
+}
@@ -0,0 +1,265 @@
+package com.testautomationguru.utility;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+
+/**
+ * Compares a page of both the documents in horizontal bands, so that the memory used does not depend on the page size.
+ *
+ * Each band is rendered through a Graphics2D translated to the band and clipped to it, then compared and released
+ * before the next one. The band height is chosen so that the bands of both the documents, and the highlighted copy
+ * when the differences are highlighted, fit in the memory budget. The page is rendered as many times as it has bands,
+ * which costs some parsing of the content stream for each band.
+ *
+ * The differences of a page are highlighted band by band: the bands which differ are written as
+ * name_page_diff_band_n images, or as region snippets. Regions which cross a band boundary are merged.
+ *
+ * With a VisualTolerance the bands are first compared within the tolerance; a page beyond it is rendered again to
+ * highlight or group its differences.
+ *
+ * Images drawn in a band may be subsampled slightly differently than in a whole page render. Both the documents
+ * being rendered the same way, identical pages still match.
+ */
+class BandedPageComparator {
+
+	// shares the PDFUtil logger so that enableLog() / setLogLevel(..) apply
+	static Logger logger = Logger.getLogger(PDFUtil.class.getName());
+
+	// a multiple of the SSIM blocks and of the region cells, so that neither of them straddles two bands
+	static final int BAND_ALIGNMENT = 16;
+
+	private final PDFUtilConfig config;
+
+	BandedPageComparator(PDFUtilConfig config){
+		this.config = config;
+	}
+
+	/**
+	 * @param regions true to group the differences into regions
+	 * @param writer writes the differences; null to not write them
+	 * @param filePrefix path of the written images, without the "_diff.." suffix
+	 */
+	PageResult compare(PDFDocumentHandle handle1, PDFDocumentHandle handle2, int iPage, boolean regions,
+			ImageWriteQueue writer, String filePrefix) throws IOException{
+
+		final float dpi = this.config.getRenderDpi();
+		final int pageNumber = iPage + 1;
+		Dimension size1 = pageSize(handle1.getDocument().getPage(iPage), dpi);
+		Dimension size2 = pageSize(handle2.getDocument().getPage(iPage), dpi);
+		if(!size1.equals(size2)){
+			logger.warning("Page No : " + pageNumber + " - page sizes do not match");
+			PageResult page = new PageResult(pageNumber, PageResult.Status.DIFFERENT, null, null);
+			if(regions){
+				Rectangle bounds = new Rectangle(0, 0, Math.max(size1.width, size2.width), Math.max(size1.height, size2.height));
+				List<DiffRegion> diffRegions = new ArrayList<DiffRegion>();
+				diffRegions.add(new DiffRegion(pageNumber, bounds, (long) bounds.width * bounds.height, dpi));
+				page.setDiffRegions(diffRegions);
+			}
+			return page;
+		}
+
+		boolean snippets = DiffImageMode.REGION_SNIPPETS==this.config.getDiffImageMode();
+		boolean details = regions || null!=writer;
+		int bandHeight = bandHeight(this.config.getRenderMemoryBudget(), size1.width, size1.height,
+				this.config.getRenderImageType(), null!=writer && !snippets);
+		logger.info("Page No : " + pageNumber + " - " + size1.width + "x" + size1.height + " compared in bands of " + bandHeight + " rows");
+
+		if(null!=this.config.getVisualTolerance()){
+			TolerantImageComparator tolerant = new TolerantImageComparator(this.config.getVisualTolerance());
+			if(this.compareWithinTolerance(tolerant, handle1, handle2, iPage, size1, bandHeight)){
+				PageResult page = new PageResult(pageNumber, PageResult.Status.MATCH, null, null);
+				page.setDifferentPixels(tolerant.getDifferentPixels());
+				return page;
+			}
+			if(!details){
+				return new PageResult(pageNumber, PageResult.Status.DIFFERENT, null, null);
+			}
+		}
+		return this.compareExact(handle1, handle2, iPage, size1, bandHeight, regions || (null!=writer && snippets), writer, snippets, filePrefix);
+	}
+
+	private boolean compareWithinTolerance(TolerantImageComparator tolerant, PDFDocumentHandle handle1, PDFDocumentHandle handle2, int iPage, 
+			Dimension size, int bandHeight) throws IOException{
+		tolerant.begin((long) size.width * size.height);
+		boolean match = true;
+		for(int y=0; y<size.height && match; y+=bandHeight){
+			PDFUtil.checkInterrupted();
+			int height = Math.min(bandHeight, size.height - y);
+			BufferedImage band1 = this.renderBand(handle1, iPage, size.width, y, height);
+			BufferedImage band2 = this.renderBand(handle2, iPage, size.width, y, height);
+			long start = System.nanoTime();
+			match = tolerant.add(band1, band2);
+			MetricEvent.emit(handle1.getMetricsListener(), MetricStage.PIXEL_COMPARE, handle1.getFile(), iPage+1, 0, start, 0);
+		}
+		match = match && tolerant.end();
+		logger.info("Page No : " + (iPage+1) + (match ? " - matches" : " - does not match") + " within the tolerance");
+		return match;
+	}
+
+	private PageResult compareExact(PDFDocumentHandle handle1, PDFDocumentHandle handle2, int iPage, Dimension size, int bandHeight,
+			boolean group, ImageWriteQueue writer, boolean snippets, String filePrefix) throws IOException{
+
+		final int pageNumber = iPage + 1;
+		final int colorCode = this.config.getHighlightColor().getRGB();
+		boolean highlight = null!=writer && !snippets;
+		boolean fullScan = highlight || group;
+		TiledImageComparator comparator = new TiledImageComparator();
+		List<TiledImageComparator.Region> pageRegions = new ArrayList<TiledImageComparator.Region>();
+		boolean match = true;
+		long differentPixels = 0;
+		int band = 0;
+		int snippet = 0;
+		for(int y=0; y<size.height; y+=bandHeight){
+			PDFUtil.checkInterrupted();
+			band++;
+			int height = Math.min(bandHeight, size.height - y);
+			BufferedImage band1 = this.renderBand(handle1, iPage, size.width, y, height);
+			BufferedImage band2 = this.renderBand(handle2, iPage, size.width, y, height);
+			long start = System.nanoTime();
+			boolean bandMatch = comparator.compare(band1, band2, highlight, group, colorCode);
+			MetricEvent.emit(handle1.getMetricsListener(), MetricStage.PIXEL_COMPARE, handle1.getFile(), pageNumber, 0, start, 0);
+			if(bandMatch){
+				continue;
+			}
+			match = false;
+			if(!fullScan){
+				break;
+			}
+			differentPixels += comparator.getDifferentPixels();
+			if(highlight){
+				writer.write(comparator.getHighlightedImage(), filePrefix + "_diff_band_" + band + "." + writer.getExtension(), 0);
+			}
+			for(TiledImageComparator.Region region : comparator.getRegions()){
+				if(null!=writer && snippets){
+					writer.write(ImageUtil.snippet(band1, band2, region.bounds, colorCode),
+							filePrefix + "_diff_" + (++snippet) + "." + writer.getExtension(), 0);
+				}
+				Rectangle bounds = new Rectangle(region.bounds);
+				bounds.translate(0, y);
+				pageRegions.add(new TiledImageComparator.Region(bounds, region.pixels));
+			}
+		}
+		if(match){
+			return new PageResult(pageNumber, PageResult.Status.MATCH, null, null);
+		}
+		logger.warning("Page No : " + pageNumber + " - does not match");
+		PageResult page = new PageResult(pageNumber, PageResult.Status.DIFFERENT, null, null);
+		if(fullScan){
+			page.setDifferentPixels(differentPixels);
+		}
+		if(group){
+			List<DiffRegion> diffRegions = new ArrayList<DiffRegion>();
+			for(TiledImageComparator.Region region : mergeAcrossBands(pageRegions, bandHeight)){
+				diffRegions.add(new DiffRegion(pageNumber, region.bounds, region.pixels, this.config.getRenderDpi()));
+			}
+			page.setDiffRegions(diffRegions);
+		}
+		return page;
+	}
+
+	/**
+	 * Renders the rows y to y + height of the page, the same way as PDFRenderer.renderImageWithDPI(..) renders the page.
+	 */
+	private BufferedImage renderBand(PDFDocumentHandle handle, int iPage, int width, int y, int height) throws IOException{
+		ImageType type = this.config.getRenderImageType();
+		PDFRenderer renderer = handle.getRenderer();
+		long start = System.nanoTime();
+		BufferedImage band = new BufferedImage(width, height, bufferedImageType(type));
+		Graphics2D g = band.createGraphics();
+		try{
+			g.setBackground(ImageType.ARGB==type ? new Color(0, 0, 0, 0) : Color.WHITE);
+			g.clearRect(0, 0, width, height);
+			g.translate(0, -y);
+			g.clipRect(0, y, width, height);
+			renderer.renderPageToGraphics(iPage, g, this.config.getRenderDpi() / 72f);
+		}finally{
+			g.dispose();
+		}
+		// the page is counted once, with its first band
+		MetricEvent.emit(handle.getMetricsListener(), MetricStage.RENDER, handle.getFile(), iPage+1, 0==y ? 1 : 0, start, PDFUtil.rasterBytes(band));
+		return band;
+	}
+
+	/**
+	 * @return size in pixels of the page rendered at the dpi, as PDFRenderer computes it
+	 */
+	static Dimension pageSize(PDPage page, float dpi){
+		PDRectangle cropBox = page.getCropBox();
+		float scale = dpi / 72f;
+		int width = Math.round(cropBox.getWidth() * scale);
+		int height = Math.round(cropBox.getHeight() * scale);
+		int rotation = page.getRotation();
+		return rotation==90 || rotation==270 ? new Dimension(height, width) : new Dimension(width, height);
+	}
+
+	/**
+	 * @param highlightPage true when a highlighted copy of each band is made
+	 * @return number of rows of the bands which keep the rasters of a comparison within the budget
+	 */
+	static int bandHeight(long budget, int width, int height, ImageType type, boolean highlightPage){
+		int bytesPerPixel = ImageType.GRAY==type || ImageType.BINARY==type ? 1 : 4;
+		// a band of each document, and the TYPE_INT_ARGB highlighted copy
+		long bytesPerRow = (long) width * (2 * bytesPerPixel + (highlightPage ? 4 : 0));
+		long rows = budget / Math.max(1, bytesPerRow);
+		rows = rows / BAND_ALIGNMENT * BAND_ALIGNMENT;
+		return (int) Math.min(height, Math.max(BAND_ALIGNMENT, rows));
+	}
+
+	static int bufferedImageType(ImageType type){
+		switch(type){
+		case ARGB:
+			return BufferedImage.TYPE_INT_ARGB;
+		case GRAY:
+			return BufferedImage.TYPE_BYTE_GRAY;
+		case BINARY:
+			return BufferedImage.TYPE_BYTE_BINARY;
+		default:
+			return BufferedImage.TYPE_INT_RGB;
+		}
+	}
+
+	/**
+	 * Merges the regions of adjacent bands whose cells touch across the boundary of the bands,
+	 * as TiledImageComparator would have grouped them in a whole page.
+	 */
+	static List<TiledImageComparator.Region> mergeAcrossBands(List<TiledImageComparator.Region> regions, int bandHeight){
+		final int cell = TiledImageComparator.REGION_CELL_SIZE;
+		List<TiledImageComparator.Region> merged = new ArrayList<TiledImageComparator.Region>(regions);
+		boolean changed = true;
+		while(changed){
+			changed = false;
+			for(int i=0; i<merged.size() && !changed; i++){
+				for(int j=i+1; j<merged.size() && !changed; j++){
+					Rectangle a = merged.get(i).bounds;
+					Rectangle b = merged.get(j).bounds;
+					Rectangle upper = a.y <= b.y ? a : b;
+					Rectangle lower = upper==a ? b : a;
+					int boundary = (lower.y / bandHeight) * bandHeight;
+					boolean acrossBoundary = upper.y < boundary && lower.y < boundary + cell
+							&& upper.y + upper.height > boundary - cell;
+					// cells of the same or of a neighbouring column
+					boolean touching = lower.x / cell <= (upper.x + upper.width - 1) / cell + 1
+							&& upper.x / cell <= (lower.x + lower.width - 1) / cell + 1;
+					if(acrossBoundary && touching){
+						merged.set(i, new TiledImageComparator.Region(a.union(b), merged.get(i).pixels + merged.get(j).pixels));
+						merged.remove(j);
+						changed = true;
+					}
+				}
+			}
+		}
+		return merged;
+	}
+}
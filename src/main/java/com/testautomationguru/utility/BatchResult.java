@@ -0,0 +1,78 @@
+package com.testautomationguru.utility;
+
+/**
+ * Outcome of the comparison of one pair of a batch.
+ */
+public final class BatchResult {
+
+	public enum Status {
+		/** files match */
+		MATCH,
+		/** files do not match */
+		DIFFERENT,
+		/** one of the files does not exist */
+		MISSING,
+		/** the comparison failed */
+		ERROR
+	}
+
+	private final ComparePair pair;
+	private final Status status;
+	private final long durationMillis;
+	private final String message;
+	private final String diffPath;
+
+	public BatchResult(ComparePair pair, Status status, long durationMillis, String message){
+		this(pair, status, durationMillis, message, null);
+	}
+
+	/**
+	 * @param diffPath directory where the differences of the pair are written; null when they are not written
+	 */
+	public BatchResult(ComparePair pair, Status status, long durationMillis, String message, String diffPath){
+		this.pair = pair;
+		this.status = status;
+		this.durationMillis = durationMillis;
+		this.message = message;
+		this.diffPath = diffPath;
+	}
+
+	public ComparePair getPair(){
+		return this.pair;
+	}
+
+	public Status getStatus(){
+		return this.status;
+	}
+
+	public boolean isMatch(){
+		return Status.MATCH == this.status;
+	}
+
+	/**
+	 * @return time taken by the comparison of this pair
+	 */
+	public long getDurationMillis(){
+		return this.durationMillis;
+	}
+
+	/**
+	 * @return error or missing file details, null otherwise
+	 */
+	public String getMessage(){
+		return this.message;
+	}
+
+	/**
+	 * @return directory where the images of the differences of this pair are written, null otherwise
+	 */
+	public String getDiffPath(){
+		return this.diffPath;
+	}
+
+	@Override
+	public String toString(){
+		return this.pair + " : " + this.status + " (" + this.durationMillis + " ms)" + (null==this.message ? "" : " " + this.message)
+				+ (null==this.diffPath ? "" : " " + this.diffPath);
+	}
+}
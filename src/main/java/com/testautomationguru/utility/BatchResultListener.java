@@ -0,0 +1,12 @@
+package com.testautomationguru.utility;
+
+import java.io.IOException;
+
+/**
+ * Receives the result of each pair of a batch as soon as its comparison is done.
+ * Calls are serialized by PDFBatchCompare, implementations do not need to be thread-safe.
+ */
+public interface BatchResultListener {
+
+	void onResult(BatchResult result) throws IOException;
+}
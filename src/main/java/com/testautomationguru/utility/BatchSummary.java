@@ -0,0 +1,93 @@
+package com.testautomationguru.utility;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Totals, throughput and per-pair latency of a batch.
+ */
+public class BatchSummary implements BatchResultListener {
+
+	private final Map<BatchResult.Status, Integer> counts = new EnumMap<BatchResult.Status, Integer>(BatchResult.Status.class);
+	private long[] latencies = new long[64];
+	private int total;
+	private long startNanos = System.nanoTime();
+	private long elapsedMillis = -1;
+
+	void start(){
+		this.startNanos = System.nanoTime();
+	}
+
+	void finish(){
+		this.elapsedMillis = (System.nanoTime() - this.startNanos) / 1000000;
+	}
+
+	@Override
+	public void onResult(BatchResult result){
+		Integer count = this.counts.get(result.getStatus());
+		this.counts.put(result.getStatus(), null==count ? 1 : count + 1);
+		if(this.total == this.latencies.length){
+			this.latencies = Arrays.copyOf(this.latencies, this.total * 2);
+		}
+		this.latencies[this.total++] = result.getDurationMillis();
+	}
+
+	public int getTotal(){
+		return this.total;
+	}
+
+	public int getCount(BatchResult.Status status){
+		Integer count = this.counts.get(status);
+		return null==count ? 0 : count;
+	}
+
+	/**
+	 * @return true if every pair matched
+	 */
+	public boolean isSuccess(){
+		return this.getCount(BatchResult.Status.MATCH) == this.total;
+	}
+
+	/**
+	 * @return wall clock time of the batch
+	 */
+	public long getElapsedMillis(){
+		return this.elapsedMillis >= 0 ? this.elapsedMillis : (System.nanoTime() - this.startNanos) / 1000000;
+	}
+
+	/**
+	 * @return pairs compared per second
+	 */
+	public double getThroughput(){
+		long elapsed = Math.max(1, this.getElapsedMillis());
+		return this.total * 1000.0 / elapsed;
+	}
+
+	/**
+	 * @param percentile 0 - 100
+	 * @return latency of a single pair at the given percentile, in milliseconds
+	 */
+	public long getLatencyPercentile(double percentile){
+		if(this.total == 0){
+			return 0;
+		}
+		long[] sorted = Arrays.copyOf(this.latencies, this.total);
+		Arrays.sort(sorted);
+		int index = (int) Math.ceil(percentile / 100.0 * this.total) - 1;
+		return sorted[Math.min(this.total - 1, Math.max(0, index))];
+	}
+
+	@Override
+	public String toString(){
+		return String.format(Locale.ROOT,
+				"pairs: %d, match: %d, different: %d, missing: %d, error: %d%n"
+				+ "elapsed: %d ms, throughput: %.2f pairs/s%n"
+				+ "latency per pair: p50 %d ms, p95 %d ms, max %d ms",
+				this.total, this.getCount(BatchResult.Status.MATCH), this.getCount(BatchResult.Status.DIFFERENT),
+				this.getCount(BatchResult.Status.MISSING), this.getCount(BatchResult.Status.ERROR),
+				this.getElapsedMillis(), this.getThroughput(),
+				this.getLatencyPercentile(50), this.getLatencyPercentile(95), this.getLatencyPercentile(100));
+	}
+}
@@ -1,6 +1,6 @@
-package com.testautomationguru.utility;
-
-public enum CompareMode {
-	TEXT_MODE,
-	VISUAL_MODE
-}
+package com.testautomationguru.utility;
+
+public enum CompareMode {
+	TEXT_MODE,
+	VISUAL_MODE
+}
@@ -0,0 +1,61 @@
+package com.testautomationguru.utility;
+
+import java.io.File;
+
+/**
+ * Expected and actual pdf files to be compared in a batch.
+ */
+public final class ComparePair {
+
+	private final String name;
+	private final File expected;
+	private final File actual;
+	private final String directory;
+
+	/**
+	 * @param name name of the pair in the reports, usually the relative path of the files; also the directory of 
+	 * its images of the differences
+	 * @param expected expected file; it may not exist
+	 * @param actual actual file; it may not exist
+	 */
+	public ComparePair(String name, File expected, File actual){
+		this(name, expected, actual, name);
+	}
+
+	/**
+	 * @param name name of the pair in the reports
+	 * @param expected expected file; it may not exist
+	 * @param actual actual file; it may not exist
+	 * @param directory relative path of the directory of the images of the differences of the pair, unique in its batch
+	 */
+	public ComparePair(String name, File expected, File actual, String directory){
+		this.name = name;
+		this.expected = expected;
+		this.actual = actual;
+		this.directory = directory;
+	}
+
+	public String getName(){
+		return this.name;
+	}
+
+	public File getExpected(){
+		return this.expected;
+	}
+
+	public File getActual(){
+		return this.actual;
+	}
+
+	/**
+	 * @return relative path of the directory of the images of the differences of the pair
+	 */
+	public String getDirectory(){
+		return this.directory;
+	}
+
+	@Override
+	public String toString(){
+		return this.name;
+	}
+}
@@ -0,0 +1,256 @@
+package com.testautomationguru.utility;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Outcome of the comparison of two pdf documents, page by page.
+ *
+ * Only the pages which have been compared are listed: unless all the pages are compared
+ * (see {@link PDFUtil#compareAllPages(boolean)}), the comparison stops at the first page which does not match.
+ *
+ * The result holds everything the comparison found - status, differing pixels, regions, text differences, time of
+ * each stage and, if kept, the highlighted images - so it can be returned as is, or as JSON with toJson(..),
+ * without reading the files written to the image destination path.
+ */
+public final class CompareResult {
+
+	private final String expectedFile;
+	private final String actualFile;
+	private final CompareMode compareMode;
+	private final List<PageResult> pages = new ArrayList<PageResult>();
+	private final StageTimings timings;
+	private final long startNanos = System.nanoTime();
+	private long durationNanos;
+	private String imageDestinationPath;
+
+	CompareResult(String expectedFile, String actualFile, CompareMode compareMode, StageTimings timings){
+		this.expectedFile = expectedFile;
+		this.actualFile = actualFile;
+		this.compareMode = compareMode;
+		this.timings = timings;
+	}
+
+	/**
+	 * Ends the comparison, at the end of its duration.
+	 */
+	void done(){
+		this.durationNanos = System.nanoTime() - this.startNanos;
+	}
+
+	void add(PageResult page){
+		this.pages.add(page);
+	}
+
+	public String getExpectedFile(){
+		return this.expectedFile;
+	}
+
+	public String getActualFile(){
+		return this.actualFile;
+	}
+
+	public CompareMode getCompareMode(){
+		return this.compareMode;
+	}
+
+	/**
+	 * @return true if every compared page matches
+	 */
+	public boolean isMatch(){
+		for(PageResult page : this.pages){
+			if(!page.isMatch()){
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return results of the compared pages, in page order
+	 */
+	public List<PageResult> getPageResults(){
+		return Collections.unmodifiableList(this.pages);
+	}
+
+	/**
+	 * @return 1 based numbers of the pages which do not match
+	 */
+	public List<Integer> getDifferentPages(){
+		List<Integer> different = new ArrayList<Integer>();
+		for(PageResult page : this.pages){
+			if(!page.isMatch()){
+				different.add(page.getPageNumber());
+			}
+		}
+		return different;
+	}
+
+	/**
+	 * @return differences of all the compared pages, in page order
+	 */
+	public List<DiffHunk> getDiffHunks(){
+		List<DiffHunk> hunks = new ArrayList<DiffHunk>();
+		for(PageResult page : this.pages){
+			hunks.addAll(page.getDiffHunks());
+		}
+		return hunks;
+	}
+
+	/**
+	 * @return regions of differences of all the compared pages, in page order
+	 */
+	public List<DiffRegion> getDiffRegions(){
+		List<DiffRegion> regions = new ArrayList<DiffRegion>();
+		for(PageResult page : this.pages){
+			regions.addAll(page.getDiffRegions());
+		}
+		return regions;
+	}
+
+	/**
+	 * @return directory where the differences of this comparison are written; null when they are not written
+	 */
+	public String getImageDestinationPath(){
+		return this.imageDestinationPath;
+	}
+
+	void setImageDestinationPath(String imageDestinationPath){
+		this.imageDestinationPath = imageDestinationPath;
+	}
+
+	/**
+	 * @return wall clock time of the comparison
+	 */
+	public long getDurationMillis(){
+		return this.durationNanos / 1000000L;
+	}
+
+	/**
+	 * @return time spent in each stage of the comparison (see MetricStage), summed over the threads which did the work;
+	 * the stages not done are not listed
+	 */
+	public Map<MetricStage, Long> getStageNanos(){
+		return this.timings.getStageNanos();
+	}
+
+	/**
+	 * @return the result as a JSON object, without the images
+	 */
+	public String toJson(){
+		try{
+			return this.toJson(false);
+		}catch(IOException e){
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * @param includeImages true to add the kept diff images, as base64 PNG data URIs
+	 * @return the result as a JSON object: the files, the status, the timings (in milliseconds) and each compared page
+	 * with its differing pixels, regions (in points), text differences and text
+	 * @throws java.io.IOException when an image cannot be encoded
+	 */
+	public String toJson(boolean includeImages) throws IOException{
+		StringBuilder sb = new StringBuilder(1024);
+		sb.append("{\"expected\":");
+		JsonLinesBatchWriter.quote(sb, this.expectedFile);
+		sb.append(",\"actual\":");
+		JsonLinesBatchWriter.quote(sb, this.actualFile);
+		sb.append(",\"mode\":\"").append(this.compareMode).append('"');
+		sb.append(",\"match\":").append(this.isMatch());
+		sb.append(",\"durationMillis\":").append(this.getDurationMillis());
+		sb.append(",\"stageMillis\":{");
+		String separator = "";
+		for(Map.Entry<MetricStage, Long> stage : this.getStageNanos().entrySet()){
+			sb.append(separator).append('"').append(stage.getKey()).append("\":").append(millis(stage.getValue()));
+			separator = ",";
+		}
+		sb.append("},\"pages\":[");
+		separator = "";
+		for(PageResult page : this.pages){
+			sb.append(separator);
+			appendPage(sb, page, includeImages);
+			separator = ",";
+		}
+		sb.append("]}");
+		return sb.toString();
+	}
+
+	private static void appendPage(StringBuilder sb, PageResult page, boolean includeImages) throws IOException{
+		sb.append("{\"page\":").append(page.getPageNumber());
+		sb.append(",\"status\":\"").append(page.getStatus()).append('"');
+		sb.append(",\"differentPixels\":").append(page.getDifferentPixels());
+		if(!page.getDiffRegions().isEmpty()){
+			sb.append(",\"regions\":[");
+			String separator = "";
+			for(DiffRegion region : page.getDiffRegions()){
+				sb.append(separator).append(String.format(Locale.ROOT, "{\"x\":%.2f,\"y\":%.2f,\"width\":%.2f,\"height\":%.2f,\"pixels\":%d}",
+						region.getX(), region.getY(), region.getWidth(), region.getHeight(), region.getDifferentPixels()));
+				separator = ",";
+			}
+			sb.append(']');
+		}
+		if(!page.getDiffHunks().isEmpty()){
+			sb.append(",\"hunks\":[");
+			String separator = "";
+			for(DiffHunk hunk : page.getDiffHunks()){
+				sb.append(separator).append("{\"type\":\"").append(hunk.getType()).append('"');
+				sb.append(",\"expectedIndex\":").append(hunk.getExpectedIndex());
+				sb.append(",\"actualIndex\":").append(hunk.getActualIndex());
+				sb.append(",\"expected\":");
+				appendStrings(sb, hunk.getExpected());
+				sb.append(",\"actual\":");
+				appendStrings(sb, hunk.getActual());
+				sb.append('}');
+				separator = ",";
+			}
+			sb.append(']');
+		}
+		if(null!=page.getExpectedText()){
+			sb.append(",\"expectedText\":");
+			JsonLinesBatchWriter.quote(sb, page.getExpectedText());
+		}
+		if(null!=page.getActualText()){
+			sb.append(",\"actualText\":");
+			JsonLinesBatchWriter.quote(sb, page.getActualText());
+		}
+		if(includeImages && null!=page.getDiffImage()){
+			sb.append(",\"diffImage\":\"data:image/png;base64,").append(base64Png(page.getDiffImage())).append('"');
+		}
+		sb.append('}');
+	}
+
+	private static void appendStrings(StringBuilder sb, List<String> values){
+		sb.append('[');
+		for(int i=0; i<values.size(); i++){
+			if(i > 0){
+				sb.append(',');
+			}
+			JsonLinesBatchWriter.quote(sb, values.get(i));
+		}
+		sb.append(']');
+	}
+
+	private static String millis(long nanos){
+		return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+	}
+
+	private static String base64Png(BufferedImage image) throws IOException{
+		ByteArrayOutputStream png = new ByteArrayOutputStream();
+		new PngImageOutput().write(image, png, 0);
+		return Base64.getEncoder().encodeToString(png.toByteArray());
+	}
+
+	@Override
+	public String toString(){
+		return this.expectedFile + " vs " + this.actualFile + " : " + (this.isMatch() ? "matches" : "pages " + this.getDifferentPages() + " do not match");
+	}
+}
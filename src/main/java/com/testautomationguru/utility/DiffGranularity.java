@@ -0,0 +1,6 @@
+package com.testautomationguru.utility;
+
+public enum DiffGranularity {
+	LINE,
+	WORD
+}
@@ -0,0 +1,90 @@
+package com.testautomationguru.utility;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A run of consecutive lines (or words) which differ between the expected and the actual text of a page.
+ */
+public final class DiffHunk {
+
+	public enum Type {
+		/** lines present only in the actual text */
+		INSERT,
+		/** lines present only in the expected text */
+		DELETE,
+		/** lines of the expected text replaced by other lines in the actual text */
+		CHANGE
+	}
+
+	private final int pageNumber;
+	private final Type type;
+	private final int expectedIndex;
+	private final int actualIndex;
+	private final List<String> expected;
+	private final List<String> actual;
+
+	DiffHunk(int pageNumber, int expectedIndex, List<String> expected, int actualIndex, List<String> actual){
+		this.pageNumber = pageNumber;
+		this.type = expected.isEmpty() ? Type.INSERT : actual.isEmpty() ? Type.DELETE : Type.CHANGE;
+		this.expectedIndex = expectedIndex;
+		this.actualIndex = actualIndex;
+		this.expected = Collections.unmodifiableList(expected);
+		this.actual = Collections.unmodifiableList(actual);
+	}
+
+	/**
+	 * @return 1 based page number
+	 */
+	public int getPageNumber(){
+		return this.pageNumber;
+	}
+
+	public Type getType(){
+		return this.type;
+	}
+
+	/**
+	 * @return 0 based index of the first line (or word) of the hunk in the expected text of the page;
+	 * for an INSERT, the index before which the lines are inserted
+	 */
+	public int getExpectedIndex(){
+		return this.expectedIndex;
+	}
+
+	/**
+	 * @return 0 based index of the first line (or word) of the hunk in the actual text of the page;
+	 * for a DELETE, the index where the lines have been removed
+	 */
+	public int getActualIndex(){
+		return this.actualIndex;
+	}
+
+	/**
+	 * @return lines (or words) of the expected text; empty for an INSERT
+	 */
+	public List<String> getExpected(){
+		return this.expected;
+	}
+
+	/**
+	 * @return lines (or words) of the actual text; empty for a DELETE
+	 */
+	public List<String> getActual(){
+		return this.actual;
+	}
+
+	@Override
+	public String toString(){
+		StringBuilder sb = new StringBuilder();
+		sb.append("Page No : ").append(this.pageNumber).append(" - ").append(this.type)
+			.append(" @").append(this.expectedIndex + 1).append(',').append(this.actualIndex + 1);
+		for(String s : this.expected){
+			sb.append("\n- ").append(s);
+		}
+		for(String s : this.actual){
+			sb.append("\n+ ").append(s);
+		}
+		return sb.toString();
+	}
+}
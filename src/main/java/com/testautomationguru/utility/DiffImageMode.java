@@ -0,0 +1,11 @@
+package com.testautomationguru.utility;
+
+/**
+ * Images written for the pages which do not match in VISUAL_MODE, when the differences are highlighted.
+ */
+public enum DiffImageMode {
+	/** The whole page of the expected file with the differing pixels painted in the highlight color. */
+	HIGHLIGHTED_PAGE,
+	/** One small image per region of differences: the expected and the actual side by side, cropped to the region. */
+	REGION_SNIPPETS
+}
@@ -0,0 +1,72 @@
+package com.testautomationguru.utility;
+
+import java.awt.Rectangle;
+import java.util.Locale;
+
+/**
+ * Bounding box of a group of differing pixels found by a VISUAL_MODE comparison.
+ *
+ * The box is given in page coordinates: points (1/72 inch) from the top left corner of the rendered page,
+ * so it does not depend on the render dpi. The pixel bounds are those of the pages rendered at the render dpi.
+ */
+public final class DiffRegion {
+
+	private final int pageNumber;
+	private final Rectangle pixelBounds;
+	private final long differentPixels;
+	private final float dpi;
+
+	DiffRegion(int pageNumber, Rectangle pixelBounds, long differentPixels, float dpi){
+		this.pageNumber = pageNumber;
+		this.pixelBounds = pixelBounds;
+		this.differentPixels = differentPixels;
+		this.dpi = dpi;
+	}
+
+	/**
+	 * @return 1 based page number
+	 */
+	public int getPageNumber(){
+		return this.pageNumber;
+	}
+
+	public float getX(){
+		return this.toPoints(this.pixelBounds.x);
+	}
+
+	public float getY(){
+		return this.toPoints(this.pixelBounds.y);
+	}
+
+	public float getWidth(){
+		return this.toPoints(this.pixelBounds.width);
+	}
+
+	public float getHeight(){
+		return this.toPoints(this.pixelBounds.height);
+	}
+
+	/**
+	 * @return bounds of the region in the rendered page, in pixels
+	 */
+	public Rectangle getPixelBounds(){
+		return new Rectangle(this.pixelBounds);
+	}
+
+	/**
+	 * @return number of differing pixels in the region
+	 */
+	public long getDifferentPixels(){
+		return this.differentPixels;
+	}
+
+	private float toPoints(int pixels){
+		return pixels * 72f / this.dpi;
+	}
+
+	@Override
+	public String toString(){
+		return String.format(Locale.ROOT, "Page No : %d - [x=%.1f, y=%.1f, width=%.1f, height=%.1f] %d pixels",
+				this.pageNumber, this.getX(), this.getY(), this.getWidth(), this.getHeight(), this.differentPixels);
+	}
+}
@@ -0,0 +1,329 @@
+package com.testautomationguru.utility;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.MultiPixelPackedSampleModel;
+import java.awt.image.SampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Page image cache stored in a directory, shared across runs and JVMs.
+ *
+ * Every page is stored in its own file as the raw raster data of the image, deflated with the fastest setting.
+ * Reading an entry back is a plain inflate and array copy, far cheaper than rendering the page again.
+ *
+ * The total size of the directory is bounded. When an entry is added the least recently used entries are deleted
+ * until the cache fits again. The usage order survives restarts through the last modified time of the files.
+ * Entries are written to a temp file and renamed, so a reader never sees a partially written entry.
+ */
+public class DiskPageImageCache implements PageImageCache {
+
+	// shares the PDFUtil logger so that enableLog() / setLogLevel(..) apply
+	static Logger logger = Logger.getLogger(PDFUtil.class.getName());
+
+	private static final String EXTENSION = ".page";
+	private static final int MAGIC = 0x50444650; // PDFP
+	private static final int VERSION = 1;
+	private static final int CHUNK = 16 * 1024;
+
+	private final File directory;
+	private final long maxBytes;
+	private final LinkedHashMap<String, Long> entries = new LinkedHashMap<String, Long>(16, 0.75f, true);
+	private long totalBytes;
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+
+	/**
+	 * @param directory directory of the cache; created if it does not exist
+	 * @param maxBytes maximum size of the cache on disk
+	 * @throws IOException when the directory can not be created
+	 */
+	public DiskPageImageCache(File directory, long maxBytes) throws IOException{
+		this.directory = directory;
+		this.maxBytes = maxBytes;
+		if(!directory.isDirectory() && !directory.mkdirs()){
+			throw new IOException("Unable to create the cache directory " + directory);
+		}
+		this.loadIndex();
+	}
+
+	@Override
+	public BufferedImage get(PageImageKey key) throws IOException{
+		String name = key.toFileName() + EXTENSION;
+		File file = new File(this.directory, name);
+		boolean indexed;
+		synchronized(this.entries){
+			indexed = null!=this.entries.get(name);
+		}
+		// the entry may have been added by another JVM
+		if(!indexed && !file.isFile()){
+			this.misses.incrementAndGet();
+			return null;
+		}
+		try{
+			BufferedImage image = read(file);
+			file.setLastModified(System.currentTimeMillis());
+			if(!indexed){
+				this.add(name, file.length());
+			}
+			this.hits.incrementAndGet();
+			return image;
+		}catch(FileNotFoundException e){
+			// evicted by another JVM
+			this.remove(name);
+		}catch(IOException e){
+			logger.warning("Discarding unreadable cache entry " + file + " : " + e.getMessage());
+			this.remove(name);
+			file.delete();
+		}
+		this.misses.incrementAndGet();
+		return null;
+	}
+
+	@Override
+	public void put(PageImageKey key, BufferedImage image) throws IOException{
+		if(!isSupported(image)){
+			logger.info("Image type " + image.getType() + " is not cached");
+			return;
+		}
+		String name = key.toFileName() + EXTENSION;
+		File file = new File(this.directory, name);
+		File temp = File.createTempFile(key.getContentHash(), ".tmp", this.directory);
+		try{
+			write(image, temp);
+			if(!temp.renameTo(file)){
+				file.delete();
+				if(!temp.renameTo(file)){
+					throw new IOException("Unable to move " + temp + " to " + file);
+				}
+			}
+		}finally{
+			temp.delete();
+		}
+
+		this.add(name, file.length());
+	}
+
+	public long getHitCount(){
+		return this.hits.get();
+	}
+
+	public long getMissCount(){
+		return this.misses.get();
+	}
+
+	public long getEvictionCount(){
+		return this.evictions.get();
+	}
+
+	/**
+	 * @return current size of the cache on disk in bytes
+	 */
+	public long getSize(){
+		synchronized(this.entries){
+			return this.totalBytes;
+		}
+	}
+
+	public File getDirectory(){
+		return this.directory;
+	}
+
+	@Override
+	public String toString(){
+		return "DiskPageImageCache[" + this.directory + ", hits=" + this.getHitCount() + ", misses=" + this.getMissCount()
+				+ ", evictions=" + this.getEvictionCount() + ", size=" + this.getSize() + "/" + this.maxBytes + "]";
+	}
+
+	private void loadIndex(){
+		File[] files = this.directory.listFiles();
+		if(null==files){
+			return;
+		}
+		Arrays.sort(files, new Comparator<File>(){
+			@Override
+			public int compare(File f1, File f2){
+				return Long.compare(f1.lastModified(), f2.lastModified());
+			}
+		});
+		synchronized(this.entries){
+			for(File file : files){
+				if(file.isFile() && file.getName().endsWith(EXTENSION)){
+					this.entries.put(file.getName(), file.length());
+					this.totalBytes += file.length();
+				}
+			}
+			this.evict();
+		}
+	}
+
+	private void add(String name, long size){
+		synchronized(this.entries){
+			Long previous = this.entries.put(name, size);
+			this.totalBytes += size - (null==previous ? 0 : previous);
+			this.evict();
+		}
+	}
+
+	private void remove(String name){
+		synchronized(this.entries){
+			Long size = this.entries.remove(name);
+			if(null!=size){
+				this.totalBytes -= size;
+			}
+		}
+	}
+
+	/**
+	 * Deletes the least recently used entries until the cache fits. Called with the lock held.
+	 */
+	private void evict(){
+		Iterator<Map.Entry<String, Long>> it = this.entries.entrySet().iterator();
+		while(this.totalBytes > this.maxBytes && it.hasNext()){
+			Map.Entry<String, Long> eldest = it.next();
+			it.remove();
+			this.totalBytes -= eldest.getValue();
+			new File(this.directory, eldest.getKey()).delete();
+			this.evictions.incrementAndGet();
+		}
+	}
+
+	private static boolean isSupported(BufferedImage image){
+		switch(image.getType()){
+			case BufferedImage.TYPE_INT_RGB:
+			case BufferedImage.TYPE_INT_ARGB:
+			case BufferedImage.TYPE_BYTE_GRAY:
+			case BufferedImage.TYPE_BYTE_BINARY:
+			case BufferedImage.TYPE_3BYTE_BGR:
+			case BufferedImage.TYPE_4BYTE_ABGR:
+				break;
+			default:
+				return false;
+		}
+		// only plain rasters, laid out as a new BufferedImage of the same type, can be restored as is
+		WritableRaster raster = image.getRaster();
+		DataBuffer db = raster.getDataBuffer();
+		if(db.getNumBanks() != 1 || db.getOffset() != 0 || null!=raster.getParent()
+				|| raster.getSampleModelTranslateX() != 0 || raster.getSampleModelTranslateY() != 0){
+			return false;
+		}
+		SampleModel sm = raster.getSampleModel();
+		int w = image.getWidth();
+		if(sm instanceof SinglePixelPackedSampleModel){
+			return ((SinglePixelPackedSampleModel) sm).getScanlineStride() == w;
+		}
+		if(sm instanceof MultiPixelPackedSampleModel){
+			MultiPixelPackedSampleModel mpp = (MultiPixelPackedSampleModel) sm;
+			return mpp.getDataBitOffset() == 0 && mpp.getScanlineStride() == (w * mpp.getPixelBitStride() + 7) / 8;
+		}
+		if(sm instanceof ComponentSampleModel){
+			ComponentSampleModel csm = (ComponentSampleModel) sm;
+			return csm.getScanlineStride() == w * csm.getPixelStride();
+		}
+		return false;
+	}
+
+	static void write(BufferedImage image, File file) throws IOException{
+		OutputStream fos = new FileOutputStream(file);
+		try{
+			Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+			try{
+				DeflaterOutputStream deflated = new DeflaterOutputStream(fos, deflater, CHUNK);
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(deflated, CHUNK));
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeInt(image.getType());
+				out.writeInt(image.getWidth());
+				out.writeInt(image.getHeight());
+				DataBuffer db = image.getRaster().getDataBuffer();
+				if(db instanceof DataBufferInt){
+					int[] data = ((DataBufferInt) db).getData();
+					out.writeInt(data.length);
+					ByteBuffer buffer = ByteBuffer.allocate(CHUNK * 4);
+					for(int i=0; i<data.length; i+=CHUNK){
+						int n = Math.min(CHUNK, data.length - i);
+						buffer.clear();
+						buffer.asIntBuffer().put(data, i, n);
+						out.write(buffer.array(), 0, n * 4);
+					}
+				}else{
+					byte[] data = ((DataBufferByte) db).getData();
+					out.writeInt(data.length);
+					out.write(data);
+				}
+				out.flush();
+				deflated.finish();
+			}finally{
+				deflater.end();
+			}
+		}finally{
+			fos.close();
+		}
+	}
+
+	static BufferedImage read(File file) throws IOException{
+		InputStream fis = new FileInputStream(file);
+		try{
+			DataInputStream in = new DataInputStream(new BufferedInputStream(new InflaterInputStream(fis), CHUNK));
+			if(in.readInt() != MAGIC || in.readInt() != VERSION){
+				throw new IOException("Not a page image cache entry");
+			}
+			int type = in.readInt();
+			int width = in.readInt();
+			int height = in.readInt();
+			int length = in.readInt();
+			BufferedImage image = new BufferedImage(width, height, type);
+			DataBuffer db = image.getRaster().getDataBuffer();
+			if(db.getSize() != length){
+				throw new IOException("Unexpected raster size " + length);
+			}
+			if(db instanceof DataBufferInt){
+				int[] data = ((DataBufferInt) db).getData();
+				byte[] bytes = new byte[CHUNK * 4];
+				ByteBuffer buffer = ByteBuffer.wrap(bytes);
+				for(int i=0; i<data.length; i+=CHUNK){
+					int n = Math.min(CHUNK, data.length - i);
+					in.readFully(bytes, 0, n * 4);
+					buffer.clear();
+					buffer.asIntBuffer().get(data, i, n);
+				}
+			}else{
+				in.readFully(((DataBufferByte) db).getData());
+			}
+			return image;
+		}catch(EOFException e){
+			throw new IOException("Truncated cache entry " + file, e);
+		}finally{
+			fis.close();
+		}
+	}
+}
@@ -0,0 +1,11 @@
+package com.testautomationguru.utility;
+
+/**
+ * How the PDF files are read while the documents are parsed.
+ */
+public enum DocumentLoadMode {
+	/** The file is read on demand through a buffered RandomAccessFile (PDFBox default). */
+	RANDOM_ACCESS_FILE,
+	/** The file is memory mapped. Reads are served by the OS page cache instead of java heap buffers. */
+	MEMORY_MAPPED
+}
@@ -0,0 +1,116 @@
+package com.testautomationguru.utility;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSObject;
+import org.apache.pdfbox.pdmodel.DefaultResourceCache;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+
+/**
+ * ResourceCache of one document taking its fonts from a SharedResourceCache.
+ *
+ * The fonts used by the document stay lent to it until release(), called once the document is closed: the fonts
+ * parsed from its own streams are then shared too, a PDFont keeping nothing but the parsed data. The other resources
+ * are cached for the document only, as PDFBox does by default.
+ */
+class DocumentResourceCache extends DefaultResourceCache {
+
+	// shares the PDFUtil logger so that enableLog() / setLogLevel(..) apply
+	static Logger logger = Logger.getLogger(PDFUtil.class.getName());
+
+	private static final Key NOT_SHARED = new Key(null, 0);
+
+	private final SharedResourceCache shared;
+	private final PageDigester digester = new PageDigester();
+	private final Map<COSObject, Key> keys = new HashMap<COSObject, Key>();
+	private final Map<COSObject, PDFont> fonts = new HashMap<COSObject, PDFont>();
+	private final Map<PDFont, Key> lent = new IdentityHashMap<PDFont, Key>();
+
+	DocumentResourceCache(SharedResourceCache shared){
+		this.shared = shared;
+	}
+
+	@Override
+	public synchronized PDFont getFont(COSObject indirect) throws IOException{
+		PDFont font = this.fonts.get(indirect);
+		if(null!=font){
+			return font;
+		}
+		Key key = this.key(indirect);
+		if(NOT_SHARED==key){
+			return super.getFont(indirect);
+		}
+		font = this.shared.borrow(key.digest);
+		if(null!=font){
+			this.fonts.put(indirect, font);
+			this.lent.put(font, key);
+		}
+		// when null, PDResources parses the font and put(..) it
+		return font;
+	}
+
+	@Override
+	public synchronized void put(COSObject indirect, PDFont font) throws IOException{
+		Key key = this.key(indirect);
+		if(NOT_SHARED==key){
+			super.put(indirect, font);
+			return;
+		}
+		this.fonts.put(indirect, font);
+		this.lent.put(font, key);
+	}
+
+	/**
+	 * Gives the fonts of the document to the shared cache. The document must not be used anymore.
+	 */
+	synchronized void release(){
+		for(Map.Entry<PDFont, Key> entry : this.lent.entrySet()){
+			this.shared.giveBack(entry.getValue().digest, entry.getKey(), entry.getValue().bytes);
+		}
+		this.lent.clear();
+		this.fonts.clear();
+		this.keys.clear();
+	}
+
+	private Key key(COSObject indirect){
+		Key key = this.keys.get(indirect);
+		if(null==key){
+			key = this.computeKey(indirect.getObject());
+			this.keys.put(indirect, key);
+		}
+		return key;
+	}
+
+	private Key computeKey(COSBase font){
+		if(!(font instanceof COSDictionary) || COSName.TYPE3.equals(((COSDictionary) font).getCOSName(COSName.SUBTYPE))){
+			return NOT_SHARED;
+		}
+		try{
+			long start = this.digester.getStreamBytes();
+			byte[] digest = this.digester.objectDigest(font);
+			return new Key(ByteBuffer.wrap(digest), Math.max(SharedResourceCache.MIN_FONT_BYTES, this.digester.getStreamBytes() - start));
+		}catch(IOException e){
+			// PDFBox reports the damaged font when it parses it
+			logger.fine("Font not shared : " + e.getMessage());
+			return NOT_SHARED;
+		}
+	}
+
+	private static final class Key {
+		final ByteBuffer digest;
+		final long bytes;
+
+		Key(ByteBuffer digest, long bytes){
+			this.digest = digest;
+			this.bytes = bytes;
+		}
+	}
+}
@@ -0,0 +1,313 @@
+package com.testautomationguru.utility;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import javax.imageio.ImageIO;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.graphics.PDXObject;
+import org.apache.pdfbox.pdmodel.graphics.form.PDFormXObject;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+
+/**
+ * Extracts the embedded images of a range of pages, each distinct image once.
+ *
+ * The pages and the forms they use, at any depth, are walked on the calling thread to list the distinct images:
+ * an image used on several pages is the same COS object, and images stored in several objects with the same
+ * encoded content are written only once. The images are then written by the workers. PDFBox documents are not
+ * thread-safe, so the calling thread writes with the given document and every other worker loads its own copy.
+ *
+ * JPEG and JPEG 2000 images are copied in their original encoding when the copy looks like the image on the page
+ * (no mask, no decode array and, for JPEG, gray or RGB). The other images are decoded and written by the ImageOutput.
+ */
+class ImageExtractor {
+
+	// shares the PDFUtil logger so that enableLog() / setLogLevel(..) apply
+	static Logger logger = Logger.getLogger(PDFUtil.class.getName());
+
+	private static final String ALGORITHM = "SHA-256";
+
+	private final int parallelism;
+	private final ExecutorService executor;
+	private final ImageOutput output;
+
+	/**
+	 * @param parallelism number of images written at the same time
+	 * @param executor executor of the workers; null to create a pool for each extraction
+	 * @param output encoder of the decoded images; null for PNG through ImageIO
+	 */
+	ImageExtractor(int parallelism, ExecutorService executor, ImageOutput output){
+		this.parallelism = Math.max(1, parallelism);
+		this.executor = executor;
+		this.output = output;
+	}
+
+	/**
+	 * @param handle document
+	 * @param startPage 0 based index of the first page
+	 * @param endPage 0 based index of the last page
+	 * @param destination directory of the images
+	 * @param prefix prefix of the image file names
+	 * @return paths of the written images, in the order they are first used
+	 */
+	List<String> extract(final PDFDocumentHandle handle, int startPage, int endPage, final String destination, String prefix) throws IOException{
+
+		final List<Image> images = this.listImages(handle, startPage, endPage, prefix);
+		final String[] written = new String[images.size()];
+		final AtomicInteger nextImage = new AtomicInteger(0);
+
+		int workers = Math.min(this.parallelism, images.size());
+		ExecutorService pool = null;
+		boolean ownPool = false;
+		List<Future<Void>> futures = new ArrayList<Future<Void>>();
+		try{
+			if(workers > 1){
+				ownPool = null==this.executor;
+				pool = ownPool ? Executors.newFixedThreadPool(workers - 1) : this.executor;
+				for(int i=1; i<workers; i++){
+					futures.add(pool.submit(new Callable<Void>(){
+						@Override
+						public Void call() throws IOException{
+							PDFDocumentHandle copy = handle.reopen();
+							try{
+								writeImages(copy, images, nextImage, destination, written);
+							}finally{
+								copy.close();
+							}
+							return null;
+						}
+					}));
+				}
+			}
+			this.writeImages(handle, images, nextImage, destination, written);
+			for(Future<Void> future : futures){
+				future.get();
+			}
+		}catch(InterruptedException e){
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while extracting images");
+		}catch(ExecutionException e){
+			Throwable cause = e.getCause();
+			throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+		}finally{
+			for(Future<Void> future : futures){
+				future.cancel(true);
+			}
+			if(ownPool){
+				pool.shutdownNow();
+			}
+		}
+
+		List<String> names = new ArrayList<String>(written.length);
+		for(String name : written){
+			if(null!=name){
+				names.add(name);
+			}
+		}
+		return names;
+	}
+
+	/**
+	 * Lists the distinct images of the pages, in the order they are first used.
+	 */
+	private List<Image> listImages(PDFDocumentHandle handle, int startPage, int endPage, String prefix) throws IOException{
+		List<Image> images = new ArrayList<Image>();
+		Map<COSBase, Boolean> visited = new IdentityHashMap<COSBase, Boolean>();
+		Map<String, Image> byContent = new HashMap<String, Image>();
+		for(int iPage=startPage; iPage<=endPage; iPage++){
+			PDFUtil.checkInterrupted();
+			logger.info("Page No : " + (iPage+1));
+			PDResources resources = handle.getDocument().getPage(iPage).getResources();
+			this.listImages(resources, iPage, new COSName[0], prefix, images, visited, byContent);
+		}
+		return images;
+	}
+
+	private void listImages(PDResources resources, int iPage, COSName[] path, String prefix,
+			List<Image> images, Map<COSBase, Boolean> visited, Map<String, Image> byContent) throws IOException{
+		if(null==resources){
+			return;
+		}
+		for(COSName name : resources.getXObjectNames()){
+			PDXObject xobject;
+			try{
+				xobject = resources.getXObject(name);
+			}catch(IOException e){
+				logger.warning("Page No : " + (iPage+1) + " - unable to read " + name.getName() + " : " + e.getMessage());
+				continue;
+			}
+			// an object used several times, or a form using itself, is visited once
+			if(null==xobject || null!=visited.put(xobject.getCOSObject(), Boolean.TRUE)){
+				continue;
+			}
+			COSName[] xobjectPath = Arrays.copyOf(path, path.length + 1);
+			xobjectPath[path.length] = name;
+			if(xobject instanceof PDImageXObject){
+				PDImageXObject image = (PDImageXObject) xobject;
+				String content = contentKey(image);
+				if(null!=content && byContent.containsKey(content)){
+					continue;
+				}
+				String suffix = passThroughSuffix(image);
+				String extension = null!=suffix ? suffix : null==this.output ? "png" : this.output.getExtension();
+				Image entry = new Image(iPage, xobjectPath, prefix + "_" + (images.size() + 1) + "." + extension, null!=suffix);
+				images.add(entry);
+				if(null!=content){
+					byContent.put(content, entry);
+				}
+			}else if(xobject instanceof PDFormXObject){
+				this.listImages(((PDFormXObject) xobject).getResources(), iPage, xobjectPath, prefix, images, visited, byContent);
+			}
+		}
+	}
+
+	/**
+	 * Writes the next images until there are none left; a worker which fails on an image goes on with the next one.
+	 */
+	private void writeImages(PDFDocumentHandle handle, List<Image> images, AtomicInteger nextImage, String destination, String[] written) throws IOException{
+		int index;
+		while((index = nextImage.getAndIncrement()) < images.size()){
+			PDFUtil.checkInterrupted();
+			Image image = images.get(index);
+			String fname = destination + "/" + image.name;
+			try{
+				this.writeImage(handle, image, new File(fname));
+				written[index] = fname;
+			}catch(InterruptedIOException e){
+				throw e;
+			}catch(Exception e){
+				logger.warning("Page No : " + (image.pageIndex+1) + " - unable to extract " + image + " : " + e);
+			}
+		}
+	}
+
+	private void writeImage(PDFDocumentHandle handle, Image image, File file) throws IOException{
+		PDResources resources = handle.getDocument().getPage(image.pageIndex).getResources();
+		for(int i=0; i<image.path.length-1; i++){
+			resources = ((PDFormXObject) resources.getXObject(image.path[i])).getResources();
+		}
+		final PDImageXObject xobject = (PDImageXObject) resources.getXObject(image.path[image.path.length-1]);
+		final boolean passThrough = image.passThrough;
+		long start = System.nanoTime();
+		OutputManager.writeAtomically(file, new OutputManager.FileWrite(){
+			@Override
+			public void write(File temp) throws IOException{
+				if(passThrough){
+					// closes the stream
+					FileUtils.copyInputStreamToFile(xobject.getCOSObject().createRawInputStream(), temp);
+				}else if(null!=output){
+					output.write(xobject.getImage(), temp, 0);
+				}else{
+					ImageIO.write(xobject.getImage(), "png", temp);
+				}
+			}
+		});
+		MetricEvent.emit(handle.getMetricsListener(), MetricStage.IMAGE_ENCODE, file, image.pageIndex+1, 0, start, file.length());
+	}
+
+	/**
+	 * @return suffix of the original encoding when the encoded data can be written as it is, null otherwise
+	 */
+	private static String passThroughSuffix(PDImageXObject image) throws IOException{
+		COSStream stream = image.getCOSObject();
+		List<COSName> filters = image.getStream().getFilters();
+		if(filters.size()!=1 || null!=stream.getItem(COSName.SMASK) || null!=stream.getItem(COSName.MASK)
+				|| null!=stream.getItem(COSName.DECODE)){
+			return null;
+		}
+		if(COSName.DCT_DECODE.equals(filters.get(0))){
+			// viewers do not know how to show the CMYK JPEGs written by most PDF producers
+			int components = image.getColorSpace().getNumberOfComponents();
+			return components==1 || components==3 ? "jpg" : null;
+		}
+		if(COSName.JPX_DECODE.equals(filters.get(0))){
+			return "jp2";
+		}
+		return null;
+	}
+
+	/**
+	 * @return digest of the encoded data and of the entries which change the decoding; null for masked images,
+	 * which are only identified by their object
+	 */
+	private static String contentKey(PDImageXObject image) throws IOException{
+		COSStream stream = image.getCOSObject();
+		if(null!=stream.getItem(COSName.SMASK) || null!=stream.getItem(COSName.MASK)){
+			return null;
+		}
+		MessageDigest digest;
+		try{
+			digest = MessageDigest.getInstance(ALGORITHM);
+		}catch(NoSuchAlgorithmException e){
+			throw new IllegalStateException(ALGORITHM + " is not available", e);
+		}
+		byte[] buffer = new byte[8192];
+		InputStream in = stream.createRawInputStream();
+		try{
+			int n;
+			while((n = in.read(buffer)) > 0){
+				digest.update(buffer, 0, n);
+			}
+		}finally{
+			in.close();
+		}
+		StringBuilder key = new StringBuilder();
+		for(byte b : digest.digest()){
+			key.append(String.format("%02x", b));
+		}
+		key.append(image.getWidth()).append('x').append(image.getHeight()).append('x').append(image.getBitsPerComponent())
+			.append(stream.getDictionaryObject(COSName.FILTER))
+			.append(stream.getDictionaryObject(COSName.DECODE_PARMS))
+			.append(stream.getDictionaryObject(COSName.DECODE))
+			.append(stream.getDictionaryObject(COSName.COLORSPACE));
+		return key.toString();
+	}
+
+	/**
+	 * A distinct image, found by the names of the forms leading to it from the resources of a page.
+	 */
+	private static class Image {
+		final int pageIndex;
+		final COSName[] path;
+		final String name;
+		final boolean passThrough;
+
+		Image(int pageIndex, COSName[] path, String name, boolean passThrough){
+			this.pageIndex = pageIndex;
+			this.path = path;
+			this.name = name;
+			this.passThrough = passThrough;
+		}
+
+		@Override
+		public String toString(){
+			StringBuilder sb = new StringBuilder();
+			for(COSName name : this.path){
+				sb.append('/').append(name.getName());
+			}
+			return sb.toString();
+		}
+	}
+}
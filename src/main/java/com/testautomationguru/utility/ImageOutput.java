@@ -0,0 +1,30 @@
+package com.testautomationguru.utility;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Encodes the images written by PDFUtil: the pages saved by savePdfAsImage, the highlighted differences
+ * of VISUAL_MODE and the decoded images of extractImages.
+ *
+ * Implementations must be safe to use from several threads.
+ *
+ * @see PngImageOutput
+ * @see PnmImageOutput
+ */
+public interface ImageOutput {
+
+	/**
+	 * @return extension of the written files, without the dot
+	 */
+	String getExtension();
+
+	/**
+	 * @param image image to write
+	 * @param file destination file
+	 * @param dpi resolution of the image, written in the file when the format supports it
+	 * @throws IOException when the file can not be written
+	 */
+	void write(BufferedImage image, File file, float dpi) throws IOException;
+}
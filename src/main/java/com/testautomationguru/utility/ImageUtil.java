@@ -1,46 +1,110 @@
-package com.testautomationguru.utility;
-
-import java.awt.image.BufferedImage;
-import java.io.File;
-import java.io.IOException;
-import java.util.logging.Logger;
-
-import javax.imageio.ImageIO;
-
-class ImageUtil {
-	
-	static Logger logger = Logger.getLogger(ImageUtil.class.getName());
-	
-	static boolean compareAndHighlight(final BufferedImage img1, final BufferedImage img2, String fileName, boolean highlight, int colorCode) throws IOException {
-
-	    final int w = img1.getWidth();
-	    final int h = img1.getHeight();
-	    final int[] p1 = img1.getRGB(0, 0, w, h, null, 0, w);
-	    final int[] p2 = img2.getRGB(0, 0, w, h, null, 0, w);
-
-	    if(!(java.util.Arrays.equals(p1, p2))){
-	    	logger.warning("Image compared - does not match");
-	    	if(highlight){
-	    	    for (int i = 0; i < p1.length; i++) {
-	    	        if (p1[i] != p2[i]){
-	    	            p1[i] = colorCode;
-	    	        } 
-	    	    }
-	    	    final BufferedImage out = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
-	    	    out.setRGB(0, 0, w, h, p1, 0, w);
-	    	    saveImage(out, fileName);
-	    	}
-	    	return false;
-	    }
-	    return true;
-	}
-
-	static void saveImage(BufferedImage image, String file){
-		try{
-			File outputfile = new File(file);
-			ImageIO.write(image, "png", outputfile);	
-		}catch(Exception e){
-			e.printStackTrace();
-		}
-	}	
-}
+package com.testautomationguru.utility;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+class ImageUtil {
+
+	static Logger logger = Logger.getLogger(ImageUtil.class.getName());
+
+	// pixels of the page kept around a region in its snippet, and between the expected and the actual side
+	static final int SNIPPET_MARGIN = 8;
+	static final int SNIPPET_GAP = 4;
+
+	/**
+	 * @param comparator compares the images; its highlighted image and pixel count are read by the caller
+	 * @param writer writes the highlighted differences; null to not write them
+	 * @param keepImage true to highlight the differences even when they are not written
+	 */
+	static boolean compareAndHighlight(TiledImageComparator comparator, final BufferedImage img1, final BufferedImage img2, String fileName, 
+			ImageWriteQueue writer, boolean keepImage, int colorCode) throws IOException {
+
+	    if(!comparator.compare(img1, img2, null!=writer || keepImage, colorCode)){
+	    	logger.warning("Image compared - does not match");
+	    	if(null!=writer){
+	    	    writer.write(comparator.getHighlightedImage(), fileName, 0);
+	    	}
+	    	return false;
+	    }
+	    return true;
+	}
+
+	/**
+	 * Compares the images and groups the differing pixels into regions.
+	 *
+	 * @param filePrefix path of the written images, without the "_diff.ext" suffix
+	 * @param writer writes the differences; null to not write them
+	 * @param snippets true to write a snippet per region, false to write the highlighted page
+	 * @param keepImage true to highlight the differences even when the highlighted page is not written
+	 * @return regions of the differences, empty when the images match
+	 */
+	static List<DiffRegion> compareRegions(TiledImageComparator comparator, final BufferedImage img1, final BufferedImage img2, int pageNumber, float dpi,
+			String filePrefix, ImageWriteQueue writer, boolean snippets, boolean keepImage, int colorCode) throws IOException {
+
+		if(comparator.compare(img1, img2, (null!=writer && !snippets) || keepImage, true, colorCode)){
+			return new ArrayList<DiffRegion>();
+		}
+		logger.warning("Image compared - does not match : " + comparator.getRegions().size() + " region(s)");
+
+		List<DiffRegion> regions = new ArrayList<DiffRegion>();
+		int n = 0;
+		for(TiledImageComparator.Region region : comparator.getRegions()){
+			regions.add(new DiffRegion(pageNumber, region.bounds, region.pixels, dpi));
+			if(null!=writer && snippets){
+				writer.write(snippet(img1, img2, region.bounds, colorCode), filePrefix + "_diff_" + (++n) + "." + writer.getExtension(), 0);
+			}
+		}
+		if(null!=writer && !snippets){
+			writer.write(comparator.getHighlightedImage(), filePrefix + "_diff." + writer.getExtension(), 0);
+		}
+		return regions;
+	}
+
+	/**
+	 * The region with a small margin, img1 on the left and img2 on the right with the pixels which differ from img1
+	 * painted in colorCode.
+	 */
+	static BufferedImage snippet(BufferedImage img1, BufferedImage img2, Rectangle bounds, int colorCode){
+		Rectangle area = new Rectangle(bounds);
+		area.grow(SNIPPET_MARGIN, SNIPPET_MARGIN);
+		area = area.intersection(new Rectangle(0, 0, Math.max(img1.getWidth(), img2.getWidth()), Math.max(img1.getHeight(), img2.getHeight())));
+
+		BufferedImage out = new BufferedImage(area.width * 2 + SNIPPET_GAP, area.height, BufferedImage.TYPE_INT_RGB);
+		int[] row1 = new int[area.width];
+		int[] row2 = new int[area.width];
+		int[] gap = new int[SNIPPET_GAP];
+		for(int i=0; i<SNIPPET_GAP; i++){
+			gap[i] = 0x808080;
+		}
+		for(int y=0; y<area.height; y++){
+			readRow(img1, area.x, area.y + y, row1);
+			readRow(img2, area.x, area.y + y, row2);
+			out.setRGB(0, y, area.width, 1, row1, 0, area.width);
+			for(int x=0; x<area.width; x++){
+				if(row1[x]!=row2[x]){
+					row2[x] = colorCode;
+				}
+			}
+			out.setRGB(area.width, y, SNIPPET_GAP, 1, gap, 0, SNIPPET_GAP);
+			out.setRGB(area.width + SNIPPET_GAP, y, area.width, 1, row2, 0, area.width);
+		}
+		return out;
+	}
+
+	/**
+	 * Reads the pixels of a row, white beyond the image.
+	 */
+	private static void readRow(BufferedImage img, int x, int y, int[] row){
+		int width = y < img.getHeight() ? Math.max(0, Math.min(row.length, img.getWidth() - x)) : 0;
+		if(width > 0){
+			img.getRGB(x, y, width, 1, row, 0, width);
+		}
+		for(int i=width; i<row.length; i++){
+			row[i] = 0xFFFFFFFF;
+		}
+	}
+}
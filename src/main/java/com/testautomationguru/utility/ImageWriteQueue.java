@@ -0,0 +1,146 @@
+package com.testautomationguru.utility;
+
+import java.awt.image.BufferedImage;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.logging.Logger;
+
+import javax.imageio.ImageIO;
+
+import org.apache.pdfbox.tools.imageio.ImageIOUtil;
+
+/**
+ * Writes the images of a single call.
+ *
+ * With writer threads, the images are encoded on a pool of their own so that the caller can render the next page
+ * while the previous one is encoded. At most twice as many images as writer threads wait to be written; beyond that
+ * the caller waits, which bounds the memory held by the rendered pages. Without writer threads the images are
+ * written by the caller.
+ *
+ * Each image is written under a temporary name then renamed, see OutputManager.writeAtomically(..).
+ */
+class ImageWriteQueue implements Closeable {
+
+	// shares the PDFUtil logger so that enableLog() / setLogLevel(..) apply
+	static Logger logger = Logger.getLogger(PDFUtil.class.getName());
+
+	private final ImageOutput output;
+	private final MetricsListener metricsListener;
+	private final ExecutorService pool;
+	private final Semaphore slots;
+	private final List<Future<?>> pending = new ArrayList<Future<?>>();
+
+	/**
+	 * @param output encoder; null for PNG through ImageIO
+	 * @param threads number of writer threads; 0 to write on the calling thread
+	 * @param metricsListener receives the timing of each written image; null for none
+	 */
+	ImageWriteQueue(ImageOutput output, int threads, MetricsListener metricsListener){
+		this.output = output;
+		this.metricsListener = metricsListener;
+		this.pool = threads > 0 ? Executors.newFixedThreadPool(threads) : null;
+		this.slots = new Semaphore(Math.max(1, threads * 2));
+	}
+
+	/**
+	 * @return extension of the written files, without the dot
+	 */
+	String getExtension(){
+		return null==this.output ? "png" : this.output.getExtension();
+	}
+
+	/**
+	 * Writes the image, or queues it when there are writer threads.
+	 *
+	 * @param dpi resolution written in the file; 0 for none
+	 */
+	void write(final BufferedImage image, final String file, final float dpi) throws IOException{
+		if(null==this.pool){
+			this.encode(image, file, dpi);
+			return;
+		}
+		try{
+			this.slots.acquire();
+		}catch(InterruptedException e){
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for the image writers");
+		}
+		Future<?> future = this.pool.submit(new Runnable(){
+			@Override
+			public void run(){
+				try{
+					encode(image, file, dpi);
+				}catch(IOException e){
+					throw new IllegalStateException("Unable to write " + file, e);
+				}finally{
+					slots.release();
+				}
+			}
+		});
+		synchronized(this.pending){
+			this.pending.add(future);
+		}
+	}
+
+	/**
+	 * Waits until all the queued images are written.
+	 *
+	 * @throws IOException the first failure of the writers
+	 */
+	void await() throws IOException{
+		List<Future<?>> futures;
+		synchronized(this.pending){
+			futures = new ArrayList<Future<?>>(this.pending);
+			this.pending.clear();
+		}
+		try{
+			for(Future<?> future : futures){
+				future.get();
+			}
+		}catch(InterruptedException e){
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for the image writers");
+		}catch(ExecutionException e){
+			Throwable cause = e.getCause();
+			throw cause.getCause() instanceof IOException ? (IOException) cause.getCause() : new IOException(cause);
+		}
+	}
+
+	private void encode(final BufferedImage image, String file, final float dpi) throws IOException{
+		long start = System.nanoTime();
+		File written = new File(file);
+		OutputManager.writeAtomically(written, new OutputManager.FileWrite(){
+			@Override
+			public void write(File temp) throws IOException{
+				if(null!=output){
+					output.write(image, temp, dpi);
+				}else if(dpi > 0){
+					ImageIOUtil.writeImage(image, temp.getPath(), Math.round(dpi));
+				}else{
+					ImageIO.write(image, "png", temp);
+				}
+			}
+		});
+		MetricEvent.emit(this.metricsListener, MetricStage.IMAGE_ENCODE, written, 0, 0, start, written.length());
+		logger.fine("Image written : " + file);
+	}
+
+	/**
+	 * Stops the writer threads; the images still queued are not written.
+	 */
+	@Override
+	public void close(){
+		if(null!=this.pool){
+			this.pool.shutdownNow();
+		}
+	}
+}
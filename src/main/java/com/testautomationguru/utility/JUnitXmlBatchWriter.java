@@ -0,0 +1,69 @@
+package com.testautomationguru.utility;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+
+/**
+ * Writes the results of a batch as a JUnit XML test suite, one test case per pair.
+ * Test cases are written as soon as their comparison is done; the suite is closed by {@link #close()}.
+ */
+public class JUnitXmlBatchWriter implements BatchResultListener, Closeable {
+
+	private final Writer writer;
+
+	public JUnitXmlBatchWriter(Writer writer, String suiteName) throws IOException{
+		this.writer = writer;
+		this.writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+		this.writer.write("<testsuite name=\"" + escape(suiteName) + "\">\n");
+		this.writer.flush();
+	}
+
+	@Override
+	public void onResult(BatchResult result) throws IOException{
+		StringBuilder sb = new StringBuilder(256);
+		sb.append("  <testcase classname=\"pdf-compare\" name=\"").append(escape(result.getPair().getName()))
+			.append("\" time=\"").append(String.format(Locale.ROOT, "%.3f", result.getDurationMillis() / 1000.0)).append('"');
+		switch(result.getStatus()){
+			case MATCH:
+				sb.append("/>\n");
+				break;
+			case DIFFERENT:
+				sb.append(">\n    <failure message=\"")
+					.append(escape(result.getPair().getExpected() + " and " + result.getPair().getActual() + " do not match"
+						+ (null==result.getDiffPath() ? "" : ", see " + result.getDiffPath())))
+					.append("\"/>\n  </testcase>\n");
+				break;
+			default:
+				sb.append(">\n    <error type=\"").append(result.getStatus()).append("\" message=\"")
+					.append(escape(String.valueOf(result.getMessage()))).append("\"/>\n  </testcase>\n");
+		}
+		this.writer.write(sb.toString());
+		this.writer.flush();
+	}
+
+	@Override
+	public void close() throws IOException{
+		this.writer.write("</testsuite>\n");
+		this.writer.close();
+	}
+
+	private static String escape(String value){
+		StringBuilder sb = new StringBuilder(value.length());
+		for(int i=0; i<value.length(); i++){
+			char c = value.charAt(i);
+			switch(c){
+				case '<': sb.append("&lt;"); break;
+				case '>': sb.append("&gt;"); break;
+				case '&': sb.append("&amp;"); break;
+				case '"': sb.append("&quot;"); break;
+				default:
+					if(c >= 0x20 || c == '\t' || c == '\n' || c == '\r'){
+						sb.append(c);
+					}
+			}
+		}
+		return sb.toString();
+	}
+}
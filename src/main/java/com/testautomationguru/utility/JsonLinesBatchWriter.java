@@ -0,0 +1,67 @@
+package com.testautomationguru.utility;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes one JSON object per line for each pair of a batch, as soon as its comparison is done.
+ */
+public class JsonLinesBatchWriter implements BatchResultListener, Closeable {
+
+	private final Writer writer;
+
+	public JsonLinesBatchWriter(Writer writer){
+		this.writer = writer;
+	}
+
+	@Override
+	public void onResult(BatchResult result) throws IOException{
+		StringBuilder sb = new StringBuilder(256);
+		sb.append("{\"name\":");
+		quote(sb, result.getPair().getName());
+		sb.append(",\"expected\":");
+		quote(sb, String.valueOf(result.getPair().getExpected()));
+		sb.append(",\"actual\":");
+		quote(sb, String.valueOf(result.getPair().getActual()));
+		sb.append(",\"status\":\"").append(result.getStatus()).append('"');
+		sb.append(",\"durationMillis\":").append(result.getDurationMillis());
+		if(null!=result.getMessage()){
+			sb.append(",\"message\":");
+			quote(sb, result.getMessage());
+		}
+		if(null!=result.getDiffPath()){
+			sb.append(",\"diffPath\":");
+			quote(sb, result.getDiffPath());
+		}
+		sb.append("}\n");
+		this.writer.write(sb.toString());
+		this.writer.flush();
+	}
+
+	@Override
+	public void close() throws IOException{
+		this.writer.close();
+	}
+
+	static void quote(StringBuilder sb, String value){
+		sb.append('"');
+		for(int i=0; i<value.length(); i++){
+			char c = value.charAt(i);
+			switch(c){
+				case '"': sb.append("\\\""); break;
+				case '\\': sb.append("\\\\"); break;
+				case '\n': sb.append("\\n"); break;
+				case '\r': sb.append("\\r"); break;
+				case '\t': sb.append("\\t"); break;
+				default:
+					if(c < 0x20){
+						sb.append(String.format("\\u%04x", (int) c));
+					}else{
+						sb.append(c);
+					}
+			}
+		}
+		sb.append('"');
+	}
+}
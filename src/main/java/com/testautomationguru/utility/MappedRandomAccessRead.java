@@ -0,0 +1,156 @@
+package com.testautomationguru.utility;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.apache.pdfbox.io.RandomAccessRead;
+
+/**
+ * Read only view of a memory mapped file for the PDFBox parser.
+ *
+ * Files bigger than a single mapping are split into chunks of 1 GB.
+ * The mapping itself is released by the garbage collector once the view is closed.
+ */
+class MappedRandomAccessRead implements RandomAccessRead {
+
+	private static final int CHUNK_SIZE = 1 << 30;
+
+	private ByteBuffer[] chunks;
+	private final long length;
+	private long position;
+
+	MappedRandomAccessRead(File file) throws IOException{
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try{
+			FileChannel channel = raf.getChannel();
+			this.length = channel.size();
+			int count = (int) ((this.length + CHUNK_SIZE - 1) / CHUNK_SIZE);
+			this.chunks = new ByteBuffer[count];
+			for(int i=0; i<count; i++){
+				long offset = (long) i * CHUNK_SIZE;
+				long size = Math.min(CHUNK_SIZE, this.length - offset);
+				MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, offset, size);
+				this.chunks[i] = chunk;
+			}
+		}finally{
+			raf.close();
+		}
+	}
+
+	@Override
+	public int read() throws IOException{
+		this.checkClosed();
+		if(this.position >= this.length){
+			return -1;
+		}
+		int b = this.chunks[(int) (this.position / CHUNK_SIZE)].get((int) (this.position % CHUNK_SIZE)) & 0xff;
+		this.position++;
+		return b;
+	}
+
+	@Override
+	public int read(byte[] b) throws IOException{
+		return this.read(b, 0, b.length);
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException{
+		this.checkClosed();
+		if(this.position >= this.length){
+			return -1;
+		}
+		int total = (int) Math.min(len, this.length - this.position);
+		int copied = 0;
+		while(copied < total){
+			ByteBuffer chunk = this.chunks[(int) (this.position / CHUNK_SIZE)];
+			int offset = (int) (this.position % CHUNK_SIZE);
+			int n = Math.min(total - copied, chunk.limit() - offset);
+			chunk.position(offset);
+			chunk.get(b, off + copied, n);
+			copied += n;
+			this.position += n;
+		}
+		return copied;
+	}
+
+	@Override
+	public long getPosition() throws IOException{
+		this.checkClosed();
+		return this.position;
+	}
+
+	@Override
+	public void seek(long position) throws IOException{
+		this.checkClosed();
+		if(position < 0){
+			throw new IOException("Invalid position " + position);
+		}
+		this.position = position;
+	}
+
+	@Override
+	public long length() throws IOException{
+		this.checkClosed();
+		return this.length;
+	}
+
+	@Override
+	public boolean isClosed(){
+		return null==this.chunks;
+	}
+
+	@Override
+	public int peek() throws IOException{
+		int b = this.read();
+		if(b != -1){
+			this.rewind(1);
+		}
+		return b;
+	}
+
+	@Override
+	public void rewind(int bytes) throws IOException{
+		this.seek(this.position - bytes);
+	}
+
+	@Override
+	public byte[] readFully(int length) throws IOException{
+		byte[] b = new byte[length];
+		int read = 0;
+		while(read < length){
+			int n = this.read(b, read, length - read);
+			if(n < 0){
+				throw new EOFException();
+			}
+			read += n;
+		}
+		return b;
+	}
+
+	@Override
+	public boolean isEOF() throws IOException{
+		return this.peek() == -1;
+	}
+
+	@Override
+	public int available() throws IOException{
+		this.checkClosed();
+		return (int) Math.min(this.length - this.position, Integer.MAX_VALUE);
+	}
+
+	@Override
+	public void close() throws IOException{
+		this.chunks = null;
+	}
+
+	private void checkClosed() throws IOException{
+		if(this.isClosed()){
+			throw new IOException("MappedRandomAccessRead already closed");
+		}
+	}
+}
@@ -0,0 +1,86 @@
+package com.testautomationguru.utility;
+
+import java.io.File;
+import java.util.logging.Logger;
+
+/**
+ * Timing of one stage of a PDFUtil operation on a file.
+ */
+public final class MetricEvent {
+
+	// shares the PDFUtil logger so that enableLog() / setLogLevel(..) apply
+	static Logger logger = Logger.getLogger(PDFUtil.class.getName());
+
+	private final MetricStage stage;
+	private final String file;
+	private final int pageNumber;
+	private final int pages;
+	private final long nanos;
+	private final long bytes;
+
+	MetricEvent(MetricStage stage, String file, int pageNumber, int pages, long nanos, long bytes){
+		this.stage = stage;
+		this.file = file;
+		this.pageNumber = pageNumber;
+		this.pages = pages;
+		this.nanos = nanos;
+		this.bytes = bytes;
+	}
+
+	/**
+	 * Sends the event of a stage started at startNanos (System.nanoTime()) to the listener, if any.
+	 * A failing listener is logged, it does not fail the operation.
+	 */
+	static void emit(MetricsListener listener, MetricStage stage, File file, int pageNumber, int pages, long startNanos, long bytes){
+		if(null==listener){
+			return;
+		}
+		try{
+			listener.onEvent(new MetricEvent(stage, file.getPath(), pageNumber, pages, System.nanoTime() - startNanos, bytes));
+		}catch(RuntimeException e){
+			logger.warning("Metrics listener failed : " + e);
+		}
+	}
+
+	public MetricStage getStage(){
+		return this.stage;
+	}
+
+	/**
+	 * @return path of the pdf file, or of the written image for IMAGE_ENCODE
+	 */
+	public String getFile(){
+		return this.file;
+	}
+
+	/**
+	 * @return 1 based page number; 0 when the stage is not about a single page
+	 */
+	public int getPageNumber(){
+		return this.pageNumber;
+	}
+
+	/**
+	 * @return number of pages processed by the stage
+	 */
+	public int getPages(){
+		return this.pages;
+	}
+
+	public long getNanos(){
+		return this.nanos;
+	}
+
+	/**
+	 * @return bytes read (LOAD), held (RENDER) or written (IMAGE_ENCODE); 0 for the other stages
+	 */
+	public long getBytes(){
+		return this.bytes;
+	}
+
+	@Override
+	public String toString(){
+		return this.stage + " " + this.file + (this.pageNumber > 0 ? " page " + this.pageNumber : "")
+				+ " : " + (this.nanos / 1000) + " us" + (this.bytes > 0 ? ", " + this.bytes + " bytes" : "");
+	}
+}
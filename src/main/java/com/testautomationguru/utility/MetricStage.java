@@ -0,0 +1,19 @@
+package com.testautomationguru.utility;
+
+/**
+ * Timed steps of the PDFUtil operations, see MetricEvent.
+ */
+public enum MetricStage {
+	/** a document is parsed; bytes is the size of the file */
+	LOAD,
+	/** the pages of a document are counted, from its page tree or, when damaged, from the loaded document */
+	PAGE_COUNT,
+	/** the text of one page, or of the page range of getText, is extracted */
+	TEXT_EXTRACTION,
+	/** a page is rendered; bytes is the size of its raster */
+	RENDER,
+	/** the rendered pages of both the documents are compared */
+	PIXEL_COMPARE,
+	/** an image is encoded and written; bytes is the size of the file */
+	IMAGE_ENCODE
+}
@@ -0,0 +1,12 @@
+package com.testautomationguru.utility;
+
+/**
+ * Receives a MetricEvent each time a stage of a PDFUtil operation is done.
+ *
+ * The events come from the threads doing the work (callers, page workers, image writers) and are not serialized:
+ * implementations must be thread-safe and quick. PDFUtilMetrics aggregates them.
+ */
+public interface MetricsListener {
+
+	void onEvent(MetricEvent event);
+}
@@ -0,0 +1,183 @@
+package com.testautomationguru.utility;
+
+import java.io.Writer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.regex.Pattern;
+
+/**
+ * Writer given to the PDFTextStripper which normalizes the text while it is being written.
+ *
+ * White space is trimmed and, if enabled, each run of white space is collapsed into a single space as the characters
+ * arrive, so the raw text of a document is never held in memory and never copied by String.replaceAll.
+ * The exclusion patterns need the text of the whole page and are applied once, when the page ends.
+ * Case folding is applied last, so the exclusion patterns see the original text, like String.equalsIgnoreCase.
+ *
+ * When only equality matters the normalized text is fed into a SHA-256 digest instead of being kept;
+ * without exclusion patterns the characters then go straight into the digest.
+ */
+class NormalizingTextWriter extends Writer {
+
+	private static final String ALGORITHM = "SHA-256";
+
+	private final boolean collapseWhiteSpace;
+	private final boolean foldCase;
+	private final Pattern[] exclusions;
+	private final MessageDigest digest;
+	private final byte[] bytes = new byte[1024];
+	private int byteCount;
+
+	// normalized text of the current page; unused when the text goes straight into the digest
+	private final StringBuilder page = new StringBuilder();
+	// white space seen since the last character written, dropped at the end of the page
+	private final StringBuilder pendingWhiteSpace = new StringBuilder();
+	private boolean started;
+
+	/**
+	 * @param collapseWhiteSpace true to replace each run of white space by a single space
+	 * @param foldCase true to fold the case of the text
+	 * @param exclusions patterns removed from the text of each page; may be null
+	 * @param digest true to keep only the digest of the text
+	 */
+	NormalizingTextWriter(boolean collapseWhiteSpace, boolean foldCase, Pattern[] exclusions, boolean digest){
+		this.collapseWhiteSpace = collapseWhiteSpace;
+		this.foldCase = foldCase;
+		this.exclusions = null==exclusions || exclusions.length==0 ? null : exclusions;
+		this.digest = digest ? newDigest() : null;
+	}
+
+	@Override
+	public void write(char[] cbuf, int off, int len){
+		for(int i=off; i<off+len; i++){
+			this.accept(cbuf[i]);
+		}
+	}
+
+	@Override
+	public void write(String str, int off, int len){
+		for(int i=off; i<off+len; i++){
+			this.accept(str.charAt(i));
+		}
+	}
+
+	@Override
+	public void write(int c){
+		this.accept((char) c);
+	}
+
+	private void accept(char c){
+		if(this.isWhiteSpace(c)){
+			if(this.started){
+				if(!this.collapseWhiteSpace){
+					this.pendingWhiteSpace.append(c);
+				}else if(this.pendingWhiteSpace.length()==0){
+					this.pendingWhiteSpace.append(' ');
+				}
+			}
+			return;
+		}
+		if(this.pendingWhiteSpace.length()>0){
+			for(int i=0; i<this.pendingWhiteSpace.length(); i++){
+				this.emit(this.pendingWhiteSpace.charAt(i));
+			}
+			this.pendingWhiteSpace.setLength(0);
+		}
+		this.started = true;
+		this.emit(c);
+	}
+
+	private boolean isWhiteSpace(char c){
+		// same white space as \s when collapsing, as String.trim() otherwise
+		return this.collapseWhiteSpace ? c==' ' || c=='\t' || c=='\n' || c=='\u000B' || c=='\f' || c=='\r' : c <= ' ';
+	}
+
+	private void emit(char c){
+		if(null!=this.digest && null==this.exclusions){
+			this.digest(this.foldCase ? fold(c) : c);
+		}else{
+			this.page.append(c);
+		}
+	}
+
+	/**
+	 * Ends the current page.
+	 *
+	 * @return normalized text of the page
+	 */
+	String pageText(){
+		String txt = this.endPage();
+		return this.foldCase ? fold(txt) : txt;
+	}
+
+	/**
+	 * Ends the current page.
+	 *
+	 * @return digest of the normalized text of the page
+	 */
+	byte[] pageDigest(){
+		if(null!=this.exclusions){
+			String txt = this.endPage();
+			for(int i=0; i<txt.length(); i++){
+				this.digest(this.foldCase ? fold(txt.charAt(i)) : txt.charAt(i));
+			}
+		}else{
+			this.endPage();
+		}
+		this.digest.update(this.bytes, 0, this.byteCount);
+		this.byteCount = 0;
+		return this.digest.digest();
+	}
+
+	private String endPage(){
+		String txt = this.page.toString();
+		this.page.setLength(0);
+		this.pendingWhiteSpace.setLength(0);
+		this.started = false;
+		if(null!=this.exclusions){
+			for(Pattern pattern : this.exclusions){
+				txt = pattern.matcher(txt).replaceAll("");
+			}
+		}
+		return txt;
+	}
+
+	private void digest(char c){
+		if(this.byteCount == this.bytes.length){
+			this.digest.update(this.bytes, 0, this.byteCount);
+			this.byteCount = 0;
+		}
+		this.bytes[this.byteCount++] = (byte) (c >>> 8);
+		this.bytes[this.byteCount++] = (byte) c;
+	}
+
+	/**
+	 * Two characters fold to the same character when String.equalsIgnoreCase considers them equal.
+	 */
+	private static char fold(char c){
+		return Character.toLowerCase(Character.toUpperCase(c));
+	}
+
+	private static String fold(String txt){
+		StringBuilder sb = new StringBuilder(txt.length());
+		for(int i=0; i<txt.length(); i++){
+			sb.append(fold(txt.charAt(i)));
+		}
+		return sb.toString();
+	}
+
+	@Override
+	public void flush(){
+	}
+
+	@Override
+	public void close(){
+	}
+
+	private static MessageDigest newDigest(){
+		try{
+			return MessageDigest.getInstance(ALGORITHM);
+		}catch(NoSuchAlgorithmException e){
+			throw new IllegalStateException(ALGORITHM + " is not available", e);
+		}
+	}
+}
@@ -0,0 +1,193 @@
+package com.testautomationguru.utility;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.logging.Logger;
+
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Gives each call writing images (savePdfAsImage, extractImages, a comparison highlighting its differences)
+ * a run directory of its own, so that concurrent calls never share nor wipe each other's output.
+ *
+ * The run directories are created under the root as run-yyyyMMdd-HHmmss-SSS-random; their names are unique across
+ * threads and processes sharing the root. Nothing else under the root is ever deleted: unlike the temp directory used
+ * without an OutputManager, a run does not replace the images of the previous runs of the same file.
+ *
+ * Retention is applied to the root each time a run directory is created: the run directories last modified more
+ * than maxAgeMillis ago, and the oldest beyond maxRuns, are deleted. A directory of a call still writing its images
+ * could be deleted by the retention of a concurrent call, so maxAgeMillis should exceed the longest call, and maxRuns
+ * the calls run at the same time.
+ */
+public class OutputManager {
+
+	// shares the PDFUtil logger so that enableLog() / setLogLevel(..) apply
+	static Logger logger = Logger.getLogger(PDFUtil.class.getName());
+
+	static final String RUN_PREFIX = "run-";
+
+	private final Path root;
+	private final long maxAgeMillis;
+	private final int maxRuns;
+
+	/**
+	 * Run directories under the image destination path, or under the temp directory next to the pdf file, kept forever.
+	 */
+	public OutputManager(){
+		this(null, 0, 0);
+	}
+
+	/**
+	 * @param root directory of the run directories; null for the image destination path, or the temp directory next to the pdf file
+	 */
+	public OutputManager(Path root){
+		this(root, 0, 0);
+	}
+
+	/**
+	 * @param root directory of the run directories; null for the image destination path, or the temp directory next to the pdf file
+	 * @param maxAgeMillis run directories last modified longer ago are deleted; 0 to not delete them by age
+	 * @param maxRuns number of run directories kept, the new one included; 0 for no limit
+	 */
+	public OutputManager(Path root, long maxAgeMillis, int maxRuns){
+		if(maxAgeMillis < 0 || maxRuns < 0){
+			throw new IllegalArgumentException("maxAgeMillis and maxRuns must be positive, or 0 for no limit");
+		}
+		this.root = root;
+		this.maxAgeMillis = maxAgeMillis;
+		this.maxRuns = maxRuns;
+	}
+
+	/**
+	 * @return directory of the run directories; null when it depends on the call
+	 */
+	public Path getRoot(){
+		return this.root;
+	}
+
+	public long getMaxAgeMillis(){
+		return this.maxAgeMillis;
+	}
+
+	public int getMaxRuns(){
+		return this.maxRuns;
+	}
+
+	/**
+	 * Applies the retention, then creates a new run directory.
+	 *
+	 * @param defaultRoot root used when none is set
+	 * @return the new, empty, run directory
+	 */
+	Path newRunDirectory(Path defaultRoot) throws IOException{
+		Path dir = null!=this.root ? this.root : defaultRoot;
+		Files.createDirectories(dir);
+		this.cleanup(dir, 1);
+		String stamp = new SimpleDateFormat("yyyyMMdd-HHmmss-SSS", Locale.ROOT).format(new Date());
+		while(true){
+			Path run = dir.resolve(RUN_PREFIX + stamp + "-" + Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36));
+			try{
+				Files.createDirectory(run);
+				logger.info("Run directory : " + run);
+				return run;
+			}catch(FileAlreadyExistsException e){
+				// another call got the same name
+			}
+		}
+	}
+
+	/**
+	 * Applies the retention to the root now.
+	 *
+	 * @throws IllegalStateException when no root is set
+	 * @throws java.io.IOException when the root cannot be listed
+	 */
+	public void cleanup() throws IOException{
+		if(null==this.root){
+			throw new IllegalStateException("No root directory, the run directories depend on the call");
+		}
+		if(Files.isDirectory(this.root)){
+			this.cleanup(this.root, 0);
+		}
+	}
+
+	/**
+	 * @param starting number of run directories about to be created, counted in maxRuns
+	 */
+	private void cleanup(Path dir, int starting) throws IOException{
+		if(this.maxAgeMillis==0 && this.maxRuns==0){
+			return;
+		}
+		List<Path> runs = new ArrayList<Path>();
+		DirectoryStream<Path> entries = Files.newDirectoryStream(dir, RUN_PREFIX + "*");
+		try{
+			for(Path entry : entries){
+				if(Files.isDirectory(entry)){
+					runs.add(entry);
+				}
+			}
+		}finally{
+			entries.close();
+		}
+		// the names start with the creation time: newest first
+		Collections.sort(runs, Collections.reverseOrder());
+		long oldest = System.currentTimeMillis() - this.maxAgeMillis;
+		for(int i=0; i<runs.size(); i++){
+			Path run = runs.get(i);
+			boolean tooMany = this.maxRuns > 0 && i >= this.maxRuns - starting;
+			boolean tooOld = this.maxAgeMillis > 0 && run.toFile().lastModified() < oldest;
+			if(tooMany || tooOld){
+				try{
+					FileUtils.deleteDirectory(run.toFile());
+					logger.info("Run directory deleted : " + run);
+				}catch(IOException e){
+					// may be deleted by a concurrent call at the same time
+					logger.warning("Unable to delete " + run + " : " + e.getMessage());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Writes a file, given its path.
+	 */
+	interface FileWrite {
+		void write(File file) throws IOException;
+	}
+
+	/**
+	 * Writes the file under a temporary name in its directory, then renames it: readers of the directory never see
+	 * a partly written file, and a failed write leaves nothing behind. The temporary name keeps the extension.
+	 */
+	static void writeAtomically(File target, FileWrite write) throws IOException{
+		File temp = new File(target.getAbsoluteFile().getParentFile(),
+				".tmp-" + Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36) + "-" + target.getName());
+		boolean moved = false;
+		try{
+			write.write(temp);
+			try{
+				Files.move(temp.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+			}catch(AtomicMoveNotSupportedException e){
+				Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+			moved = true;
+		}finally{
+			if(!moved && temp.exists() && !temp.delete()){
+				logger.warning("Unable to delete " + temp);
+			}
+		}
+	}
+}
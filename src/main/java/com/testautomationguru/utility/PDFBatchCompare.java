@@ -0,0 +1,278 @@
+package com.testautomationguru.utility;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * Compares many pairs of pdf files in one JVM on a bounded pool of worker threads.
+ *
+ * Pairs are submitted as long as there is room in the pool and its queue; beyond that the caller waits
+ * (back-pressure), so an arbitrarily long list of pairs never piles up in memory.
+ * The workers share one PDFUtil, or each worker thread gets its own PDFUtil from the factory. Results are passed to
+ * the listener as soon as each pair is done, in completion order.
+ *
+ * When the differences are highlighted into an image destination path, the images of each pair are written to its
+ * own sub directory, see ComparePair.getDirectory(), so that the pairs do not overwrite each other's images.
+ */
+public class PDFBatchCompare {
+
+	// shares the PDFUtil logger so that enableLog() / setLogLevel(..) apply
+	static Logger logger = Logger.getLogger(PDFUtil.class.getName());
+
+	private final Supplier<PDFUtil> factory;
+	private final int threads;
+	private final int queueCapacity;
+
+	/**
+	 * @param pdfUtil configured PDFUtil shared by all the worker threads
+	 * @param threads number of pairs compared at the same time
+	 */
+	public PDFBatchCompare(final PDFUtil pdfUtil, int threads){
+		this(new Supplier<PDFUtil>(){
+			@Override
+			public PDFUtil get(){
+				return pdfUtil;
+			}
+		}, threads);
+	}
+
+	/**
+	 * @param factory creates the configured PDFUtil used by each worker thread
+	 * @param threads number of pairs compared at the same time
+	 */
+	public PDFBatchCompare(Supplier<PDFUtil> factory, int threads){
+		this(factory, threads, threads);
+	}
+
+	/**
+	 * @param factory creates the configured PDFUtil used by each worker thread
+	 * @param threads number of pairs compared at the same time
+	 * @param queueCapacity number of pairs waiting for a worker before the caller is blocked
+	 */
+	public PDFBatchCompare(Supplier<PDFUtil> factory, int threads, int queueCapacity){
+		this.factory = factory;
+		this.threads = Math.max(1, threads);
+		this.queueCapacity = Math.max(0, queueCapacity);
+	}
+
+	/**
+	 * Pairs the pdf files of the expected directory with the files of the same relative path in the actual directory.
+	 * Files found in only one of the directories are paired with a missing file.
+	 *
+	 * @param expectedDir directory of the expected files
+	 * @param actualDir directory of the actual files
+	 * @return pairs sorted by relative path
+	 * @throws IOException when a directory can not be read
+	 */
+	public static List<ComparePair> pairs(File expectedDir, File actualDir) throws IOException{
+		TreeSet<String> names = new TreeSet<String>();
+		listPdfFiles(expectedDir, "", names);
+		listPdfFiles(actualDir, "", names);
+		List<ComparePair> pairs = new ArrayList<ComparePair>(names.size());
+		for(String name : names){
+			pairs.add(new ComparePair(name, new File(expectedDir, name), new File(actualDir, name)));
+		}
+		return pairs;
+	}
+
+	/**
+	 * Reads the pairs from a manifest: one pair per line, expected and actual file separated by a tab or a comma.
+	 * Empty lines and lines starting with # are ignored. Relative paths are resolved against the manifest directory.
+	 * A pair is named after its expected file, the images of its differences go to a directory named after the expected 
+	 * file and the line number.
+	 *
+	 * @param manifest manifest file
+	 * @return pairs in manifest order
+	 * @throws IOException when the manifest can not be read or a line is invalid
+	 */
+	public static List<ComparePair> pairs(File manifest) throws IOException{
+		File base = manifest.getAbsoluteFile().getParentFile();
+		List<ComparePair> pairs = new ArrayList<ComparePair>();
+		BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(manifest), Charset.forName("UTF-8")));
+		try{
+			String line;
+			int lineNo = 0;
+			while(null!=(line = reader.readLine())){
+				lineNo++;
+				line = line.trim();
+				if(line.isEmpty() || line.startsWith("#")){
+					continue;
+				}
+				String[] files = line.split(line.indexOf('\t') >= 0 ? "\t" : ",");
+				if(files.length != 2){
+					throw new IOException(manifest + " line " + lineNo + " : expected 'expected.pdf,actual.pdf'");
+				}
+				String expected = files[0].trim();
+				// one expected file may be checked against many actual files, each line gets its own images
+				pairs.add(new ComparePair(expected, resolve(base, expected), resolve(base, files[1].trim()), 
+						expected.replaceFirst("(?i)\\.pdf$", "") + "/" + lineNo));
+			}
+		}finally{
+			reader.close();
+		}
+		return pairs;
+	}
+
+	/**
+	 * Compares all the pairs.
+	 *
+	 * @param pairs pairs to compare
+	 * @param listener receives each result as soon as it is available; may be null
+	 * @return summary of the batch
+	 * @throws IOException when the listener fails or the caller is interrupted
+	 */
+	public BatchSummary compare(Iterable<ComparePair> pairs, final BatchResultListener listener) throws IOException{
+
+		final BatchSummary summary = new BatchSummary();
+		final Semaphore slots = new Semaphore(this.threads + this.queueCapacity);
+		final ThreadLocal<PDFUtil> pdfUtil = new ThreadLocal<PDFUtil>(){
+			@Override
+			protected PDFUtil initialValue(){
+				return factory.get();
+			}
+		};
+		final IOException[] listenerFailure = new IOException[1];
+
+		ExecutorService pool = Executors.newFixedThreadPool(this.threads);
+		summary.start();
+		try{
+			for(final ComparePair pair : pairs){
+				slots.acquire();
+				pool.execute(new Runnable(){
+					@Override
+					public void run(){
+						try{
+							BatchResult result = compare(pdfUtil, pair);
+							synchronized(summary){
+								summary.onResult(result);
+								if(null!=listener && null==listenerFailure[0]){
+									try{
+										listener.onResult(result);
+									}catch(IOException e){
+										listenerFailure[0] = e;
+									}
+								}
+							}
+						}finally{
+							slots.release();
+						}
+					}
+				});
+			}
+			pool.shutdown();
+			while(!pool.awaitTermination(1, TimeUnit.MINUTES)){
+				logger.info("Waiting for " + (this.threads + this.queueCapacity - slots.availablePermits()) + " pairs");
+			}
+		}catch(InterruptedException e){
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Batch compare interrupted");
+		}finally{
+			pool.shutdownNow();
+			summary.finish();
+		}
+		synchronized(summary){
+			if(null!=listenerFailure[0]){
+				throw listenerFailure[0];
+			}
+		}
+		return summary;
+	}
+
+	private static BatchResult compare(ThreadLocal<PDFUtil> pdfUtils, ComparePair pair){
+		long start = System.nanoTime();
+		BatchResult.Status status;
+		String message = null;
+		String diffPath = null;
+		if(!pair.getExpected().isFile() || !pair.getActual().isFile()){
+			status = BatchResult.Status.MISSING;
+			message = (pair.getExpected().isFile() ? pair.getActual() : pair.getExpected()) + " does not exist";
+		}else{
+			try{
+				PDFUtil pdfUtil = pdfUtils.get();
+				PDFUtilConfig config = pdfUtil.getConfig();
+				File pairDir = null;
+				if(CompareMode.VISUAL_MODE==config.getCompareMode() && config.isHighlightPdfDifference() 
+						&& null!=config.getImageDestinationPath()){
+					pairDir = new File(config.getImageDestinationPath(), directoryName(pair.getDirectory()));
+					if(!pairDir.mkdirs() && !pairDir.isDirectory()){
+						throw new IOException("Unable to create " + pairDir);
+					}
+					config = config.toBuilder().imageDestinationPath(pairDir.getPath()).build();
+				}
+				CompareResult result = pdfUtil.compare(config, pair.getExpected().getPath(), pair.getActual().getPath());
+				status = result.isMatch() ? BatchResult.Status.MATCH : BatchResult.Status.DIFFERENT;
+				if(null!=pairDir){
+					if(result.isMatch()){
+						// only removed when empty
+						pairDir.delete();
+					}else{
+						diffPath = result.getImageDestinationPath();
+					}
+				}
+			}catch(Throwable e){
+				// an Error (OutOfMemoryError of a large page..) fails the pair, it is not dropped from the batch
+				status = BatchResult.Status.ERROR;
+				message = e.toString();
+			}
+		}
+		long millis = (System.nanoTime() - start) / 1000000;
+		logger.info(pair + " : " + status + " in " + millis + " ms");
+		return new BatchResult(pair, status, millis, message, diffPath);
+	}
+
+	/**
+	 * @return relative path of the directory of the images of a pair: its directory without the root, the parent 
+	 * references and the .pdf extension
+	 */
+	static String directoryName(String pairDirectory){
+		StringBuilder sb = new StringBuilder();
+		String[] segments = pairDirectory.split("[/\\\\]");
+		for(int i=0; i<segments.length; i++){
+			String segment = segments[i];
+			if(i==segments.length-1 && segment.toLowerCase().endsWith(".pdf")){
+				segment = segment.substring(0, segment.length()-4);
+			}
+			if(segment.isEmpty() || ".".equals(segment) || "..".equals(segment) || segment.endsWith(":")){
+				continue;
+			}
+			if(sb.length() > 0){
+				sb.append('/');
+			}
+			sb.append(segment);
+		}
+		return sb.length() > 0 ? sb.toString() : "pair";
+	}
+
+	private static void listPdfFiles(File dir, String prefix, TreeSet<String> names) throws IOException{
+		File[] files = dir.listFiles();
+		if(null==files){
+			throw new IOException("Unable to list " + dir);
+		}
+		for(File file : files){
+			if(file.isDirectory()){
+				listPdfFiles(file, prefix + file.getName() + "/", names);
+			}else if(file.getName().toLowerCase().endsWith(".pdf")){
+				names.add(prefix + file.getName());
+			}
+		}
+	}
+
+	private static File resolve(File base, String path){
+		File file = new File(path);
+		return file.isAbsolute() ? file : new File(base, path);
+	}
+}
@@ -0,0 +1,183 @@
+package com.testautomationguru.utility;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.logging.Logger;
+
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.io.RandomAccessRead;
+import org.apache.pdfbox.io.ScratchFile;
+import org.apache.pdfbox.pdfparser.PDFParser;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.rendering.PDFRenderer;
+
+/**
+ * A pdf file opened once for the duration of an operation.
+ *
+ * The parsed PDDocument is shared by the page counting, range validation, text extraction,
+ * rendering and image extraction steps of a single PDFUtil call instead of being loaded by each of them.
+ * The document is parsed lazily on first use and released on close. The page count and the document information
+ * are read without loading the document when it is not loaded yet, see PDFMetadataReader.
+ *
+ * A handle is not thread-safe. Use {@link #reopen()} to get an independent handle for another thread.
+ */
+class PDFDocumentHandle implements Closeable {
+
+	// shares the PDFUtil logger so that enableLog() / setLogLevel(..) apply
+	static Logger logger = Logger.getLogger(PDFUtil.class.getName());
+
+	private final File file;
+	private final DocumentLoadMode loadMode;
+	private final MemoryUsageSetting memoryUsageSetting;
+	private final MetricsListener metricsListener;
+	private final SharedResourceCache resourceCache;
+	private PDDocument document;
+	private DocumentResourceCache documentResourceCache;
+	private PDFRenderer renderer;
+	private String contentHash;
+	private PDFMetadata metadata;
+
+	PDFDocumentHandle(String file, DocumentLoadMode loadMode, MemoryUsageSetting memoryUsageSetting){
+		this(file, loadMode, memoryUsageSetting, null);
+	}
+
+	/**
+	 * @param metricsListener receives the timings of the stages done on this document; null for none
+	 */
+	PDFDocumentHandle(String file, DocumentLoadMode loadMode, MemoryUsageSetting memoryUsageSetting, MetricsListener metricsListener){
+		this(file, loadMode, memoryUsageSetting, metricsListener, null);
+	}
+
+	/**
+	 * @param metricsListener receives the timings of the stages done on this document; null for none
+	 * @param resourceCache fonts shared with the other documents; null for none
+	 */
+	PDFDocumentHandle(String file, DocumentLoadMode loadMode, MemoryUsageSetting memoryUsageSetting, MetricsListener metricsListener,
+			SharedResourceCache resourceCache){
+		this.file = new File(file);
+		this.loadMode = null==loadMode ? DocumentLoadMode.RANDOM_ACCESS_FILE : loadMode;
+		this.memoryUsageSetting = null==memoryUsageSetting ? MemoryUsageSetting.setupMainMemoryOnly() : memoryUsageSetting;
+		this.metricsListener = metricsListener;
+		this.resourceCache = resourceCache;
+	}
+
+	/**
+	 * @return a new, not yet loaded, handle on the same file with the same settings
+	 */
+	PDFDocumentHandle reopen(){
+		PDFDocumentHandle handle = new PDFDocumentHandle(this.file.getPath(), this.loadMode, this.memoryUsageSetting, this.metricsListener,
+				this.resourceCache);
+		handle.contentHash = this.contentHash;
+		handle.metadata = this.metadata;
+		return handle;
+	}
+
+	File getFile(){
+		return this.file;
+	}
+
+	String getPath(){
+		return this.file.getPath();
+	}
+
+	MetricsListener getMetricsListener(){
+		return this.metricsListener;
+	}
+
+	/**
+	 * @return hex SHA-256 of the file content, computed on first use
+	 */
+	String getContentHash() throws IOException{
+		if(null==this.contentHash){
+			byte[] digest = new PageDigester().fileDigest(this.file);
+			StringBuilder hex = new StringBuilder(digest.length * 2);
+			for(byte b : digest){
+				hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+			}
+			this.contentHash = hex.toString();
+		}
+		return this.contentHash;
+	}
+
+	PDDocument getDocument() throws IOException{
+		if(null==this.document){
+			long start = System.nanoTime();
+			this.document = this.load();
+			if(null!=this.resourceCache){
+				// before any page is read: a page takes the cache of its document when created
+				this.documentResourceCache = this.resourceCache.newDocumentCache();
+				this.document.setResourceCache(this.documentResourceCache);
+			}
+			MetricEvent.emit(this.metricsListener, MetricStage.LOAD, this.file, 0, 0, start, this.file.length());
+		}
+		return this.document;
+	}
+
+	int getPageCount() throws IOException{
+		return this.getMetadata().getPageCount();
+	}
+
+	/**
+	 * @return page count and document information, read once; from the loaded document for a damaged or encrypted file
+	 */
+	PDFMetadata getMetadata() throws IOException{
+		if(null==this.metadata && null==this.document){
+			try{
+				this.metadata = PDFMetadataReader.read(this.file);
+			}catch(IOException e){
+				logger.info("Loading " + this.file + " to read its page count : " + e.getMessage());
+			}
+		}
+		if(null==this.metadata){
+			PDDocument doc = this.getDocument();
+			this.metadata = new PDFMetadata(doc.getNumberOfPages(), doc.getDocumentInformation());
+		}
+		return this.metadata;
+	}
+
+	PDFRenderer getRenderer() throws IOException{
+		if(null==this.renderer){
+			this.renderer = new PDFRenderer(this.getDocument());
+		}
+		return this.renderer;
+	}
+
+	private PDDocument load() throws IOException{
+		logger.info("Loading " + this.file + " (" + this.loadMode + ")");
+		if(DocumentLoadMode.RANDOM_ACCESS_FILE==this.loadMode){
+			return PDDocument.load(this.file, this.memoryUsageSetting);
+		}
+
+		RandomAccessRead source = new MappedRandomAccessRead(this.file);
+		ScratchFile scratchFile = null;
+		try{
+			scratchFile = new ScratchFile(this.memoryUsageSetting);
+			PDFParser parser = new PDFParser(source, "", null, null, scratchFile);
+			parser.parse();
+			return parser.getPDDocument();
+		}catch(IOException e){
+			IOUtils.closeQuietly(scratchFile);
+			IOUtils.closeQuietly(source);
+			throw e;
+		}
+	}
+
+	@Override
+	public void close() throws IOException{
+		this.renderer = null;
+		if(null!=this.document){
+			PDDocument doc = this.document;
+			this.document = null;
+			try{
+				doc.close();
+			}finally{
+				if(null!=this.documentResourceCache){
+					this.documentResourceCache.release();
+					this.documentResourceCache = null;
+				}
+			}
+		}
+	}
+}
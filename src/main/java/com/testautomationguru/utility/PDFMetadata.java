@@ -0,0 +1,28 @@
+package com.testautomationguru.utility;
+
+import org.apache.pdfbox.pdmodel.PDDocumentInformation;
+
+/**
+ * Page count and document information of a pdf file, see PDFMetadataReader.
+ */
+final class PDFMetadata {
+
+	private final int pageCount;
+	private final PDDocumentInformation information;
+
+	PDFMetadata(int pageCount, PDDocumentInformation information){
+		this.pageCount = pageCount;
+		this.information = information;
+	}
+
+	int getPageCount(){
+		return this.pageCount;
+	}
+
+	/**
+	 * @return the info dictionary; empty when the file has none
+	 */
+	PDDocumentInformation getInformation(){
+		return this.information;
+	}
+}
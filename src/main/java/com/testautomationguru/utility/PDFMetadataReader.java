@@ -0,0 +1,94 @@
+package com.testautomationguru.utility;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSDocument;
+import org.apache.pdfbox.cos.COSInteger;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSObject;
+import org.apache.pdfbox.io.RandomAccessBufferedFileInputStream;
+import org.apache.pdfbox.io.RandomAccessRead;
+import org.apache.pdfbox.pdfparser.COSParser;
+import org.apache.pdfbox.pdmodel.PDDocumentInformation;
+
+/**
+ * Reads the page count and the document information of a pdf file without loading the document.
+ *
+ * Only the cross-reference sections found from startxref, the trailer, the catalog, the root of the page tree
+ * (for its /Count) and the info dictionary are parsed; the pages, their resources and the streams are not read.
+ * Loading the document instead parses every object, and copies every stream into memory.
+ *
+ * The reader is strict: a damaged file (wrong startxref or cross-reference offsets, missing objects, no /Count)
+ * fails with an IOException, as does an encrypted one. The caller then loads the document, which PDFBox repairs
+ * or decrypts.
+ */
+class PDFMetadataReader extends COSParser {
+
+	private PDFMetadataReader(RandomAccessRead source) throws IOException{
+		super(source);
+		// as PDFParser does
+		this.fileLen = source.length();
+		this.document = new COSDocument();
+		this.setLenient(false);
+	}
+
+	static PDFMetadata read(File file) throws IOException{
+		RandomAccessRead source = new RandomAccessBufferedFileInputStream(file);
+		try{
+			PDFMetadataReader reader = new PDFMetadataReader(source);
+			try{
+				return reader.read();
+			}finally{
+				reader.document.close();
+			}
+		}finally{
+			source.close();
+		}
+	}
+
+	private PDFMetadata read() throws IOException{
+		COSDictionary trailer = this.retrieveTrailer();
+		if(null==trailer){
+			throw new IOException("No trailer found");
+		}
+		if(null!=trailer.getItem(COSName.ENCRYPT)){
+			throw new IOException("The document is encrypted");
+		}
+		COSDictionary catalog = this.dictionary(trailer.getItem(COSName.ROOT), COSName.ROOT);
+		COSDictionary pages = this.dictionary(catalog.getItem(COSName.PAGES), COSName.PAGES);
+		COSBase count = this.resolve(pages.getItem(COSName.COUNT));
+		if(!(count instanceof COSInteger) || ((COSInteger) count).intValue() < 0){
+			throw new IOException("No page count in the page tree : " + count);
+		}
+
+		COSDictionary info = new COSDictionary();
+		if(null!=trailer.getItem(COSName.INFO)){
+			info = this.dictionary(trailer.getItem(COSName.INFO), COSName.INFO);
+			// the values may be indirect, they are parsed now that the file is open
+			for(COSName key : new ArrayList<COSName>(info.keySet())){
+				info.setItem(key, this.resolve(info.getItem(key)));
+			}
+		}
+		return new PDFMetadata(((COSInteger) count).intValue(), new PDDocumentInformation(info));
+	}
+
+	private COSDictionary dictionary(COSBase base, COSName name) throws IOException{
+		base = this.resolve(base);
+		if(!(base instanceof COSDictionary)){
+			throw new IOException("No " + name.getName() + " dictionary : " + base);
+		}
+		return (COSDictionary) base;
+	}
+
+	private COSBase resolve(COSBase base) throws IOException{
+		if(base instanceof COSObject){
+			COSObject object = (COSObject) base;
+			return null!=object.getObject() ? object.getObject() : this.parseObjectDynamically(object, false);
+		}
+		return base;
+	}
+}
@@ -1,625 +1,1594 @@
-package com.testautomationguru.utility;
-
-/*
- * Copyright [2015] [www.testautomationguru.com]
-
-Licensed under the Apache License, Version 2.0 (the "License");
-you may not use this file except in compliance with the License.
-You may obtain a copy of the License at
-
-    http://www.apache.org/licenses/LICENSE-2.0
-
-Unless required by applicable law or agreed to in writing, software
-distributed under the License is distributed on an "AS IS" BASIS,
-WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
-See the License for the specific language governing permissions and
-limitations under the License.
- */
-import java.awt.Color;
-import java.awt.image.BufferedImage;
-import java.io.File;
-import java.io.IOException;
-import java.util.List;
-import java.util.ArrayList;
-import java.util.logging.Level;
-import java.util.logging.Logger;
-
-import javax.imageio.ImageIO;
-import org.apache.pdfbox.cos.COSName;
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.pdmodel.PDPageTree;
-import org.apache.pdfbox.pdmodel.PDResources;
-import org.apache.pdfbox.pdmodel.graphics.PDXObject;
-import org.apache.pdfbox.rendering.ImageType;
-import org.apache.pdfbox.rendering.PDFRenderer;
-import org.apache.pdfbox.tools.imageio.ImageIOUtil;
-import org.apache.pdfbox.text.PDFTextStripper;
-import org.apache.commons.io.FileUtils;
-
-/**
-* <h1>PDF Utility</h1>
-* A simple pdf utility using apache pdfbox to get the text, 
-* compare files using plain text or pixel by pixel comparison, extract all the images from the pdf
-*
-* @author  www.testautomationguru.com
-* @version 1.0
-* @since   2015-06-13
-*/
-
-public class PDFUtil {
-
-	private final static Logger logger = Logger.getLogger(PDFUtil.class.getName());
-	private String imageDestinationPath;
-	private boolean bTrimWhiteSpace;
-	private boolean bHighlightPdfDifference;
-	private Color imgColor;
-	private PDFTextStripper stripper;
-	private boolean bCompareAllPages;
-	private CompareMode compareMode;
-	private String[] excludePattern;
-	private int startPage = 1;
-	private int endPage = -1;
-	
-	/*
-	 * Constructor
-	 */
-	
-	public PDFUtil(){
-		this.bTrimWhiteSpace = true;
-		this.bHighlightPdfDifference = false;
-		this.imgColor = Color.MAGENTA;
-		this.bCompareAllPages = false;
-		this.compareMode = CompareMode.TEXT_MODE;
-		logger.setLevel(Level.OFF);
-		System.setProperty("sun.java2d.cmm", "sun.java2d.cmm.kcms.KcmsServiceProvider");
-	}
-	
-   /**
-   * This method is used to show log in the console. Level.INFO
-   * It is set to Level.OFF by default.
-   */
-	public void enableLog(){
-		logger.setLevel(Level.INFO);
-	}
-
-   /**
-   * This method is used to change the file comparison mode text/visual
-   * @param mode CompareMode
-   */
-	public void setCompareMode(CompareMode mode){
-		this.compareMode = mode;
-	}
-	
-   /**
-   * This method is used to get the current comparison mode text/visual
-   * @return CompareMode
-   */
-	public CompareMode getCompareMode(){
-		return this.compareMode;
-	}	
-		
-   /**
-   * This method is used to change the level
-   * @param level java.util.logging.Level 
-   */
-	public void setLogLevel(java.util.logging.Level level){
-		logger.setLevel(level);
-	}
-		
-   /**
-   * getText method by default replaces all the white spaces and compares.
-   * This method is used to enable/disable the feature.
-   * 
-   * @param flag true to enable;  false otherwise
-   */
-	public void trimWhiteSpace(boolean flag){
-		this.bTrimWhiteSpace = flag;
-	}
-	
-   /**
-   * Path where images are stored
-   * when the savePdfAsImage or extractPdfImages methods are invoked.
-   * 
-   * @return String Absolute path where images are stored
-   */	
-	public String getImageDestinationPath(){
-		return this.imageDestinationPath;
-	}
-
-   /**
-   * Set the path where images to be stored
-   * when the savePdfAsImage or extractPdfImages methods are invoked.
-   * 
-   * @param path Absolute path to store the images
-   */	
-	public void setImageDestinationPath(String path){
-		this.imageDestinationPath = path;
-	}
-	
-   /**
-   * Highlight the difference when 2 pdf files are compared in Binary mode.
-   * The result is saved as an image.
-   * 
-   * @param flag true - enable ; false - disable (default);
-   */	
-	public void highlightPdfDifference(boolean flag){
-		this.bHighlightPdfDifference = flag;
-	}	
-
-   /**
-   * Color in which pdf difference can be highlighted.
-   * MAGENTA is the default color.
-   * 
-   * @param colorCode color code to highlight the difference
-   */	
-	public void highlightPdfDifference(Color colorCode){
-		this.bHighlightPdfDifference = true;
-		this.imgColor = colorCode;
-	}	
-		
-   /**
-   * To compare all the pages of the PDF files. By default as soon as a mismatch is found, the method returns false and exits.
-   * 
-   * @param flag true to enable; false otherwise
-   */	
-	public void compareAllPages(boolean flag){
-		this.bCompareAllPages = flag;
-	}	
-	
-   /**
-   * To modify the text extracting strategy using PDFTextStripper
-   * 
-   * @param stripper Stripper with user strategy
-   */   
-    public void useStripper(PDFTextStripper stripper){
-        this.stripper = stripper;
-    }   	
-				
-   /**
-   * Get the page count of the document.
-   * 
-   * @param file Absolute file path
-   * @return int No of pages in the document.
-   * @throws java.io.IOException when file is not found.
-   */	
-	public int getPageCount(String file) throws IOException{
-		logger.info("file :" + file);
-		PDDocument doc = PDDocument.load(new File(file));
-		int pageCount = doc.getNumberOfPages();
-		logger.info("pageCount :" + pageCount);
-		doc.close();
-		return pageCount;
-	}
-				
-   /**
-   * Get the content of the document as plain text.
-   *  
-   * @param file Absolute file path
-   * @return String document content in plain text.
-   * @throws java.io.IOException when file is not found.
-   */
-	public String getText(String file) throws IOException{
-		return this.getPDFText(file,-1, -1);
-	}
-	
-   /**
-   * Get the content of the document as plain text.
-   *  
-   * @param file Absolute file path
-   * @param startPage Starting page number of the document
-   * @return String document content in plain text.
-   * @throws java.io.IOException when file is not found.
-   */
-	public String getText(String file, int startPage) throws IOException{
-		return this.getPDFText(file,startPage, -1);
-	}
-	
-   /**
-   * Get the content of the document as plain text.
-   *  
-   * @param file Absolute file path
-   * @param startPage Starting page number of the document
-   * @param endPage Ending page number of the document
-   * @return String document content in plain text.
-   * @throws java.io.IOException when file is not found.
-   */
-	public String getText(String file, int startPage, int endPage) throws IOException{
-		return this.getPDFText(file,startPage, endPage);
-	}
-
-   /**
-   * This method returns the content of the document
-   */
-	private String getPDFText(String file, int startPage, int endPage) throws IOException{
-		
-		logger.info("file : " + file);
-		logger.info("startPage : " + startPage);
-		logger.info("endPage : " + endPage);
-		
-		PDDocument doc = PDDocument.load(new File(file));
-		
-		PDFTextStripper localStripper = new PDFTextStripper();
-		if(null!=this.stripper){
-		    localStripper = this.stripper;
-		}
-		
-		this.updateStartAndEndPages(file, startPage, endPage);
-		localStripper.setStartPage(this.startPage);
-		localStripper.setEndPage(this.endPage);
-		
-		String txt = localStripper.getText(doc);
-		logger.info("PDF Text before trimming : " + txt);
-		if(this.bTrimWhiteSpace){
-			txt = txt.trim().replaceAll("\\s+", " ").trim();
-			logger.info("PDF Text after  trimming : " + txt);	
-		}
-		
-		doc.close();
-		return txt;
-	}
-	
-	
-	public void excludeText(String... regexs){
-		this.excludePattern = regexs;
-	}
-	
-	
-   /**
-   * Compares two given pdf documents.
-   * 
-   * <b>Note :</b> <b>TEXT_MODE</b> : Compare 2 pdf documents contents with no formatting. 
-   * 			   <b>VISUAL_MODE</b> : Compare 2 pdf documents pixel by pixel for the content and format.
-   * @param file1 Absolute file path of the expected file
-   * @param file2 Absolute file path of the actual file
-   * @return boolean true if matches, false otherwise
-   * @throws java.io.IOException when file is not found.
-   */
-	public boolean compare(String file1, String file2) throws IOException{
-		return this.comparePdfFiles(file1, file2, -1, -1);
-	}
-	
-   /**
-   * Compares two given pdf documents.
-   * 
-   * <b>Note :</b> <b>TEXT_MODE</b> : Compare 2 pdf documents contents with no formatting. 
-   * 			   <b>VISUAL_MODE</b> : Compare 2 pdf documents pixel by pixel for the content and format.
-   * 
-   * @param file1 Absolute file path of the expected file
-   * @param file2 Absolute file path of the actual file
-   * @param startPage Starting page number of the document
-   * @param endPage Ending page number of the document
-   * @return boolean true if matches, false otherwise
-   * @throws java.io.IOException when file is not found.
-   */
-	public boolean compare(String file1, String file2, int startPage, int endPage) throws IOException{
-		return this.comparePdfFiles(file1, file2, startPage, endPage);
-	}
-	
-   /**
-   * Compares two given pdf documents.
-   * 
-   * <b>Note :</b> <b>TEXT_MODE</b> : Compare 2 pdf documents contents with no formatting. 
-   * 			   <b>VISUAL_MODE</b> : Compare 2 pdf documents pixel by pixel for the content and format.
-   * 
-   * @param file1 Absolute file path of the expected file
-   * @param file2 Absolute file path of the actual file
-   * @param startPage Starting page number of the document
-   * @return boolean true if matches, false otherwise
-   * @throws java.io.IOException when file is not found.
-   */	
-	public boolean compare(String file1, String file2, int startPage) throws IOException{
-		return this.comparePdfFiles(file1, file2, startPage, -1);
-	}
-	
-	private boolean comparePdfFiles(String file1, String file2, int startPage, int endPage)throws IOException{
-		if(CompareMode.TEXT_MODE==this.compareMode)
-			return comparepdfFilesWithTextMode(file1, file2, startPage, endPage);
-		else
-			return comparePdfByImage(file1, file2, startPage, endPage);
-	}
-		
-	private boolean comparepdfFilesWithTextMode(String file1, String file2, int startPage, int endPage) throws IOException{
-		
-		String file1Txt = this.getPDFText(file1, startPage, endPage).trim();
-		String file2Txt = this.getPDFText(file2, startPage, endPage).trim();
-		
-		if(null!=this.excludePattern && this.excludePattern.length>0){
-			for(int i=0; i<this.excludePattern.length; i++){
-				file1Txt = file1Txt.replaceAll(this.excludePattern[i], "");
-				file2Txt = file2Txt.replaceAll(this.excludePattern[i], "");
-			}
-		}
-		
-		logger.info("File 1 Txt : " + file1Txt);
-		logger.info("File 2 Txt : " + file2Txt);
-		
-		boolean result = file1Txt.equalsIgnoreCase(file2Txt);
-		
-		if(!result){
-			logger.warning("PDF content does not match");
-		}
-		
-		return result; 
-	}
-	
-   /**
-   * Save each page of the pdf as image
-   * 
-   * @param file Absolute file path of the file
-   * @param startPage Starting page number of the document
-   * @return List list of image file names with absolute path
-   * @throws java.io.IOException when file is not found.
-   */
-	public List<String> savePdfAsImage(String file, int startPage) throws IOException{
-		return this.saveAsImage(file, startPage, -1);	
-	}
-	
-   /**
-   * Save each page of the pdf as image
-   * 
-   * @param file Absolute file path of the file
-   * @param startPage Starting page number of the document
-   * @param endPage Ending page number of the document
-   * @return List list of image file names with absolute path
-   * @throws java.io.IOException when file is not found.
-   */
-	public List<String> savePdfAsImage(String file, int startPage, int endPage) throws IOException{
-		return this.saveAsImage(file, startPage, endPage);	
-	}
-	
-   /**
-   * Save each page of the pdf as image
-   * 
-   * @param file Absolute file path of the file
-   * @return List list of image file names with absolute path
-   * @throws java.io.IOException when file is not found.
-   */	
-	public List<String> savePdfAsImage(String file) throws IOException{
-		return this.saveAsImage(file, -1, -1);
-	}
-	
-   /**
-   * This method saves the each page of the pdf as image
-   */
-	private List<String> saveAsImage(String file, int startPage, int endPage) throws IOException{
-		
-		logger.info("file : " + file);
-		logger.info("startPage : " + startPage);
-		logger.info("endPage : " + endPage);
-		
-		ArrayList<String> imgNames = new ArrayList<String>();
-		
-		try {
-			File sourceFile = new File(file);
-			this.createImageDestinationDirectory(file);			
-			this.updateStartAndEndPages(file, startPage, endPage);
-			
-			String fileName = sourceFile.getName().replace(".pdf", "");
-			
-			PDDocument document = PDDocument.load(sourceFile);
-			PDFRenderer pdfRenderer = new PDFRenderer(document);
-			for(int iPage=this.startPage-1;iPage<this.endPage;iPage++){
-				logger.info("Page No : " + (iPage+1));
-				String fname = this.imageDestinationPath + fileName + "_" + (iPage + 1) + ".png";
-				BufferedImage image = pdfRenderer.renderImageWithDPI(iPage, 300, ImageType.RGB);
-				ImageIOUtil.writeImage(image, fname , 300);
-				imgNames.add(fname);
-				logger.info("PDf Page saved as image : " + fname);
-			}
-			document.close();
-		}catch (Exception e) {
-			e.printStackTrace();
-		}
-		return imgNames;  	
-	}
-		
-   /**
-   * Compare 2 pdf documents pixel by pixel for the content and format.
-   * 
-   * @param file1 Absolute file path of the expected file
-   * @param file2 Absolute file path of the actual file
-   * @param startPage Starting page number of the document
-   * @param endPage Ending page number of the document   
-   * @param highlightImageDifferences To highlight differences in the images
-   * @param showAllDifferences To compare all the pages of the PDF (by default as soon as a mismatch is found in a page, this method exits)
-   * @return boolean true if matches, false otherwise
-   * @throws java.io.IOException when file is not found.
-   */		
-	public boolean compare(String file1, String file2,int startPage, int endPage, boolean highlightImageDifferences, boolean showAllDifferences) throws IOException{
-		this.compareMode = CompareMode.VISUAL_MODE;
-		this.bHighlightPdfDifference = highlightImageDifferences;
-		this.bCompareAllPages = showAllDifferences;
-		return this.comparePdfByImage(file1, file2, startPage, endPage);
-	}		
-	
-   /**
-   * This method reads each page of a given doc, converts to image 
-   * compare. If it fails, exits immediately.
-   */
-	private boolean comparePdfByImage(String file1, String file2, int startPage, int endPage) throws IOException{
-		
-		logger.info("file1 : " + file1);
-		logger.info("file2 : " + file2);
-		
-		int pgCount1 = this.getPageCount(file1);
-		int pgCount2 = this.getPageCount(file2);
-		
-		if(pgCount1!=pgCount2){
-			logger.warning("files page counts do not match - returning false");
-			return false;
-		}
-		
-		if(this.bHighlightPdfDifference)
-			this.createImageDestinationDirectory(file2);
-		
-		this.updateStartAndEndPages(file1, startPage, endPage);		
-		
-		return this.convertToImageAndCompare(file1, file2, this.startPage, this.endPage);
-	}	
-	
-	private boolean convertToImageAndCompare(String file1, String file2, int startPage, int endPage) throws IOException{
-		
-		boolean result = true;
-		
-		PDDocument doc1=null;
-		PDDocument doc2=null;
-		
-		PDFRenderer pdfRenderer1 = null;
-		PDFRenderer pdfRenderer2 = null;
-		
-		try {
-			
-				doc1 = PDDocument.load(new File(file1));
-				doc2 = PDDocument.load(new File(file2));
-			 
-				pdfRenderer1 = new PDFRenderer(doc1);
-				pdfRenderer2 = new PDFRenderer(doc2);
-
-				
-				for(int iPage=startPage-1;iPage<endPage;iPage++){
-					String fileName = new File(file1).getName().replace(".pdf", "_") + (iPage + 1);
-					fileName = this.getImageDestinationPath() + "/" + fileName + "_diff.png";
-					
-					logger.info("Comparing Page No : " + (iPage+1));
-					BufferedImage image1 = pdfRenderer1.renderImageWithDPI(iPage, 300, ImageType.RGB);
-					BufferedImage image2 = pdfRenderer2.renderImageWithDPI(iPage, 300, ImageType.RGB);
-					result = ImageUtil.compareAndHighlight(image1, image2, fileName, this.bHighlightPdfDifference, this.imgColor.getRGB()) && result;
-					if(!this.bCompareAllPages && !result){
-						break;
-					}
-				}
-		}catch (Exception e) {
-			e.printStackTrace();
-		}finally{
-			doc1.close();
-			doc2.close();
-		}
-		return result;  	
-	}
-	
-
-
-   /**
-   * Extract all the embedded images from the pdf document
-   * 
-   * @param file Absolute file path of the file
-   * @param startPage Starting page number of the document
-   * @return List list of image file names with absolute path
-   * @throws java.io.IOException when file is not found.
-   */	
-	public List<String> extractImages(String file, int startPage) throws IOException{
-		return this.extractimages(file, startPage, -1);	
-	}
-	
-   /**
-   * Extract all the embedded images from the pdf document
-   * 
-   * @param file Absolute file path of the file
-   * @param startPage Starting page number of the document
-   * @param endPage Ending page number of the document
-   * @return List list of image file names with absolute path
-   * @throws java.io.IOException when file is not found.
-   */	
-	public List<String> extractImages(String file, int startPage, int endPage) throws IOException{
-		return this.extractimages(file, startPage, endPage);	
-	}
-	
-   /**
-   * Extract all the embedded images from the pdf document
-   * 
-   * @param file Absolute file path of the file
-   * @return List list of image file names with absolute path
-   * @throws java.io.IOException when file is not found.
-   */		
-	public List<String> extractImages(String file) throws IOException{
-		return this.extractimages(file, -1, -1);
-	}
-	
-   /**
-   * This method extracts all the embedded images of the pdf document
-   */	
-	private List<String> extractimages(String file, int startPage, int endPage){
-		
-		logger.info("file : " + file);
-		logger.info("startPage : " + startPage);
-		logger.info("endPage : " + endPage);
-		
-		ArrayList<String> imgNames = new ArrayList<String>();
-		boolean bImageFound = false;
-		try {
-
-			this.createImageDestinationDirectory(file);
-			String fileName = this.getFileName(file).replace(".pdf", "_resource");
-			
-			PDDocument document = PDDocument.load(new File(file));
-			PDPageTree list = document.getPages();
-			
-			this.updateStartAndEndPages(file, startPage, endPage);
-			
-			int totalImages = 1;
-			for(int iPage=this.startPage-1;iPage<this.endPage;iPage++){	
-				logger.info("Page No : " + (iPage+1));
-				PDResources pdResources = list.get(iPage).getResources();
-				for (COSName c : pdResources.getXObjectNames()) {
-		            PDXObject o = pdResources.getXObject(c);
-		            if (o instanceof org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject) {
-		            	bImageFound = true;
-		            	String fname = this.imageDestinationPath + "/" + fileName+ "_" + totalImages + ".png";
-		                ImageIO.write(((org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject)o).getImage(), "png", new File(fname));
-		                imgNames.add(fname);
-		                totalImages++;
-		            }
-		        }
-			}
-			document.close();		
-			if(bImageFound)
-				logger.info("Images are saved @ " + this.imageDestinationPath);
-			else
-				logger.info("No images were found in the PDF");
-		}catch (Exception e) {
-			e.printStackTrace();
-		}
-		return imgNames;  	
-	}
-
-	private void createImageDestinationDirectory(String file) throws IOException{
-		if(null==this.imageDestinationPath){
-			File sourceFile = new File(file);
-			String destinationDir = sourceFile.getParent() + "/temp/";
-			this.imageDestinationPath=destinationDir;
-			this.createFolder(destinationDir);
-		}
-	}
-	
-	private boolean createFolder(String dir) throws IOException{
-	    FileUtils.deleteDirectory(new File(dir));
-		return new File(dir).mkdir();
-	}
-	
-	private String getFileName(String file){
-		return new File(file).getName();
-	}
-	
-	private void updateStartAndEndPages(String file, int start, int end) throws IOException{
-		
-		PDDocument document = PDDocument.load(new File(file));
-		int pagecount = document.getNumberOfPages();
-		logger.info("Page Count : " + pagecount);
-		logger.info("Given start page:" + start);
-		logger.info("Given end   page:" + end);
-		
-		if((start > 0 && start <= pagecount)){
-			this.startPage = start;
-		}else{
-			this.startPage = 1;
-		}
-		if((end > 0 && end >= start && end <= pagecount)){
-			this.endPage = end;
-		}else{
-			this.endPage = pagecount;
-		}
-		document.close();
-		logger.info("Updated start page:" + this.startPage);
-		logger.info("Updated end   page:" + this.endPage);
-	}
+package com.testautomationguru.utility;
+
+/*
+ * Copyright [2015] [www.testautomationguru.com]
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.ArrayList;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDDocumentInformation;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.apache.pdfbox.text.PDFTextStripper;
+
+/**
+* <h1>PDF Utility</h1>
+* A simple pdf utility using apache pdfbox to get the text, 
+* compare files using plain text or pixel by pixel comparison, extract all the images from the pdf
+*
+* The settings are held in an immutable PDFUtilConfig which each call reads once when it starts;
+* all the other state of a call is local to it. One instance can serve concurrent calls from many threads.
+* The setters replace the configuration for the calls started after them.
+*
+* @author  www.testautomationguru.com
+* @version 1.0
+* @since   2015-06-13
+*/
+
+public class PDFUtil {
+
+	private final static Logger logger = Logger.getLogger(PDFUtil.class.getName());
+	private final static Pattern WHITE_SPACE = Pattern.compile("\\s+");
+	private final static Pattern LINE_BREAK = Pattern.compile("\r\n|\r|\n");
+	private volatile PDFUtilConfig config;
+	// image directory of the last call when no path is set or with an OutputManager; overwritten by concurrent calls
+	private volatile String defaultImageDestinationPath;
+	
+	/*
+	 * Constructor
+	 */
+	
+	public PDFUtil(){
+		this(PDFUtilConfig.builder().build());
+	}
+	
+   /**
+   * @param config configuration used by all the calls of this instance
+   */
+	public PDFUtil(PDFUtilConfig config){
+		if(null==config){
+			throw new IllegalArgumentException("config is null");
+		}
+		this.config = config;
+		logger.setLevel(Level.OFF);
+		System.setProperty("sun.java2d.cmm", "sun.java2d.cmm.kcms.KcmsServiceProvider");
+	}
+	
+   /**
+   * @return the current configuration
+   */
+	public PDFUtilConfig getConfig(){
+		return this.config;
+	}
+	
+   /**
+   * This method is used to show log in the console. Level.INFO
+   * It is set to Level.OFF by default.
+   */
+	public void enableLog(){
+		logger.setLevel(Level.INFO);
+	}
+
+   /**
+   * This method is used to change the file comparison mode text/visual
+   * @param mode CompareMode
+   */
+	public synchronized void setCompareMode(CompareMode mode){
+		this.config = this.config.toBuilder().compareMode(mode).build();
+	}
+	
+   /**
+   * This method is used to get the current comparison mode text/visual
+   * @return CompareMode
+   */
+	public CompareMode getCompareMode(){
+		return this.config.getCompareMode();
+	}	
+		
+   /**
+   * This method is used to change the level
+   * @param level java.util.logging.Level 
+   */
+	public void setLogLevel(java.util.logging.Level level){
+		logger.setLevel(level);
+	}
+		
+   /**
+   * getText method by default replaces all the white spaces and compares.
+   * This method is used to enable/disable the feature.
+   * 
+   * @param flag true to enable;  false otherwise
+   */
+	public synchronized void trimWhiteSpace(boolean flag){
+		this.config = this.config.toBuilder().trimWhiteSpace(flag).build();
+	}
+	
+   /**
+   * Path where images are stored
+   * when the savePdfAsImage or extractPdfImages methods are invoked.
+   * When no path is set, the temp directory next to the file of the last call.
+   * With an OutputManager, the run directory of the last call.
+   * The last call is not known when calls run concurrently on this instance: the directory of a comparison is 
+   * given by CompareResult.getImageDestinationPath().
+   * 
+   * @return String Absolute path where images are stored
+   */	
+	public String getImageDestinationPath(){
+		String path = this.config.getImageDestinationPath();
+		return null!=path && null==this.config.getOutputManager() ? path : this.defaultImageDestinationPath;
+	}
+
+   /**
+   * Set the path where images to be stored
+   * when the savePdfAsImage or extractPdfImages methods are invoked.
+   * 
+   * @param path Absolute path to store the images
+   */	
+	public synchronized void setImageDestinationPath(String path){
+		this.config = this.config.toBuilder().imageDestinationPath(path).build();
+	}
+	
+   /**
+   * Highlight the difference when 2 pdf files are compared in Binary mode.
+   * The result is saved as an image.
+   * 
+   * @param flag true - enable ; false - disable (default);
+   */	
+	public synchronized void highlightPdfDifference(boolean flag){
+		this.config = this.config.toBuilder().highlightPdfDifference(flag).build();
+	}	
+
+   /**
+   * Color in which pdf difference can be highlighted.
+   * MAGENTA is the default color.
+   * 
+   * @param colorCode color code to highlight the difference
+   */	
+	public synchronized void highlightPdfDifference(Color colorCode){
+		this.config = this.config.toBuilder().highlightPdfDifference(colorCode).build();
+	}	
+	
+   /**
+   * Images written for the pages which do not match when the differences are highlighted.
+   * HIGHLIGHTED_PAGE (default) writes the whole page with the differences highlighted,
+   * REGION_SNIPPETS writes only a cropped side by side image of each region of differences.
+   * 
+   * @param mode DiffImageMode
+   */	
+	public synchronized void setDiffImageMode(DiffImageMode mode){
+		this.config = this.config.toBuilder().diffImageMode(mode).build();
+	}	
+	
+   /**
+   * Differences accepted by VISUAL_MODE: a per channel delta, a ratio of differing pixels and a minimum SSIM.
+   * A page within the tolerance matches; the differences of the other pages are highlighted pixel exact.
+   * 
+   * @param tolerance VisualTolerance; null (default) for pixel identical pages
+   */	
+	public synchronized void setVisualTolerance(VisualTolerance tolerance){
+		this.config = this.config.toBuilder().visualTolerance(tolerance).build();
+	}	
+	
+   /**
+   * Receives the timings of the load, page count, text extraction, render, pixel compare and image encode stages
+   * of every operation, with the bytes read and written and the raster sizes. PDFUtilMetrics aggregates them.
+   * 
+   * @param listener MetricsListener; null (default) for none
+   */	
+	public synchronized void setMetricsListener(MetricsListener listener){
+		this.config = this.config.toBuilder().metricsListener(listener).build();
+	}	
+	
+   /**
+   * Pipelines VISUAL_MODE when the pages are compared one at a time (parallelism of 1): each document is rendered 
+   * by a thread of its own while the calling thread compares the previous pages, and the differences are written 
+   * by at least one writer thread. At most pages + 2 rendered pages of each document are held in memory.
+   * The pages are not pipelined with a pre-screen.
+   * 
+   * @param pages number of rendered pages of each document waiting to be compared; 0 (default) to not pipeline
+   */	
+	public synchronized void setPipelineDepth(int pages){
+		this.config = this.config.toBuilder().pipelineDepth(pages).build();
+	}	
+	
+   /**
+   * Bounds the memory of VISUAL_MODE for very large pages: each page is rendered and compared in horizontal bands 
+   * whose height keeps the rasters of both the documents within the budget, whatever the page size. 
+   * The bands which differ are highlighted as name_page_diff_band_n images. The pages are not pre-screened, 
+   * cached nor pipelined in this mode.
+   * 
+   * @param bytes bytes of rasters a page comparison may hold; 0 (default) to render the pages whole
+   */	
+	public synchronized void setRenderMemoryBudget(long bytes){
+		this.config = this.config.toBuilder().renderMemoryBudget(bytes).build();
+	}	
+	
+   /**
+   * Writes the images of each call to a run directory of its own, created by the manager under its root 
+   * (by default the image destination path, or the temp directory next to the pdf file). The directories of the 
+   * other calls are kept, so that calls can run at the same time on shared storage; old run directories are 
+   * deleted according to the retention of the manager. The image files are written under a temporary name 
+   * and renamed once complete, with or without a manager.
+   * 
+   * Without a manager (default) the images are written to the temp directory next to the pdf file, replacing 
+   * those a previous call wrote for the same file; the other files of the directory are left alone.
+   * 
+   * @param manager OutputManager; null (default) for a single directory
+   */	
+	public synchronized void useOutputManager(OutputManager manager){
+		this.config = this.config.toBuilder().outputManager(manager).build();
+	}	
+	
+   /**
+   * Keeps the highlighted image of each page which does not match in its PageResult (see compareVisual(..)), 
+   * whether or not the differences are written to the image destination path. The images stay in memory 
+   * with the CompareResult; pages compared in bands (setRenderMemoryBudget(..)) keep none.
+   * 
+   * @param flag true to keep the diff images in memory; false (default) otherwise
+   */	
+	public synchronized void keepDiffImages(boolean flag){
+		this.config = this.config.toBuilder().keepDiffImages(flag).build();
+	}	
+		
+   /**
+   * To compare all the pages of the PDF files. By default as soon as a mismatch is found, the method returns false and exits.
+   * 
+   * @param flag true to enable; false otherwise
+   */	
+	public synchronized void compareAllPages(boolean flag){
+		this.config = this.config.toBuilder().compareAllPages(flag).build();
+	}	
+	
+   /**
+   * Pages whose content streams and resources (fonts, images..) are identical in both the files 
+   * are reported as matching without being rendered. Byte identical files are not rendered at all.
+   * Enabled by default.
+   * 
+   * @param flag true to enable; false to render and compare every page
+   */	
+	public synchronized void skipIdenticalPages(boolean flag){
+		this.config = this.config.toBuilder().skipIdenticalPages(flag).build();
+	}	
+	
+   /**
+   * Cache for the rendered pages of the expected (first) file in VISUAL_MODE. 
+   * Useful when the same baseline files are compared again and again, see DiskPageImageCache.
+   * 
+   * @param cache PageImageCache; null to render every page
+   */	
+	public synchronized void usePageImageCache(PageImageCache cache){
+		this.config = this.config.toBuilder().pageImageCache(cache).build();
+	}
+	
+   /**
+   * Fonts shared by all the documents loaded, so that the fonts embedded in many files are parsed once 
+   * instead of once per document. Useful in batch compares of files generated from the same templates.
+   * The same SharedResourceCache can be used by several PDFUtil.
+   * 
+   * @param cache SharedResourceCache; null to parse the fonts of each document
+   */	
+	public synchronized void useResourceCache(SharedResourceCache cache){
+		this.config = this.config.toBuilder().resourceCache(cache).build();
+	}
+	
+   /**
+   * Number of pages to be rendered and compared at the same time in VISUAL_MODE, and of workers extracting 
+   * chunks of pages in getText(..) / iteratePageText(..) unless a stripper is shared through useStripper(..).
+   * Each worker loads its own copy of the documents. 1 (default) processes the pages one by one.
+   * 
+   * @param threads no of pages to compare in parallel
+   */	
+	public synchronized void setParallelism(int threads){
+		this.config = this.config.toBuilder().parallelism(threads).build();
+	}
+	
+   /**
+   * Executor used to compare the pages in parallel. When not set, a pool of 
+   * parallelism threads is created for each comparison. The executor is not shutdown by PDFUtil.
+   * 
+   * @param executor executor to run the page comparisons on; null to use an internal pool
+   */	
+	public synchronized void useExecutor(ExecutorService executor){
+		this.config = this.config.toBuilder().executor(executor).build();
+	}
+	
+   /**
+   * Resolution at which the pages are rendered by savePdfAsImage and compared in VISUAL_MODE. 300 by default.
+   * 
+   * @param dpi dots per inch
+   */	
+	public synchronized void setRenderDpi(float dpi){
+		this.config = this.config.toBuilder().renderDpi(dpi).build();
+	}
+	
+	public float getRenderDpi(){
+		return this.config.getRenderDpi();
+	}
+	
+   /**
+   * Color type of the images rendered by savePdfAsImage and compared in VISUAL_MODE. RGB by default.
+   * GRAY or BINARY images are smaller and faster to compare, but color only differences may be missed.
+   * 
+   * @param type ImageType
+   */	
+	public synchronized void setRenderImageType(ImageType type){
+		this.config = this.config.toBuilder().renderImageType(type).build();
+	}
+	
+	public ImageType getRenderImageType(){
+		return this.config.getRenderImageType();
+	}
+	
+   /**
+   * Adaptive VISUAL_MODE : each page is first compared at a low resolution and / or in a cheaper color type.
+   * Only the pages which do not match there are rendered again and compared at the render dpi & image type;
+   * the pages which match at the low resolution are reported as matching.
+   * 
+   * Rendering at 72 dpi instead of 300 is about 17 times less pixels. The trade off is that a difference 
+   * smaller than a pixel of the low resolution, or a color only difference in GRAY, may be missed.
+   * Disabled by default.
+   * 
+   * @param dpi resolution of the pre-screen, for example 72; 0 to disable the pre-screen
+   * @param type ImageType of the pre-screen, for example GRAY; null for the render image type
+   */	
+	public synchronized void prescreenPages(float dpi, ImageType type){
+		this.config = this.config.toBuilder().prescreenPages(dpi, type).build();
+	}
+	
+   /**
+   * Encoder of the images written by savePdfAsImage, extractImages and the highlighted differences of VISUAL_MODE.
+   * new PngImageOutput(Deflater.BEST_SPEED) encodes several times faster than the default, with bigger files;
+   * new PnmImageOutput() writes the pixels uncompressed. PNG through ImageIO by default.
+   * 
+   * @param output ImageOutput; null for the default
+   */	
+	public synchronized void useImageOutput(ImageOutput output){
+		this.config = this.config.toBuilder().imageOutput(output).build();
+	}
+	
+   /**
+   * Number of threads encoding the page snapshots and the highlighted differences, so that the next page 
+   * is rendered while the previous one is encoded. 0 (default) encodes the images on the calling thread.
+   * 
+   * @param threads no of writer threads
+   */	
+	public synchronized void setImageWriterThreads(int threads){
+		this.config = this.config.toBuilder().imageWriterThreads(threads).build();
+	}
+	
+   /**
+   * How the pdf files are read while being parsed. RANDOM_ACCESS_FILE is the default.
+   * MEMORY_MAPPED serves the reads from the OS page cache which helps with very large files.
+   * 
+   * @param mode DocumentLoadMode
+   */	
+	public synchronized void setDocumentLoadMode(DocumentLoadMode mode){
+		this.config = this.config.toBuilder().documentLoadMode(mode).build();
+	}
+	
+   /**
+   * Memory settings for the buffers used by PDFBox while parsing the documents. 
+   * Use MemoryUsageSetting.setupTempFileOnly() or setupMixed(..) to buffer huge inputs in temp files.
+   * Main memory only by default.
+   * 
+   * @param setting MemoryUsageSetting
+   */	
+	public synchronized void useMemoryUsageSetting(MemoryUsageSetting setting){
+		this.config = this.config.toBuilder().memoryUsageSetting(setting).build();
+	}
+	
+   /**
+   * Granularity of the differences reported by compareText for the pages which do not match.
+   * The pages are diffed on the executor when the parallelism is more than 1.
+   * 
+   * @param granularity LINE (default) or WORD; null to not compute the differences
+   */
+	public synchronized void setDiffGranularity(DiffGranularity granularity){
+		this.config = this.config.toBuilder().diffGranularity(granularity).build();
+	}
+	
+   /**
+   * To modify the text extracting strategy using PDFTextStripper.
+   * The stripper is shared by all the calls, which then extract the text one at a time;
+   * PDFUtilConfig.Builder.stripperFactory(..) creates a stripper for each call instead.
+   * 
+   * @param stripper Stripper with user strategy
+   */   
+    public synchronized void useStripper(PDFTextStripper stripper){
+        this.config = this.config.toBuilder().stripper(stripper).build();
+    }   	
+				
+   /**
+   * Get the page count of the document.
+   * The count is read from the page tree, without loading the document unless the file is damaged.
+   * 
+   * @param file Absolute file path
+   * @return int No of pages in the document.
+   * @throws java.io.IOException when file is not found.
+   */	
+	public int getPageCount(String file) throws IOException{
+		logger.info("file :" + file);
+		PDFDocumentHandle handle = this.openDocument(this.config, file);
+		try{
+			long start = System.nanoTime();
+			int pageCount = handle.getPageCount();
+			MetricEvent.emit(handle.getMetricsListener(), MetricStage.PAGE_COUNT, handle.getFile(), 0, 0, start, 0);
+			logger.info("pageCount :" + pageCount);
+			return pageCount;
+		}finally{
+			handle.close();
+		}
+	}
+				
+   /**
+   * Get the document information (title, author, producer, dates..) of the document.
+   * Read without loading the document unless the file is damaged.
+   * 
+   * @param file Absolute file path
+   * @return PDDocumentInformation of the info dictionary; empty when the document has none.
+   * @throws java.io.IOException when file is not found.
+   */	
+	public PDDocumentInformation getDocumentInformation(String file) throws IOException{
+		logger.info("file :" + file);
+		PDFDocumentHandle handle = this.openDocument(this.config, file);
+		try{
+			return handle.getMetadata().getInformation();
+		}finally{
+			handle.close();
+		}
+	}
+				
+   /**
+   * Get the content of the document as plain text.
+   *  
+   * @param file Absolute file path
+   * @return String document content in plain text.
+   * @throws java.io.IOException when file is not found.
+   */
+	public String getText(String file) throws IOException{
+		return this.getPDFText(file,-1, -1);
+	}
+	
+   /**
+   * Get the content of the document as plain text.
+   *  
+   * @param file Absolute file path
+   * @param startPage Starting page number of the document
+   * @return String document content in plain text.
+   * @throws java.io.IOException when file is not found.
+   */
+	public String getText(String file, int startPage) throws IOException{
+		return this.getPDFText(file,startPage, -1);
+	}
+	
+   /**
+   * Get the content of the document as plain text.
+   *  
+   * @param file Absolute file path
+   * @param startPage Starting page number of the document
+   * @param endPage Ending page number of the document
+   * @return String document content in plain text.
+   * @throws java.io.IOException when file is not found.
+   */
+	public String getText(String file, int startPage, int endPage) throws IOException{
+		return this.getPDFText(file,startPage, endPage);
+	}
+
+   /**
+   * This method returns the content of the document
+   */
+	private String getPDFText(String file, int startPage, int endPage) throws IOException{
+		
+		logger.info("file : " + file);
+		logger.info("startPage : " + startPage);
+		logger.info("endPage : " + endPage);
+		
+		PDFUtilConfig config = this.config;
+		PDFDocumentHandle handle = this.openDocument(config, file);
+		try{
+			if(config.getParallelism() > 1 && null==config.getStripper()){
+				return this.getPDFTextInParallel(config, handle, startPage, endPage);
+			}
+			PDFTextStripper shared = config.getStripper();
+			if(null!=shared){
+				// a PDFTextStripper keeps the state of the extraction, a shared one is used by one call at a time
+				synchronized(shared){
+					return this.getPDFText(config, shared, handle, startPage, endPage);
+				}
+			}
+			return this.getPDFText(config, config.newStripper(), handle, startPage, endPage);
+		}finally{
+			handle.close();
+		}
+	}
+	
+	private String getPDFText(PDFUtilConfig config, PDFTextStripper localStripper, PDFDocumentHandle handle, int startPage, int endPage) throws IOException{
+		int[] range = this.getPageRange(handle.getPageCount(), startPage, endPage);
+		localStripper.setStartPage(range[0]);
+		localStripper.setEndPage(range[1]);
+		
+		long start = System.nanoTime();
+		String txt;
+		if(!config.isTrimWhiteSpace()){
+			txt = localStripper.getText(handle.getDocument());
+		}else{
+			// white space is collapsed while the text is written
+			NormalizingTextWriter sink = new NormalizingTextWriter(true, false, null, false);
+			localStripper.writeText(handle.getDocument(), sink);
+			txt = sink.pageText();
+		}
+		MetricEvent.emit(handle.getMetricsListener(), MetricStage.TEXT_EXTRACTION, handle.getFile(), 0, range[1] - range[0] + 1, start, 0);
+		// the text itself can be huge, it is only logged at FINEST
+		logger.info("PDF Text : " + txt.length() + " characters");
+		if(logger.isLoggable(Level.FINEST)){
+			logger.finest("PDF Text : " + txt);
+		}
+		return txt;
+	}
+	
+   /**
+   * Extracts chunks of pages in parallel, see PageTextIterator, and joins their text in page order.
+   * The text of the pages is trimmed as a whole, as when a single stripper extracts the range.
+   */
+	private String getPDFTextInParallel(PDFUtilConfig config, PDFDocumentHandle handle, int startPage, int endPage) throws IOException{
+		int[] range = this.getPageRange(handle.getPageCount(), startPage, endPage);
+		PageTextIterator pages = new PageTextIterator(config, handle, range[0], range[1], true);
+		try{
+			NormalizingTextWriter sink = config.isTrimWhiteSpace() ? new NormalizingTextWriter(true, false, null, false) : null;
+			StringBuilder text = new StringBuilder();
+			while(pages.hasNext()){
+				String page = pages.nextPage().getText();
+				if(null!=sink){
+					sink.write(page, 0, page.length());
+				}else{
+					text.append(page);
+				}
+			}
+			String txt = null!=sink ? sink.pageText() : text.toString();
+			logger.info("PDF Text : " + txt.length() + " characters");
+			if(logger.isLoggable(Level.FINEST)){
+				logger.finest("PDF Text : " + txt);
+			}
+			return txt;
+		}finally{
+			pages.close();
+		}
+	}
+	
+   /**
+   * Get the text of each page of the document, as soon as it is extracted. With a parallelism above 1 the pages 
+   * are extracted in chunks by parallel workers, each with its own copy of the document and its own stripper.
+   * The iterator must be closed when it is not read to the end.
+   *  
+   * @param file Absolute file path
+   * @return PageTextIterator over the text of the pages, in page order.
+   * @throws java.io.IOException when file is not found.
+   */
+	public PageTextIterator iteratePageText(String file) throws IOException{
+		return this.iteratePageText(file, -1, -1);
+	}
+	
+   /**
+   * Get the text of each page of the document, as soon as it is extracted. See iteratePageText(String).
+   *  
+   * @param file Absolute file path
+   * @param startPage Starting page number of the document
+   * @param endPage Ending page number of the document
+   * @return PageTextIterator over the text of the pages, in page order.
+   * @throws java.io.IOException when file is not found.
+   */
+	public PageTextIterator iteratePageText(String file, int startPage, int endPage) throws IOException{
+		logger.info("file : " + file);
+		PDFUtilConfig config = this.config;
+		PDFDocumentHandle handle = this.openDocument(config, file);
+		PageTextIterator pages = null;
+		try{
+			int[] range = this.getPageRange(handle.getPageCount(), startPage, endPage);
+			pages = new PageTextIterator(config, handle, range[0], range[1], false);
+			return pages;
+		}finally{
+			// the iterator releases the document
+			if(null==pages){
+				handle.close();
+			}
+		}
+	}
+	
+   /**
+   * Get the text of each page of the document as a sequential Stream, see iteratePageText(String).
+   * The stream must be closed when it is not consumed to the end, with a try-with-resources for instance.
+   *  
+   * @param file Absolute file path
+   * @return Stream of the text of the pages, in page order.
+   * @throws java.io.IOException when file is not found.
+   */
+	public Stream<PageText> streamPageText(String file) throws IOException{
+		return this.streamPageText(file, -1, -1);
+	}
+	
+   /**
+   * Get the text of each page of the document as a sequential Stream, see iteratePageText(String).
+   *  
+   * @param file Absolute file path
+   * @param startPage Starting page number of the document
+   * @param endPage Ending page number of the document
+   * @return Stream of the text of the pages, in page order.
+   * @throws java.io.IOException when file is not found.
+   */
+	public Stream<PageText> streamPageText(String file, int startPage, int endPage) throws IOException{
+		final PageTextIterator pages = this.iteratePageText(file, startPage, endPage);
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(pages, Spliterator.ORDERED | Spliterator.NONNULL), false)
+				.onClose(new Runnable(){
+					@Override
+					public void run(){
+						try{
+							pages.close();
+						}catch(IOException e){
+							throw new UncheckedIOException(e);
+						}
+					}
+				});
+	}
+	
+   /**
+   * Text matching any of the given regular expressions is ignored in TEXT_MODE comparison.
+   * The expressions are applied to the text of each page.
+   * 
+   * @param regexs regular expressions; null to clear the exclusions
+   */
+	public synchronized void excludeText(String... regexs){
+		this.config = this.config.toBuilder().excludeText(regexs).build();
+	}
+	
+	
+   /**
+   * Compares two given pdf documents.
+   * 
+   * <b>Note :</b> <b>TEXT_MODE</b> : Compare 2 pdf documents contents with no formatting. 
+   * 			   <b>VISUAL_MODE</b> : Compare 2 pdf documents pixel by pixel for the content and format.
+   * @param file1 Absolute file path of the expected file
+   * @param file2 Absolute file path of the actual file
+   * @return boolean true if matches, false otherwise
+   * @throws java.io.IOException when file is not found.
+   */
+	public boolean compare(String file1, String file2) throws IOException{
+		return this.comparePdfFiles(file1, file2, -1, -1);
+	}
+	
+   /**
+   * Compares two given pdf documents.
+   * 
+   * <b>Note :</b> <b>TEXT_MODE</b> : Compare 2 pdf documents contents with no formatting. 
+   * 			   <b>VISUAL_MODE</b> : Compare 2 pdf documents pixel by pixel for the content and format.
+   * 
+   * @param file1 Absolute file path of the expected file
+   * @param file2 Absolute file path of the actual file
+   * @param startPage Starting page number of the document
+   * @param endPage Ending page number of the document
+   * @return boolean true if matches, false otherwise
+   * @throws java.io.IOException when file is not found.
+   */
+	public boolean compare(String file1, String file2, int startPage, int endPage) throws IOException{
+		return this.comparePdfFiles(file1, file2, startPage, endPage);
+	}
+	
+   /**
+   * Compares two given pdf documents.
+   * 
+   * <b>Note :</b> <b>TEXT_MODE</b> : Compare 2 pdf documents contents with no formatting. 
+   * 			   <b>VISUAL_MODE</b> : Compare 2 pdf documents pixel by pixel for the content and format.
+   * 
+   * @param file1 Absolute file path of the expected file
+   * @param file2 Absolute file path of the actual file
+   * @param startPage Starting page number of the document
+   * @return boolean true if matches, false otherwise
+   * @throws java.io.IOException when file is not found.
+   */	
+	public boolean compare(String file1, String file2, int startPage) throws IOException{
+		return this.comparePdfFiles(file1, file2, startPage, -1);
+	}
+	
+	private boolean comparePdfFiles(String file1, String file2, int startPage, int endPage)throws IOException{
+		PDFUtilConfig config = this.config;
+		if(CompareMode.TEXT_MODE==config.getCompareMode())
+			return comparepdfFilesWithTextMode(config, file1, file2, startPage, endPage);
+		else
+			return comparePdfByImage(config, file1, file2, startPage, endPage, false).isMatch();
+	}
+		
+	/*
+	 * Compares with the given configuration instead of the one of this instance, see PDFBatchCompare.
+	 */
+	CompareResult compare(PDFUtilConfig config, String file1, String file2) throws IOException{
+		if(CompareMode.TEXT_MODE==config.getCompareMode())
+			return this.comparePdfTextByPage(config, file1, file2, -1, -1, false);
+		else
+			return this.comparePdfByImage(config, file1, file2, -1, -1, false);
+	}
+	
+	private boolean comparepdfFilesWithTextMode(PDFUtilConfig config, String file1, String file2, int startPage, int endPage) throws IOException{
+		return this.comparePdfTextByPage(config, file1, file2, startPage, endPage, false).isMatch();
+	}
+	
+   /**
+   * Compares the text of two given pdf documents page by page.
+   * Only one page of each document is extracted at a time.
+   * The comparison stops at the first page which does not match unless compareAllPages is enabled.
+   * 
+   * @param file1 Absolute file path of the expected file
+   * @param file2 Absolute file path of the actual file
+   * @return CompareResult result of each compared page
+   * @throws java.io.IOException when file is not found.
+   */
+	public CompareResult compareText(String file1, String file2) throws IOException{
+		return this.comparePdfTextByPage(this.config, file1, file2, -1, -1, true);
+	}
+	
+   /**
+   * Compares the text of two given pdf documents page by page.
+   * Only one page of each document is extracted at a time.
+   * The comparison stops at the first page which does not match unless compareAllPages is enabled.
+   * 
+   * @param file1 Absolute file path of the expected file
+   * @param file2 Absolute file path of the actual file
+   * @param startPage Starting page number of the document
+   * @param endPage Ending page number of the document
+   * @return CompareResult result of each compared page
+   * @throws java.io.IOException when file is not found.
+   */
+	public CompareResult compareText(String file1, String file2, int startPage, int endPage) throws IOException{
+		return this.comparePdfTextByPage(this.config, file1, file2, startPage, endPage, true);
+	}
+	
+	/**
+	 * @param details false when only the outcome matters: the text of the pages is then reduced to a digest on the fly
+	 */
+	private CompareResult comparePdfTextByPage(PDFUtilConfig config, String file1, String file2, int startPage, int endPage, boolean details) throws IOException{
+		PDFTextStripper shared = config.getStripper();
+		if(null!=shared){
+			// a PDFTextStripper keeps the state of the extraction, a shared one is used by one call at a time
+			synchronized(shared){
+				return this.comparePdfTextByPage(config, shared, shared, file1, file2, startPage, endPage, details);
+			}
+		}
+		return this.comparePdfTextByPage(config, config.newStripper(), config.newStripper(), file1, file2, startPage, endPage, details);
+	}
+	
+	private CompareResult comparePdfTextByPage(PDFUtilConfig config, PDFTextStripper stripper1, PDFTextStripper stripper2, 
+			String file1, String file2, int startPage, int endPage, boolean details) throws IOException{
+		
+		logger.info("file1 : " + file1);
+		logger.info("file2 : " + file2);
+		
+		StageTimings timings = new StageTimings(config.getMetricsListener());
+		config = config.toBuilder().metricsListener(timings).build();
+		CompareResult result = new CompareResult(file1, file2, CompareMode.TEXT_MODE, timings);
+		PDFDocumentHandle handle1 = this.openDocument(config, file1);
+		PDFDocumentHandle handle2 = null;
+		ExecutorService diffExecutor = null;
+		boolean ownExecutor = false;
+		List<Future<?>> diffs = new ArrayList<Future<?>>();
+		try{
+			handle2 = this.openDocument(config, file2);
+			
+			int[] range1 = this.getPageRange(handle1.getPageCount(), startPage, endPage);
+			int start1 = range1[0];
+			int end1 = range1[1];
+			int[] range2 = this.getPageRange(handle2.getPageCount(), startPage, endPage);
+			int start2 = range2[0];
+			int end2 = range2[1];
+			
+			NormalizingTextWriter sink1 = this.newTextSink(config, !details);
+			NormalizingTextWriter sink2 = this.newTextSink(config, !details);
+			DiffGranularity granularity = details ? config.getDiffGranularity() : null;
+			
+			// a page missing in one of the documents is compared as an empty page
+			for(int iPage=Math.min(start1, start2); iPage<=Math.max(end1, end2); iPage++){
+				checkInterrupted();
+				boolean inRange1 = iPage>=start1 && iPage<=end1;
+				boolean inRange2 = iPage>=start2 && iPage<=end2;
+				if(inRange1){
+					this.writePageText(stripper1, handle1, iPage, sink1);
+				}
+				if(inRange2){
+					this.writePageText(stripper2, handle2, iPage, sink2);
+				}
+				String file1Txt = null;
+				String file2Txt = null;
+				boolean match;
+				if(details){
+					file1Txt = sink1.pageText();
+					file2Txt = sink2.pageText();
+					match = file1Txt.equalsIgnoreCase(file2Txt);
+				}else{
+					match = Arrays.equals(sink1.pageDigest(), sink2.pageDigest());
+				}
+				logger.info("Page No : " + iPage + (match ? " - matches" : " - does not match"));
+				if(match){
+					result.add(new PageResult(iPage, PageResult.Status.MATCH, null, null));
+					continue;
+				}
+				
+				PageResult page = new PageResult(iPage, PageResult.Status.DIFFERENT, file1Txt, file2Txt);
+				result.add(page);
+				if(null!=granularity){
+					// the lines are only known before normalization, the page is extracted again
+					String raw1 = inRange1 ? this.extractPageText(stripper1, handle1, iPage) : "";
+					String raw2 = inRange2 ? this.extractPageText(stripper2, handle2, iPage) : "";
+					Runnable diff = this.diffPage(config, page, raw1, raw2, granularity);
+					if(config.getParallelism()>1){
+						if(null==diffExecutor){
+							ownExecutor = null==config.getExecutor();
+							diffExecutor = ownExecutor ? Executors.newFixedThreadPool(config.getParallelism()) : config.getExecutor();
+						}
+						diffs.add(diffExecutor.submit(diff));
+					}else{
+						diff.run();
+					}
+				}
+				if(!config.isCompareAllPages()){
+					break;
+				}
+			}
+			
+			for(Future<?> diff : diffs){
+				diff.get();
+			}
+		}catch(InterruptedException e){
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while diffing pages", e);
+		}catch(ExecutionException e){
+			throw new IOException(e.getCause());
+		}finally{
+			for(Future<?> diff : diffs){
+				diff.cancel(true);
+			}
+			if(ownExecutor){
+				diffExecutor.shutdownNow();
+			}
+			closeQuietly(handle2);
+			handle1.close();
+		}
+		
+		if(!result.isMatch()){
+			logger.warning("PDF content does not match");
+		}
+		result.done();
+		return result;
+	}
+	
+	private NormalizingTextWriter newTextSink(PDFUtilConfig config, boolean digest){
+		// the case is only folded for the digest, text is compared with equalsIgnoreCase
+		return new NormalizingTextWriter(config.isTrimWhiteSpace(), digest, config.getExcludePatterns(), digest);
+	}
+	
+	private void writePageText(PDFTextStripper stripper, PDFDocumentHandle handle, int iPage, NormalizingTextWriter sink) throws IOException{
+		stripper.setStartPage(iPage);
+		stripper.setEndPage(iPage);
+		PDDocument document = handle.getDocument();
+		long start = System.nanoTime();
+		stripper.writeText(document, sink);
+		MetricEvent.emit(handle.getMetricsListener(), MetricStage.TEXT_EXTRACTION, handle.getFile(), iPage, 1, start, 0);
+	}
+	
+	private String extractPageText(PDFTextStripper stripper, PDFDocumentHandle handle, int iPage) throws IOException{
+		stripper.setStartPage(iPage);
+		stripper.setEndPage(iPage);
+		PDDocument document = handle.getDocument();
+		long start = System.nanoTime();
+		String text = stripper.getText(document);
+		MetricEvent.emit(handle.getMetricsListener(), MetricStage.TEXT_EXTRACTION, handle.getFile(), iPage, 1, start, 0);
+		return text;
+	}
+	
+	private String normalizePageText(PDFUtilConfig config, String txt){
+		NormalizingTextWriter sink = this.newTextSink(config, false);
+		sink.write(txt, 0, txt.length());
+		return sink.pageText();
+	}
+	
+	private Runnable diffPage(final PDFUtilConfig config, final PageResult page, final String raw1, final String raw2, final DiffGranularity granularity){
+		return new Runnable(){
+			@Override
+			public void run(){
+				String[] expected = tokenize(config, raw1, granularity);
+				String[] actual = tokenize(config, raw2, granularity);
+				page.setDiffHunks(TextDiff.diff(page.getPageNumber(), expected, actual));
+			}
+		};
+	}
+	
+	/**
+	 * Lines are split before the white spaces are collapsed; each line is then normalized like the page text.
+	 */
+	private String[] tokenize(PDFUtilConfig config, String raw, DiffGranularity granularity){
+		if(DiffGranularity.WORD==granularity){
+			String txt = this.normalizePageText(config, raw);
+			return txt.isEmpty() ? new String[0] : WHITE_SPACE.split(txt);
+		}
+		List<String> lines = new ArrayList<String>();
+		for(String line : LINE_BREAK.split(raw)){
+			line = this.normalizePageText(config, line);
+			if(!line.isEmpty()){
+				lines.add(line);
+			}
+		}
+		return lines.toArray(new String[lines.size()]);
+	}
+	
+   /**
+   * Save each page of the pdf as image
+   * 
+   * @param file Absolute file path of the file
+   * @param startPage Starting page number of the document
+   * @return List list of image file names with absolute path
+   * @throws java.io.IOException when file is not found.
+   */
+	public List<String> savePdfAsImage(String file, int startPage) throws IOException{
+		return this.saveAsImage(file, startPage, -1);	
+	}
+	
+   /**
+   * Save each page of the pdf as image
+   * 
+   * @param file Absolute file path of the file
+   * @param startPage Starting page number of the document
+   * @param endPage Ending page number of the document
+   * @return List list of image file names with absolute path
+   * @throws java.io.IOException when file is not found.
+   */
+	public List<String> savePdfAsImage(String file, int startPage, int endPage) throws IOException{
+		return this.saveAsImage(file, startPage, endPage);	
+	}
+	
+   /**
+   * Save each page of the pdf as image
+   * 
+   * @param file Absolute file path of the file
+   * @return List list of image file names with absolute path
+   * @throws java.io.IOException when file is not found.
+   */	
+	public List<String> savePdfAsImage(String file) throws IOException{
+		return this.saveAsImage(file, -1, -1);
+	}
+	
+   /**
+   * This method saves the each page of the pdf as image
+   */
+	private List<String> saveAsImage(String file, int startPage, int endPage) throws IOException{
+		
+		logger.info("file : " + file);
+		logger.info("startPage : " + startPage);
+		logger.info("endPage : " + endPage);
+		
+		ArrayList<String> imgNames = new ArrayList<String>();
+		
+		PDFUtilConfig config = this.config;
+		PDFDocumentHandle handle = this.openDocument(config, file);
+		ImageWriteQueue writer = this.newImageWriter(config);
+		try {
+			File sourceFile = new File(file);
+			String fileName = sourceFile.getName().replace(".pdf", "");
+			String destination = this.createImageDestinationDirectory(config, file, 
+					Pattern.compile(Pattern.quote(fileName) + "_\\d+\\.[^.]+"));			
+			int[] range = this.getPageRange(handle.getPageCount(), startPage, endPage);
+			
+			PDFRenderer pdfRenderer = handle.getRenderer();
+			for(int iPage=range[0]-1;iPage<range[1];iPage++){
+				checkInterrupted();
+				logger.info("Page No : " + (iPage+1));
+				String fname = destination + fileName + "_" + (iPage + 1) + "." + writer.getExtension();
+				long start = System.nanoTime();
+				BufferedImage image = pdfRenderer.renderImageWithDPI(iPage, config.getRenderDpi(), config.getRenderImageType());
+				MetricEvent.emit(handle.getMetricsListener(), MetricStage.RENDER, handle.getFile(), iPage+1, 1, start, rasterBytes(image));
+				writer.write(image, fname, config.getRenderDpi());
+				imgNames.add(fname);
+				logger.info("PDf Page saved as image : " + fname);
+			}
+			writer.await();
+		}catch (InterruptedIOException e) {
+			throw e;
+		}catch (Exception e) {
+			e.printStackTrace();
+		}finally{
+			writer.close();
+			handle.close();
+		}
+		return imgNames;  	
+	}
+		
+   /**
+   * Compare 2 pdf documents pixel by pixel for the content and format.
+   * 
+   * @param file1 Absolute file path of the expected file
+   * @param file2 Absolute file path of the actual file
+   * @param startPage Starting page number of the document
+   * @param endPage Ending page number of the document   
+   * @param highlightImageDifferences To highlight differences in the images
+   * @param showAllDifferences To compare all the pages of the PDF (by default as soon as a mismatch is found in a page, this method exits)
+   * @return boolean true if matches, false otherwise
+   * @throws java.io.IOException when file is not found.
+   */		
+	public boolean compare(String file1, String file2,int startPage, int endPage, boolean highlightImageDifferences, boolean showAllDifferences) throws IOException{
+		// the settings are kept for the next calls, as if the setters had been called
+		PDFUtilConfig config;
+		synchronized(this){
+			config = this.config.toBuilder()
+						.compareMode(CompareMode.VISUAL_MODE)
+						.highlightPdfDifference(highlightImageDifferences)
+						.compareAllPages(showAllDifferences)
+						.build();
+			this.config = config;
+		}
+		return this.comparePdfByImage(config, file1, file2, startPage, endPage, false).isMatch();
+	}		
+	
+   /**
+   * Compares 2 pdf documents pixel by pixel, page by page, and reports the regions of differences of each page.
+   * The comparison stops at the first page which does not match unless compareAllPages is enabled.
+   * 
+   * @param file1 Absolute file path of the expected file
+   * @param file2 Absolute file path of the actual file
+   * @return CompareResult result of each compared page, with the bounding boxes of the differences
+   * @throws java.io.IOException when file is not found.
+   */
+	public CompareResult compareVisual(String file1, String file2) throws IOException{
+		return this.comparePdfByImage(this.config, file1, file2, -1, -1, true);
+	}
+	
+   /**
+   * Compares 2 pdf documents pixel by pixel, page by page, and reports the regions of differences of each page.
+   * The comparison stops at the first page which does not match unless compareAllPages is enabled.
+   * 
+   * @param file1 Absolute file path of the expected file
+   * @param file2 Absolute file path of the actual file
+   * @param startPage Starting page number of the document
+   * @param endPage Ending page number of the document
+   * @return CompareResult result of each compared page, with the bounding boxes of the differences
+   * @throws java.io.IOException when file is not found.
+   */
+	public CompareResult compareVisual(String file1, String file2, int startPage, int endPage) throws IOException{
+		return this.comparePdfByImage(this.config, file1, file2, startPage, endPage, true);
+	}
+	
+   /**
+   * This method reads each page of a given doc, converts to image 
+   * compare. If it fails, exits immediately.
+   * 
+   * Byte identical files give a result without any page. When the page counts differ no page is rendered, 
+   * the pages of the range missing in one of the documents are reported as not matching.
+   * 
+   * @param regions true to group the differences of the pages into regions
+   */
+	private CompareResult comparePdfByImage(PDFUtilConfig config, String file1, String file2, int startPage, int endPage, boolean regions) throws IOException{
+		
+		logger.info("file1 : " + file1);
+		logger.info("file2 : " + file2);
+		
+		StageTimings timings = new StageTimings(config.getMetricsListener());
+		config = config.toBuilder().metricsListener(timings).build();
+		CompareResult result = new CompareResult(file1, file2, CompareMode.VISUAL_MODE, timings);
+		PageDigester digester = new PageDigester();
+		if(config.isSkipIdenticalPages() && digester.sameFile(new File(file1), new File(file2))){
+			logger.info("files are identical - returning true");
+			result.done();
+			return result;
+		}
+		
+		PDFDocumentHandle handle1 = this.openDocument(config, file1);
+		PDFDocumentHandle handle2 = this.openDocument(config, file2);
+		PageResult[] results;
+		try{
+			int pgCount1 = handle1.getPageCount();
+			int pgCount2 = handle2.getPageCount();
+			
+			if(pgCount1!=pgCount2){
+				logger.warning("files page counts do not match - returning false");
+				int[] range = this.getPageRange(Math.max(pgCount1, pgCount2), startPage, endPage);
+				for(int iPage=Math.max(range[0], Math.min(pgCount1, pgCount2)+1); iPage<=range[1]; iPage++){
+					result.add(new PageResult(iPage, PageResult.Status.DIFFERENT, null, null));
+					if(!config.isCompareAllPages()){
+						break;
+					}
+				}
+				if(result.isMatch()){
+					// the range is within both the documents, the documents still do not match
+					result.add(new PageResult(Math.min(pgCount1, pgCount2)+1, PageResult.Status.DIFFERENT, null, null));
+				}
+				result.done();
+				return result;
+			}
+			
+			String destination = config.getImageDestinationPath();
+			ImageWriteQueue writer = null;
+			if(config.isHighlightPdfDifference()){
+				destination = this.createImageDestinationDirectory(config, file2, 
+						Pattern.compile(Pattern.quote(new File(file1).getName().replace(".pdf", "_")) + "\\d+_diff.*"));
+				result.setImageDestinationPath(destination);
+				// a pipeline writes the differences while it compares the next pages
+				writer = this.newImageWriter(config, config.getPipelineDepth() > 0 ? 1 : 0);
+			}
+			
+			int[] range = this.getPageRange(pgCount1, startPage, endPage);		
+			
+			int[] pages = this.getPagesToRender(config, digester, handle1, handle2, range[0], range[1]);
+			results = new PageResult[pgCount1];
+			for(int iPage=range[0]-1; iPage<range[1]; iPage++){
+				if(Arrays.binarySearch(pages, iPage) < 0){
+					results[iPage] = new PageResult(iPage+1, PageResult.Status.MATCH, null, null);
+				}
+			}
+			try{
+				this.convertToImageAndCompare(config, destination, writer, handle1, handle2, pages, regions, results);
+				if(null!=writer){
+					writer.await();
+				}
+			}finally{
+				if(null!=writer){
+					writer.close();
+				}
+			}
+		}finally{
+			handle1.close();
+			handle2.close();
+		}
+		for(PageResult page : results){
+			if(null!=page){
+				result.add(page);
+				if(!page.isMatch() && !config.isCompareAllPages()){
+					break;
+				}
+			}
+		}
+		result.done();
+		return result;
+	}	
+	
+   /**
+   * Page indexes of the range whose content digests differ. All the pages of the range when the 
+   * identical pages are not to be skipped.
+   */
+	private int[] getPagesToRender(PDFUtilConfig config, PageDigester digester, PDFDocumentHandle handle1, PDFDocumentHandle handle2, int startPage, int endPage) throws IOException{
+		int[] pages = new int[endPage - startPage + 1];
+		int count = 0;
+		for(int iPage=startPage-1;iPage<endPage;iPage++){
+			if(config.isSkipIdenticalPages()
+					&& Arrays.equals(digester.pageDigest(handle1.getDocument().getPage(iPage)), digester.pageDigest(handle2.getDocument().getPage(iPage)))){
+				logger.info("Page No : " + (iPage+1) + " - identical content, not rendered");
+				continue;
+			}
+			pages[count++] = iPage;
+		}
+		return Arrays.copyOf(pages, count);
+	}
+	
+   /**
+   * Stores the result of each compared page in results, by page index.
+   * A page which could not be compared is reported as not matching.
+   */
+	private void convertToImageAndCompare(PDFUtilConfig config, String destination, ImageWriteQueue writer, PDFDocumentHandle handle1, PDFDocumentHandle handle2, int[] pages, boolean regions, PageResult[] results) throws IOException{
+		
+		if(config.getParallelism() > 1 && pages.length > 1){
+			this.convertToImageAndCompareInParallel(config, destination, writer, handle1, handle2, pages, regions, results);
+			return;
+		}
+		if(config.getPipelineDepth() > 0 && config.getPrescreenDpi() <= 0 && config.getRenderMemoryBudget() <= 0 && pages.length > 1){
+			this.convertToImageAndCompareInPipeline(config, destination, writer, handle1, handle2, pages, regions, results);
+			return;
+		}
+		
+		int current = -1;
+		try {
+				for(int iPage : pages){
+					current = iPage;
+					results[iPage] = this.comparePage(config, destination, writer, handle1, handle2, iPage, regions);
+					if(!config.isCompareAllPages() && !results[iPage].isMatch()){
+						break;
+					}
+				}
+		}catch (InterruptedIOException e) {
+			throw e;
+		}catch (Exception e) {
+			e.printStackTrace();
+			results[current] = new PageResult(current+1, PageResult.Status.DIFFERENT, null, null);
+		}
+	}
+	
+   /**
+   * Renders the pages of each document on a thread of its own while the calling thread compares them, see PagePipeline.
+   */
+	private void convertToImageAndCompareInPipeline(final PDFUtilConfig config, final String destination, final ImageWriteQueue writer, final PDFDocumentHandle handle1, final PDFDocumentHandle handle2, int[] pages, 
+			final boolean regions, PageResult[] results) throws IOException{
+		
+		try{
+			new PagePipeline(config.getPipelineDepth()).run(pages, new PagePipeline.PageRenderer(){
+				@Override
+				public BufferedImage render(int pageIndex) throws IOException{
+					return renderPage(config, handle1, pageIndex, true, config.getRenderDpi(), config.getRenderImageType());
+				}
+			}, new PagePipeline.PageRenderer(){
+				@Override
+				public BufferedImage render(int pageIndex) throws IOException{
+					return renderPage(config, handle2, pageIndex, false, config.getRenderDpi(), config.getRenderImageType());
+				}
+			}, new PagePipeline.PageComparison(){
+				@Override
+				public PageResult compare(int pageIndex, BufferedImage image1, BufferedImage image2) throws IOException{
+					logger.info("Comparing Page No : " + (pageIndex+1));
+					return compareRenderedPage(config, destination, writer, handle1, image1, image2, pageIndex, regions);
+				}
+			}, !config.isCompareAllPages(), results);
+		}catch (InterruptedIOException e) {
+			throw e;
+		}catch (IOException e) {
+			e.printStackTrace();
+			// the first page without a result is the one which failed
+			for(int iPage : pages){
+				if(null==results[iPage]){
+					results[iPage] = new PageResult(iPage+1, PageResult.Status.DIFFERENT, null, null);
+					break;
+				}
+			}
+		}
+	}
+	
+   /**
+   * Renders and compares the pages on the executor. Every worker uses its own documents and renderers,
+   * the first one reuses the already opened handles.
+   */
+	private void convertToImageAndCompareInParallel(final PDFUtilConfig config, final String destination, final ImageWriteQueue writer, PDFDocumentHandle handle1, PDFDocumentHandle handle2, int[] pages, 
+			final boolean regions, final PageResult[] results) throws IOException{
+		
+		ParallelPageComparator comparator = new ParallelPageComparator(handle1, handle2, config.getParallelism(), config.getExecutor(), config.isCompareAllPages());
+		Boolean[] matches = comparator.compare(pages, new ParallelPageComparator.PageComparison() {
+			@Override
+			public boolean compare(PDFDocumentHandle handle1, PDFDocumentHandle handle2, int pageIndex) throws IOException {
+				// each page index is compared by a single worker, the results are read once all the workers are done
+				PageResult page = comparePage(config, destination, writer, handle1, handle2, pageIndex, regions);
+				results[pageIndex] = page;
+				return page.isMatch();
+			}
+		});
+		
+		for(int i=0; i<pages.length; i++){
+			if(Boolean.FALSE.equals(matches[i]) && null==results[pages[i]]){
+				results[pages[i]] = new PageResult(pages[i]+1, PageResult.Status.DIFFERENT, null, null);
+			}
+		}
+	}
+	
+   /**
+   * Renders the given page of both the documents and compares them pixel by pixel.
+   * The highlighted differences are written by the writer, null when they are not highlighted.
+   * 
+   * @param regions true to group the differences into regions; they are also grouped to write region snippets
+   */
+	private PageResult comparePage(PDFUtilConfig config, String destination, ImageWriteQueue writer, PDFDocumentHandle handle1, PDFDocumentHandle handle2, int iPage, boolean regions) throws IOException{
+		checkInterrupted();
+		logger.info("Comparing Page No : " + (iPage+1));
+		if(config.getRenderMemoryBudget() > 0){
+			String filePrefix = destination + "/" + handle1.getFile().getName().replace(".pdf", "_") + (iPage + 1);
+			return new BandedPageComparator(config).compare(handle1, handle2, iPage, regions, writer, filePrefix);
+		}
+		if(config.getPrescreenDpi() > 0){
+			ImageType type = config.getPrescreenImageType();
+			BufferedImage image1 = this.renderPage(config, handle1, iPage, true, config.getPrescreenDpi(), type);
+			BufferedImage image2 = this.renderPage(config, handle2, iPage, false, config.getPrescreenDpi(), type);
+			long start = System.nanoTime();
+			boolean match = new TiledImageComparator().compare(image1, image2, false, 0);
+			MetricEvent.emit(handle1.getMetricsListener(), MetricStage.PIXEL_COMPARE, handle1.getFile(), iPage+1, 1, start, 0);
+			if(match){
+				logger.info("Page No : " + (iPage+1) + " - matches at " + config.getPrescreenDpi() + " dpi");
+				return new PageResult(iPage+1, PageResult.Status.MATCH, null, null);
+			}
+		}
+		BufferedImage image1 = this.renderPage(config, handle1, iPage, true, config.getRenderDpi(), config.getRenderImageType());
+		BufferedImage image2 = this.renderPage(config, handle2, iPage, false, config.getRenderDpi(), config.getRenderImageType());
+		return this.compareRenderedPage(config, destination, writer, handle1, image1, image2, iPage, regions);
+	}
+	
+   /**
+   * Compares the rendered pages pixel by pixel.
+   */
+	private PageResult compareRenderedPage(PDFUtilConfig config, String destination, ImageWriteQueue writer, PDFDocumentHandle handle1, BufferedImage image1, BufferedImage image2, int iPage, boolean regions) throws IOException{
+		String filePrefix = destination + "/" + handle1.getFile().getName().replace(".pdf", "_") + (iPage + 1);
+		long start = System.nanoTime();
+		try{
+			return this.comparePage(config, filePrefix, writer, image1, image2, iPage, regions);
+		}finally{
+			// without writer threads the differences are encoded within the compare: PIXEL_COMPARE includes their IMAGE_ENCODE
+			MetricEvent.emit(handle1.getMetricsListener(), MetricStage.PIXEL_COMPARE, handle1.getFile(), iPage+1, 1, start, 0);
+		}
+	}
+	
+	private PageResult comparePage(PDFUtilConfig config, String filePrefix, ImageWriteQueue writer, BufferedImage image1, BufferedImage image2, int iPage, boolean regions) throws IOException{
+		boolean snippets = DiffImageMode.REGION_SNIPPETS==config.getDiffImageMode();
+		if(null!=config.getVisualTolerance()){
+			TolerantImageComparator tolerant = new TolerantImageComparator(config.getVisualTolerance());
+			boolean match = tolerant.compare(image1, image2);
+			logger.info("Page No : " + (iPage+1) + (match ? " - matches" : " - does not match") + " within the tolerance : "
+						+ String.format(Locale.ROOT, "%.4f%% pixels differ, SSIM %.4f", tolerant.getDifferentPixelRatio() * 100, tolerant.getSsim()));
+			if(match){
+				PageResult page = new PageResult(iPage+1, PageResult.Status.MATCH, null, null);
+				page.setDifferentPixels(tolerant.getDifferentPixels());
+				return page;
+			}
+		}
+		int colorCode = config.getHighlightColor().getRGB();
+		TiledImageComparator comparator = new TiledImageComparator();
+		PageResult page;
+		if(!regions && !(snippets && null!=writer)){
+			String fileName = filePrefix + "_diff." + (null==writer ? "png" : writer.getExtension());
+			boolean match = ImageUtil.compareAndHighlight(comparator, image1, image2, fileName, writer, config.isKeepDiffImages(), colorCode);
+			page = new PageResult(iPage+1, match ? PageResult.Status.MATCH : PageResult.Status.DIFFERENT, null, null);
+		}else{
+			List<DiffRegion> diffRegions = ImageUtil.compareRegions(comparator, image1, image2, iPage+1, config.getRenderDpi(), filePrefix, writer, snippets, 
+					config.isKeepDiffImages(), colorCode);
+			page = new PageResult(iPage+1, diffRegions.isEmpty() ? PageResult.Status.MATCH : PageResult.Status.DIFFERENT, null, null);
+			page.setDiffRegions(diffRegions);
+		}
+		if(!page.isMatch()){
+			page.setDifferentPixels(comparator.getDifferentPixels());
+			if(config.isKeepDiffImages()){
+				page.setDiffImage(comparator.getHighlightedImage());
+			}
+		}
+		return page;
+	}
+	
+   /**
+   * Renders the page, through the page image cache when one is set and the document is a baseline.
+   */
+	private BufferedImage renderPage(PDFUtilConfig config, PDFDocumentHandle handle, int iPage, boolean baseline, float dpi, ImageType type) throws IOException{
+		PageImageCache cache = config.getPageImageCache();
+		if(null==cache || !baseline){
+			return this.renderPage(handle, iPage, dpi, type);
+		}
+		PageImageKey key = new PageImageKey(handle.getContentHash(), iPage, dpi, type);
+		// a failing cache (full or read only disk..) only costs the render, the comparison goes on
+		BufferedImage image = null;
+		try{
+			image = cache.get(key);
+		}catch(IOException e){
+			logger.warning("Page No : " + (iPage+1) + " - unable to read the page image cache : " + e.getMessage());
+		}
+		if(null==image){
+			image = this.renderPage(handle, iPage, dpi, type);
+			try{
+				cache.put(key, image);
+			}catch(IOException e){
+				logger.warning("Page No : " + (iPage+1) + " - unable to write the page image cache : " + e.getMessage());
+			}
+		}
+		return image;
+	}
+	
+	private BufferedImage renderPage(PDFDocumentHandle handle, int iPage, float dpi, ImageType type) throws IOException{
+		PDFRenderer renderer = handle.getRenderer();
+		long start = System.nanoTime();
+		BufferedImage image = renderer.renderImageWithDPI(iPage, dpi, type);
+		MetricEvent.emit(handle.getMetricsListener(), MetricStage.RENDER, handle.getFile(), iPage+1, 1, start, rasterBytes(image));
+		return image;
+	}
+	
+   /**
+   * @return size of the pixels of the image
+   */
+	static long rasterBytes(BufferedImage image){
+		DataBuffer buffer = image.getRaster().getDataBuffer();
+		return (long) buffer.getSize() * buffer.getNumBanks() * DataBuffer.getDataTypeSize(buffer.getDataType()) / 8;
+	}
+	
+
+
+   /**
+   * Extract all the embedded images from the pdf document
+   * 
+   * @param file Absolute file path of the file
+   * @param startPage Starting page number of the document
+   * @return List list of image file names with absolute path
+   * @throws java.io.IOException when file is not found.
+   */	
+	public List<String> extractImages(String file, int startPage) throws IOException{
+		return this.extractimages(file, startPage, -1);	
+	}
+	
+   /**
+   * Extract all the embedded images from the pdf document
+   * 
+   * @param file Absolute file path of the file
+   * @param startPage Starting page number of the document
+   * @param endPage Ending page number of the document
+   * @return List list of image file names with absolute path
+   * @throws java.io.IOException when file is not found.
+   */	
+	public List<String> extractImages(String file, int startPage, int endPage) throws IOException{
+		return this.extractimages(file, startPage, endPage);	
+	}
+	
+   /**
+   * Extract all the embedded images from the pdf document
+   * 
+   * @param file Absolute file path of the file
+   * @return List list of image file names with absolute path
+   * @throws java.io.IOException when file is not found.
+   */		
+	public List<String> extractImages(String file) throws IOException{
+		return this.extractimages(file, -1, -1);
+	}
+	
+   /**
+   * This method extracts all the embedded images of the pdf document, including the images of the forms.
+   * Each distinct image is written once; JPEG / JPEG 2000 images are copied in their original encoding,
+   * the others are written as PNG. The images are written in parallel when the parallelism is more than 1.
+   */	
+	private List<String> extractimages(String file, int startPage, int endPage) throws IOException{
+		
+		logger.info("file : " + file);
+		logger.info("startPage : " + startPage);
+		logger.info("endPage : " + endPage);
+		
+		List<String> imgNames = new ArrayList<String>();
+		PDFDocumentHandle handle = null;
+		try {
+
+			PDFUtilConfig config = this.config;
+			String fileName = this.getFileName(file).replace(".pdf", "_resource");
+			String destination = this.createImageDestinationDirectory(config, file, 
+					Pattern.compile(Pattern.quote(fileName) + "_\\d+\\..*"));
+			
+			handle = this.openDocument(config, file);
+			
+			int[] range = this.getPageRange(handle.getPageCount(), startPage, endPage);
+			
+			ImageExtractor extractor = new ImageExtractor(config.getParallelism(), config.getExecutor(), config.getImageOutput());
+			imgNames = extractor.extract(handle, range[0]-1, range[1]-1, destination, fileName);
+			if(!imgNames.isEmpty())
+				logger.info("Images are saved @ " + destination);
+			else
+				logger.info("No images were found in the PDF");
+		}catch (InterruptedIOException e) {
+			throw e;
+		}catch (Exception e) {
+			e.printStackTrace();
+		}finally{
+			this.closeQuietly(handle);
+		}
+		return imgNames;  	
+	}
+
+   /**
+   * Directory where the images of the call are stored: the configured path or the temp directory next to the file.
+   * The temp directory is created when missing. Only the images a previous call wrote there under the names of 
+   * this call are deleted: the directory may be shared with other instances and processes.
+   * 
+   * @param ownImages names of the images written by the call
+   */
+	private String createImageDestinationDirectory(PDFUtilConfig config, String file, final Pattern ownImages) throws IOException{
+		File sourceFile = new File(file);
+		OutputManager manager = config.getOutputManager();
+		if(null!=manager){
+			File root = null!=config.getImageDestinationPath() ? new File(config.getImageDestinationPath()) 
+					: new File(sourceFile.getAbsoluteFile().getParentFile(), "temp");
+			String runDir = manager.newRunDirectory(root.toPath()).toString() + "/";
+			this.defaultImageDestinationPath = runDir;
+			return runDir;
+		}
+		if(null!=config.getImageDestinationPath()){
+			return config.getImageDestinationPath();
+		}
+		String destinationDir = sourceFile.getParent() + "/temp/";
+		File dir = new File(destinationDir);
+		if(!dir.mkdirs() && !dir.isDirectory()){
+			throw new IOException("Unable to create " + dir);
+		}
+		File[] stale = dir.listFiles(new FilenameFilter(){
+			@Override
+			public boolean accept(File parent, String name){
+				return ownImages.matcher(name).matches();
+			}
+		});
+		for(File image : null==stale ? new File[0] : stale){
+			if(image.isFile() && !image.delete() && image.exists()){
+				logger.warning("Unable to delete " + image);
+			}
+		}
+		this.defaultImageDestinationPath = destinationDir;
+		return destinationDir;
+	}
+	
+	private String getFileName(String file){
+		return new File(file).getName();
+	}
+	
+	private ImageWriteQueue newImageWriter(PDFUtilConfig config){
+		return this.newImageWriter(config, 0);
+	}
+	
+	private ImageWriteQueue newImageWriter(PDFUtilConfig config, int minThreads){
+		return new ImageWriteQueue(config.getImageOutput(), Math.max(minThreads, config.getImageWriterThreads()), config.getMetricsListener());
+	}
+	
+	private PDFDocumentHandle openDocument(PDFUtilConfig config, String file){
+		return new PDFDocumentHandle(file, config.getDocumentLoadMode(), config.getMemoryUsageSetting(), config.getMetricsListener(),
+				config.getResourceCache());
+	}
+	
+   /**
+   * Called before each page, so that a cancelled call stops rendering / extracting the remaining pages.
+   */
+	static void checkInterrupted() throws InterruptedIOException{
+		if(Thread.currentThread().isInterrupted()){
+			throw new InterruptedIOException("Interrupted, the remaining pages are not processed");
+		}
+	}
+	
+	private void closeQuietly(PDFDocumentHandle handle){
+		try{
+			if(null!=handle) handle.close();
+		}catch(IOException e){
+			logger.warning("Unable to close " + handle.getPath() + " : " + e.getMessage());
+		}
+	}
+	
+   /**
+   * @return 1 based start and end page of the call
+   */
+	private int[] getPageRange(int pagecount, int start, int end){
+		
+		logger.info("Page Count : " + pagecount);
+		logger.info("Given start page:" + start);
+		logger.info("Given end   page:" + end);
+		
+		int startPage;
+		int endPage;
+		if((start > 0 && start <= pagecount)){
+			startPage = start;
+		}else{
+			startPage = 1;
+		}
+		if((end > 0 && end >= start && end <= pagecount)){
+			endPage = end;
+		}else{
+			endPage = pagecount;
+		}
+		logger.info("Updated start page:" + startPage);
+		logger.info("Updated end   page:" + endPage);
+		return new int[]{startPage, endPage};
+	}
 }
\ No newline at end of file
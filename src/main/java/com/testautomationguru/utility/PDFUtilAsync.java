@@ -0,0 +1,277 @@
+package com.testautomationguru.utility;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.logging.Logger;
+
+/**
+ * Asynchronous facade of a PDFUtil: each call runs on an executor and returns a CompletableFuture.
+ *
+ * Calls run on virtual threads when the JVM provides them (Java 21+), otherwise on the fallback executor.
+ * The PDFUtil is shared by all the calls, see PDFUtilConfig.
+ *
+ * Cancelling a future, or reaching its timeout, interrupts the call: the page being rendered or extracted
+ * is finished, the remaining pages are not processed.
+ *
+ * <pre>
+ * PDFUtilAsync async = new PDFUtilAsync(pdfUtil).withTimeout(30, TimeUnit.SECONDS);
+ * async.compareAsync(expected, actual).thenAccept(...);
+ * </pre>
+ */
+public class PDFUtilAsync implements Closeable {
+
+	// shares the PDFUtil logger so that enableLog() / setLogLevel(..) apply
+	static Logger logger = Logger.getLogger(PDFUtil.class.getName());
+
+	private static ScheduledThreadPoolExecutor timer;
+
+	private final PDFUtil pdfUtil;
+	private final ExecutorService executor;
+	private final boolean ownExecutor;
+	private final boolean virtual;
+	private final long timeoutNanos;
+
+	/**
+	 * Runs the calls on virtual threads, or on a pool of daemon threads when they are not available.
+	 * The executor is shutdown by close().
+	 *
+	 * @param pdfUtil configured PDFUtil
+	 */
+	public PDFUtilAsync(PDFUtil pdfUtil){
+		this(pdfUtil, null);
+	}
+
+	/**
+	 * Runs the calls on virtual threads, or on the fallback executor when they are not available.
+	 * The fallback executor is not shutdown by PDFUtilAsync.
+	 *
+	 * @param pdfUtil configured PDFUtil
+	 * @param fallback executor used when there are no virtual threads; null for a pool of daemon threads
+	 */
+	public PDFUtilAsync(PDFUtil pdfUtil, ExecutorService fallback){
+		ExecutorService virtual = newVirtualThreadExecutor();
+		this.pdfUtil = pdfUtil;
+		if(null!=virtual){
+			this.executor = virtual;
+			this.ownExecutor = true;
+		}else if(null!=fallback){
+			this.executor = fallback;
+			this.ownExecutor = false;
+		}else{
+			this.executor = Executors.newCachedThreadPool(daemonThreads("pdf-util-async-"));
+			this.ownExecutor = true;
+		}
+		this.virtual = null!=virtual;
+		this.timeoutNanos = 0;
+	}
+
+	private PDFUtilAsync(PDFUtilAsync async, long timeoutNanos){
+		this.pdfUtil = async.pdfUtil;
+		this.executor = async.executor;
+		this.ownExecutor = false;
+		this.virtual = async.virtual;
+		this.timeoutNanos = timeoutNanos;
+	}
+
+	/**
+	 * @param timeout time after which the calls of the returned facade complete with a TimeoutException; 0 for no timeout
+	 * @param unit unit of the timeout
+	 * @return a facade sharing the executor of this one, whose calls are limited by the timeout
+	 */
+	public PDFUtilAsync withTimeout(long timeout, TimeUnit unit){
+		return new PDFUtilAsync(this, Math.max(0, unit.toNanos(timeout)));
+	}
+
+	/**
+	 * @return true when the calls run on virtual threads
+	 */
+	public boolean isVirtual(){
+		return this.virtual;
+	}
+
+	/**
+	 * @see PDFUtil#compare(String, String)
+	 */
+	public CompletableFuture<Boolean> compareAsync(final String file1, final String file2){
+		return this.compareAsync(file1, file2, -1, -1);
+	}
+
+	/**
+	 * @see PDFUtil#compare(String, String, int, int)
+	 */
+	public CompletableFuture<Boolean> compareAsync(final String file1, final String file2, final int startPage, final int endPage){
+		return this.submit(new Callable<Boolean>(){
+			@Override
+			public Boolean call() throws Exception {
+				return pdfUtil.compare(file1, file2, startPage, endPage);
+			}
+		});
+	}
+
+	/**
+	 * @see PDFUtil#compareText(String, String)
+	 */
+	public CompletableFuture<CompareResult> compareTextAsync(final String file1, final String file2){
+		return this.compareTextAsync(file1, file2, -1, -1);
+	}
+
+	/**
+	 * @see PDFUtil#compareText(String, String, int, int)
+	 */
+	public CompletableFuture<CompareResult> compareTextAsync(final String file1, final String file2, final int startPage, final int endPage){
+		return this.submit(new Callable<CompareResult>(){
+			@Override
+			public CompareResult call() throws Exception {
+				return pdfUtil.compareText(file1, file2, startPage, endPage);
+			}
+		});
+	}
+
+	/**
+	 * @see PDFUtil#getText(String)
+	 */
+	public CompletableFuture<String> getTextAsync(final String file){
+		return this.getTextAsync(file, -1, -1);
+	}
+
+	/**
+	 * @see PDFUtil#getText(String, int, int)
+	 */
+	public CompletableFuture<String> getTextAsync(final String file, final int startPage, final int endPage){
+		return this.submit(new Callable<String>(){
+			@Override
+			public String call() throws Exception {
+				return pdfUtil.getText(file, startPage, endPage);
+			}
+		});
+	}
+
+	/**
+	 * @see PDFUtil#extractImages(String)
+	 */
+	public CompletableFuture<List<String>> extractImagesAsync(final String file){
+		return this.submit(new Callable<List<String>>(){
+			@Override
+			public List<String> call() throws Exception {
+				return pdfUtil.extractImages(file);
+			}
+		});
+	}
+
+	/**
+	 * @see PDFUtil#savePdfAsImage(String)
+	 */
+	public CompletableFuture<List<String>> savePdfAsImageAsync(final String file){
+		return this.submit(new Callable<List<String>>(){
+			@Override
+			public List<String> call() throws Exception {
+				return pdfUtil.savePdfAsImage(file);
+			}
+		});
+	}
+
+	/**
+	 * Runs the call on the executor. Completing the returned future before the call is done, by cancel(..)
+	 * or by the timeout, interrupts the call.
+	 */
+	private <T> CompletableFuture<T> submit(final Callable<T> call){
+		final CompletableFuture<T> result = new CompletableFuture<T>();
+		final AtomicBoolean running = new AtomicBoolean(true);
+		final Future<?> task = this.executor.submit(new Runnable(){
+			@Override
+			public void run(){
+				T value;
+				try{
+					value = call.call();
+				}catch(Throwable t){
+					running.set(false);
+					result.completeExceptionally(t);
+					return;
+				}
+				running.set(false);
+				result.complete(value);
+			}
+		});
+		final ScheduledFuture<?> timeout = this.timeoutNanos > 0 ? this.scheduleTimeout(result) : null;
+		result.whenComplete(new BiConsumer<T, Throwable>(){
+			@Override
+			public void accept(T value, Throwable failure){
+				if(null!=timeout){
+					timeout.cancel(false);
+				}
+				// completed by cancel(..) or the timeout; the dependent stages of a completed call run on its thread, which is not interrupted
+				if(running.get()){
+					task.cancel(true);
+				}
+			}
+		});
+		return result;
+	}
+
+	private ScheduledFuture<?> scheduleTimeout(final CompletableFuture<?> result){
+		final long timeoutNanos = this.timeoutNanos;
+		return timer().schedule(new Runnable(){
+			@Override
+			public void run(){
+				if(result.completeExceptionally(new TimeoutException("Not done after " + TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + " ms"))){
+					logger.warning("PDF operation timed out after " + TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + " ms");
+				}
+			}
+		}, timeoutNanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Shuts down the executor when it was created by this facade. Running calls are completed.
+	 */
+	@Override
+	public void close(){
+		if(this.ownExecutor){
+			this.executor.shutdown();
+		}
+	}
+
+	/**
+	 * @return Executors.newVirtualThreadPerTaskExecutor() when the JVM has virtual threads, null otherwise
+	 */
+	static ExecutorService newVirtualThreadExecutor(){
+		try{
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		}catch(Exception e){
+			logger.fine("Virtual threads are not available : " + e);
+			return null;
+		}
+	}
+
+	private static synchronized ScheduledThreadPoolExecutor timer(){
+		if(null==timer){
+			timer = new ScheduledThreadPoolExecutor(1, daemonThreads("pdf-util-timeout-"));
+			timer.setRemoveOnCancelPolicy(true);
+		}
+		return timer;
+	}
+
+	private static ThreadFactory daemonThreads(final String prefix){
+		final AtomicInteger count = new AtomicInteger();
+		return new ThreadFactory(){
+			@Override
+			public Thread newThread(Runnable runnable){
+				Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		};
+	}
+}
@@ -0,0 +1,510 @@
+package com.testautomationguru.utility;
+
+import java.awt.Color;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.text.PDFTextStripper;
+
+/**
+ * Immutable configuration of a PDFUtil.
+ *
+ * Every operation of PDFUtil reads the configuration once when it starts and keeps all its other state
+ * (page range, destination directory, documents..) local to the call. A PDFUtil created from a configuration
+ * can therefore serve concurrent calls from any number of threads.
+ *
+ * <pre>
+ * PDFUtil pdfUtil = new PDFUtil(PDFUtilConfig.builder()
+ *                                 .compareMode(CompareMode.VISUAL_MODE)
+ *                                 .compareAllPages(true)
+ *                                 .build());
+ * </pre>
+ */
+public final class PDFUtilConfig {
+
+	private final CompareMode compareMode;
+	private final boolean trimWhiteSpace;
+	private final boolean highlightPdfDifference;
+	private final Color highlightColor;
+	private final boolean compareAllPages;
+	private final Pattern[] excludePatterns;
+	private final String imageDestinationPath;
+	private final Supplier<PDFTextStripper> stripperFactory;
+	private final PDFTextStripper stripper;
+	private final int parallelism;
+	private final ExecutorService executor;
+	private final boolean skipIdenticalPages;
+	private final PageImageCache pageImageCache;
+	private final DocumentLoadMode documentLoadMode;
+	private final MemoryUsageSetting memoryUsageSetting;
+	private final DiffGranularity diffGranularity;
+	private final float renderDpi;
+	private final ImageType renderImageType;
+	private final float prescreenDpi;
+	private final ImageType prescreenImageType;
+	private final ImageOutput imageOutput;
+	private final int imageWriterThreads;
+	private final DiffImageMode diffImageMode;
+	private final VisualTolerance visualTolerance;
+	private final MetricsListener metricsListener;
+	private final int pipelineDepth;
+	private final long renderMemoryBudget;
+	private final boolean keepDiffImages;
+	private final OutputManager outputManager;
+	private final SharedResourceCache resourceCache;
+
+	private PDFUtilConfig(Builder builder){
+		this.compareMode = builder.compareMode;
+		this.trimWhiteSpace = builder.trimWhiteSpace;
+		this.highlightPdfDifference = builder.highlightPdfDifference;
+		this.highlightColor = builder.highlightColor;
+		this.compareAllPages = builder.compareAllPages;
+		this.excludePatterns = builder.excludePatterns.clone();
+		this.imageDestinationPath = builder.imageDestinationPath;
+		this.stripperFactory = builder.stripperFactory;
+		this.stripper = builder.stripper;
+		this.parallelism = builder.parallelism;
+		this.executor = builder.executor;
+		this.skipIdenticalPages = builder.skipIdenticalPages;
+		this.pageImageCache = builder.pageImageCache;
+		this.documentLoadMode = builder.documentLoadMode;
+		this.memoryUsageSetting = builder.memoryUsageSetting;
+		this.diffGranularity = builder.diffGranularity;
+		this.renderDpi = builder.renderDpi;
+		this.renderImageType = builder.renderImageType;
+		this.prescreenDpi = builder.prescreenDpi;
+		this.prescreenImageType = builder.prescreenImageType;
+		this.imageOutput = builder.imageOutput;
+		this.imageWriterThreads = builder.imageWriterThreads;
+		this.diffImageMode = builder.diffImageMode;
+		this.visualTolerance = builder.visualTolerance;
+		this.metricsListener = builder.metricsListener;
+		this.pipelineDepth = builder.pipelineDepth;
+		this.renderMemoryBudget = builder.renderMemoryBudget;
+		this.keepDiffImages = builder.keepDiffImages;
+		this.outputManager = builder.outputManager;
+		this.resourceCache = builder.resourceCache;
+	}
+
+	/**
+	 * @return a builder with the default configuration
+	 */
+	public static Builder builder(){
+		return new Builder();
+	}
+
+	/**
+	 * @return a builder initialized with this configuration
+	 */
+	public Builder toBuilder(){
+		return new Builder(this);
+	}
+
+	public CompareMode getCompareMode(){
+		return this.compareMode;
+	}
+
+	public boolean isTrimWhiteSpace(){
+		return this.trimWhiteSpace;
+	}
+
+	public boolean isHighlightPdfDifference(){
+		return this.highlightPdfDifference;
+	}
+
+	public Color getHighlightColor(){
+		return this.highlightColor;
+	}
+
+	public boolean isCompareAllPages(){
+		return this.compareAllPages;
+	}
+
+	Pattern[] getExcludePatterns(){
+		return this.excludePatterns;
+	}
+
+	public String getImageDestinationPath(){
+		return this.imageDestinationPath;
+	}
+
+	/**
+	 * @return the stripper shared by all the calls, null when a new stripper is created for each call
+	 */
+	public PDFTextStripper getStripper(){
+		return this.stripper;
+	}
+
+	/**
+	 * @return a new stripper for a call
+	 */
+	PDFTextStripper newStripper() throws java.io.IOException{
+		return null==this.stripperFactory ? new PDFTextStripper() : this.stripperFactory.get();
+	}
+
+	public int getParallelism(){
+		return this.parallelism;
+	}
+
+	public ExecutorService getExecutor(){
+		return this.executor;
+	}
+
+	public boolean isSkipIdenticalPages(){
+		return this.skipIdenticalPages;
+	}
+
+	public PageImageCache getPageImageCache(){
+		return this.pageImageCache;
+	}
+
+	public DocumentLoadMode getDocumentLoadMode(){
+		return this.documentLoadMode;
+	}
+
+	public MemoryUsageSetting getMemoryUsageSetting(){
+		return this.memoryUsageSetting;
+	}
+
+	public DiffGranularity getDiffGranularity(){
+		return this.diffGranularity;
+	}
+
+	public float getRenderDpi(){
+		return this.renderDpi;
+	}
+
+	public ImageType getRenderImageType(){
+		return this.renderImageType;
+	}
+
+	public float getPrescreenDpi(){
+		return this.prescreenDpi;
+	}
+
+	public ImageType getPrescreenImageType(){
+		return null==this.prescreenImageType ? this.renderImageType : this.prescreenImageType;
+	}
+
+	/**
+	 * @return encoder of the written images, null for PNG through ImageIO
+	 */
+	public ImageOutput getImageOutput(){
+		return this.imageOutput;
+	}
+
+	public int getImageWriterThreads(){
+		return this.imageWriterThreads;
+	}
+
+	public DiffImageMode getDiffImageMode(){
+		return this.diffImageMode;
+	}
+
+	/**
+	 * @return differences accepted by VISUAL_MODE, null when the pages must be pixel identical
+	 */
+	public VisualTolerance getVisualTolerance(){
+		return this.visualTolerance;
+	}
+
+	/**
+	 * @return receiver of the timings of the operations, null for none
+	 */
+	public MetricsListener getMetricsListener(){
+		return this.metricsListener;
+	}
+
+	public int getPipelineDepth(){
+		return this.pipelineDepth;
+	}
+
+	/**
+	 * @return bytes of rasters a page comparison may hold, 0 when the pages are rendered whole
+	 */
+	public long getRenderMemoryBudget(){
+		return this.renderMemoryBudget;
+	}
+
+	public boolean isKeepDiffImages(){
+		return this.keepDiffImages;
+	}
+
+	/**
+	 * @return manager of the run directories, null to write the images to a single directory
+	 */
+	public OutputManager getOutputManager(){
+		return this.outputManager;
+	}
+
+	/**
+	 * @return fonts shared by the documents, null to parse the fonts of each document
+	 */
+	public SharedResourceCache getResourceCache(){
+		return this.resourceCache;
+	}
+
+	/**
+	 * Builder of PDFUtilConfig. See the PDFUtil setter of the same name for the details of each setting.
+	 */
+	public static final class Builder {
+
+		private CompareMode compareMode = CompareMode.TEXT_MODE;
+		private boolean trimWhiteSpace = true;
+		private boolean highlightPdfDifference;
+		private Color highlightColor = Color.MAGENTA;
+		private boolean compareAllPages;
+		private Pattern[] excludePatterns = new Pattern[0];
+		private String imageDestinationPath;
+		private Supplier<PDFTextStripper> stripperFactory;
+		private PDFTextStripper stripper;
+		private int parallelism = 1;
+		private ExecutorService executor;
+		private boolean skipIdenticalPages = true;
+		private PageImageCache pageImageCache;
+		private DocumentLoadMode documentLoadMode = DocumentLoadMode.RANDOM_ACCESS_FILE;
+		private MemoryUsageSetting memoryUsageSetting;
+		private DiffGranularity diffGranularity = DiffGranularity.LINE;
+		private float renderDpi = 300;
+		private ImageType renderImageType = ImageType.RGB;
+		private float prescreenDpi;
+		private ImageType prescreenImageType;
+		private ImageOutput imageOutput;
+		private int imageWriterThreads;
+		private DiffImageMode diffImageMode = DiffImageMode.HIGHLIGHTED_PAGE;
+		private VisualTolerance visualTolerance;
+		private MetricsListener metricsListener;
+		private int pipelineDepth;
+		private long renderMemoryBudget;
+		private boolean keepDiffImages;
+		private OutputManager outputManager;
+		private SharedResourceCache resourceCache;
+
+		private Builder(){
+		}
+
+		private Builder(PDFUtilConfig config){
+			this.compareMode = config.compareMode;
+			this.trimWhiteSpace = config.trimWhiteSpace;
+			this.highlightPdfDifference = config.highlightPdfDifference;
+			this.highlightColor = config.highlightColor;
+			this.compareAllPages = config.compareAllPages;
+			this.excludePatterns = config.excludePatterns;
+			this.imageDestinationPath = config.imageDestinationPath;
+			this.stripperFactory = config.stripperFactory;
+			this.stripper = config.stripper;
+			this.parallelism = config.parallelism;
+			this.executor = config.executor;
+			this.skipIdenticalPages = config.skipIdenticalPages;
+			this.pageImageCache = config.pageImageCache;
+			this.documentLoadMode = config.documentLoadMode;
+			this.memoryUsageSetting = config.memoryUsageSetting;
+			this.diffGranularity = config.diffGranularity;
+			this.renderDpi = config.renderDpi;
+			this.renderImageType = config.renderImageType;
+			this.prescreenDpi = config.prescreenDpi;
+			this.prescreenImageType = config.prescreenImageType;
+			this.imageOutput = config.imageOutput;
+			this.imageWriterThreads = config.imageWriterThreads;
+			this.diffImageMode = config.diffImageMode;
+			this.visualTolerance = config.visualTolerance;
+			this.metricsListener = config.metricsListener;
+			this.pipelineDepth = config.pipelineDepth;
+			this.renderMemoryBudget = config.renderMemoryBudget;
+			this.keepDiffImages = config.keepDiffImages;
+			this.outputManager = config.outputManager;
+			this.resourceCache = config.resourceCache;
+		}
+
+		public Builder compareMode(CompareMode mode){
+			this.compareMode = null==mode ? CompareMode.TEXT_MODE : mode;
+			return this;
+		}
+
+		public Builder trimWhiteSpace(boolean flag){
+			this.trimWhiteSpace = flag;
+			return this;
+		}
+
+		public Builder highlightPdfDifference(boolean flag){
+			this.highlightPdfDifference = flag;
+			return this;
+		}
+
+		/**
+		 * Enables the highlighting of the differences in the given color.
+		 */
+		public Builder highlightPdfDifference(Color colorCode){
+			this.highlightPdfDifference = true;
+			this.highlightColor = colorCode;
+			return this;
+		}
+
+		public Builder compareAllPages(boolean flag){
+			this.compareAllPages = flag;
+			return this;
+		}
+
+		/**
+		 * @param regexs regular expressions; null for none
+		 */
+		public Builder excludeText(String... regexs){
+			if(null==regexs){
+				this.excludePatterns = new Pattern[0];
+				return this;
+			}
+			Pattern[] patterns = new Pattern[regexs.length];
+			for(int i=0; i<regexs.length; i++){
+				patterns[i] = Pattern.compile(regexs[i]);
+			}
+			this.excludePatterns = patterns;
+			return this;
+		}
+
+		public Builder imageDestinationPath(String path){
+			this.imageDestinationPath = path;
+			return this;
+		}
+
+		/**
+		 * Text extraction strategy: a new stripper is created by the factory for each call,
+		 * so calls running at the same time do not share a stripper.
+		 */
+		public Builder stripperFactory(Supplier<PDFTextStripper> factory){
+			this.stripperFactory = factory;
+			this.stripper = null;
+			return this;
+		}
+
+		/**
+		 * Text extraction strategy: the same stripper is used by all the calls.
+		 * A PDFTextStripper is not thread safe, the calls using it are serialized. Prefer stripperFactory(..).
+		 */
+		public Builder stripper(PDFTextStripper stripper){
+			this.stripper = stripper;
+			this.stripperFactory = null;
+			return this;
+		}
+
+		public Builder parallelism(int threads){
+			this.parallelism = Math.max(1, threads);
+			return this;
+		}
+
+		public Builder executor(ExecutorService executor){
+			this.executor = executor;
+			return this;
+		}
+
+		public Builder skipIdenticalPages(boolean flag){
+			this.skipIdenticalPages = flag;
+			return this;
+		}
+
+		public Builder pageImageCache(PageImageCache cache){
+			this.pageImageCache = cache;
+			return this;
+		}
+
+		public Builder documentLoadMode(DocumentLoadMode mode){
+			this.documentLoadMode = null==mode ? DocumentLoadMode.RANDOM_ACCESS_FILE : mode;
+			return this;
+		}
+
+		public Builder memoryUsageSetting(MemoryUsageSetting setting){
+			this.memoryUsageSetting = setting;
+			return this;
+		}
+
+		public Builder diffGranularity(DiffGranularity granularity){
+			this.diffGranularity = granularity;
+			return this;
+		}
+
+		public Builder renderDpi(float dpi){
+			if(dpi <= 0){
+				throw new IllegalArgumentException("dpi must be positive : " + dpi);
+			}
+			this.renderDpi = dpi;
+			return this;
+		}
+
+		public Builder renderImageType(ImageType type){
+			this.renderImageType = null==type ? ImageType.RGB : type;
+			return this;
+		}
+
+		/**
+		 * @param dpi resolution of the pre-screen; 0 to disable it
+		 * @param type ImageType of the pre-screen; null for the render image type
+		 */
+		public Builder prescreenPages(float dpi, ImageType type){
+			this.prescreenDpi = Math.max(0, dpi);
+			this.prescreenImageType = type;
+			return this;
+		}
+
+		public Builder imageOutput(ImageOutput output){
+			this.imageOutput = output;
+			return this;
+		}
+
+		public Builder imageWriterThreads(int threads){
+			this.imageWriterThreads = Math.max(0, threads);
+			return this;
+		}
+
+		public Builder diffImageMode(DiffImageMode mode){
+			this.diffImageMode = null==mode ? DiffImageMode.HIGHLIGHTED_PAGE : mode;
+			return this;
+		}
+
+		public Builder visualTolerance(VisualTolerance tolerance){
+			this.visualTolerance = null==tolerance || tolerance.isExact() ? null : tolerance;
+			return this;
+		}
+
+		public Builder metricsListener(MetricsListener listener){
+			this.metricsListener = listener;
+			return this;
+		}
+
+		/**
+		 * @param pages number of rendered pages of each document waiting to be compared; 0 to not pipeline
+		 */
+		public Builder pipelineDepth(int pages){
+			this.pipelineDepth = Math.max(0, pages);
+			return this;
+		}
+
+		/**
+		 * @param bytes bytes of rasters a page comparison may hold; 0 to render the pages whole
+		 */
+		public Builder renderMemoryBudget(long bytes){
+			this.renderMemoryBudget = Math.max(0, bytes);
+			return this;
+		}
+
+		public Builder keepDiffImages(boolean flag){
+			this.keepDiffImages = flag;
+			return this;
+		}
+
+		public Builder outputManager(OutputManager manager){
+			this.outputManager = manager;
+			return this;
+		}
+
+		public Builder resourceCache(SharedResourceCache cache){
+			this.resourceCache = cache;
+			return this;
+		}
+
+		public PDFUtilConfig build(){
+			return new PDFUtilConfig(this);
+		}
+	}
+}
@@ -0,0 +1,239 @@
+package com.testautomationguru.utility;
+
+import java.lang.management.ManagementFactory;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Aggregates the MetricEvents of one or more PDFUtil instances: count, total and max time of each stage,
+ * bytes read and written, pages processed, peak raster size and the time spent on the slowest pdf files.
+ *
+ * The time of at most MAX_TRACKED_FILES files is kept: past that, only the TRACKED_AFTER_TRIM slowest are kept,
+ * so that the metrics of a long running batch do not grow with the number of files. The time of a file
+ * dropped, then processed again, counts from 0.
+ *
+ * <pre>
+ * PDFUtilMetrics metrics = new PDFUtilMetrics();
+ * pdfUtil.setMetricsListener(metrics);
+ * metrics.register("nightly");   // optional, visible in JConsole / VisualVM
+ * ...
+ * System.out.println(metrics);
+ * </pre>
+ */
+public class PDFUtilMetrics implements MetricsListener, PDFUtilMetricsMXBean {
+
+	private static final int SLOWEST_DOCUMENTS = 10;
+	static final int MAX_TRACKED_FILES = 1000;
+	static final int TRACKED_AFTER_TRIM = 100;
+	private static final long NANOS_PER_MILLI = 1000000L;
+
+	private final Map<MetricStage, long[]> stages = new EnumMap<MetricStage, long[]>(MetricStage.class);
+	private final Map<String, Long> nanosByFile = new HashMap<String, Long>();
+	private long bytesRead;
+	private long bytesWritten;
+	private long pagesProcessed;
+	private long peakRasterBytes;
+	private ObjectName objectName;
+
+	public PDFUtilMetrics(){
+		this.reset();
+	}
+
+	@Override
+	public synchronized void onEvent(MetricEvent event){
+		// count, total nanos, max nanos
+		long[] stage = this.stages.get(event.getStage());
+		stage[0]++;
+		stage[1] += event.getNanos();
+		stage[2] = Math.max(stage[2], event.getNanos());
+
+		switch(event.getStage()){
+		case LOAD:
+			this.bytesRead += event.getBytes();
+			break;
+		case RENDER:
+			this.peakRasterBytes = Math.max(this.peakRasterBytes, event.getBytes());
+			this.pagesProcessed += event.getPages();
+			break;
+		case TEXT_EXTRACTION:
+			this.pagesProcessed += event.getPages();
+			break;
+		case IMAGE_ENCODE:
+			// the written image, not a pdf file
+			this.bytesWritten += event.getBytes();
+			return;
+		default:
+			break;
+		}
+		Long nanos = this.nanosByFile.get(event.getFile());
+		this.nanosByFile.put(event.getFile(), (null==nanos ? 0 : nanos) + event.getNanos());
+		if(this.nanosByFile.size() > MAX_TRACKED_FILES){
+			List<Map.Entry<String, Long>> files = this.sortedFiles();
+			for(Map.Entry<String, Long> file : files.subList(TRACKED_AFTER_TRIM, files.size())){
+				this.nanosByFile.remove(file.getKey());
+			}
+		}
+	}
+
+	public synchronized long getCount(MetricStage stage){
+		return this.stages.get(stage)[0];
+	}
+
+	public synchronized long getTotalNanos(MetricStage stage){
+		return this.stages.get(stage)[1];
+	}
+
+	public synchronized long getMaxNanos(MetricStage stage){
+		return this.stages.get(stage)[2];
+	}
+
+	@Override
+	public Map<String, Long> getCounts(){
+		return this.byStage(0, 1);
+	}
+
+	@Override
+	public Map<String, Long> getTotalMillis(){
+		return this.byStage(1, NANOS_PER_MILLI);
+	}
+
+	@Override
+	public Map<String, Long> getMaxMillis(){
+		return this.byStage(2, NANOS_PER_MILLI);
+	}
+
+	private synchronized Map<String, Long> byStage(int index, long divisor){
+		Map<String, Long> values = new LinkedHashMap<String, Long>();
+		for(Map.Entry<MetricStage, long[]> stage : this.stages.entrySet()){
+			values.put(stage.getKey().name(), stage.getValue()[index] / divisor);
+		}
+		return values;
+	}
+
+	@Override
+	public synchronized long getBytesRead(){
+		return this.bytesRead;
+	}
+
+	@Override
+	public synchronized long getBytesWritten(){
+		return this.bytesWritten;
+	}
+
+	@Override
+	public synchronized long getPagesProcessed(){
+		return this.pagesProcessed;
+	}
+
+	@Override
+	public synchronized long getPeakRasterBytes(){
+		return this.peakRasterBytes;
+	}
+
+	@Override
+	public String[] getSlowestDocuments(){
+		List<Map.Entry<String, Long>> files = this.slowestDocuments();
+		String[] slowest = new String[files.size()];
+		for(int i=0; i<slowest.length; i++){
+			slowest[i] = files.get(i).getKey() + " : " + files.get(i).getValue() / NANOS_PER_MILLI + " ms";
+		}
+		return slowest;
+	}
+
+	/**
+	 * @return the files which took the longest with their time in nanoseconds, slowest first
+	 */
+	public synchronized List<Map.Entry<String, Long>> slowestDocuments(){
+		List<Map.Entry<String, Long>> files = this.sortedFiles();
+		return files.subList(0, Math.min(SLOWEST_DOCUMENTS, files.size()));
+	}
+
+	synchronized int getTrackedFiles(){
+		return this.nanosByFile.size();
+	}
+
+	/**
+	 * @return the files tracked with their time in nanoseconds, slowest first
+	 */
+	private List<Map.Entry<String, Long>> sortedFiles(){
+		List<Map.Entry<String, Long>> files = new ArrayList<Map.Entry<String, Long>>();
+		for(Map.Entry<String, Long> file : this.nanosByFile.entrySet()){
+			files.add(new AbstractMap.SimpleImmutableEntry<String, Long>(file));
+		}
+		Collections.sort(files, new Comparator<Map.Entry<String, Long>>(){
+			@Override
+			public int compare(Map.Entry<String, Long> e1, Map.Entry<String, Long> e2){
+				return e2.getValue().compareTo(e1.getValue());
+			}
+		});
+		return files;
+	}
+
+	@Override
+	public synchronized void reset(){
+		for(MetricStage stage : MetricStage.values()){
+			this.stages.put(stage, new long[3]);
+		}
+		this.nanosByFile.clear();
+		this.bytesRead = 0;
+		this.bytesWritten = 0;
+		this.pagesProcessed = 0;
+		this.peakRasterBytes = 0;
+	}
+
+	/**
+	 * Registers the metrics in the platform MBean server as
+	 * com.testautomationguru.utility:type=PDFUtilMetrics,name=&lt;name&gt;.
+	 */
+	public synchronized void register(String name) throws JMException{
+		ObjectName objectName = new ObjectName("com.testautomationguru.utility:type=PDFUtilMetrics,name=" + ObjectName.quote(name));
+		ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+		this.objectName = objectName;
+	}
+
+	/**
+	 * Removes the metrics from the platform MBean server, if registered.
+	 */
+	public synchronized void unregister() throws JMException{
+		if(null!=this.objectName){
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			server.unregisterMBean(this.objectName);
+			this.objectName = null;
+		}
+	}
+
+	@Override
+	public synchronized String toString(){
+		StringBuilder summary = new StringBuilder();
+		for(Map.Entry<MetricStage, long[]> stage : this.stages.entrySet()){
+			long[] value = stage.getValue();
+			if(value[0]==0){
+				continue;
+			}
+			summary.append(String.format(Locale.ROOT, "%-16s %7d x  total %9.1f ms  avg %8.2f ms  max %8.1f ms%n",
+					stage.getKey(), value[0], value[1] / 1e6, value[1] / 1e6 / value[0], value[2] / 1e6));
+		}
+		summary.append(String.format(Locale.ROOT, "pages processed %d, read %d bytes, written %d bytes, peak raster %d bytes%n",
+				this.pagesProcessed, this.bytesRead, this.bytesWritten, this.peakRasterBytes));
+		List<Map.Entry<String, Long>> slowest = this.slowestDocuments();
+		if(!slowest.isEmpty()){
+			summary.append("slowest documents :").append(String.format("%n"));
+			for(Map.Entry<String, Long> file : slowest){
+				summary.append(String.format(Locale.ROOT, "  %9.1f ms  %s%n", file.getValue() / 1e6, file.getKey()));
+			}
+		}
+		return summary.toString();
+	}
+}
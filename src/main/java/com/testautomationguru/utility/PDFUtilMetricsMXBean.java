@@ -0,0 +1,39 @@
+package com.testautomationguru.utility;
+
+import java.util.Map;
+
+/**
+ * JMX view of PDFUtilMetrics, see PDFUtilMetrics.register(..).
+ */
+public interface PDFUtilMetricsMXBean {
+
+	/**
+	 * @return number of events by stage name
+	 */
+	Map<String, Long> getCounts();
+
+	/**
+	 * @return total time in milliseconds by stage name
+	 */
+	Map<String, Long> getTotalMillis();
+
+	/**
+	 * @return longest single event in milliseconds by stage name
+	 */
+	Map<String, Long> getMaxMillis();
+
+	long getBytesRead();
+
+	long getBytesWritten();
+
+	long getPagesProcessed();
+
+	long getPeakRasterBytes();
+
+	/**
+	 * @return the files which took the longest, slowest first, as "path : millis ms"
+	 */
+	String[] getSlowestDocuments();
+
+	void reset();
+}
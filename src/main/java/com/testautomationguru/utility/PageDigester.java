@@ -0,0 +1,219 @@
+package com.testautomationguru.utility;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSBoolean;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSFloat;
+import org.apache.pdfbox.cos.COSInteger;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSNull;
+import org.apache.pdfbox.cos.COSObject;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.cos.COSString;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+
+/**
+ * Content digests used to skip the rendering of pages which can only look the same.
+ *
+ * A page digest covers the page boxes, the rotation and everything reachable from the page dictionary:
+ * the content streams, the resources (fonts, XObjects, images, color spaces..) and the annotations.
+ * The objects are hashed by value, not by object number, so the same page produced in two different files
+ * gets the same digest. References back to the page tree (/Parent, /P, link destinations) are not followed.
+ */
+class PageDigester {
+
+	private static final String ALGORITHM = "SHA-256";
+	private static final Charset ASCII = Charset.forName("US-ASCII");
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private final byte[] buffer = new byte[64 * 1024];
+	private long streamBytes;
+
+	/**
+	 * @return true if both the files have the same bytes
+	 */
+	boolean sameFile(File file1, File file2) throws IOException{
+		if(file1.length() != file2.length()){
+			return false;
+		}
+		if(file1.getCanonicalFile().equals(file2.getCanonicalFile())){
+			return true;
+		}
+		return Arrays.equals(this.fileDigest(file1), this.fileDigest(file2));
+	}
+
+	byte[] fileDigest(File file) throws IOException{
+		MessageDigest md = newDigest();
+		InputStream in = new FileInputStream(file);
+		try{
+			this.update(md, in);
+		}finally{
+			in.close();
+		}
+		return md.digest();
+	}
+
+	byte[] pageDigest(PDPage page) throws IOException{
+		MessageDigest md = newDigest();
+		this.update(md, page.getMediaBox());
+		this.update(md, page.getCropBox());
+		this.updateInt(md, page.getRotation());
+		// resources may be inherited from the page tree
+		PDResources resources = page.getResources();
+		this.update(md, null==resources ? null : resources.getCOSObject(), new IdentityHashMap<COSBase, Integer>(), true);
+		this.update(md, page.getCOSObject(), new IdentityHashMap<COSBase, Integer>(), true);
+		return md.digest();
+	}
+
+	/**
+	 * Digest of an object and of everything reachable from it, hashed by value as the pages are.
+	 */
+	byte[] objectDigest(COSBase base) throws IOException{
+		MessageDigest md = newDigest();
+		this.update(md, base, new IdentityHashMap<COSBase, Integer>(), true);
+		return md.digest();
+	}
+
+	/**
+	 * @return number of stream bytes hashed by this digester so far
+	 */
+	long getStreamBytes(){
+		return this.streamBytes;
+	}
+
+	private void update(MessageDigest md, COSBase base, Map<COSBase, Integer> visited, boolean root) throws IOException{
+		if(base instanceof COSObject){
+			base = ((COSObject) base).getObject();
+		}
+		if(null==base || base instanceof COSNull){
+			md.update((byte) 'n');
+			return;
+		}
+		Integer seen = visited.get(base);
+		if(null!=seen){
+			md.update((byte) 'r');
+			this.updateInt(md, seen);
+			return;
+		}
+
+		if(base instanceof COSDictionary){
+			COSDictionary dict = (COSDictionary) base;
+			if(!root && isPageTreeNode(dict)){
+				md.update((byte) 'p');
+				return;
+			}
+			visited.put(base, visited.size());
+			md.update((byte) (base instanceof COSStream ? 's' : 'd'));
+			List<COSName> keys = new ArrayList<COSName>(dict.keySet());
+			Collections.sort(keys);
+			for(COSName key : keys){
+				if(COSName.PARENT.equals(key)){
+					continue;
+				}
+				this.update(md, key, visited, false);
+				this.update(md, dict.getItem(key), visited, false);
+			}
+			md.update((byte) 'e');
+			if(base instanceof COSStream){
+				InputStream in = ((COSStream) base).createRawInputStream();
+				try{
+					this.streamBytes += this.update(md, in);
+				}finally{
+					in.close();
+				}
+			}
+		}else if(base instanceof COSArray){
+			COSArray array = (COSArray) base;
+			visited.put(base, visited.size());
+			md.update((byte) 'a');
+			this.updateInt(md, array.size());
+			for(int i=0; i<array.size(); i++){
+				this.update(md, array.get(i), visited, false);
+			}
+		}else if(base instanceof COSName){
+			md.update((byte) '/');
+			this.updateBytes(md, ((COSName) base).getName().getBytes(UTF8));
+		}else if(base instanceof COSString){
+			md.update((byte) 't');
+			this.updateBytes(md, ((COSString) base).getBytes());
+		}else if(base instanceof COSInteger){
+			md.update((byte) 'i');
+			this.updateLong(md, ((COSInteger) base).longValue());
+		}else if(base instanceof COSFloat){
+			md.update((byte) 'f');
+			this.updateInt(md, Float.floatToIntBits(((COSFloat) base).floatValue()));
+		}else if(base instanceof COSBoolean){
+			md.update((byte) (((COSBoolean) base).getValue() ? 'T' : 'F'));
+		}else{
+			md.update(base.getClass().getName().getBytes(ASCII));
+		}
+	}
+
+	private static boolean isPageTreeNode(COSDictionary dict){
+		COSName type = dict.getCOSName(COSName.TYPE);
+		return COSName.PAGE.equals(type) || COSName.PAGES.equals(type);
+	}
+
+	private long update(MessageDigest md, InputStream in) throws IOException{
+		long total = 0;
+		int n;
+		while((n = in.read(this.buffer)) > 0){
+			md.update(this.buffer, 0, n);
+			total += n;
+		}
+		return total;
+	}
+
+	private void update(MessageDigest md, PDRectangle box){
+		if(null==box){
+			md.update((byte) 'n');
+			return;
+		}
+		this.updateInt(md, Float.floatToIntBits(box.getLowerLeftX()));
+		this.updateInt(md, Float.floatToIntBits(box.getLowerLeftY()));
+		this.updateInt(md, Float.floatToIntBits(box.getUpperRightX()));
+		this.updateInt(md, Float.floatToIntBits(box.getUpperRightY()));
+	}
+
+	private void updateBytes(MessageDigest md, byte[] bytes){
+		this.updateInt(md, bytes.length);
+		md.update(bytes);
+	}
+
+	private void updateInt(MessageDigest md, int value){
+		md.update((byte) (value >>> 24));
+		md.update((byte) (value >>> 16));
+		md.update((byte) (value >>> 8));
+		md.update((byte) value);
+	}
+
+	private void updateLong(MessageDigest md, long value){
+		this.updateInt(md, (int) (value >>> 32));
+		this.updateInt(md, (int) value);
+	}
+
+	private static MessageDigest newDigest(){
+		try{
+			return MessageDigest.getInstance(ALGORITHM);
+		}catch(NoSuchAlgorithmException e){
+			throw new IllegalStateException(ALGORITHM + " is not available", e);
+		}
+	}
+}
@@ -0,0 +1,28 @@
+package com.testautomationguru.utility;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+/**
+ * Cache of rendered pdf pages, used to avoid rendering the same baseline pages again and again.
+ *
+ * Implementations must be safe to use from several threads.
+ *
+ * @see DiskPageImageCache
+ */
+public interface PageImageCache {
+
+	/**
+	 * @param key file content hash, page, dpi and image type of the rendered page
+	 * @return the cached image, or null if the page is not in the cache
+	 * @throws IOException when the cache can not be read
+	 */
+	BufferedImage get(PageImageKey key) throws IOException;
+
+	/**
+	 * @param key file content hash, page, dpi and image type of the rendered page
+	 * @param image rendered page
+	 * @throws IOException when the cache can not be written
+	 */
+	void put(PageImageKey key, BufferedImage image) throws IOException;
+}
@@ -0,0 +1,76 @@
+package com.testautomationguru.utility;
+
+import org.apache.pdfbox.rendering.ImageType;
+
+/**
+ * Identifies a rendered page : content hash of the pdf file, page index, dpi and image type.
+ */
+public final class PageImageKey {
+
+	private final String contentHash;
+	private final int pageIndex;
+	private final float dpi;
+	private final ImageType imageType;
+
+	public PageImageKey(String contentHash, int pageIndex, float dpi, ImageType imageType){
+		this.contentHash = contentHash;
+		this.pageIndex = pageIndex;
+		this.dpi = dpi;
+		this.imageType = imageType;
+	}
+
+	public String getContentHash(){
+		return this.contentHash;
+	}
+
+	/**
+	 * @return 0 based page index
+	 */
+	public int getPageIndex(){
+		return this.pageIndex;
+	}
+
+	public float getDpi(){
+		return this.dpi;
+	}
+
+	public ImageType getImageType(){
+		return this.imageType;
+	}
+
+	/**
+	 * @return a file name safe representation of the key
+	 */
+	public String toFileName(){
+		return this.contentHash + "_" + this.pageIndex + "_" + Float.toString(this.dpi).replace('.', '-') + "_" + this.imageType.name().toLowerCase();
+	}
+
+	@Override
+	public boolean equals(Object o){
+		if(this == o){
+			return true;
+		}
+		if(!(o instanceof PageImageKey)){
+			return false;
+		}
+		PageImageKey other = (PageImageKey) o;
+		return this.pageIndex == other.pageIndex
+				&& Float.compare(this.dpi, other.dpi) == 0
+				&& this.imageType == other.imageType
+				&& this.contentHash.equals(other.contentHash);
+	}
+
+	@Override
+	public int hashCode(){
+		int h = this.contentHash.hashCode();
+		h = 31 * h + this.pageIndex;
+		h = 31 * h + Float.floatToIntBits(this.dpi);
+		h = 31 * h + this.imageType.hashCode();
+		return h;
+	}
+
+	@Override
+	public String toString(){
+		return this.toFileName();
+	}
+}
@@ -0,0 +1,179 @@
+package com.testautomationguru.utility;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Overlaps the rendering and the comparison of the pages of a single pair of documents.
+ *
+ * Each document is rendered by a thread of its own, in page order, into a bounded queue. The calling thread takes
+ * the pages of both the queues and compares them, while the next pages are rendered; the differences are written
+ * by the ImageWriteQueue of the call. A render thread waits once depth pages are queued, so at most depth + 2
+ * pages of each document are held: the queued ones, the one being rendered and the one being compared.
+ *
+ * Unlike ParallelPageComparator, the documents are loaded once; it suits the calls with a parallelism of 1.
+ */
+class PagePipeline {
+
+	// shares the PDFUtil logger so that enableLog() / setLogLevel(..) apply
+	static Logger logger = Logger.getLogger(PDFUtil.class.getName());
+
+	private static final AtomicInteger THREADS = new AtomicInteger();
+
+	/**
+	 * Renders a page of one of the documents. Only called from the render thread of that document.
+	 */
+	interface PageRenderer {
+		BufferedImage render(int pageIndex) throws IOException;
+	}
+
+	/**
+	 * Compares the rendered pages. Called from the calling thread, in page order.
+	 */
+	interface PageComparison {
+		PageResult compare(int pageIndex, BufferedImage image1, BufferedImage image2) throws IOException;
+	}
+
+	private final int depth;
+
+	PagePipeline(int depth){
+		this.depth = Math.max(1, depth);
+	}
+
+	/**
+	 * Compares the given pages (0 based page indexes) and stores their results by page index.
+	 *
+	 * @param stopAtFirstMismatch true to stop rendering and comparing once a page does not match
+	 * @throws IOException the failure of a render or of a comparison; the remaining pages are not compared
+	 * @throws Error an Error of a render (OutOfMemoryError..), thrown as is
+	 */
+	void run(final int[] pages, PageRenderer renderer1, PageRenderer renderer2, PageComparison comparison,
+			boolean stopAtFirstMismatch, PageResult[] results) throws IOException{
+
+		BlockingQueue<Rendered> queue1 = new ArrayBlockingQueue<Rendered>(this.depth);
+		BlockingQueue<Rendered> queue2 = new ArrayBlockingQueue<Rendered>(this.depth);
+		ExecutorService pool = Executors.newFixedThreadPool(2, new ThreadFactory(){
+			@Override
+			public Thread newThread(Runnable r){
+				Thread thread = new Thread(r, "pdf-util-render-" + THREADS.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		try{
+			pool.execute(new RenderStage(pages, renderer1, queue1));
+			pool.execute(new RenderStage(pages, renderer2, queue2));
+
+			for(int iPage : pages){
+				PDFUtil.checkInterrupted();
+				BufferedImage image1 = take(queue1, iPage);
+				BufferedImage image2 = take(queue2, iPage);
+				results[iPage] = comparison.compare(iPage, image1, image2);
+				if(stopAtFirstMismatch && !results[iPage].isMatch()){
+					break;
+				}
+			}
+		}finally{
+			// unblocks the render threads waiting on a full queue
+			pool.shutdownNow();
+			awaitRenderers(pool);
+		}
+	}
+
+	private static BufferedImage take(BlockingQueue<Rendered> queue, int pageIndex) throws IOException{
+		Rendered rendered;
+		try{
+			rendered = queue.take();
+		}catch(InterruptedException e){
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for page " + (pageIndex+1) + " to be rendered");
+		}
+		if(rendered.error instanceof IOException){
+			throw (IOException) rendered.error;
+		}
+		if(rendered.error instanceof Error){
+			// an OutOfMemoryError of a large page fails the call instead of leaving it waiting
+			throw (Error) rendered.error;
+		}
+		return rendered.image;
+	}
+
+	/**
+	 * Waits for the page being rendered: the documents are closed by the caller once the pipeline is done.
+	 */
+	private static void awaitRenderers(ExecutorService pool){
+		boolean interrupted = false;
+		while(true){
+			try{
+				if(pool.awaitTermination(1, TimeUnit.SECONDS)){
+					break;
+				}
+			}catch(InterruptedException e){
+				interrupted = true;
+			}
+		}
+		if(interrupted){
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * A rendered page, or the failure which ended the rendering of the document: an IOException or an Error.
+	 */
+	private static final class Rendered {
+		final BufferedImage image;
+		final Throwable error;
+
+		Rendered(BufferedImage image, Throwable error){
+			this.image = image;
+			this.error = error;
+		}
+	}
+
+	private static final class RenderStage implements Runnable {
+		private final int[] pages;
+		private final PageRenderer renderer;
+		private final BlockingQueue<Rendered> queue;
+
+		RenderStage(int[] pages, PageRenderer renderer, BlockingQueue<Rendered> queue){
+			this.pages = pages;
+			this.renderer = renderer;
+			this.queue = queue;
+		}
+
+		@Override
+		public void run(){
+			try{
+				for(int iPage : this.pages){
+					Rendered rendered;
+					try{
+						rendered = new Rendered(this.renderer.render(iPage), null);
+					}catch(IOException e){
+						rendered = new Rendered(null, e);
+					}catch(RuntimeException e){
+						rendered = new Rendered(null, new IOException("Unable to render page " + (iPage+1), e));
+					}catch(Error e){
+						// queued as well, the calling thread waits for this page
+						rendered = new Rendered(null, e);
+					}
+					this.queue.put(rendered);
+					if(null!=rendered.error || Thread.currentThread().isInterrupted()){
+						return;
+					}
+				}
+			}catch(InterruptedException e){
+				// the pipeline is done, the remaining pages are not needed
+				logger.fine("Render stage stopped");
+			}
+		}
+	}
+}
@@ -0,0 +1,118 @@
+package com.testautomationguru.utility;
+
+import java.awt.image.BufferedImage;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of the comparison of one page.
+ */
+public final class PageResult {
+
+	public enum Status {
+		/** the page matches */
+		MATCH,
+		/** the page does not match */
+		DIFFERENT
+	}
+
+	private final int pageNumber;
+	private final Status status;
+	private final String expectedText;
+	private final String actualText;
+	private volatile List<DiffHunk> diffHunks = Collections.emptyList();
+	private volatile List<DiffRegion> diffRegions = Collections.emptyList();
+	private volatile long differentPixels = -1;
+	private volatile BufferedImage diffImage;
+
+	PageResult(int pageNumber, Status status, String expectedText, String actualText){
+		this.pageNumber = pageNumber;
+		this.status = status;
+		this.expectedText = expectedText;
+		this.actualText = actualText;
+	}
+
+	/**
+	 * @return 1 based page number
+	 */
+	public int getPageNumber(){
+		return this.pageNumber;
+	}
+
+	public Status getStatus(){
+		return this.status;
+	}
+
+	public boolean isMatch(){
+		return Status.MATCH == this.status;
+	}
+
+	/**
+	 * @return normalized text of the page in the expected file; only kept for pages which do not match in TEXT_MODE, null otherwise
+	 */
+	public String getExpectedText(){
+		return this.expectedText;
+	}
+
+	/**
+	 * @return normalized text of the page in the actual file; only kept for pages which do not match in TEXT_MODE, null otherwise
+	 */
+	public String getActualText(){
+		return this.actualText;
+	}
+
+	/**
+	 * @return differences between the expected and the actual text of the page;
+	 * empty for pages which match and when no diff granularity is set
+	 */
+	public List<DiffHunk> getDiffHunks(){
+		return this.diffHunks;
+	}
+
+	void setDiffHunks(List<DiffHunk> diffHunks){
+		this.diffHunks = Collections.unmodifiableList(diffHunks);
+	}
+
+	/**
+	 * @return bounding boxes of the differing pixels of the page, in page coordinates;
+	 * empty for pages which match and for TEXT_MODE results
+	 */
+	public List<DiffRegion> getDiffRegions(){
+		return this.diffRegions;
+	}
+
+	void setDiffRegions(List<DiffRegion> diffRegions){
+		this.diffRegions = Collections.unmodifiableList(diffRegions);
+	}
+
+	/**
+	 * @return number of pixels of the page which differ; 0 for pages which match exactly, the pixels beyond
+	 * the channel delta for pages which match within a VisualTolerance. -1 for pages which do not match but whose
+	 * pixels were not counted: TEXT_MODE results, and VISUAL_MODE pages compared only up to their first difference
+	 */
+	public long getDifferentPixels(){
+		long pixels = this.differentPixels;
+		return pixels < 0 && this.isMatch() ? 0 : pixels;
+	}
+
+	void setDifferentPixels(long differentPixels){
+		this.differentPixels = differentPixels;
+	}
+
+	/**
+	 * @return the expected page with the differing pixels highlighted, see PDFUtil.keepDiffImages(boolean);
+	 * null for pages which match, when the images are not kept, and for pages compared in bands
+	 */
+	public BufferedImage getDiffImage(){
+		return this.diffImage;
+	}
+
+	void setDiffImage(BufferedImage diffImage){
+		this.diffImage = diffImage;
+	}
+
+	@Override
+	public String toString(){
+		return "Page No : " + this.pageNumber + " - " + this.status;
+	}
+}
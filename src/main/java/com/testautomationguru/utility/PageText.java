@@ -0,0 +1,34 @@
+package com.testautomationguru.utility;
+
+/**
+ * Text of one page of a document, as given by PDFUtil.iteratePageText(..) / streamPageText(..).
+ */
+public final class PageText {
+
+	private final int pageNumber;
+	private final String text;
+
+	PageText(int pageNumber, String text){
+		this.pageNumber = pageNumber;
+		this.text = text;
+	}
+
+	/**
+	 * @return 1 based page number
+	 */
+	public int getPageNumber(){
+		return this.pageNumber;
+	}
+
+	/**
+	 * @return text of the page; white space trimmed and collapsed when PDFUtil trims the white space
+	 */
+	public String getText(){
+		return this.text;
+	}
+
+	@Override
+	public String toString(){
+		return "Page " + this.pageNumber + " : " + this.text.length() + " characters";
+	}
+}
@@ -0,0 +1,373 @@
+package com.testautomationguru.utility;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import org.apache.pdfbox.text.PDFTextStripper;
+
+/**
+ * Text of the pages of a document, in page order, available as soon as each page is extracted.
+ *
+ * With a parallelism of 1, or with a PDFTextStripper shared through useStripper(..), each page is extracted when it
+ * is asked for. Otherwise the page range is split into chunks of consecutive pages, extracted by parallel workers:
+ * every worker loads its own copy of the document and uses its own stripper, the first one reuses the document
+ * opened by the call. The workers run at most CHUNKS_AHEAD chunks each ahead of the pages read, so the text held
+ * does not grow with the document.
+ *
+ * The document is released once the last page is read, or on close(). An iterator which is not read to the end must
+ * be closed. An iterator is used by one thread at a time; next() reports a failure as an UncheckedIOException, an
+ * Error of a worker (OutOfMemoryError..) is thrown as is.
+ */
+public class PageTextIterator implements Iterator<PageText>, Closeable {
+
+	// shares the PDFUtil logger so that enableLog() / setLogLevel(..) apply
+	static Logger logger = Logger.getLogger(PDFUtil.class.getName());
+
+	// most pages in a chunk; the chunks are smaller when there are few pages per worker
+	static final int MAX_CHUNK_PAGES = 16;
+	static final int CHUNKS_AHEAD = 2;
+
+	private static final AtomicInteger THREADS = new AtomicInteger();
+
+	private final PDFUtilConfig config;
+	private final PDFDocumentHandle handle;
+	private final int startPage;
+	private final int endPage;
+	private final boolean raw;
+	private int nextPage;
+	private boolean closed;
+
+	// extraction on the calling thread
+	private PDFTextStripper stripper;
+
+	// parallel extraction; the state below is guarded by lock
+	private final Object lock = new Object();
+	private String[] texts;
+	private int chunkPages;
+	private int chunks;
+	private int nextChunk;
+	private int aheadPages;
+	// an IOException or an Error
+	private Throwable failure;
+	private boolean stopped;
+	private List<Worker> workers;
+	private CountDownLatch finished;
+	private ExecutorService pool;
+	private boolean ownPool;
+
+	/**
+	 * @param startPage first page, 1 based
+	 * @param endPage last page, 1 based; the iterator is empty when lower than startPage
+	 * @param raw true for the text as written by the stripper, false to trim it as configured
+	 */
+	PageTextIterator(PDFUtilConfig config, PDFDocumentHandle handle, int startPage, int endPage, boolean raw) throws IOException{
+		this.config = config;
+		this.handle = handle;
+		this.startPage = startPage;
+		this.endPage = endPage;
+		this.raw = raw;
+		this.nextPage = startPage;
+
+		int pages = Math.max(0, endPage - startPage + 1);
+		int parallelism = config.getParallelism();
+		this.chunkPages = Math.max(1, Math.min(MAX_CHUNK_PAGES, pages / (Math.max(1, parallelism) * 4)));
+		this.chunks = (pages + this.chunkPages - 1) / this.chunkPages;
+		int workers = Math.min(parallelism, this.chunks);
+		if(workers > 1 && null==config.getStripper()){
+			this.start(pages, workers);
+		}else if(pages > 0){
+			this.stripper = null==config.getStripper() ? config.newStripper() : config.getStripper();
+		}
+		if(pages==0){
+			this.close();
+		}
+	}
+
+	private void start(int pages, int workers) throws IOException{
+		logger.info("Extracting " + pages + " pages in chunks of " + this.chunkPages + " with " + workers + " workers");
+		this.texts = new String[pages];
+		this.aheadPages = workers * CHUNKS_AHEAD * this.chunkPages;
+		this.workers = new ArrayList<Worker>();
+		this.finished = new CountDownLatch(workers);
+		this.pool = this.config.getExecutor();
+		if(null==this.pool){
+			this.pool = Executors.newFixedThreadPool(workers, new ThreadFactory(){
+				@Override
+				public Thread newThread(Runnable r){
+					// an iterator which is not closed does not keep the JVM alive
+					Thread thread = new Thread(r, "pdf-util-text-" + THREADS.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+			this.ownPool = true;
+		}
+		for(int i=0; i<workers; i++){
+			Worker worker = new Worker(i==0);
+			this.workers.add(worker);
+		}
+		for(Worker worker : this.workers){
+			try{
+				this.pool.execute(worker);
+			}catch(RejectedExecutionException e){
+				this.stop();
+				throw new IOException("Unable to schedule the text extraction", e);
+			}
+		}
+	}
+
+	@Override
+	public boolean hasNext(){
+		return !this.closed && this.nextPage <= this.endPage;
+	}
+
+	@Override
+	public PageText next(){
+		try{
+			return this.nextPage();
+		}catch(IOException e){
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Same as next(), reporting the failures as they are.
+	 * 
+	 * @throws Error an Error of a worker, thrown as is
+	 */
+	PageText nextPage() throws IOException{
+		if(!this.hasNext()){
+			throw new NoSuchElementException();
+		}
+		int page = this.nextPage;
+		String text;
+		if(null==this.texts){
+			PDFUtil.checkInterrupted();
+			if(this.stripper==this.config.getStripper()){
+				// a PDFTextStripper keeps the state of the extraction, a shared one is used by one call at a time
+				synchronized(this.stripper){
+					text = this.extract(this.stripper, this.handle, page);
+				}
+			}else{
+				text = this.extract(this.stripper, this.handle, page);
+			}
+			this.nextPage++;
+		}else{
+			text = this.take(page);
+		}
+		if(this.nextPage > this.endPage){
+			this.close();
+		}
+		return new PageText(page, text);
+	}
+
+	private String take(int page) throws IOException{
+		int index = page - this.startPage;
+		synchronized(this.lock){
+			while(null==this.texts[index] && null==this.failure){
+				try{
+					this.lock.wait();
+				}catch(InterruptedException e){
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException("Interrupted while waiting for the text of page " + page);
+				}
+			}
+			String text = this.texts[index];
+			if(null==text){
+				if(this.failure instanceof Error){
+					throw (Error) this.failure;
+				}
+				throw (IOException) this.failure;
+			}
+			this.texts[index] = null;
+			this.nextPage++;
+			this.lock.notifyAll();
+			return text;
+		}
+	}
+
+	private String extract(PDFTextStripper stripper, PDFDocumentHandle document, int page) throws IOException{
+		stripper.setStartPage(page);
+		stripper.setEndPage(page);
+		long start = System.nanoTime();
+		String text;
+		if(this.raw || !this.config.isTrimWhiteSpace()){
+			text = stripper.getText(document.getDocument());
+		}else{
+			// white space is collapsed while the text is written
+			NormalizingTextWriter sink = new NormalizingTextWriter(true, false, null, false);
+			stripper.writeText(document.getDocument(), sink);
+			text = sink.pageText();
+		}
+		MetricEvent.emit(document.getMetricsListener(), MetricStage.TEXT_EXTRACTION, document.getFile(), page, 1, start, 0);
+		return text;
+	}
+
+	/**
+	 * Stops the extraction and releases the document.
+	 */
+	@Override
+	public void close() throws IOException{
+		if(this.closed){
+			return;
+		}
+		this.closed = true;
+		if(null!=this.workers){
+			this.stop();
+		}
+		this.handle.close();
+	}
+
+	/**
+	 * Returns once no worker uses the document anymore. A worker extracting a page finishes it first.
+	 */
+	private void stop(){
+		synchronized(this.lock){
+			this.stopped = true;
+			this.lock.notifyAll();
+		}
+		for(Worker worker : this.workers){
+			worker.release();
+		}
+		boolean interrupted = false;
+		while(true){
+			try{
+				this.finished.await();
+				break;
+			}catch(InterruptedException e){
+				interrupted = true;
+			}
+		}
+		if(interrupted){
+			Thread.currentThread().interrupt();
+		}
+		if(this.ownPool){
+			this.pool.shutdown();
+		}
+	}
+
+	/**
+	 * @return index of the next chunk to extract, -1 when there are none left or the extraction is stopped; an 
+	 * interrupted worker fails the extraction, so that the reader does not wait for its chunks
+	 */
+	private int nextChunk(){
+		synchronized(this.lock){
+			while(!this.stopped && this.nextChunk < this.chunks
+					&& this.nextChunk * this.chunkPages >= this.nextPage - this.startPage + this.aheadPages){
+				try{
+					this.lock.wait();
+				}catch(InterruptedException e){
+					Thread.currentThread().interrupt();
+					this.fail(new InterruptedIOException("Text extraction interrupted"));
+					return -1;
+				}
+			}
+			if(this.stopped || this.nextChunk >= this.chunks){
+				return -1;
+			}
+			return this.nextChunk++;
+		}
+	}
+
+	private boolean isStopped(){
+		synchronized(this.lock){
+			return this.stopped;
+		}
+	}
+
+	private void store(int page, String text){
+		synchronized(this.lock){
+			this.texts[page - this.startPage] = text;
+			this.lock.notifyAll();
+		}
+	}
+
+	/**
+	 * @param e an IOException or an Error
+	 */
+	private void fail(Throwable e){
+		synchronized(this.lock){
+			if(null==this.failure){
+				this.failure = e;
+			}
+			this.stopped = true;
+			this.lock.notifyAll();
+		}
+	}
+
+	/**
+	 * Extracts chunks with its own document and stripper until there are none left.
+	 * A worker which did not start before close() is released by it, so that close() does not wait for it.
+	 */
+	private class Worker implements Runnable {
+		private final boolean shared;
+		private final AtomicBoolean claimed = new AtomicBoolean(false);
+
+		Worker(boolean shared){
+			this.shared = shared;
+		}
+
+		@Override
+		public void run(){
+			if(!this.claimed.compareAndSet(false, true)){
+				return;
+			}
+			try{
+				this.extractChunks();
+			}finally{
+				finished.countDown();
+			}
+		}
+
+		void release(){
+			if(this.claimed.compareAndSet(false, true)){
+				finished.countDown();
+			}
+		}
+
+		private void extractChunks(){
+			PDFDocumentHandle document = this.shared ? handle : handle.reopen();
+			int page = 0;
+			try{
+				PDFTextStripper localStripper = config.newStripper();
+				int chunk;
+				while((chunk = nextChunk()) >= 0){
+					int first = startPage + chunk * chunkPages;
+					int last = Math.min(endPage, first + chunkPages - 1);
+					for(page=first; page<=last && !isStopped(); page++){
+						store(page, extract(localStripper, document, page));
+					}
+				}
+			}catch(IOException e){
+				fail(e);
+			}catch(Error e){
+				// an OutOfMemoryError of a large page fails the call instead of leaving it waiting
+				fail(e);
+			}catch(Throwable e){
+				fail(new IOException("Unable to extract the text of page " + page, e));
+			}finally{
+				if(!this.shared){
+					try{
+						document.close();
+					}catch(IOException e){
+						logger.warning("Unable to close " + document.getPath() + " : " + e.getMessage());
+					}
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,246 @@
+package com.testautomationguru.utility;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Spreads the page renders and pixel compares of a visual comparison across an executor.
+ *
+ * PDFBox renderers are not thread-safe, so every worker loads its own pair of documents
+ * and renders with its own pair of renderers. The first worker reuses the handles given by the caller. Workers pull the next page index from a shared counter,
+ * the results are stored by page index and reported in page order once all the workers are done.
+ */
+class ParallelPageComparator {
+
+	// shares the PDFUtil logger so that enableLog() / setLogLevel(..) apply
+	static Logger logger = Logger.getLogger(PDFUtil.class.getName());
+
+	/**
+	 * Compares a single page using the documents owned by the calling worker.
+	 */
+	interface PageComparison {
+		boolean compare(PDFDocumentHandle handle1, PDFDocumentHandle handle2, int pageIndex) throws IOException;
+	}
+
+	private final PDFDocumentHandle handle1;
+	private final PDFDocumentHandle handle2;
+	private final int parallelism;
+	private final ExecutorService executor;
+	private final boolean compareAllPages;
+
+	ParallelPageComparator(PDFDocumentHandle handle1, PDFDocumentHandle handle2, int parallelism, ExecutorService executor, boolean compareAllPages){
+		this.handle1 = handle1;
+		this.handle2 = handle2;
+		this.parallelism = Math.max(1, parallelism);
+		this.executor = executor;
+		this.compareAllPages = compareAllPages;
+	}
+
+	/**
+	 * Compares the given pages (0 based page indexes).
+	 *
+	 * @return Boolean per given page, in the same order. null when the page was not compared
+	 * because an earlier mismatch cancelled the remaining work.
+	 */
+	Boolean[] compare(int[] pageIndexes, PageComparison comparison) throws IOException{
+
+		int pages = pageIndexes.length;
+		Boolean[] results = new Boolean[pages];
+		if(pages == 0){
+			return results;
+		}
+
+		int workers = Math.min(this.parallelism, pages);
+		ExecutorService pool = this.executor;
+		boolean ownPool = false;
+		if(null==pool){
+			pool = Executors.newFixedThreadPool(workers);
+			ownPool = true;
+		}
+
+		Run run = new Run(pageIndexes, results, comparison, workers);
+		try{
+			for(int i=0; i<workers; i++){
+				Worker worker = new Worker(run, i==0);
+				run.workers.add(worker);
+				try{
+					run.futures.add(pool.submit(worker));
+				}catch(RejectedExecutionException e){
+					worker.release();
+					run.stop.set(true);
+					this.await(run);
+					throw new IOException("Unable to schedule the page comparison", e);
+				}
+			}
+			this.await(run);
+		}finally{
+			if(ownPool){
+				pool.shutdownNow();
+			}
+		}
+
+		for(int i=0; i<results.length; i++){
+			if(null==results[i]){
+				logger.info("Page No : " + (pageIndexes[i] + 1) + " - not compared");
+			}else{
+				logger.info("Page No : " + (pageIndexes[i] + 1) + " - " + (results[i] ? "matches" : "does not match"));
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Waits for all the workers. Outstanding workers are cancelled as soon as one of them
+	 * raises the stop flag or fails. Returns only when no worker is using the documents anymore.
+	 */
+	private void await(Run run) throws IOException{
+		IOException failure = null;
+		for(Future<Void> future : run.futures){
+			try{
+				if(null==failure && !run.stop.get()){
+					future.get();
+				}
+			}catch(CancellationException e){
+				// cancelled after an early exit
+			}catch(InterruptedException e){
+				Thread.currentThread().interrupt();
+				failure = new IOException("Interrupted while comparing pages", e);
+			}catch(ExecutionException e){
+				Throwable cause = e.getCause();
+				failure = cause instanceof IOException ? (IOException) cause : new IOException(cause);
+			}
+			if(null!=failure){
+				run.stop.set(true);
+			}
+			if(run.stop.get()){
+				run.cancel();
+			}
+		}
+		run.cancel();
+		run.awaitWorkers();
+		if(null!=failure){
+			throw failure;
+		}
+	}
+
+	/**
+	 * State shared by the workers of a single comparison.
+	 */
+	private class Run {
+		final int[] pageIndexes;
+		final Boolean[] results;
+		final PageComparison comparison;
+		final AtomicInteger nextPage = new AtomicInteger(0);
+		final AtomicBoolean stop = new AtomicBoolean(false);
+		final CountDownLatch finished;
+		final List<Worker> workers = new ArrayList<Worker>();
+		final List<Future<Void>> futures = new ArrayList<Future<Void>>();
+
+		Run(int[] pageIndexes, Boolean[] results, PageComparison comparison, int workers){
+			this.pageIndexes = pageIndexes;
+			this.results = results;
+			this.comparison = comparison;
+			this.finished = new CountDownLatch(workers);
+		}
+
+		/**
+		 * Workers which did not start yet will never start, running workers are interrupted.
+		 */
+		void cancel(){
+			if(!this.stop.get()){
+				return;
+			}
+			for(Worker worker : this.workers){
+				worker.release();
+			}
+			for(Future<Void> future : this.futures){
+				future.cancel(true);
+			}
+		}
+
+		void awaitWorkers(){
+			boolean interrupted = false;
+			while(true){
+				try{
+					this.finished.await();
+					break;
+				}catch(InterruptedException e){
+					interrupted = true;
+				}
+			}
+			if(interrupted){
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Compares pages with its own pair of documents until there are no pages left or the run is stopped.
+	 * A worker cancelled before it started is released by the caller, so that the caller does not wait for it.
+	 */
+	private class Worker implements Callable<Void> {
+		private final Run run;
+		private final boolean shared;
+		private final AtomicBoolean claimed = new AtomicBoolean(false);
+
+		Worker(Run run, boolean shared){
+			this.run = run;
+			this.shared = shared;
+		}
+
+		@Override
+		public Void call() throws Exception {
+			if(!this.claimed.compareAndSet(false, true)){
+				return null;
+			}
+			try{
+				if(!this.run.stop.get()){
+					this.comparePages();
+				}
+			}finally{
+				this.run.finished.countDown();
+			}
+			return null;
+		}
+
+		void release(){
+			if(this.claimed.compareAndSet(false, true)){
+				this.run.finished.countDown();
+			}
+		}
+
+		private void comparePages() throws IOException{
+			PDFDocumentHandle doc1 = this.shared ? handle1 : handle1.reopen();
+			PDFDocumentHandle doc2 = this.shared ? handle2 : handle2.reopen();
+			try{
+				int pages = this.run.results.length;
+				int index;
+				while(!this.run.stop.get() && !Thread.currentThread().isInterrupted()
+						&& (index = this.run.nextPage.getAndIncrement()) < pages){
+					boolean result = this.run.comparison.compare(doc1, doc2, this.run.pageIndexes[index]);
+					this.run.results[index] = result;
+					if(!result && !compareAllPages){
+						this.run.stop.set(true);
+					}
+				}
+			}finally{
+				if(!this.shared){
+					doc1.close();
+					doc2.close();
+				}
+			}
+		}
+	}
+}
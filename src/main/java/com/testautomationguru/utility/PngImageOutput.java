@@ -0,0 +1,241 @@
+package com.testautomationguru.utility;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * PNG encoder with a configurable deflate level.
+ *
+ * The rows are written unfiltered, so the encoding cost is the deflate of the pixels and nothing else:
+ * Deflater.BEST_SPEED is several times faster than the ImageIO encoder, NO_COMPRESSION only copies the pixels.
+ * The files are somewhat bigger than with the adaptive filtering of ImageIO at the same level.
+ *
+ * Gray images are written as 8 bit gray, binary images as 1 bit gray, images with alpha as RGBA and
+ * all the others as RGB.
+ */
+public class PngImageOutput implements ImageOutput {
+
+	private static final byte[] SIGNATURE = { (byte) 137, 80, 78, 71, 13, 10, 26, 10 };
+	private static final int CHUNK_SIZE = 64 * 1024;
+
+	private final int level;
+
+	/**
+	 * PNG with the default deflate level.
+	 */
+	public PngImageOutput(){
+		this(Deflater.DEFAULT_COMPRESSION);
+	}
+
+	/**
+	 * @param level deflate level from Deflater.NO_COMPRESSION (0) to Deflater.BEST_COMPRESSION (9),
+	 * or Deflater.DEFAULT_COMPRESSION (-1)
+	 */
+	public PngImageOutput(int level){
+		if(level < Deflater.DEFAULT_COMPRESSION || level > Deflater.BEST_COMPRESSION){
+			throw new IllegalArgumentException("level must be between -1 and 9 : " + level);
+		}
+		this.level = level;
+	}
+
+	public int getLevel(){
+		return this.level;
+	}
+
+	@Override
+	public String getExtension(){
+		return "png";
+	}
+
+	@Override
+	public void write(BufferedImage image, File file, float dpi) throws IOException{
+		OutputStream out = new BufferedOutputStream(new FileOutputStream(file), CHUNK_SIZE);
+		try{
+			this.write(image, out, dpi);
+		}finally{
+			out.close();
+		}
+	}
+
+	void write(BufferedImage image, OutputStream out, float dpi) throws IOException{
+		int width = image.getWidth();
+		int height = image.getHeight();
+		// 1 bit gray is black for 0, like the palette of the binary images rendered by PDFBox
+		boolean binary = BufferedImage.TYPE_BYTE_BINARY==image.getType() && image.getColorModel().getPixelSize()==1
+				&& (image.getColorModel().getRGB(0) & 0xFFFFFF)==0;
+		boolean gray = BufferedImage.TYPE_BYTE_GRAY==image.getType();
+		boolean alpha = !binary && !gray && image.getColorModel().hasAlpha();
+
+		out.write(SIGNATURE);
+		ChunkWriter header = new ChunkWriter(out, "IHDR");
+		header.data.writeInt(width);
+		header.data.writeInt(height);
+		header.data.writeByte(binary ? 1 : 8);
+		header.data.writeByte(binary || gray ? 0 : alpha ? 6 : 2);
+		header.data.writeByte(0);
+		header.data.writeByte(0);
+		header.data.writeByte(0);
+		header.close();
+
+		if(dpi > 0){
+			int pixelsPerMeter = Math.round(dpi / 0.0254f);
+			ChunkWriter physical = new ChunkWriter(out, "pHYs");
+			physical.data.writeInt(pixelsPerMeter);
+			physical.data.writeInt(pixelsPerMeter);
+			physical.data.writeByte(1);
+			physical.close();
+		}
+
+		Deflater deflater = new Deflater(this.level);
+		try{
+			IdatOutputStream idat = new IdatOutputStream(out);
+			DeflaterOutputStream pixels = new DeflaterOutputStream(idat, deflater, CHUNK_SIZE);
+			Raster raster = image.getRaster();
+			int bytesPerPixel = binary || gray ? 1 : alpha ? 4 : 3;
+			byte[] row = new byte[1 + (binary ? (width + 7) / 8 : width * bytesPerPixel)];
+			int[] argb = binary || gray ? null : new int[width];
+			int[] samples = binary ? new int[width] : null;
+			byte[] grayData = gray ? new byte[width] : null;
+			for(int y=0; y<height; y++){
+				// row[0] is the filter type : none
+				if(binary){
+					this.binaryRow(raster, y, width, samples, row);
+				}else if(gray){
+					raster.getDataElements(0, y, width, 1, grayData);
+					System.arraycopy(grayData, 0, row, 1, width);
+				}else{
+					this.colorRow(image, y, width, alpha, argb, row);
+				}
+				pixels.write(row);
+			}
+			pixels.finish();
+			idat.flushChunk();
+		}finally{
+			deflater.end();
+		}
+
+		new ChunkWriter(out, "IEND").close();
+	}
+
+	private void binaryRow(Raster raster, int y, int width, int[] samples, byte[] row){
+		raster.getSamples(0, y, width, 1, 0, samples);
+		for(int i=1; i<row.length; i++){
+			row[i] = 0;
+		}
+		for(int x=0; x<width; x++){
+			if(samples[x]!=0){
+				row[1 + (x >> 3)] |= 0x80 >>> (x & 7);
+			}
+		}
+	}
+
+	private void colorRow(BufferedImage image, int y, int width, boolean alpha, int[] argb, byte[] row){
+		int type = image.getType();
+		if(BufferedImage.TYPE_INT_RGB==type || BufferedImage.TYPE_INT_ARGB==type){
+			// the packed pixels as they are stored, no color model conversion
+			image.getRaster().getDataElements(0, y, width, 1, argb);
+		}else{
+			image.getRGB(0, y, width, 1, argb, 0, width);
+		}
+		int i = 1;
+		for(int x=0; x<width; x++){
+			int pixel = argb[x];
+			row[i++] = (byte) (pixel >> 16);
+			row[i++] = (byte) (pixel >> 8);
+			row[i++] = (byte) pixel;
+			if(alpha){
+				row[i++] = (byte) (pixel >>> 24);
+			}
+		}
+	}
+
+	/**
+	 * Buffers the data of a chunk and writes it with its length and CRC when closed.
+	 */
+	private static class ChunkWriter {
+		private final OutputStream out;
+		private final byte[] type;
+		private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		final DataOutputStream data = new DataOutputStream(this.buffer);
+
+		ChunkWriter(OutputStream out, String type){
+			this.out = out;
+			this.type = type.getBytes(Charset.forName("US-ASCII"));
+		}
+
+		void close() throws IOException{
+			writeChunk(this.out, this.type, this.buffer.toByteArray(), this.buffer.size());
+		}
+	}
+
+	/**
+	 * Cuts the deflated pixels into IDAT chunks.
+	 */
+	private static class IdatOutputStream extends OutputStream {
+		private static final byte[] IDAT = { 'I', 'D', 'A', 'T' };
+		private final OutputStream out;
+		private final byte[] buffer = new byte[CHUNK_SIZE];
+		private int count;
+
+		IdatOutputStream(OutputStream out){
+			this.out = out;
+		}
+
+		@Override
+		public void write(int b) throws IOException{
+			if(this.count==this.buffer.length){
+				this.flushChunk();
+			}
+			this.buffer[this.count++] = (byte) b;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException{
+			while(len > 0){
+				if(this.count==this.buffer.length){
+					this.flushChunk();
+				}
+				int n = Math.min(len, this.buffer.length - this.count);
+				System.arraycopy(b, off, this.buffer, this.count, n);
+				this.count += n;
+				off += n;
+				len -= n;
+			}
+		}
+
+		void flushChunk() throws IOException{
+			if(this.count > 0){
+				writeChunk(this.out, IDAT, this.buffer, this.count);
+				this.count = 0;
+			}
+		}
+	}
+
+	private static void writeChunk(OutputStream out, byte[] type, byte[] data, int length) throws IOException{
+		CRC32 crc = new CRC32();
+		crc.update(type);
+		crc.update(data, 0, length);
+		writeInt(out, length);
+		out.write(type);
+		out.write(data, 0, length);
+		writeInt(out, (int) crc.getValue());
+	}
+
+	private static void writeInt(OutputStream out, int value) throws IOException{
+		out.write(value >>> 24);
+		out.write(value >>> 16);
+		out.write(value >>> 8);
+		out.write(value);
+	}
+}
@@ -0,0 +1,66 @@
+package com.testautomationguru.utility;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+
+/**
+ * Uncompressed binary PNM: PGM (P5) for gray and binary images, PPM (P6) for the others.
+ *
+ * There is nothing to encode, writing an image costs its size in I/O. Useful when the images only feed another
+ * tool (ImageMagick, OpenCV, netpbm..) which reads PNM. The alpha channel and the resolution are not written.
+ */
+public class PnmImageOutput implements ImageOutput {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	@Override
+	public String getExtension(){
+		return "pnm";
+	}
+
+	@Override
+	public void write(BufferedImage image, File file, float dpi) throws IOException{
+		OutputStream out = new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE);
+		try{
+			this.write(image, out);
+		}finally{
+			out.close();
+		}
+	}
+
+	void write(BufferedImage image, OutputStream out) throws IOException{
+		int width = image.getWidth();
+		int height = image.getHeight();
+		boolean gray = BufferedImage.TYPE_BYTE_GRAY==image.getType() || BufferedImage.TYPE_BYTE_BINARY==image.getType();
+
+		out.write(((gray ? "P5" : "P6") + "\n" + width + " " + height + "\n255\n").getBytes(Charset.forName("US-ASCII")));
+		int[] argb = new int[width];
+		byte[] row = new byte[gray ? width : width * 3];
+		for(int y=0; y<height; y++){
+			if(BufferedImage.TYPE_BYTE_GRAY==image.getType()){
+				// the stored levels; getRGB(..) would convert them from linear gray to sRGB
+				image.getRaster().getDataElements(0, y, width, 1, row);
+			}else if(gray){
+				image.getRGB(0, y, width, 1, argb, 0, width);
+				for(int x=0; x<width; x++){
+					row[x] = (byte) argb[x];
+				}
+			}else{
+				image.getRGB(0, y, width, 1, argb, 0, width);
+				int i = 0;
+				for(int x=0; x<width; x++){
+					int pixel = argb[x];
+					row[i++] = (byte) (pixel >> 16);
+					row[i++] = (byte) (pixel >> 8);
+					row[i++] = (byte) pixel;
+				}
+			}
+			out.write(row);
+		}
+	}
+}
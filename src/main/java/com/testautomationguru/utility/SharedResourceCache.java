@@ -0,0 +1,168 @@
+package com.testautomationguru.utility;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.pdfbox.pdmodel.font.PDFont;
+
+/**
+ * Fonts shared by the documents loaded by PDFUtil, so that a font embedded in many files (corporate fonts..) is
+ * parsed once instead of once per document, for the rendering and the text extraction alike.
+ *
+ * A font is found by the digest of its dictionary and of everything reachable from it (font program, ToUnicode
+ * CMap, widths, encoding..), whatever its file and object number, see PageDigester. Type 3 fonts, whose glyphs are
+ * content streams of their document, are not shared.
+ *
+ * A PDFont is not thread safe: a font is lent to one document at a time, and given back when the document is closed.
+ * Documents open at the same time which use the same font each parse their own, all of them are kept. The size of a
+ * font is counted as the size of its streams in the file; the least recently used fonts are dropped once the fonts
+ * kept exceed maxBytes.
+ *
+ * The images are not shared: PDFBox decodes them from the streams of their own document, which are closed with it.
+ */
+public class SharedResourceCache {
+
+	public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+	// counted for the fonts which are not embedded
+	static final long MIN_FONT_BYTES = 1024;
+
+	private final long maxBytes;
+	// idle fonts by digest, least recently used first; guarded by this
+	private final LinkedHashMap<ByteBuffer, Deque<Idle>> fonts = new LinkedHashMap<ByteBuffer, Deque<Idle>>(16, 0.75f, true);
+	private long bytes;
+	private int size;
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * Keeps up to DEFAULT_MAX_BYTES of fonts.
+	 */
+	public SharedResourceCache(){
+		this(DEFAULT_MAX_BYTES);
+	}
+
+	/**
+	 * @param maxBytes size of the fonts kept, see the class comment
+	 */
+	public SharedResourceCache(long maxBytes){
+		if(maxBytes <= 0){
+			throw new IllegalArgumentException("maxBytes must be positive : " + maxBytes);
+		}
+		this.maxBytes = maxBytes;
+	}
+
+	public long getMaxBytes(){
+		return this.maxBytes;
+	}
+
+	/**
+	 * @return size of the fonts kept, not lent to a document
+	 */
+	public synchronized long getBytes(){
+		return this.bytes;
+	}
+
+	/**
+	 * @return number of fonts kept, not lent to a document
+	 */
+	public synchronized int size(){
+		return this.size;
+	}
+
+	/**
+	 * @return number of fonts taken from the cache instead of being parsed
+	 */
+	public long getHits(){
+		return this.hits.get();
+	}
+
+	/**
+	 * @return number of shareable fonts parsed because none was kept
+	 */
+	public long getMisses(){
+		return this.misses.get();
+	}
+
+	/**
+	 * Drops the fonts kept. The fonts lent to open documents are kept when given back.
+	 */
+	public synchronized void clear(){
+		this.fonts.clear();
+		this.bytes = 0;
+		this.size = 0;
+	}
+
+	/**
+	 * @return a cache for the resources of a document, to be released once it is closed
+	 */
+	DocumentResourceCache newDocumentCache(){
+		return new DocumentResourceCache(this);
+	}
+
+	/**
+	 * @return a font of the given digest, now lent to the caller; null when none is kept
+	 */
+	synchronized PDFont borrow(ByteBuffer digest){
+		Deque<Idle> idle = this.fonts.get(digest);
+		if(null==idle){
+			this.misses.incrementAndGet();
+			return null;
+		}
+		Idle font = idle.pop();
+		if(idle.isEmpty()){
+			this.fonts.remove(digest);
+		}
+		this.bytes -= font.bytes;
+		this.size--;
+		this.hits.incrementAndGet();
+		return font.font;
+	}
+
+	/**
+	 * Keeps a font lent by borrow(..), or parsed by the caller, for the next documents.
+	 *
+	 * @param fontBytes size of the font, see the class comment
+	 */
+	synchronized void giveBack(ByteBuffer digest, PDFont font, long fontBytes){
+		if(fontBytes > this.maxBytes){
+			return;
+		}
+		Deque<Idle> idle = this.fonts.get(digest);
+		if(null==idle){
+			idle = new ArrayDeque<Idle>(1);
+			this.fonts.put(digest, idle);
+		}
+		idle.push(new Idle(font, fontBytes));
+		this.bytes += fontBytes;
+		this.size++;
+
+		Iterator<Map.Entry<ByteBuffer, Deque<Idle>>> eldest = this.fonts.entrySet().iterator();
+		while(this.bytes > this.maxBytes){
+			Deque<Idle> fonts = eldest.next().getValue();
+			while(!fonts.isEmpty() && this.bytes > this.maxBytes){
+				this.bytes -= fonts.removeLast().bytes;
+				this.size--;
+			}
+			if(fonts.isEmpty()){
+				eldest.remove();
+			}
+		}
+	}
+
+	private static final class Idle {
+		final PDFont font;
+		final long bytes;
+
+		Idle(PDFont font, long bytes){
+			this.font = font;
+			this.bytes = bytes;
+		}
+	}
+}
@@ -0,0 +1,45 @@
+package com.testautomationguru.utility;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Adds up the time of each stage of a single comparison, for its CompareResult, and passes the events on
+ * to the configured MetricsListener.
+ */
+class StageTimings implements MetricsListener {
+
+	private final MetricsListener next;
+	private final long[] nanos = new long[MetricStage.values().length];
+
+	/**
+	 * @param next the configured listener; null for none
+	 */
+	StageTimings(MetricsListener next){
+		this.next = next;
+	}
+
+	@Override
+	public void onEvent(MetricEvent event){
+		synchronized(this){
+			this.nanos[event.getStage().ordinal()] += event.getNanos();
+		}
+		if(null!=this.next){
+			this.next.onEvent(event);
+		}
+	}
+
+	/**
+	 * @return time of each stage seen, summed over the threads
+	 */
+	synchronized Map<MetricStage, Long> getStageNanos(){
+		Map<MetricStage, Long> stages = new EnumMap<MetricStage, Long>(MetricStage.class);
+		for(MetricStage stage : MetricStage.values()){
+			if(this.nanos[stage.ordinal()] > 0){
+				stages.put(stage, this.nanos[stage.ordinal()]);
+			}
+		}
+		return Collections.unmodifiableMap(stages);
+	}
+}
@@ -0,0 +1,225 @@
+package com.testautomationguru.utility;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Computes the differences between two sequences of lines (or words) of a page.
+ *
+ * Uses the divide and conquer variant of the Myers O(ND) algorithm: the middle snake of the shortest edit script
+ * is found by running the search from both ends at once, and both halves are diffed recursively.
+ * Only the diagonals of the current sub problem are kept, so the memory used is linear in the size of the input
+ * instead of the O(N * M) table of the textbook LCS.
+ *
+ * Tokens found in only one of the sequences can not be common, they are left out of the search. This keeps
+ * pages which have been completely rewritten cheap to diff.
+ *
+ * Tokens are compared ignoring case, like the text comparison.
+ */
+class TextDiff {
+
+	// ids of the tokens found in both sequences, and their index in the sequence
+	private final int[] a;
+	private final int[] b;
+	private final int[] indexA;
+	private final int[] indexB;
+	private final boolean[] commonA;
+	private final boolean[] commonB;
+	private int[] forward = new int[0];
+	private int[] backward = new int[0];
+
+	private TextDiff(String[] expected, String[] actual){
+		// tokens are mapped to ids so that the search compares ints
+		Map<String, Integer> ids = new HashMap<String, Integer>();
+		int[] idsA = toIds(expected, ids);
+		int[] idsB = toIds(actual, ids);
+		boolean[] inA = new boolean[ids.size()];
+		boolean[] inB = new boolean[ids.size()];
+		for(int id : idsA){
+			inA[id] = true;
+		}
+		for(int id : idsB){
+			inB[id] = true;
+		}
+		this.indexA = indexesOf(idsA, inB);
+		this.indexB = indexesOf(idsB, inA);
+		this.a = select(idsA, this.indexA);
+		this.b = select(idsB, this.indexB);
+		this.commonA = new boolean[expected.length];
+		this.commonB = new boolean[actual.length];
+	}
+
+	/**
+	 * @param pageNumber page number reported in the hunks
+	 * @param expected lines (or words) of the expected page
+	 * @param actual lines (or words) of the actual page
+	 * @return the hunks, in page order; empty if both sequences are the same
+	 */
+	static List<DiffHunk> diff(int pageNumber, String[] expected, String[] actual){
+		TextDiff diff = new TextDiff(expected, actual);
+		diff.diff(0, diff.a.length, 0, diff.b.length);
+		return diff.hunks(pageNumber, expected, actual);
+	}
+
+	private static int[] toIds(String[] tokens, Map<String, Integer> ids){
+		int[] result = new int[tokens.length];
+		for(int i=0; i<tokens.length; i++){
+			String key = tokens[i].toUpperCase(Locale.ROOT).toLowerCase(Locale.ROOT);
+			Integer id = ids.get(key);
+			if(null==id){
+				id = ids.size();
+				ids.put(key, id);
+			}
+			result[i] = id;
+		}
+		return result;
+	}
+
+	private static int[] indexesOf(int[] ids, boolean[] keep){
+		int count = 0;
+		for(int id : ids){
+			if(keep[id]){
+				count++;
+			}
+		}
+		int[] indexes = new int[count];
+		count = 0;
+		for(int i=0; i<ids.length; i++){
+			if(keep[ids[i]]){
+				indexes[count++] = i;
+			}
+		}
+		return indexes;
+	}
+
+	private static int[] select(int[] ids, int[] indexes){
+		int[] selected = new int[indexes.length];
+		for(int i=0; i<indexes.length; i++){
+			selected[i] = ids[indexes[i]];
+		}
+		return selected;
+	}
+
+	/**
+	 * Marks the tokens of a[aLo, aHi) and b[bLo, bHi) which belong to a longest common subsequence.
+	 */
+	private void diff(int aLo, int aHi, int bLo, int bHi){
+		while(aLo<aHi && bLo<bHi && this.a[aLo]==this.b[bLo]){
+			this.commonA[this.indexA[aLo++]] = true;
+			this.commonB[this.indexB[bLo++]] = true;
+		}
+		while(aLo<aHi && bLo<bHi && this.a[aHi-1]==this.b[bHi-1]){
+			this.commonA[this.indexA[--aHi]] = true;
+			this.commonB[this.indexB[--bHi]] = true;
+		}
+		if(aLo==aHi || bLo==bHi){
+			return;
+		}
+		int[] split = this.middleSnake(aLo, aHi, bLo, bHi);
+		if(null!=split){
+			this.diff(aLo, split[0], bLo, split[1]);
+			this.diff(split[0], aHi, split[1], bHi);
+		}
+	}
+
+	/**
+	 * @return the point where the forward and the backward searches meet, null if there is nothing in common
+	 */
+	private int[] middleSnake(int aLo, int aHi, int bLo, int bHi){
+		int n = aHi - aLo;
+		int m = bHi - bLo;
+		int maxD = (n + m + 1) / 2;
+		int offset = maxD;
+		int length = 2 * maxD + 2;
+		if(this.forward.length < length){
+			this.forward = new int[length];
+			this.backward = new int[length];
+		}
+		int[] vf = this.forward;
+		int[] vb = this.backward;
+		Arrays.fill(vf, 0, length, -1);
+		Arrays.fill(vb, 0, length, -1);
+		vf[offset + 1] = 0;
+		vb[offset + 1] = 0;
+		int delta = n - m;
+		boolean odd = (delta & 1) != 0;
+		// diagonals which ran off the grid are not extended any more
+		int fStart = 0, fEnd = 0, bStart = 0, bEnd = 0;
+
+		for(int d=0; d<maxD; d++){
+			for(int k=-d+fStart; k<=d-fEnd; k+=2){
+				int i = offset + k;
+				int x = (k==-d || (k!=d && vf[i-1] < vf[i+1])) ? vf[i+1] : vf[i-1] + 1;
+				int y = x - k;
+				while(x<n && y<m && this.a[aLo+x]==this.b[bLo+y]){
+					x++;
+					y++;
+				}
+				vf[i] = x;
+				if(x > n){
+					fEnd += 2;
+				}else if(y > m){
+					fStart += 2;
+				}else if(odd){
+					int j = offset + delta - k;
+					if(j>=0 && j<length && vb[j]!=-1 && x >= n - vb[j]){
+						return new int[]{ aLo + x, bLo + y };
+					}
+				}
+			}
+			for(int k=-d+bStart; k<=d-bEnd; k+=2){
+				int i = offset + k;
+				int x = (k==-d || (k!=d && vb[i-1] < vb[i+1])) ? vb[i+1] : vb[i-1] + 1;
+				int y = x - k;
+				while(x<n && y<m && this.a[aHi-x-1]==this.b[bHi-y-1]){
+					x++;
+					y++;
+				}
+				vb[i] = x;
+				if(x > n){
+					bEnd += 2;
+				}else if(y > m){
+					bStart += 2;
+				}else if(!odd){
+					int j = offset + delta - k;
+					if(j>=0 && j<length && vf[j]!=-1){
+						int fx = vf[j];
+						int fy = offset + fx - j;
+						if(fx >= n - x){
+							return new int[]{ aLo + fx, bLo + fy };
+						}
+					}
+				}
+			}
+		}
+		return null;
+	}
+
+	private List<DiffHunk> hunks(int pageNumber, String[] expected, String[] actual){
+		List<DiffHunk> hunks = new ArrayList<DiffHunk>();
+		int i = 0;
+		int j = 0;
+		while(i<expected.length || j<actual.length){
+			if(i<expected.length && j<actual.length && this.commonA[i] && this.commonB[j]){
+				i++;
+				j++;
+				continue;
+			}
+			int i0 = i;
+			int j0 = j;
+			while(i<expected.length && !this.commonA[i]){
+				i++;
+			}
+			while(j<actual.length && !this.commonB[j]){
+				j++;
+			}
+			hunks.add(new DiffHunk(pageNumber, i0, Arrays.asList(Arrays.copyOfRange(expected, i0, i)),
+					j0, Arrays.asList(Arrays.copyOfRange(actual, j0, j))));
+		}
+		return hunks;
+	}
+}
@@ -0,0 +1,448 @@
+package com.testautomationguru.utility;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
+import java.awt.image.SampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compares two images tile by tile, reading the pixels straight from the backing arrays of the rasters.
+ *
+ * INT packed (TYPE_INT_RGB, TYPE_INT_ARGB..) and BYTE interleaved (TYPE_3BYTE_BGR, TYPE_BYTE_GRAY..) images of the same
+ * type are compared without copying any pixel. Other images are read one tile row at a time through getRGB,
+ * so no whole-page int[] is ever allocated.
+ *
+ * Without highlighting or regions the comparison stops at the first differing tile. The highlighted image and the
+ * region grid are allocated only once a mismatch is found.
+ *
+ * Regions group the differing pixels into bounding boxes: the page is divided in cells of REGION_CELL_SIZE pixels,
+ * the cells holding differing pixels which touch each other (diagonals included) make one region.
+ *
+ * An instance keeps small scratch buffers and must not be shared between threads.
+ */
+class TiledImageComparator {
+
+	static final int DEFAULT_TILE_SIZE = 256;
+	static final int REGION_CELL_SIZE = 16;
+
+	private final int tileSize;
+
+	private BufferedImage highlighted;
+	private RegionGrid grid;
+	private List<Region> regions = Collections.emptyList();
+	private long differentPixels;
+
+	TiledImageComparator(){
+		this(DEFAULT_TILE_SIZE);
+	}
+
+	TiledImageComparator(int tileSize){
+		this.tileSize = Math.max(8, tileSize);
+	}
+
+	/**
+	 * Compares the images.
+	 *
+	 * @param highlight true to build an image of img1 with the differing pixels painted in colorCode
+	 * @return true if all the pixels match
+	 */
+	boolean compare(BufferedImage img1, BufferedImage img2, boolean highlight, int colorCode){
+		return this.compare(img1, img2, highlight, false, colorCode);
+	}
+
+	/**
+	 * Compares the images.
+	 *
+	 * @param highlight true to build an image of img1 with the differing pixels painted in colorCode
+	 * @param regions true to group the differing pixels into regions
+	 * @return true if all the pixels match
+	 */
+	boolean compare(BufferedImage img1, BufferedImage img2, boolean highlight, boolean regions, int colorCode){
+
+		this.highlighted = null;
+		this.grid = null;
+		this.regions = Collections.emptyList();
+		this.differentPixels = 0;
+
+		final int w = img1.getWidth();
+		final int h = img1.getHeight();
+		if(w != img2.getWidth() || h != img2.getHeight()){
+			this.differentPixels = Math.max((long) w * h, (long) img2.getWidth() * img2.getHeight());
+			if(regions){
+				this.regions = Collections.singletonList(new Region(new Rectangle(0, 0,
+						Math.max(w, img2.getWidth()), Math.max(h, img2.getHeight())), this.differentPixels));
+			}
+			return false;
+		}
+
+		Pixels p1 = Pixels.of(img1, img2);
+		Pixels p2 = Pixels.of(img2, img1);
+
+		boolean match = true;
+		for(int ty=0; ty<h; ty+=this.tileSize){
+			int th = Math.min(this.tileSize, h - ty);
+			for(int tx=0; tx<w; tx+=this.tileSize){
+				int tw = Math.min(this.tileSize, w - tx);
+				if(tileEquals(p1, p2, tx, ty, tw, th)){
+					continue;
+				}
+				if(!highlight && !regions){
+					this.differentPixels = -1;
+					return false;
+				}
+				if(match){
+					match = false;
+					if(highlight){
+						this.highlighted = copyOf(img1, this.tileSize);
+					}
+					if(regions){
+						this.grid = new RegionGrid(w, h);
+					}
+				}
+				this.differentPixels += markTile(p1, p2, tx, ty, tw, th, colorCode);
+			}
+		}
+		if(null!=this.grid){
+			this.regions = this.grid.regions();
+			this.grid = null;
+		}
+		return match;
+	}
+
+	/**
+	 * @return img1 with the differences highlighted, null when the images matched or highlighting was off
+	 */
+	BufferedImage getHighlightedImage(){
+		return this.highlighted;
+	}
+
+	/**
+	 * @return regions of the differences found by the last compare with regions on, from the top of the page; empty when the images matched
+	 */
+	List<Region> getRegions(){
+		return this.regions;
+	}
+
+	/**
+	 * @return number of differing pixels found by the last compare with highlighting or regions on, -1 if the comparison exited early
+	 */
+	long getDifferentPixels(){
+		return this.differentPixels;
+	}
+
+	private static boolean tileEquals(Pixels p1, Pixels p2, int tx, int ty, int tw, int th){
+		for(int y=ty; y<ty+th; y++){
+			if(!p1.rowEquals(p2, tx, tw, y)){
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private int markTile(Pixels p1, Pixels p2, int tx, int ty, int tw, int th, int colorCode){
+		int count = 0;
+		for(int y=ty; y<ty+th; y++){
+			if(p1.rowEquals(p2, tx, tw, y)){
+				continue;
+			}
+			for(int x=tx; x<tx+tw; x++){
+				if(!p1.pixelEquals(p2, x, y)){
+					if(null!=this.highlighted){
+						this.highlighted.setRGB(x, y, colorCode);
+					}
+					if(null!=this.grid){
+						this.grid.add(x, y);
+					}
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+
+	private static BufferedImage copyOf(BufferedImage img, int tileSize){
+		final int w = img.getWidth();
+		final int h = img.getHeight();
+		BufferedImage out = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+		int[] row = new int[Math.min(w, tileSize) * Math.min(h, tileSize)];
+		for(int ty=0; ty<h; ty+=tileSize){
+			int th = Math.min(tileSize, h - ty);
+			for(int tx=0; tx<w; tx+=tileSize){
+				int tw = Math.min(tileSize, w - tx);
+				img.getRGB(tx, ty, tw, th, row, 0, tw);
+				out.setRGB(tx, ty, tw, th, row, 0, tw);
+			}
+		}
+		return out;
+	}
+
+	/**
+	 * Bounding box of a group of differing pixels.
+	 */
+	static final class Region {
+		final Rectangle bounds;
+		final long pixels;
+
+		Region(Rectangle bounds, long pixels){
+			this.bounds = bounds;
+			this.pixels = pixels;
+		}
+	}
+
+	/**
+	 * Bounds and number of the differing pixels of each cell, grouped into regions once the compare is done.
+	 */
+	static final class RegionGrid {
+		final int columns;
+		final int rows;
+		final int[] count;
+		final int[] minX;
+		final int[] minY;
+		final int[] maxX;
+		final int[] maxY;
+
+		RegionGrid(int width, int height){
+			this.columns = (width + REGION_CELL_SIZE - 1) / REGION_CELL_SIZE;
+			this.rows = (height + REGION_CELL_SIZE - 1) / REGION_CELL_SIZE;
+			int cells = this.columns * this.rows;
+			this.count = new int[cells];
+			this.minX = new int[cells];
+			this.minY = new int[cells];
+			this.maxX = new int[cells];
+			this.maxY = new int[cells];
+		}
+
+		void add(int x, int y){
+			int cell = (y / REGION_CELL_SIZE) * this.columns + x / REGION_CELL_SIZE;
+			if(this.count[cell]++ == 0){
+				this.minX[cell] = this.maxX[cell] = x;
+				this.minY[cell] = this.maxY[cell] = y;
+				return;
+			}
+			this.minX[cell] = Math.min(this.minX[cell], x);
+			this.maxX[cell] = Math.max(this.maxX[cell], x);
+			this.minY[cell] = Math.min(this.minY[cell], y);
+			this.maxY[cell] = Math.max(this.maxY[cell], y);
+		}
+
+		/**
+		 * Flood fills the cells holding differences, the visited cells are cleared.
+		 */
+		List<Region> regions(){
+			List<Region> regions = new ArrayList<Region>();
+			int[] queue = new int[this.count.length];
+			for(int start=0; start<this.count.length; start++){
+				if(this.count[start]==0){
+					continue;
+				}
+				int x0 = Integer.MAX_VALUE, y0 = Integer.MAX_VALUE, x1 = -1, y1 = -1;
+				long pixels = 0;
+				int head = 0, tail = 0;
+				queue[tail++] = start;
+				pixels += this.count[start];
+				this.count[start] = 0;
+				while(head < tail){
+					int cell = queue[head++];
+					x0 = Math.min(x0, this.minX[cell]);
+					y0 = Math.min(y0, this.minY[cell]);
+					x1 = Math.max(x1, this.maxX[cell]);
+					y1 = Math.max(y1, this.maxY[cell]);
+					int cx = cell % this.columns;
+					int cy = cell / this.columns;
+					for(int ny=Math.max(0, cy-1); ny<=Math.min(this.rows-1, cy+1); ny++){
+						for(int nx=Math.max(0, cx-1); nx<=Math.min(this.columns-1, cx+1); nx++){
+							int next = ny * this.columns + nx;
+							if(this.count[next]!=0){
+								pixels += this.count[next];
+								this.count[next] = 0;
+								queue[tail++] = next;
+							}
+						}
+					}
+				}
+				regions.add(new Region(new Rectangle(x0, y0, x1 - x0 + 1, y1 - y0 + 1), pixels));
+			}
+			return regions;
+		}
+	}
+
+	/**
+	 * Pixel access on a single image. Both sides of a comparison always use the same kind of access.
+	 */
+	static abstract class Pixels {
+
+		/**
+		 * Picks the fastest access that is valid for both images.
+		 */
+		static Pixels of(BufferedImage img, BufferedImage other){
+			if(img.getType() != BufferedImage.TYPE_CUSTOM && img.getType() == other.getType()){
+				Raster r = img.getRaster();
+				Raster o = other.getRaster();
+				DataBuffer db = r.getDataBuffer();
+				SampleModel sm = r.getSampleModel();
+				if(db instanceof DataBufferInt && o.getDataBuffer() instanceof DataBufferInt
+						&& sm instanceof SinglePixelPackedSampleModel && o.getSampleModel() instanceof SinglePixelPackedSampleModel
+						&& db.getNumBanks() == 1){
+					return new IntPixels(r);
+				}
+				if(db instanceof DataBufferByte && o.getDataBuffer() instanceof DataBufferByte
+						&& sm instanceof ComponentSampleModel && o.getSampleModel() instanceof ComponentSampleModel
+						&& db.getNumBanks() == 1 && isInterleaved((ComponentSampleModel) sm)
+						&& isInterleaved((ComponentSampleModel) o.getSampleModel())
+						&& ((ComponentSampleModel) sm).getPixelStride() == ((ComponentSampleModel) o.getSampleModel()).getPixelStride()){
+					return new BytePixels(r);
+				}
+			}
+			return new RGBPixels(img);
+		}
+
+		private static boolean isInterleaved(ComponentSampleModel sm){
+			int[] offsets = sm.getBandOffsets();
+			int min = Integer.MAX_VALUE;
+			for(int o : offsets){
+				min = Math.min(min, o);
+			}
+			return min == 0 && sm.getPixelStride() == sm.getNumBands();
+		}
+
+		abstract boolean rowEquals(Pixels other, int x, int width, int y);
+
+		abstract boolean pixelEquals(Pixels other, int x, int y);
+	}
+
+	static final class IntPixels extends Pixels {
+		final int[] data;
+		final int offset;
+		final int stride;
+		final int mask;
+
+		IntPixels(Raster raster){
+			SinglePixelPackedSampleModel sm = (SinglePixelPackedSampleModel) raster.getSampleModel();
+			DataBufferInt db = (DataBufferInt) raster.getDataBuffer();
+			this.data = db.getData();
+			this.stride = sm.getScanlineStride();
+			this.offset = db.getOffset()
+					- raster.getSampleModelTranslateY() * this.stride
+					- raster.getSampleModelTranslateX();
+			int m = 0;
+			for(int bitMask : sm.getBitMasks()){
+				m |= bitMask;
+			}
+			this.mask = m;
+		}
+
+		@Override
+		boolean rowEquals(Pixels other, int x, int width, int y){
+			final IntPixels o = (IntPixels) other;
+			final int[] a = this.data;
+			final int[] b = o.data;
+			final int m = this.mask | o.mask;
+			int ia = this.offset + y * this.stride + x;
+			int ib = o.offset + y * o.stride + x;
+			final int end = ia + width;
+			for(; ia<end; ia++, ib++){
+				if(((a[ia] ^ b[ib]) & m) != 0){
+					return false;
+				}
+			}
+			return true;
+		}
+
+		@Override
+		boolean pixelEquals(Pixels other, int x, int y){
+			final IntPixels o = (IntPixels) other;
+			return ((this.data[this.offset + y * this.stride + x] ^ o.data[o.offset + y * o.stride + x]) & (this.mask | o.mask)) == 0;
+		}
+	}
+
+	static final class BytePixels extends Pixels {
+		final byte[] data;
+		final int offset;
+		final int stride;
+		final int pixelStride;
+
+		BytePixels(Raster raster){
+			ComponentSampleModel sm = (ComponentSampleModel) raster.getSampleModel();
+			DataBufferByte db = (DataBufferByte) raster.getDataBuffer();
+			this.data = db.getData();
+			this.stride = sm.getScanlineStride();
+			this.pixelStride = sm.getPixelStride();
+			this.offset = db.getOffset()
+					- raster.getSampleModelTranslateY() * this.stride
+					- raster.getSampleModelTranslateX() * this.pixelStride;
+		}
+
+		@Override
+		boolean rowEquals(Pixels other, int x, int width, int y){
+			final BytePixels o = (BytePixels) other;
+			final byte[] a = this.data;
+			final byte[] b = o.data;
+			int ia = this.offset + y * this.stride + x * this.pixelStride;
+			int ib = o.offset + y * o.stride + x * o.pixelStride;
+			final int end = ia + width * this.pixelStride;
+			for(; ia<end; ia++, ib++){
+				if(a[ia] != b[ib]){
+					return false;
+				}
+			}
+			return true;
+		}
+
+		@Override
+		boolean pixelEquals(Pixels other, int x, int y){
+			final BytePixels o = (BytePixels) other;
+			int ia = this.offset + y * this.stride + x * this.pixelStride;
+			int ib = o.offset + y * o.stride + x * o.pixelStride;
+			for(int i=0; i<this.pixelStride; i++){
+				if(this.data[ia + i] != o.data[ib + i]){
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Fallback for the image types without direct access. Reads one tile row at a time.
+	 */
+	static final class RGBPixels extends Pixels {
+		final BufferedImage image;
+		int[] row = new int[0];
+
+		RGBPixels(BufferedImage image){
+			this.image = image;
+		}
+
+		int[] read(int x, int width, int y){
+			if(this.row.length < width){
+				this.row = new int[width];
+			}
+			return this.image.getRGB(x, y, width, 1, this.row, 0, width);
+		}
+
+		@Override
+		boolean rowEquals(Pixels other, int x, int width, int y){
+			final int[] a = this.read(x, width, y);
+			final int[] b = ((RGBPixels) other).read(x, width, y);
+			for(int i=0; i<width; i++){
+				if(a[i] != b[i]){
+					return false;
+				}
+			}
+			return true;
+		}
+
+		@Override
+		boolean pixelEquals(Pixels other, int x, int y){
+			return this.image.getRGB(x, y) == ((RGBPixels) other).image.getRGB(x, y);
+		}
+	}
+}
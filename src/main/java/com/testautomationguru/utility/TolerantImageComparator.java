@@ -0,0 +1,322 @@
+package com.testautomationguru.utility;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.PixelInterleavedSampleModel;
+import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
+
+/**
+ * Compares two images within a VisualTolerance.
+ *
+ * The images are read one row at a time as packed RGB ints: straight from the backing array for the INT RGB types,
+ * converted from the bytes for TYPE_BYTE_GRAY / TYPE_3BYTE_BGR, through getRGB for the others. Each measure is a
+ * branchless loop over primitive arrays (the channel deltas, the luma, the sums of the SSIM blocks) which C2 can
+ * unroll and vectorize. Without SSIM the comparison stops as soon as too many pixels differ.
+ *
+ * A page rendered in bands is compared band by band between begin(..) and end(), the bands being added from the
+ * top of the page with heights in multiples of SSIM_BLOCK_SIZE (but the last one).
+ *
+ * An instance keeps its row buffers and must not be shared between threads.
+ */
+class TolerantImageComparator {
+
+	// SSIM stabilizers for 8 bit values : (0.01 * 255)^2 and (0.03 * 255)^2
+	private static final double C1 = 6.5025;
+	private static final double C2 = 58.5225;
+
+	private final VisualTolerance tolerance;
+
+	private double differentPixelRatio;
+	private double ssim;
+
+	private long pagePixels;
+	private long allowed;
+	private long different;
+	private double ssimTotal;
+	private long ssimBlocks;
+
+	TolerantImageComparator(VisualTolerance tolerance){
+		this.tolerance = tolerance;
+	}
+
+	/**
+	 * @return true if the images are the same within the tolerance
+	 */
+	boolean compare(BufferedImage img1, BufferedImage img2){
+		this.begin((long) img1.getWidth() * img1.getHeight());
+		return this.add(img1, img2) && this.end();
+	}
+
+	/**
+	 * Starts the comparison of a page.
+	 *
+	 * @param pagePixels number of pixels of the whole page
+	 */
+	void begin(long pagePixels){
+		this.differentPixelRatio = 1;
+		this.ssim = Double.NaN;
+		this.pagePixels = Math.max(1, pagePixels);
+		this.allowed = (long) Math.floor(this.tolerance.getMaxDifferentPixelRatio() * pagePixels);
+		this.different = 0;
+		this.ssimTotal = 0;
+		this.ssimBlocks = 0;
+	}
+
+	/**
+	 * Compares the next band of the page.
+	 *
+	 * @return false when the page is already known to be beyond the tolerance
+	 */
+	boolean add(BufferedImage img1, BufferedImage img2){
+		final int w = img1.getWidth();
+		final int h = img1.getHeight();
+		if(w != img2.getWidth() || h != img2.getHeight()){
+			return false;
+		}
+
+		final int delta = this.tolerance.getChannelDelta();
+		Rows rows1 = new Rows(img1);
+		Rows rows2 = new Rows(img2);
+		SsimBlocks blocks = this.tolerance.getMinSsim() > 0 ? new SsimBlocks(w, h, VisualTolerance.SSIM_BLOCK_SIZE) : null;
+
+		for(int y=0; y<h; y++){
+			rows1.read(y);
+			rows2.read(y);
+			this.different += countDifferent(rows1.row, rows1.offset, rows2.row, rows2.offset, w, delta);
+			if(this.different > this.allowed){
+				this.differentPixelRatio = (double) this.different / this.pagePixels;
+				return false;
+			}
+			if(null!=blocks){
+				blocks.add(rows1, rows2);
+			}
+		}
+		if(null!=blocks){
+			this.ssimTotal += blocks.total;
+			this.ssimBlocks += blocks.blocks;
+		}
+		return true;
+	}
+
+	/**
+	 * @return true if all the bands added since begin(..) are the same within the tolerance
+	 */
+	boolean end(){
+		this.differentPixelRatio = (double) this.different / this.pagePixels;
+		if(this.tolerance.getMinSsim() > 0){
+			this.ssim = this.ssimBlocks==0 ? 1 : this.ssimTotal / this.ssimBlocks;
+			return this.ssim >= this.tolerance.getMinSsim();
+		}
+		return true;
+	}
+
+	/**
+	 * @return ratio of the pixels which differ beyond the channel delta; a lower bound when the compare stopped early
+	 */
+	double getDifferentPixelRatio(){
+		return this.differentPixelRatio;
+	}
+
+	/**
+	 * @return number of pixels which differ beyond the channel delta; a lower bound when the compare stopped early
+	 */
+	long getDifferentPixels(){
+		return this.different;
+	}
+
+	/**
+	 * @return mean SSIM of the blocks; NaN when not computed
+	 */
+	double getSsim(){
+		return this.ssim;
+	}
+
+	/**
+	 * Number of pixels having a channel which differs by more than delta.
+	 */
+	static int countDifferent(final int[] a, final int offA, final int[] b, final int offB, final int width, final int delta){
+		int count = 0;
+		for(int i=0; i<width; i++){
+			final int p = a[offA + i];
+			final int q = b[offB + i];
+			final int dr = Math.abs(((p >> 16) & 0xFF) - ((q >> 16) & 0xFF));
+			final int dg = Math.abs(((p >> 8) & 0xFF) - ((q >> 8) & 0xFF));
+			final int db = Math.abs((p & 0xFF) - (q & 0xFF));
+			// 1 when the largest delta is above the tolerance, without a branch
+			count += (delta - Math.max(dr, Math.max(dg, db))) >>> 31;
+		}
+		return count;
+	}
+
+	/**
+	 * Luma (BT.601, integer weights) of packed RGB pixels.
+	 */
+	static void luma(final int[] rgb, final int off, final int width, final int[] out){
+		for(int i=0; i<width; i++){
+			final int p = rgb[off + i];
+			out[i] = (((p >> 16) & 0xFF) * 77 + ((p >> 8) & 0xFF) * 150 + (p & 0xFF) * 29) >> 8;
+		}
+	}
+
+	/**
+	 * Reads the rows of an image as packed RGB ints, see the class comment.
+	 */
+	static final class Rows {
+		private final BufferedImage image;
+		private final int[] data;
+		private final byte[] bytes;
+		private final int dataOffset;
+		private final int stride;
+		private final int width;
+		private final boolean gray;
+		private final int[] luma;
+
+		int[] row;
+		int offset;
+
+		Rows(BufferedImage image){
+			this.image = image;
+			this.width = image.getWidth();
+			this.luma = new int[this.width];
+			Raster raster = image.getRaster();
+			int type = image.getType();
+			if((BufferedImage.TYPE_INT_RGB==type || BufferedImage.TYPE_INT_ARGB==type)
+					&& raster.getDataBuffer() instanceof DataBufferInt && raster.getSampleModel() instanceof SinglePixelPackedSampleModel){
+				this.data = ((DataBufferInt) raster.getDataBuffer()).getData();
+				this.stride = ((SinglePixelPackedSampleModel) raster.getSampleModel()).getScanlineStride();
+				this.dataOffset = raster.getDataBuffer().getOffset()
+						- raster.getSampleModelTranslateY() * this.stride - raster.getSampleModelTranslateX();
+				this.bytes = null;
+				this.gray = false;
+			}else if((BufferedImage.TYPE_BYTE_GRAY==type || BufferedImage.TYPE_3BYTE_BGR==type)
+					&& raster.getDataBuffer() instanceof DataBufferByte && raster.getSampleModel() instanceof PixelInterleavedSampleModel){
+				PixelInterleavedSampleModel sm = (PixelInterleavedSampleModel) raster.getSampleModel();
+				this.data = null;
+				this.bytes = ((DataBufferByte) raster.getDataBuffer()).getData();
+				this.stride = sm.getScanlineStride();
+				this.dataOffset = raster.getDataBuffer().getOffset()
+						- raster.getSampleModelTranslateY() * this.stride - raster.getSampleModelTranslateX() * sm.getPixelStride();
+				this.gray = BufferedImage.TYPE_BYTE_GRAY==type;
+				this.row = new int[this.width];
+			}else{
+				this.data = null;
+				this.bytes = null;
+				this.stride = 0;
+				this.dataOffset = 0;
+				this.gray = false;
+				this.row = new int[this.width];
+			}
+		}
+
+		void read(int y){
+			if(null!=this.data){
+				this.row = this.data;
+				this.offset = this.dataOffset + y * this.stride;
+				return;
+			}
+			this.offset = 0;
+			if(null==this.bytes){
+				this.image.getRGB(0, y, this.width, 1, this.row, 0, this.width);
+				return;
+			}
+			final byte[] b = this.bytes;
+			final int[] out = this.row;
+			int i = this.dataOffset + y * this.stride;
+			if(this.gray){
+				// the stored levels, as in both images
+				for(int x=0; x<this.width; x++){
+					out[x] = (b[i + x] & 0xFF) * 0x010101;
+				}
+			}else{
+				for(int x=0; x<this.width; x++, i+=3){
+					out[x] = ((b[i + 2] & 0xFF) << 16) | ((b[i + 1] & 0xFF) << 8) | (b[i] & 0xFF);
+				}
+			}
+		}
+
+		int[] luma(){
+			TolerantImageComparator.luma(this.row, this.offset, this.width, this.luma);
+			return this.luma;
+		}
+	}
+
+	/**
+	 * Sums of the luma of the blocks of the current band of rows. The SSIM of the blocks is added up
+	 * every blockSize rows, so only one band of sums is kept.
+	 */
+	static final class SsimBlocks {
+		private final int width;
+		private final int height;
+		private final int blockSize;
+		private final long[] sum1;
+		private final long[] sum2;
+		private final long[] sumSq1;
+		private final long[] sumSq2;
+		private final long[] sum12;
+		private int rowsInBand;
+		private int bandStart;
+		double total;
+		int blocks;
+
+		SsimBlocks(int width, int height, int blockSize){
+			this.width = width;
+			this.height = height;
+			this.blockSize = blockSize;
+			int columns = (width + blockSize - 1) / blockSize;
+			this.sum1 = new long[columns];
+			this.sum2 = new long[columns];
+			this.sumSq1 = new long[columns];
+			this.sumSq2 = new long[columns];
+			this.sum12 = new long[columns];
+		}
+
+		void add(Rows rows1, Rows rows2){
+			final int[] l1 = rows1.luma();
+			final int[] l2 = rows2.luma();
+			for(int bx=0, x0=0; x0<this.width; bx++, x0+=this.blockSize){
+				final int x1 = Math.min(this.width, x0 + this.blockSize);
+				// int sums within a block row: blockSize * 255 * 255 does not overflow
+				int s1 = 0, s2 = 0, q1 = 0, q2 = 0, s12 = 0;
+				for(int x=x0; x<x1; x++){
+					final int a = l1[x];
+					final int b = l2[x];
+					s1 += a;
+					s2 += b;
+					q1 += a * a;
+					q2 += b * b;
+					s12 += a * b;
+				}
+				this.sum1[bx] += s1;
+				this.sum2[bx] += s2;
+				this.sumSq1[bx] += q1;
+				this.sumSq2[bx] += q2;
+				this.sum12[bx] += s12;
+			}
+			this.rowsInBand++;
+			if(this.rowsInBand==this.blockSize || this.bandStart + this.rowsInBand==this.height){
+				this.closeBand();
+			}
+		}
+
+		private void closeBand(){
+			for(int bx=0; bx<this.sum1.length; bx++){
+				int columns = Math.min(this.blockSize, this.width - bx * this.blockSize);
+				double n = (double) columns * this.rowsInBand;
+				double mean1 = this.sum1[bx] / n;
+				double mean2 = this.sum2[bx] / n;
+				double var1 = this.sumSq1[bx] / n - mean1 * mean1;
+				double var2 = this.sumSq2[bx] / n - mean2 * mean2;
+				double cov = this.sum12[bx] / n - mean1 * mean2;
+				this.total += ((2 * mean1 * mean2 + C1) * (2 * cov + C2))
+						/ ((mean1 * mean1 + mean2 * mean2 + C1) * (var1 + var2 + C2));
+				this.blocks++;
+				this.sum1[bx] = this.sum2[bx] = this.sumSq1[bx] = this.sumSq2[bx] = this.sum12[bx] = 0;
+			}
+			this.bandStart += this.rowsInBand;
+			this.rowsInBand = 0;
+		}
+
+	}
+}
@@ -0,0 +1,75 @@
+package com.testautomationguru.utility;
+
+/**
+ * Differences accepted by a VISUAL_MODE comparison, for the noise of font hinting and anti-aliasing.
+ *
+ * A page matches when all the criteria are met:
+ * <ul>
+ * <li>no more than maxDifferentPixelRatio of its pixels differ by more than channelDelta on any channel,</li>
+ * <li>the mean SSIM of its blocks (luma, SSIM_BLOCK_SIZE pixels square) is at least minSsim, when minSsim is above 0.</li>
+ * </ul>
+ *
+ * <pre>
+ * pdfUtil.setVisualTolerance(new VisualTolerance(16, 0.001, 0.98));
+ * </pre>
+ */
+public final class VisualTolerance {
+
+	public static final int SSIM_BLOCK_SIZE = 8;
+
+	private final int channelDelta;
+	private final double maxDifferentPixelRatio;
+	private final double minSsim;
+
+	/**
+	 * @param channelDelta largest difference of a channel (0 - 255) for the pixels to be considered the same
+	 * @param maxDifferentPixelRatio ratio (0 - 1) of the pixels of a page allowed to differ
+	 */
+	public VisualTolerance(int channelDelta, double maxDifferentPixelRatio){
+		this(channelDelta, maxDifferentPixelRatio, 0);
+	}
+
+	/**
+	 * @param channelDelta largest difference of a channel (0 - 255) for the pixels to be considered the same
+	 * @param maxDifferentPixelRatio ratio (0 - 1) of the pixels of a page allowed to differ
+	 * @param minSsim lowest structural similarity (0 - 1) of a page; 0 to not compute it
+	 */
+	public VisualTolerance(int channelDelta, double maxDifferentPixelRatio, double minSsim){
+		if(channelDelta < 0 || channelDelta > 255){
+			throw new IllegalArgumentException("channelDelta must be between 0 and 255 : " + channelDelta);
+		}
+		if(!(maxDifferentPixelRatio >= 0 && maxDifferentPixelRatio <= 1)){
+			throw new IllegalArgumentException("maxDifferentPixelRatio must be between 0 and 1 : " + maxDifferentPixelRatio);
+		}
+		if(!(minSsim >= 0 && minSsim <= 1)){
+			throw new IllegalArgumentException("minSsim must be between 0 and 1 : " + minSsim);
+		}
+		this.channelDelta = channelDelta;
+		this.maxDifferentPixelRatio = maxDifferentPixelRatio;
+		this.minSsim = minSsim;
+	}
+
+	public int getChannelDelta(){
+		return this.channelDelta;
+	}
+
+	public double getMaxDifferentPixelRatio(){
+		return this.maxDifferentPixelRatio;
+	}
+
+	public double getMinSsim(){
+		return this.minSsim;
+	}
+
+	/**
+	 * @return true when nothing is tolerated, the pages must then be pixel identical
+	 */
+	public boolean isExact(){
+		return this.channelDelta==0 && this.maxDifferentPixelRatio==0 && this.minSsim==0;
+	}
+
+	@Override
+	public String toString(){
+		return "channelDelta=" + this.channelDelta + ", maxDifferentPixelRatio=" + this.maxDifferentPixelRatio + ", minSsim=" + this.minSsim;
+	}
+}
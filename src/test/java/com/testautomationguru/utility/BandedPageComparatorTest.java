@@ -0,0 +1,41 @@
+package com.testautomationguru.utility;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.pdfbox.rendering.ImageType;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class BandedPageComparatorTest {
+
+    @Test
+    public void bandsFitInTheBudget() {
+        // 2 RGB rows of 1000 pixels per band row: 8000 bytes
+        Assert.assertEquals(BandedPageComparator.bandHeight(8000 * 100, 1000, 5000, ImageType.RGB, false), 96);
+        // the highlighted copy takes another 4000 bytes per row
+        Assert.assertEquals(BandedPageComparator.bandHeight(12000 * 100, 1000, 5000, ImageType.RGB, true), 96);
+        Assert.assertEquals(BandedPageComparator.bandHeight(2000 * 100, 1000, 5000, ImageType.GRAY, false), 96);
+        // at least a row of cells, at most the page
+        Assert.assertEquals(BandedPageComparator.bandHeight(1, 1000, 5000, ImageType.RGB, false), BandedPageComparator.BAND_ALIGNMENT);
+        Assert.assertEquals(BandedPageComparator.bandHeight(Long.MAX_VALUE, 1000, 5000, ImageType.RGB, false), 5000);
+    }
+
+    @Test
+    public void regionsAcrossBandsAreMerged() {
+        List<TiledImageComparator.Region> regions = new ArrayList<TiledImageComparator.Region>();
+        // a line crossing the boundary at y 64
+        regions.add(new TiledImageComparator.Region(new Rectangle(100, 50, 40, 14), 100));
+        regions.add(new TiledImageComparator.Region(new Rectangle(110, 64, 40, 10), 50));
+        // away from the boundary
+        regions.add(new TiledImageComparator.Region(new Rectangle(400, 10, 10, 10), 5));
+        // at the boundary, but columns apart
+        regions.add(new TiledImageComparator.Region(new Rectangle(300, 64, 10, 10), 7));
+
+        List<TiledImageComparator.Region> merged = BandedPageComparator.mergeAcrossBands(regions, 64);
+        Assert.assertEquals(merged.size(), 3);
+        Assert.assertEquals(merged.get(0).bounds, new Rectangle(100, 50, 50, 24));
+        Assert.assertEquals(merged.get(0).pixels, 150);
+    }
+}
@@ -0,0 +1,122 @@
+package com.testautomationguru.utility;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.pdfbox.rendering.ImageType;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class DiskPageImageCacheTest {
+
+    private File dir;
+
+    @BeforeMethod
+    public void createDirectory() throws IOException {
+        dir = Files.createTempDirectory("page-cache").toFile();
+    }
+
+    @AfterMethod
+    public void deleteDirectory() throws IOException {
+        FileUtils.deleteDirectory(dir);
+    }
+
+    @Test
+    public void imagesAreRestored() throws IOException {
+        DiskPageImageCache cache = new DiskPageImageCache(dir, Long.MAX_VALUE);
+        int[] types = { BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_BYTE_GRAY, BufferedImage.TYPE_BYTE_BINARY, BufferedImage.TYPE_4BYTE_ABGR };
+        for (int i = 0; i < types.length; i++) {
+            BufferedImage image = image(types[i], 123, 45);
+            PageImageKey key = new PageImageKey("abc", i, 300, ImageType.RGB);
+            Assert.assertNull(cache.get(key));
+            cache.put(key, image);
+            Assert.assertTrue(new TiledImageComparator().compare(image, cache.get(key), false, 0));
+        }
+        Assert.assertEquals(cache.getHitCount(), types.length);
+        Assert.assertEquals(cache.getMissCount(), types.length);
+
+        // a new instance on the same directory sees the entries
+        Assert.assertNotNull(new DiskPageImageCache(dir, Long.MAX_VALUE).get(new PageImageKey("abc", 0, 300, ImageType.RGB)));
+    }
+
+    @Test
+    public void leastRecentlyUsedEntriesAreEvicted() throws IOException {
+        BufferedImage image = image(BufferedImage.TYPE_INT_RGB, 200, 200);
+        PageImageKey key1 = new PageImageKey("abc", 1, 300, ImageType.RGB);
+        PageImageKey key2 = new PageImageKey("abc", 2, 300, ImageType.RGB);
+        PageImageKey key3 = new PageImageKey("abc", 3, 300, ImageType.RGB);
+
+        DiskPageImageCache cache = new DiskPageImageCache(dir, Long.MAX_VALUE);
+        cache.put(key1, image);
+        long entrySize = cache.getSize();
+
+        cache = new DiskPageImageCache(dir, entrySize * 2);
+        cache.put(key2, image);
+        Assert.assertNotNull(cache.get(key1));
+        cache.put(key3, image);
+
+        Assert.assertEquals(cache.getEvictionCount(), 1);
+        Assert.assertNotNull(cache.get(key1));
+        Assert.assertNull(cache.get(key2));
+        Assert.assertNotNull(cache.get(key3));
+    }
+
+    @Test
+    public void baselinePagesAreReused() throws IOException {
+        DiskPageImageCache cache = new DiskPageImageCache(dir, Long.MAX_VALUE);
+        PDFUtil pdfutil = new PDFUtil();
+        pdfutil.setCompareMode(CompareMode.VISUAL_MODE);
+        pdfutil.skipIdenticalPages(false);
+        pdfutil.usePageImageCache(cache);
+
+        String file1 = getFilePath("image-compare-diff/sample1.pdf");
+        String file2 = getFilePath("image-compare-diff/sample2.pdf");
+        Assert.assertTrue(pdfutil.compare(file1, file2, 3, 3));
+        Assert.assertEquals(cache.getMissCount(), 1);
+        Assert.assertTrue(pdfutil.compare(file1, file2, 3, 3));
+        Assert.assertEquals(cache.getHitCount(), 1);
+        Assert.assertFalse(pdfutil.compare(file1, file2, 2, 2));
+    }
+
+    @Test
+    public void failingCacheOnlyCostsTheRender() throws IOException {
+        PageImageCache failing = new PageImageCache() {
+            @Override
+            public BufferedImage get(PageImageKey key) throws IOException {
+                throw new IOException("cache unreadable");
+            }
+
+            @Override
+            public void put(PageImageKey key, BufferedImage image) throws IOException {
+                throw new IOException("No space left on device");
+            }
+        };
+        String file1 = getFilePath("image-compare-diff/sample1.pdf");
+        String file2 = getFilePath("image-compare-diff/sample2.pdf");
+        for (int parallelism : new int[] { 1, 2 }) {
+            PDFUtil pdfutil = new PDFUtil(PDFUtilConfig.builder().compareMode(CompareMode.VISUAL_MODE)
+                    .skipIdenticalPages(false).pageImageCache(failing).parallelism(parallelism).build());
+            Assert.assertTrue(pdfutil.compare(file1, file2, 3, 3));
+            Assert.assertFalse(pdfutil.compare(file1, file2, 2, 2));
+        }
+    }
+
+    private BufferedImage image(int type, int w, int h) {
+        BufferedImage img = new BufferedImage(w, h, type);
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                img.setRGB(x, y, 0xFF000000 | (x * 31 + y * 17) * 0x10101);
+            }
+        }
+        return img;
+    }
+
+    private String getFilePath(String filename) {
+        return new File(getClass().getClassLoader().getResource(filename).getFile()).getAbsolutePath();
+    }
+}
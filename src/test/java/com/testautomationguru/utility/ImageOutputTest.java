@@ -0,0 +1,102 @@
+package com.testautomationguru.utility;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.zip.Deflater;
+
+import javax.imageio.ImageIO;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class ImageOutputTest {
+
+    private File dir;
+
+    @BeforeMethod
+    public void createDirectory() throws IOException {
+        dir = Files.createTempDirectory("image-output").toFile();
+    }
+
+    @AfterMethod
+    public void deleteDirectory() throws IOException {
+        FileUtils.deleteDirectory(dir);
+    }
+
+    @Test
+    public void pngIsReadBackUnchanged() throws IOException {
+        int[] types = { BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_3BYTE_BGR,
+                BufferedImage.TYPE_BYTE_GRAY, BufferedImage.TYPE_BYTE_BINARY };
+        int[] levels = { Deflater.NO_COMPRESSION, Deflater.BEST_SPEED, Deflater.DEFAULT_COMPRESSION, Deflater.BEST_COMPRESSION };
+        for (int type : types) {
+            BufferedImage image = image(type, 301, 157);
+            for (int level : levels) {
+                File file = new File(dir, type + "_" + level + ".png");
+                new PngImageOutput(level).write(image, file, 150);
+                BufferedImage read = ImageIO.read(file);
+                Assert.assertNotNull(read, file.getName());
+                assertSamePixels(image, read, file.getName());
+            }
+        }
+    }
+
+    @Test
+    public void pnmHasRawPixels() throws IOException {
+        BufferedImage rgb = image(BufferedImage.TYPE_INT_RGB, 20, 10);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new PnmImageOutput().write(rgb, out);
+        byte[] header = "P6\n20 10\n255\n".getBytes(Charset.forName("US-ASCII"));
+        Assert.assertEquals(out.size(), header.length + 20 * 10 * 3);
+        int pixel = rgb.getRGB(5, 3);
+        int offset = header.length + (3 * 20 + 5) * 3;
+        Assert.assertEquals(out.toByteArray()[offset] & 0xFF, (pixel >> 16) & 0xFF);
+        Assert.assertEquals(out.toByteArray()[offset + 2] & 0xFF, pixel & 0xFF);
+
+        BufferedImage gray = image(BufferedImage.TYPE_BYTE_GRAY, 20, 10);
+        out.reset();
+        new PnmImageOutput().write(gray, out);
+        offset = "P5\n20 10\n255\n".length() + 3 * 20 + 5;
+        Assert.assertEquals(out.toByteArray()[offset] & 0xFF, gray.getRaster().getSample(5, 3, 0));
+    }
+
+    private static void assertSamePixels(BufferedImage expected, BufferedImage actual, String message) {
+        Assert.assertEquals(actual.getWidth(), expected.getWidth(), message);
+        Assert.assertEquals(actual.getHeight(), expected.getHeight(), message);
+        boolean gray = BufferedImage.TYPE_BYTE_GRAY == expected.getType();
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                if (gray) {
+                    // compared as stored, getRGB(..) converts gray levels
+                    Assert.assertEquals(actual.getRaster().getSample(x, y, 0), expected.getRaster().getSample(x, y, 0), message);
+                } else {
+                    Assert.assertEquals(actual.getRGB(x, y), expected.getRGB(x, y), message + " @" + x + "," + y);
+                }
+            }
+        }
+    }
+
+    private static BufferedImage image(int type, int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, type);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, width, height);
+        g.setColor(new Color(200, 30, 90, 180));
+        g.fillOval(10, 10, width / 2, height / 2);
+        g.setColor(Color.BLUE);
+        g.drawString("pdf-util", width / 3, height / 2);
+        g.dispose();
+        if (BufferedImage.TYPE_INT_ARGB == type) {
+            image.setRGB(0, 0, 0x00112233);
+        }
+        return image;
+    }
+}
@@ -0,0 +1,61 @@
+package com.testautomationguru.utility;
+
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class NormalizingTextWriterTest {
+
+    private static final String TEXT = " \r\n Page 1 of  2\r\n\r\nTotal:\t1999 USD \r\n";
+
+    @Test
+    public void whiteSpaceIsCollapsedWhileWriting() {
+        NormalizingTextWriter sink = new NormalizingTextWriter(true, false, null, false);
+        write(sink, TEXT);
+        Assert.assertEquals(sink.pageText(), TEXT.trim().replaceAll("\\s+", " ").trim());
+
+        // the next page starts clean
+        write(sink, "  next  ");
+        Assert.assertEquals(sink.pageText(), "next");
+    }
+
+    @Test
+    public void whiteSpaceIsTrimmedOnly() {
+        NormalizingTextWriter sink = new NormalizingTextWriter(false, false, null, false);
+        write(sink, TEXT);
+        Assert.assertEquals(sink.pageText(), TEXT.trim());
+    }
+
+    @Test
+    public void exclusionsApplyToTheNormalizedPage() {
+        Pattern[] exclusions = { Pattern.compile("Page \\d+ of \\d+ "), Pattern.compile("\\d+") };
+        NormalizingTextWriter sink = new NormalizingTextWriter(true, true, exclusions, false);
+        write(sink, TEXT);
+        // like replaceAll on the normalized text, the space left by an exclusion is kept
+        Assert.assertEquals(sink.pageText(), "total:  usd");
+    }
+
+    @Test
+    public void digestsMatchLikeEqualsIgnoreCase() {
+        for (Pattern[] exclusions : Arrays.asList(null, new Pattern[] { Pattern.compile("\\d+") })) {
+            NormalizingTextWriter sink1 = new NormalizingTextWriter(true, true, exclusions, true);
+            NormalizingTextWriter sink2 = new NormalizingTextWriter(true, true, exclusions, true);
+            write(sink1, TEXT);
+            write(sink2, TEXT.toUpperCase().replace("  ", "\n"));
+            Assert.assertTrue(Arrays.equals(sink1.pageDigest(), sink2.pageDigest()));
+
+            write(sink1, TEXT);
+            write(sink2, TEXT.replace("Total", "Tota1"));
+            Assert.assertFalse(Arrays.equals(sink1.pageDigest(), sink2.pageDigest()));
+        }
+    }
+
+    private static void write(NormalizingTextWriter sink, String text) {
+        // the stripper writes the text in small pieces
+        for (int i = 0; i < text.length(); i += 3) {
+            sink.write(text, i, Math.min(3, text.length() - i));
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.testautomationguru.utility;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class OutputManagerTest {
+
+    private File dir;
+
+    @BeforeMethod
+    public void createDirectory() throws IOException {
+        dir = Files.createTempDirectory("output-manager").toFile();
+    }
+
+    @AfterMethod
+    public void deleteDirectory() throws IOException {
+        FileUtils.deleteDirectory(dir);
+    }
+
+    @Test
+    public void runsDoNotTouchEachOther() throws IOException {
+        OutputManager manager = new OutputManager(dir.toPath());
+        Path run1 = manager.newRunDirectory(null);
+        Files.write(run1.resolve("page.png"), new byte[] { 1 });
+        Path run2 = manager.newRunDirectory(null);
+        Assert.assertNotEquals(run1, run2);
+        Assert.assertEquals(run1.getParent(), dir.toPath());
+        Assert.assertTrue(run2.getFileName().toString().startsWith(OutputManager.RUN_PREFIX));
+        Assert.assertTrue(Files.isRegularFile(run1.resolve("page.png")));
+
+        // the root of the call when none is set
+        Path run3 = new OutputManager().newRunDirectory(dir.toPath().resolve("temp"));
+        Assert.assertEquals(run3.getParent(), dir.toPath().resolve("temp"));
+    }
+
+    @Test
+    public void oldRunsAreDeleted() throws IOException, InterruptedException {
+        File other = new File(dir, "keep.txt");
+        FileUtils.write(other, "not a run", StandardCharsets.UTF_8);
+        OutputManager manager = new OutputManager(dir.toPath(), 0, 2);
+        Path run1 = manager.newRunDirectory(null);
+        Thread.sleep(5);
+        Path run2 = manager.newRunDirectory(null);
+        Thread.sleep(5);
+        Path run3 = manager.newRunDirectory(null);
+        Assert.assertFalse(Files.exists(run1));
+        Assert.assertTrue(Files.isDirectory(run2));
+        Assert.assertTrue(Files.isDirectory(run3));
+        Assert.assertTrue(other.isFile());
+
+        OutputManager byAge = new OutputManager(dir.toPath(), 60000, 0);
+        Assert.assertTrue(run2.toFile().setLastModified(System.currentTimeMillis() - 120000));
+        byAge.cleanup();
+        Assert.assertFalse(Files.exists(run2));
+        Assert.assertTrue(Files.isDirectory(run3));
+    }
+
+    @Test
+    public void filesAreWrittenAtomically() throws IOException {
+        File target = new File(dir, "page.png");
+        FileUtils.write(target, "old", StandardCharsets.UTF_8);
+        OutputManager.writeAtomically(target, new OutputManager.FileWrite() {
+            @Override
+            public void write(File file) throws IOException {
+                Assert.assertNotEquals(file, target);
+                Assert.assertTrue(file.getName().endsWith(".png"));
+                FileUtils.write(file, "new", StandardCharsets.UTF_8);
+            }
+        });
+        Assert.assertEquals(FileUtils.readFileToString(target, StandardCharsets.UTF_8), "new");
+
+        try {
+            OutputManager.writeAtomically(target, new OutputManager.FileWrite() {
+                @Override
+                public void write(File file) throws IOException {
+                    FileUtils.write(file, "partial", StandardCharsets.UTF_8);
+                    throw new IOException("encoder failed");
+                }
+            });
+            Assert.fail();
+        } catch (IOException e) {
+            Assert.assertEquals(e.getMessage(), "encoder failed");
+        }
+        Assert.assertEquals(FileUtils.readFileToString(target, StandardCharsets.UTF_8), "new");
+        List<String> names = Arrays.asList(dir.list());
+        Assert.assertEquals(names.size(), 1, names.toString());
+    }
+}
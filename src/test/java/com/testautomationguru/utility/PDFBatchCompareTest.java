@@ -0,0 +1,226 @@
+package com.testautomationguru.utility;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class PDFBatchCompareTest {
+
+    private File dir;
+
+    private final Supplier<PDFUtil> factory = new Supplier<PDFUtil>() {
+        @Override
+        public PDFUtil get() {
+            PDFUtil pdfutil = new PDFUtil();
+            pdfutil.setCompareMode(CompareMode.VISUAL_MODE);
+            return pdfutil;
+        }
+    };
+
+    @BeforeMethod
+    public void createDirectory() throws IOException {
+        dir = Files.createTempDirectory("batch").toFile();
+    }
+
+    @AfterMethod
+    public void deleteDirectory() throws IOException {
+        FileUtils.deleteDirectory(dir);
+    }
+
+    @Test
+    public void directoriesArePaired() throws IOException {
+        File expected = new File(dir, "expected");
+        File actual = new File(dir, "actual");
+        FileUtils.copyFile(getFile("image-compare-same/sample1.pdf"), new File(expected, "same.pdf"));
+        FileUtils.copyFile(getFile("image-compare-same/sample2.pdf"), new File(actual, "same.pdf"));
+        FileUtils.copyFile(getFile("image-compare-diff/sample1.pdf"), new File(expected, "sub/diff.pdf"));
+        FileUtils.copyFile(getFile("image-compare-diff/sample2.pdf"), new File(actual, "sub/diff.pdf"));
+        FileUtils.copyFile(getFile("sample.pdf"), new File(expected, "missing.pdf"));
+
+        List<ComparePair> pairs = PDFBatchCompare.pairs(expected, actual);
+        Assert.assertEquals(pairs.size(), 3);
+        Assert.assertEquals(pairs.get(0).getName(), "missing.pdf");
+        Assert.assertEquals(pairs.get(2).getName(), "sub/diff.pdf");
+
+        StringWriter out = new StringWriter();
+        BatchSummary summary = new PDFBatchCompare(factory, 2, 0).compare(pairs, new JsonLinesBatchWriter(out));
+
+        Assert.assertEquals(summary.getTotal(), 3);
+        Assert.assertEquals(summary.getCount(BatchResult.Status.MATCH), 1);
+        Assert.assertEquals(summary.getCount(BatchResult.Status.DIFFERENT), 1);
+        Assert.assertEquals(summary.getCount(BatchResult.Status.MISSING), 1);
+        Assert.assertFalse(summary.isSuccess());
+
+        String[] lines = out.toString().split("\n");
+        Assert.assertEquals(lines.length, 3);
+        for (String line : lines) {
+            Assert.assertTrue(line.startsWith("{\"name\":\"") && line.endsWith("}"), line);
+        }
+        Assert.assertTrue(out.toString().contains("\"name\":\"sub/diff.pdf\""));
+        Assert.assertTrue(out.toString().contains("\"status\":\"DIFFERENT\""));
+    }
+
+    @Test
+    public void manifestIsStreamedAsJUnitXml() throws IOException {
+        File manifest = new File(dir, "pairs.csv");
+        String same1 = getFile("image-compare-same/sample1.pdf").getAbsolutePath();
+        String same2 = getFile("image-compare-same/sample2.pdf").getAbsolutePath();
+        FileUtils.writeLines(manifest, "UTF-8", Arrays.asList("# expected,actual", "", same1 + "," + same2, same2 + "\t" + same1));
+
+        List<ComparePair> pairs = PDFBatchCompare.pairs(manifest);
+        Assert.assertEquals(pairs.size(), 2);
+
+        File report = new File(dir, "report.xml");
+        JUnitXmlBatchWriter writer = new JUnitXmlBatchWriter(Files.newBufferedWriter(report.toPath(), Charset.forName("UTF-8")), "pdf-util");
+        BatchSummary summary;
+        try {
+            summary = new PDFBatchCompare(factory, 4).compare(pairs, writer);
+        } finally {
+            writer.close();
+        }
+
+        Assert.assertTrue(summary.isSuccess());
+        Assert.assertTrue(summary.getThroughput() > 0);
+        Assert.assertTrue(summary.getLatencyPercentile(95) <= summary.getLatencyPercentile(100));
+
+        String xml = FileUtils.readFileToString(report, "UTF-8");
+        Assert.assertTrue(xml.startsWith("<?xml"));
+        Assert.assertTrue(xml.trim().endsWith("</testsuite>"));
+        Assert.assertEquals(xml.split("<testcase ").length - 1, 2);
+        Assert.assertFalse(xml.contains("<failure"));
+    }
+
+    @Test
+    public void diffImagesOfEachPairAreKeptApart() throws IOException {
+        final File diffPath = new File(dir, "diff");
+        Supplier<PDFUtil> highlighting = new Supplier<PDFUtil>() {
+            @Override
+            public PDFUtil get() {
+                PDFUtil pdfutil = factory.get();
+                pdfutil.highlightPdfDifference(true);
+                pdfutil.setImageDestinationPath(diffPath.getAbsolutePath());
+                return pdfutil;
+            }
+        };
+        File expected = getFile("image-compare-diff/sample1.pdf");
+        File actual = getFile("image-compare-diff/sample2.pdf");
+        List<ComparePair> pairs = Arrays.asList(
+                new ComparePair("a/report.pdf", expected, actual),
+                new ComparePair("b/report.pdf", expected, actual),
+                new ComparePair("same.pdf", getFile("image-compare-same/sample1.pdf"), getFile("image-compare-same/sample2.pdf")));
+
+        final List<BatchResult> results = new ArrayList<BatchResult>();
+        BatchSummary summary = new PDFBatchCompare(highlighting, 2).compare(pairs, new BatchResultListener() {
+            @Override
+            public void onResult(BatchResult result) {
+                results.add(result);
+            }
+        });
+        Assert.assertEquals(summary.getCount(BatchResult.Status.DIFFERENT), 2);
+
+        for (BatchResult result : results) {
+            if (result.isMatch()) {
+                Assert.assertNull(result.getDiffPath());
+                continue;
+            }
+            File pairDir = new File(diffPath, result.getPair().getName().replace(".pdf", ""));
+            Assert.assertEquals(new File(result.getDiffPath()).getAbsoluteFile(), pairDir.getAbsoluteFile());
+            Assert.assertTrue(pairDir.list().length > 0, pairDir.toString());
+        }
+        Assert.assertFalse(new File(diffPath, "same").exists());
+    }
+
+    @Test
+    public void manifestLinesOfOneExpectedFileAreKeptApart() throws IOException {
+        final File diffPath = new File(dir, "diff");
+        File actual2 = new File(dir, "other/sample2.pdf");
+        FileUtils.copyFile(getFile("image-compare-diff/sample2.pdf"), actual2);
+        File manifest = new File(dir, "pairs.csv");
+        String template = getFile("image-compare-diff/sample1.pdf").getAbsolutePath();
+        FileUtils.writeLines(manifest, "UTF-8", Arrays.asList(
+                template + "," + getFile("image-compare-diff/sample2.pdf").getAbsolutePath(),
+                template + "," + actual2.getAbsolutePath(),
+                template + "," + template));
+
+        List<ComparePair> pairs = PDFBatchCompare.pairs(manifest);
+        Assert.assertEquals(pairs.get(0).getName(), pairs.get(1).getName());
+        Assert.assertNotEquals(pairs.get(0).getDirectory(), pairs.get(1).getDirectory());
+
+        final List<BatchResult> results = new ArrayList<BatchResult>();
+        new PDFBatchCompare(new Supplier<PDFUtil>() {
+            @Override
+            public PDFUtil get() {
+                PDFUtil pdfutil = factory.get();
+                pdfutil.highlightPdfDifference(true);
+                pdfutil.setImageDestinationPath(diffPath.getAbsolutePath());
+                return pdfutil;
+            }
+        }, 3).compare(pairs, new BatchResultListener() {
+            @Override
+            public void onResult(BatchResult result) {
+                results.add(result);
+            }
+        });
+
+        Set<String> diffPaths = new HashSet<String>();
+        for (BatchResult result : results) {
+            if (!result.isMatch()) {
+                Assert.assertTrue(diffPaths.add(result.getDiffPath()), result.getDiffPath());
+                Assert.assertTrue(new File(result.getDiffPath()).list().length > 0, result.getDiffPath());
+            }
+        }
+        Assert.assertEquals(diffPaths.size(), 2);
+    }
+
+    @Test
+    public void errorsAreReported() throws IOException {
+        Supplier<PDFUtil> failing = new Supplier<PDFUtil>() {
+            @Override
+            public PDFUtil get() {
+                return new PDFUtil() {
+                    @Override
+                    CompareResult compare(PDFUtilConfig config, String file1, String file2) {
+                        throw new OutOfMemoryError("page too large");
+                    }
+                };
+            }
+        };
+        File same1 = getFile("image-compare-same/sample1.pdf");
+        File same2 = getFile("image-compare-same/sample2.pdf");
+        List<ComparePair> pairs = Arrays.asList(new ComparePair("a.pdf", same1, same2), new ComparePair("b.pdf", same1, same2));
+
+        StringWriter out = new StringWriter();
+        BatchSummary summary = new PDFBatchCompare(failing, 2).compare(pairs, new JsonLinesBatchWriter(out));
+
+        Assert.assertEquals(summary.getTotal(), 2);
+        Assert.assertEquals(summary.getCount(BatchResult.Status.ERROR), 2);
+        Assert.assertFalse(summary.isSuccess());
+        Assert.assertTrue(out.toString().contains("java.lang.OutOfMemoryError: page too large"), out.toString());
+    }
+
+    @Test
+    public void pairNamesAreRelativeDirectories() {
+        Assert.assertEquals(PDFBatchCompare.directoryName("sub/diff.pdf"), "sub/diff");
+        Assert.assertEquals(PDFBatchCompare.directoryName("c:\\expected\\report.PDF"), "expected/report");
+        Assert.assertEquals(PDFBatchCompare.directoryName("/tmp/../x/./report.pdf"), "tmp/x/report");
+        Assert.assertEquals(PDFBatchCompare.directoryName(".pdf"), "pair");
+    }
+
+    private File getFile(String filename) {
+        return new File(getClass().getClassLoader().getResource(filename).getFile());
+    }
+}
@@ -0,0 +1,68 @@
+package com.testautomationguru.utility;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class PDFMetadataReaderTest {
+
+    private File dir;
+
+    @BeforeMethod
+    public void createDirectory() throws IOException {
+        dir = Files.createTempDirectory("metadata-reader").toFile();
+    }
+
+    @AfterMethod
+    public void deleteDirectory() throws IOException {
+        FileUtils.deleteDirectory(dir);
+    }
+
+    @Test
+    public void sameAsTheLoadedDocument() throws IOException {
+        // cross-reference tables, and a cross-reference stream
+        String[] files = { "text-compare/sample1.pdf", "text-extract-position/sample.pdf", "sample.pdf", "image-compare-diff/sample2.pdf" };
+        for(String file : files){
+            PDFMetadata metadata = PDFMetadataReader.read(getFile(file));
+            PDDocument document = PDDocument.load(getFile(file));
+            try{
+                Assert.assertEquals(metadata.getPageCount(), document.getNumberOfPages(), file);
+                Assert.assertEquals(metadata.getInformation().getTitle(), document.getDocumentInformation().getTitle(), file);
+                Assert.assertEquals(metadata.getInformation().getProducer(), document.getDocumentInformation().getProducer(), file);
+            }finally{
+                document.close();
+            }
+        }
+        Assert.assertEquals(new PDFUtil().getDocumentInformation(getFile("text-compare/sample1.pdf").getPath()).getTitle(), "Recommendation Report");
+    }
+
+    @Test
+    public void damagedFileIsLoaded() throws IOException {
+        // startxref pointing nowhere: PDFBox rebuilds the cross-reference when loading the document
+        String content = FileUtils.readFileToString(getFile("text-extract/sample.pdf"), StandardCharsets.ISO_8859_1);
+        int startxref = content.lastIndexOf("startxref") + "startxref".length();
+        int eof = content.lastIndexOf("%%EOF");
+        File damaged = new File(dir, "damaged.pdf");
+        FileUtils.writeStringToFile(damaged, content.substring(0, startxref) + "\n12\n" + content.substring(eof), StandardCharsets.ISO_8859_1);
+
+        try{
+            PDFMetadataReader.read(damaged);
+            Assert.fail("the cross-reference is not found");
+        }catch(IOException e){
+            // expected
+        }
+        Assert.assertEquals(new PDFUtil().getPageCount(damaged.getPath()), 1);
+    }
+
+    private File getFile(String filename) {
+        return new File(getClass().getClassLoader().getResource(filename).getFile());
+    }
+}
@@ -0,0 +1,135 @@
+package com.testautomationguru.utility;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class PDFUtilAsyncTest {
+
+    @Test
+    public void callsCompleteAsynchronously() throws Exception {
+        String text1 = getFilePath("text-compare/sample1.pdf");
+        String text2 = getFilePath("text-compare/sample2.pdf");
+        PDFUtil pdfutil = new PDFUtil(PDFUtilConfig.builder().compareAllPages(true).build());
+        PDFUtilAsync async = new PDFUtilAsync(pdfutil);
+        try {
+            List<CompletableFuture<CompareResult>> results = new ArrayList<CompletableFuture<CompareResult>>();
+            for (int i = 0; i < 20; i++) {
+                results.add(async.compareTextAsync(text1, text2));
+            }
+            CompletableFuture<String> text = async.getTextAsync(text1, 5, 5);
+            CompletableFuture<Boolean> match = async.compareAsync(text1, text2, 5, 7);
+
+            for (CompletableFuture<CompareResult> result : results) {
+                Assert.assertEquals(result.get().getDifferentPages(), Arrays.asList(1, 2, 3, 4));
+            }
+            Assert.assertEquals(text.get(), pdfutil.getText(text1, 5, 5));
+            Assert.assertTrue(match.get());
+        } finally {
+            async.close();
+        }
+    }
+
+    @Test
+    public void failuresCompleteTheFuture() throws Exception {
+        PDFUtilAsync async = new PDFUtilAsync(new PDFUtil());
+        try {
+            async.getTextAsync(new File("does-not-exist.pdf").getAbsolutePath()).get();
+            Assert.fail("expected a failure");
+        } catch (ExecutionException e) {
+            Assert.assertNotNull(e.getCause());
+        } finally {
+            async.close();
+        }
+    }
+
+    @Test
+    public void cancelStopsFurtherPageRenders() throws Exception {
+        String file = getFilePath("image-compare-same/sample1.pdf");
+        BlockingCache cache = new BlockingCache();
+        PDFUtil pdfutil = new PDFUtil(PDFUtilConfig.builder()
+                .compareMode(CompareMode.VISUAL_MODE)
+                .compareAllPages(true)
+                .skipIdenticalPages(false)
+                .renderDpi(72)
+                .pageImageCache(cache)
+                .build());
+        PDFUtilAsync async = new PDFUtilAsync(pdfutil);
+        try {
+            CompletableFuture<Boolean> result = async.compareAsync(file, file);
+            Assert.assertTrue(cache.started.await(30, TimeUnit.SECONDS));
+            Assert.assertTrue(result.cancel(true));
+            Assert.assertTrue(cache.stored.await(30, TimeUnit.SECONDS));
+            Thread.sleep(500);
+            // the first page was being rendered, the 5 others are never rendered
+            Assert.assertEquals(cache.gets.get(), 1);
+        } finally {
+            async.close();
+        }
+    }
+
+    @Test
+    public void timeoutCompletesTheFuture() throws Exception {
+        String file = getFilePath("image-compare-same/sample1.pdf");
+        BlockingCache cache = new BlockingCache();
+        PDFUtil pdfutil = new PDFUtil(PDFUtilConfig.builder()
+                .compareMode(CompareMode.VISUAL_MODE)
+                .skipIdenticalPages(false)
+                .renderDpi(72)
+                .pageImageCache(cache)
+                .build());
+        PDFUtilAsync async = new PDFUtilAsync(pdfutil);
+        try {
+            async.withTimeout(200, TimeUnit.MILLISECONDS).compareAsync(file, file).get();
+            Assert.fail("expected a timeout");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof TimeoutException, e.toString());
+            // the call has been interrupted
+            Assert.assertTrue(cache.stored.await(30, TimeUnit.SECONDS));
+        } finally {
+            async.close();
+        }
+    }
+
+    /**
+     * Blocks the render of the first page until the call is interrupted.
+     */
+    private static class BlockingCache implements PageImageCache {
+        final AtomicInteger gets = new AtomicInteger();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch stored = new CountDownLatch(1);
+
+        @Override
+        public BufferedImage get(PageImageKey key) throws IOException {
+            gets.incrementAndGet();
+            started.countDown();
+            try {
+                new CountDownLatch(1).await(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        }
+
+        @Override
+        public void put(PageImageKey key, BufferedImage image) throws IOException {
+            stored.countDown();
+        }
+    }
+
+    private String getFilePath(String filename) {
+        return new File(getClass().getClassLoader().getResource(filename).getFile()).getAbsolutePath();
+    }
+}
@@ -0,0 +1,105 @@
+package com.testautomationguru.utility;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+import javax.management.ObjectName;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class PDFUtilMetricsTest {
+
+    @Test
+    public void aggregatesTheEvents() {
+        PDFUtilMetrics metrics = new PDFUtilMetrics();
+        metrics.onEvent(new MetricEvent(MetricStage.LOAD, "a.pdf", 0, 0, 3000000, 1000));
+        metrics.onEvent(new MetricEvent(MetricStage.RENDER, "a.pdf", 1, 1, 5000000, 400));
+        metrics.onEvent(new MetricEvent(MetricStage.RENDER, "a.pdf", 2, 1, 7000000, 800));
+        metrics.onEvent(new MetricEvent(MetricStage.RENDER, "b.pdf", 1, 1, 1000000, 400));
+        metrics.onEvent(new MetricEvent(MetricStage.TEXT_EXTRACTION, "b.pdf", 0, 4, 2000000, 0));
+        metrics.onEvent(new MetricEvent(MetricStage.IMAGE_ENCODE, "a_1_diff.png", 0, 0, 9000000, 50));
+
+        Assert.assertEquals(metrics.getCount(MetricStage.RENDER), 3);
+        Assert.assertEquals(metrics.getTotalNanos(MetricStage.RENDER), 13000000);
+        Assert.assertEquals(metrics.getMaxNanos(MetricStage.RENDER), 7000000);
+        Assert.assertEquals(metrics.getBytesRead(), 1000);
+        Assert.assertEquals(metrics.getBytesWritten(), 50);
+        Assert.assertEquals(metrics.getPagesProcessed(), 7);
+        Assert.assertEquals(metrics.getPeakRasterBytes(), 800);
+        // the written images are not documents
+        Assert.assertEquals(metrics.getSlowestDocuments(), new String[] { "a.pdf : 15 ms", "b.pdf : 3 ms" });
+        Assert.assertEquals(metrics.getTotalMillis().get("RENDER"), Long.valueOf(13));
+        Assert.assertTrue(metrics.toString().contains("RENDER"), metrics.toString());
+        Assert.assertFalse(metrics.toString().contains("PAGE_COUNT"), metrics.toString());
+
+        metrics.reset();
+        Assert.assertEquals(metrics.getCount(MetricStage.RENDER), 0);
+        Assert.assertEquals(metrics.getSlowestDocuments().length, 0);
+    }
+
+    @Test
+    public void fileTimesAreBounded() {
+        PDFUtilMetrics metrics = new PDFUtilMetrics();
+        for (int i = 1; i <= 5000; i++) {
+            metrics.onEvent(new MetricEvent(MetricStage.LOAD, "file" + i + ".pdf", 0, 0, i * 1000000L, 0));
+        }
+        Assert.assertTrue(metrics.getTrackedFiles() <= PDFUtilMetrics.MAX_TRACKED_FILES, String.valueOf(metrics.getTrackedFiles()));
+        String[] slowest = metrics.getSlowestDocuments();
+        Assert.assertEquals(slowest.length, 10);
+        Assert.assertEquals(slowest[0], "file5000.pdf : 5000 ms");
+        Assert.assertEquals(slowest[9], "file4991.pdf : 4991 ms");
+    }
+
+    @Test
+    public void registersAnMBean() throws Exception {
+        PDFUtilMetrics metrics = new PDFUtilMetrics();
+        metrics.onEvent(new MetricEvent(MetricStage.LOAD, "a.pdf", 0, 0, 1000, 1234));
+        metrics.register("test");
+        try {
+            ObjectName name = new ObjectName("com.testautomationguru.utility:type=PDFUtilMetrics,name=\"test\"");
+            Assert.assertEquals(ManagementFactory.getPlatformMBeanServer().getAttribute(name, "BytesRead"), 1234L);
+        } finally {
+            metrics.unregister();
+        }
+        Assert.assertTrue(ManagementFactory.getPlatformMBeanServer().queryNames(
+                new ObjectName("com.testautomationguru.utility:type=PDFUtilMetrics,*"), null).isEmpty());
+    }
+
+    @Test
+    public void recordsTheStagesOfTheOperations() throws Exception {
+        String file1 = getFilePath("image-compare-diff/sample1.pdf");
+        String file2 = getFilePath("image-compare-diff/sample2.pdf");
+        PDFUtilMetrics metrics = new PDFUtilMetrics();
+        PDFUtil pdfUtil = new PDFUtil(PDFUtilConfig.builder()
+                .compareMode(CompareMode.VISUAL_MODE)
+                .renderDpi(72)
+                .compareAllPages(true)
+                .skipIdenticalPages(false)
+                .highlightPdfDifference(true)
+                .metricsListener(metrics)
+                .build());
+
+        Assert.assertEquals(pdfUtil.getPageCount(file1), 6);
+        Assert.assertFalse(pdfUtil.compare(file1, file2));
+        pdfUtil.getText(file1, 2, 3);
+
+        Map<String, Long> counts = metrics.getCounts();
+        // getPageCount reads the page tree without loading the document
+        Assert.assertEquals(counts.get("LOAD"), Long.valueOf(3));
+        Assert.assertEquals(counts.get("PAGE_COUNT"), Long.valueOf(1));
+        Assert.assertEquals(counts.get("RENDER"), Long.valueOf(12));
+        Assert.assertEquals(counts.get("PIXEL_COMPARE"), Long.valueOf(6));
+        Assert.assertEquals(counts.get("IMAGE_ENCODE"), Long.valueOf(1));
+        Assert.assertEquals(counts.get("TEXT_EXTRACTION"), Long.valueOf(1));
+        Assert.assertEquals(metrics.getPagesProcessed(), 12 + 2);
+        Assert.assertEquals(metrics.getBytesRead(), 2 * new File(file1).length() + new File(file2).length());
+        Assert.assertEquals(metrics.getPeakRasterBytes(), 612 * 792 * 4);
+        Assert.assertTrue(metrics.getBytesWritten() > 0);
+    }
+
+    private String getFilePath(String filename) {
+        return new File(getClass().getClassLoader().getResource(filename).getFile()).getAbsolutePath();
+    }
+}
@@ -1,9 +1,28 @@
 package com.testautomationguru.utility;
 
 import java.io.File;
+import java.io.FilenameFilter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
 
+import javax.imageio.ImageIO;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.rendering.ImageType;
 import org.apache.pdfbox.text.PDFTextStripper;
 import org.testng.Assert;
 import org.testng.annotations.Test;
@@ -47,7 +66,20 @@ public class PDFUtilTest {
     @Test(priority = 4)
     public void extractImages() throws IOException {
         List<String> actualExtractedImages = pdfutil.extractImages(getFilePath("image-extract/sample.pdf"));
-        Assert.assertEquals(actualExtractedImages.size(), 7);
+        // 7 images used by the pages, 2 more used by forms; the image of a form used on 5 pages is written once
+        Assert.assertEquals(actualExtractedImages.size(), 9);
+        // the JPEGs without mask are copied as they are
+        int jpegs = 0;
+        for (String image : actualExtractedImages) {
+            Assert.assertNotNull(ImageIO.read(new File(image)), image);
+            jpegs += image.endsWith(".jpg") ? 1 : 0;
+        }
+        Assert.assertEquals(jpegs, 4, actualExtractedImages.toString());
+
+        PDFUtil parallelutil = new PDFUtil();
+        parallelutil.setParallelism(4);
+        parallelutil.setImageDestinationPath(new File(actualExtractedImages.get(0)).getParent() + "/");
+        Assert.assertEquals(parallelutil.extractImages(getFilePath("image-extract/sample.pdf")), actualExtractedImages);
     }
 
     @Test(priority = 5)
@@ -75,6 +107,12 @@ public class PDFUtilTest {
         // pdfutil.excludeText("1999","1998");
         boolean result = pdfutil.compare(file1, file2);
         Assert.assertTrue(result);
+
+        // null clears the exclusions
+        PDFUtil cleared = new PDFUtil();
+        cleared.excludeText("\\d+");
+        cleared.excludeText((String[]) null);
+        Assert.assertFalse(cleared.compare(file1, file2));
     }
 
     @Test(priority = 8)
@@ -105,6 +143,497 @@ public class PDFUtilTest {
         Assert.assertTrue(result);
     }
 
+    @Test(priority = 11)
+    public void comparePDFImageModeInParallel() throws IOException {
+        pdfutil.setCompareMode(CompareMode.VISUAL_MODE);
+        pdfutil.setParallelism(3);
+        try {
+            Assert.assertTrue(pdfutil.compare(getFilePath("image-compare-same/sample1.pdf"), getFilePath("image-compare-same/sample2.pdf")));
+
+            String file1 = getFilePath("image-compare-diff/sample1.pdf");
+            String file2 = getFilePath("image-compare-diff/sample2.pdf");
+            Assert.assertFalse(pdfutil.compare(file1, file2));
+            Assert.assertTrue(pdfutil.compare(file1, file2, 3));
+            pdfutil.compareAllPages(true);
+            Assert.assertFalse(pdfutil.compare(file1, file2));
+        } finally {
+            pdfutil.compareAllPages(false);
+            pdfutil.setParallelism(1);
+        }
+    }
+
+    @Test(priority = 12)
+    public void memoryMappedDocumentsWithTempFileBuffers() throws IOException {
+        pdfutil.setDocumentLoadMode(DocumentLoadMode.MEMORY_MAPPED);
+        pdfutil.useMemoryUsageSetting(MemoryUsageSetting.setupTempFileOnly());
+        try {
+            Assert.assertEquals(pdfutil.getPageCount(getFilePath("image-extract/sample.pdf")), 6);
+            Assert.assertEquals(pdfutil.getText(getFilePath("text-extract/sample.pdf")),
+                    new PDFUtil().getText(getFilePath("text-extract/sample.pdf")));
+            pdfutil.setCompareMode(CompareMode.VISUAL_MODE);
+            String file1 = getFilePath("image-compare-diff/sample1.pdf");
+            String file2 = getFilePath("image-compare-diff/sample2.pdf");
+            Assert.assertTrue(pdfutil.compare(file1, file2, 3));
+        } finally {
+            pdfutil.setDocumentLoadMode(DocumentLoadMode.RANDOM_ACCESS_FILE);
+            pdfutil.useMemoryUsageSetting(null);
+        }
+    }
+
+    @Test(priority = 13)
+    public void comparePDFImageModeSkipsIdenticalPages() throws IOException {
+        String file1 = getFilePath("image-compare-diff/sample1.pdf");
+        String file2 = getFilePath("image-compare-diff/sample2.pdf");
+
+        PDFDocumentHandle handle1 = new PDFDocumentHandle(file1, null, null);
+        PDFDocumentHandle handle2 = new PDFDocumentHandle(file2, null, null);
+        PDFDocumentHandle handle3 = handle1.reopen();
+        try {
+            PageDigester digester = new PageDigester();
+            Assert.assertFalse(digester.sameFile(new File(file1), new File(file2)));
+            Assert.assertTrue(Arrays.equals(digester.pageDigest(handle1.getDocument().getPage(0)),
+                    digester.pageDigest(handle3.getDocument().getPage(0))));
+            Assert.assertFalse(Arrays.equals(digester.pageDigest(handle1.getDocument().getPage(0)),
+                    digester.pageDigest(handle2.getDocument().getPage(0))));
+        } finally {
+            handle1.close();
+            handle2.close();
+            handle3.close();
+        }
+
+        pdfutil.setCompareMode(CompareMode.VISUAL_MODE);
+        pdfutil.skipIdenticalPages(false);
+        try {
+            Assert.assertTrue(pdfutil.compare(file1, file2, 3));
+            Assert.assertTrue(pdfutil.compare(file1, file1));
+        } finally {
+            pdfutil.skipIdenticalPages(true);
+        }
+    }
+
+    @Test(priority = 14)
+    public void comparePDFTextModePageByPage() throws IOException {
+        String file1 = getFilePath("text-compare/sample1.pdf");
+        String file2 = getFilePath("text-compare/sample2.pdf");
+        PDFUtil textutil = new PDFUtil();
+
+        CompareResult result = textutil.compareText(file1, file2);
+        Assert.assertFalse(result.isMatch());
+        Assert.assertEquals(result.getPageResults().size(), 1);
+        Assert.assertEquals(result.getDifferentPages(), Arrays.asList(1));
+        Assert.assertNotNull(result.getPageResults().get(0).getExpectedText());
+
+        textutil.compareAllPages(true);
+        result = textutil.compareText(file1, file2);
+        Assert.assertEquals(result.getPageResults().size(), 7);
+        Assert.assertEquals(result.getDifferentPages(), Arrays.asList(1, 2, 3, 4));
+        Assert.assertTrue(textutil.compareText(file1, file2, 5, 7).isMatch());
+
+        textutil.excludeText("\\d+");
+        Assert.assertTrue(textutil.compareText(file1, file2).isMatch());
+    }
+
+    @Test(priority = 15)
+    public void comparePDFTextModeDiffHunks() throws IOException {
+        String file1 = getFilePath("text-compare/sample1.pdf");
+        String file2 = getFilePath("text-compare/sample2.pdf");
+        PDFUtil textutil = new PDFUtil();
+        textutil.compareAllPages(true);
+        textutil.setParallelism(4);
+
+        List<DiffHunk> hunks = textutil.compareText(file1, file2).getDiffHunks();
+        Assert.assertEquals(hunks.size(), 10);
+        Assert.assertEquals(hunks.get(0).getPageNumber(), 1);
+        Assert.assertEquals(hunks.get(0).getType(), DiffHunk.Type.CHANGE);
+        Assert.assertTrue(hunks.get(0).getExpected().get(0).contains("(1999)"));
+        Assert.assertTrue(hunks.get(0).getActual().get(0).contains("(1998)"));
+        Assert.assertEquals(hunks.get(hunks.size() - 1).getPageNumber(), 4);
+
+        textutil.setDiffGranularity(DiffGranularity.WORD);
+        for (DiffHunk hunk : textutil.compareText(file1, file2).getDiffHunks()) {
+            Assert.assertTrue(hunk.getExpected().get(0).contains("1999"), hunk.toString());
+        }
+    }
+
+    @Test(priority = 16)
+    public void comparePDFImageModeWithPrescreen() throws IOException {
+        String file1 = getFilePath("image-compare-diff/sample1.pdf");
+        String file2 = getFilePath("image-compare-diff/sample2.pdf");
+        PDFUtil visualutil = new PDFUtil();
+        visualutil.setCompareMode(CompareMode.VISUAL_MODE);
+        visualutil.skipIdenticalPages(false);
+
+        visualutil.setRenderDpi(100);
+        visualutil.setRenderImageType(ImageType.GRAY);
+        Assert.assertFalse(visualutil.compare(file1, file2));
+        Assert.assertTrue(visualutil.compare(file1, file2, 3, 6));
+
+        visualutil.prescreenPages(72, ImageType.GRAY);
+        visualutil.compareAllPages(true);
+        Assert.assertFalse(visualutil.compare(file1, file2));
+        Assert.assertTrue(visualutil.compare(file1, file2, 3, 6));
+    }
+
+    @Test(priority = 17)
+    public void sharedInstanceServesConcurrentCalls() throws Exception {
+        final String text1 = getFilePath("text-compare/sample1.pdf");
+        final String text2 = getFilePath("text-compare/sample2.pdf");
+        final String image1 = getFilePath("image-compare-diff/sample1.pdf");
+        final String image2 = getFilePath("image-compare-diff/sample2.pdf");
+        final PDFUtil shared = new PDFUtil(PDFUtilConfig.builder()
+                .compareMode(CompareMode.VISUAL_MODE)
+                .compareAllPages(true)
+                .skipIdenticalPages(false)
+                .renderDpi(72)
+                .build());
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+            for (int i = 0; i < 4; i++) {
+                // each call has its own page range: a shared range would mix them up
+                results.add(pool.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() throws Exception {
+                        return shared.compareText(text1, text2, 5, 7).isMatch()
+                                && shared.compareText(text1, text2).getDifferentPages().equals(Arrays.asList(1, 2, 3, 4))
+                                && shared.getText(text1, 2, 2).length() < shared.getText(text1).length();
+                    }
+                }));
+                results.add(pool.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() throws Exception {
+                        return shared.compare(image1, image2, 3, 6) && !shared.compare(image1, image2, 1, 2);
+                    }
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                Assert.assertTrue(result.get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // a setter replaces the configuration, the configuration itself is not changed
+        PDFUtilConfig config = shared.getConfig();
+        shared.setCompareMode(CompareMode.TEXT_MODE);
+        Assert.assertEquals(config.getCompareMode(), CompareMode.VISUAL_MODE);
+        Assert.assertEquals(shared.getCompareMode(), CompareMode.TEXT_MODE);
+    }
+
+    @Test(priority = 18)
+    public void saveAsImagesWithImageOutput() throws IOException {
+        String file = getFilePath("image-compare-diff/sample1.pdf");
+        PDFUtil imageutil = new PDFUtil(PDFUtilConfig.builder()
+                .renderDpi(72)
+                .imageOutput(new PngImageOutput(Deflater.BEST_SPEED))
+                .imageWriterThreads(2)
+                .build());
+        List<String> images = imageutil.savePdfAsImage(file);
+        Assert.assertEquals(images.size(), 6);
+        for (String image : images) {
+            Assert.assertNotNull(ImageIO.read(new File(image)), image);
+        }
+
+        imageutil.useImageOutput(new PnmImageOutput());
+        images = imageutil.savePdfAsImage(file, 2, 3);
+        Assert.assertEquals(images.size(), 2);
+        Assert.assertTrue(images.get(0).endsWith("sample1_2.pnm"), images.get(0));
+        Assert.assertEquals(new String(java.nio.file.Files.readAllBytes(new File(images.get(1)).toPath()), 0, 2, "US-ASCII"), "P6");
+
+        imageutil.setCompareMode(CompareMode.VISUAL_MODE);
+        imageutil.highlightPdfDifference(true);
+        Assert.assertFalse(imageutil.compare(file, getFilePath("image-compare-diff/sample2.pdf")));
+        Assert.assertTrue(new File(imageutil.getImageDestinationPath(), "sample1_2_diff.pnm").isFile());
+    }
+
+    @Test(priority = 19)
+    public void comparePDFImageModeDiffRegions() throws IOException {
+        String file1 = getFilePath("image-compare-diff/sample1.pdf");
+        String file2 = getFilePath("image-compare-diff/sample2.pdf");
+        PDFUtil visualutil = new PDFUtil(PDFUtilConfig.builder()
+                .renderDpi(72)
+                .compareAllPages(true)
+                .highlightPdfDifference(true)
+                .diffImageMode(DiffImageMode.REGION_SNIPPETS)
+                .build());
+
+        CompareResult result = visualutil.compareVisual(file1, file2);
+        Assert.assertEquals(result.getPageResults().size(), 6);
+        Assert.assertEquals(result.getDifferentPages(), Arrays.asList(2));
+        List<DiffRegion> regions = result.getDiffRegions();
+        Assert.assertFalse(regions.isEmpty());
+        for (DiffRegion region : regions) {
+            Assert.assertEquals(region.getPageNumber(), 2);
+            Assert.assertTrue(region.getWidth() > 0 && region.getX() + region.getWidth() <= 612, region.toString());
+            Assert.assertTrue(region.getHeight() > 0 && region.getY() + region.getHeight() <= 792, region.toString());
+        }
+        File destination = new File(visualutil.getImageDestinationPath());
+        Assert.assertTrue(new File(destination, "sample1_2_diff_1.png").isFile());
+        Assert.assertFalse(new File(destination, "sample1_2_diff.png").exists());
+
+        // the regions are in points whatever the render dpi
+        visualutil.setRenderDpi(144);
+        DiffRegion region = visualutil.compareVisual(file1, file2).getDiffRegions().get(0);
+        Assert.assertEquals(region.getX(), regions.get(0).getX(), 1);
+        Assert.assertEquals(region.getY(), regions.get(0).getY(), 1);
+        Assert.assertTrue(visualutil.compareVisual(file1, file2, 3, 6).isMatch());
+    }
+
+    @Test(priority = 20)
+    public void comparePDFImageModeWithTolerance() throws IOException {
+        String file1 = getFilePath("image-compare-diff/sample1.pdf");
+        String file2 = getFilePath("image-compare-diff/sample2.pdf");
+        PDFUtil visualutil = new PDFUtil(PDFUtilConfig.builder()
+                .compareMode(CompareMode.VISUAL_MODE)
+                .renderDpi(72)
+                .skipIdenticalPages(false)
+                .build());
+        Assert.assertFalse(visualutil.compare(file1, file2));
+
+        visualutil.setVisualTolerance(new VisualTolerance(32, 0.01));
+        Assert.assertTrue(visualutil.compare(file1, file2));
+        Assert.assertTrue(visualutil.compareVisual(file1, file2).getDiffRegions().isEmpty());
+
+        visualutil.setVisualTolerance(new VisualTolerance(32, 0.0001));
+        Assert.assertFalse(visualutil.compare(file1, file2));
+        visualutil.setVisualTolerance(new VisualTolerance(32, 0.01, 0.9999));
+        Assert.assertFalse(visualutil.compare(file1, file2));
+    }
+
+    @Test(priority = 21)
+    public void comparePDFImageModeInPipeline() throws IOException {
+        String file1 = getFilePath("image-compare-diff/sample1.pdf");
+        String file2 = getFilePath("image-compare-diff/sample2.pdf");
+        PDFUtil visualutil = new PDFUtil(PDFUtilConfig.builder()
+                .compareMode(CompareMode.VISUAL_MODE)
+                .renderDpi(72)
+                .skipIdenticalPages(false)
+                .pipelineDepth(2)
+                .build());
+        Assert.assertFalse(visualutil.compare(file1, file2));
+        Assert.assertTrue(visualutil.compare(file1, file2, 3, 6));
+        Assert.assertEquals(visualutil.compareVisual(file1, file2).getPageResults().size(), 2);
+
+        visualutil.compareAllPages(true);
+        visualutil.highlightPdfDifference(true);
+        CompareResult result = visualutil.compareVisual(file1, file2);
+        Assert.assertEquals(result.getPageResults().size(), 6);
+        Assert.assertEquals(result.getDifferentPages(), Arrays.asList(2));
+        Assert.assertTrue(new File(visualutil.getImageDestinationPath(), "sample1_2_diff.png").isFile());
+    }
+
+    @Test(priority = 22)
+    public void comparePDFImageModeInBands() throws IOException {
+        String file1 = getFilePath("image-compare-diff/sample1.pdf");
+        String file2 = getFilePath("image-compare-diff/sample2.pdf");
+        PDFUtil visualutil = new PDFUtil(PDFUtilConfig.builder()
+                .compareMode(CompareMode.VISUAL_MODE)
+                .renderDpi(72)
+                .skipIdenticalPages(false)
+                .renderMemoryBudget(612 * 8 * 100)
+                .build());
+        Assert.assertFalse(visualutil.compare(file1, file2));
+        Assert.assertTrue(visualutil.compare(file1, file2, 3, 6));
+
+        visualutil.compareAllPages(true);
+        visualutil.highlightPdfDifference(true);
+        CompareResult result = visualutil.compareVisual(file1, file2);
+        Assert.assertEquals(result.getDifferentPages(), Arrays.asList(2));
+        Assert.assertFalse(result.getDiffRegions().isEmpty());
+        File destination = new File(visualutil.getImageDestinationPath());
+        String[] bands = destination.list(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.startsWith("sample1_2_diff_band_");
+            }
+        });
+        Assert.assertTrue(bands.length > 0);
+        Assert.assertFalse(new File(destination, "sample1_2_diff.png").exists());
+
+        // the same regions as the whole page render
+        visualutil.setRenderMemoryBudget(0);
+        visualutil.highlightPdfDifference(false);
+        Assert.assertEquals(visualutil.compareVisual(file1, file2).getDiffRegions().size(), result.getDiffRegions().size());
+    }
+
+    @Test(priority = 23)
+    public void extractTextInParallel() throws IOException {
+        String file = getFilePath("image-compare-diff/sample1.pdf");
+        PDFUtil parallelutil = new PDFUtil(PDFUtilConfig.builder().parallelism(3).build());
+        PDFUtil sequentialutil = new PDFUtil();
+        Assert.assertEquals(parallelutil.getText(file), sequentialutil.getText(file));
+        Assert.assertEquals(parallelutil.getText(file, 2, 5), sequentialutil.getText(file, 2, 5));
+        parallelutil.trimWhiteSpace(false);
+        sequentialutil.trimWhiteSpace(false);
+        Assert.assertEquals(parallelutil.getText(file), sequentialutil.getText(file));
+
+        StringBuilder text = new StringBuilder();
+        int expectedPage = 2;
+        PageTextIterator pages = parallelutil.iteratePageText(file, 2, 5);
+        try {
+            while (pages.hasNext()) {
+                PageText page = pages.next();
+                Assert.assertEquals(page.getPageNumber(), expectedPage++);
+                text.append(page.getText());
+            }
+        } finally {
+            pages.close();
+        }
+        Assert.assertEquals(expectedPage, 6);
+        Assert.assertEquals(text.toString(), sequentialutil.getText(file, 2, 5));
+
+        // the pages can be consumed as a stream, and left before the end
+        Stream<PageText> stream = parallelutil.streamPageText(file);
+        try {
+            Assert.assertEquals(stream.limit(2).count(), 2);
+        } finally {
+            stream.close();
+        }
+        stream = sequentialutil.streamPageText(file);
+        try {
+            Assert.assertEquals(stream.count(), 6);
+        } finally {
+            stream.close();
+        }
+    }
+
+    @Test(priority = 24)
+    public void compareResultInMemory() throws IOException {
+        String file1 = getFilePath("image-compare-diff/sample1.pdf");
+        String file2 = getFilePath("image-compare-diff/sample2.pdf");
+        PDFUtil visualutil = new PDFUtil(PDFUtilConfig.builder()
+                .renderDpi(72)
+                .skipIdenticalPages(false)
+                .keepDiffImages(true)
+                .build());
+
+        CompareResult result = visualutil.compareVisual(file1, file2);
+        Assert.assertEquals(result.getDifferentPages(), Arrays.asList(2));
+        PageResult page = result.getPageResults().get(1);
+        Assert.assertTrue(page.getDifferentPixels() > 0);
+        Assert.assertEquals(page.getDiffImage().getWidth(), 612);
+        Assert.assertEquals(result.getPageResults().get(0).getDifferentPixels(), 0);
+        Assert.assertNull(result.getPageResults().get(0).getDiffImage());
+        Assert.assertTrue(result.getStageNanos().get(MetricStage.RENDER) > 0);
+        Assert.assertTrue(result.getStageNanos().get(MetricStage.PIXEL_COMPARE) > 0);
+        Assert.assertTrue(result.getDurationMillis() >= 0);
+
+        String json = result.toJson();
+        Assert.assertTrue(json.startsWith("{\"expected\":"), json);
+        Assert.assertTrue(json.contains("\"mode\":\"VISUAL_MODE\",\"match\":false"), json);
+        Assert.assertTrue(json.contains("\"page\":2,\"status\":\"DIFFERENT\",\"differentPixels\":" + page.getDifferentPixels() + ",\"regions\":[{\"x\":"), json);
+        Assert.assertTrue(json.contains("\"RENDER\":"), json);
+        Assert.assertFalse(json.contains("diffImage"));
+        Assert.assertTrue(result.toJson(true).contains("\"diffImage\":\"data:image/png;base64,iVBORw0KGgo"));
+
+        PDFUtil textutil = new PDFUtil(PDFUtilConfig.builder().compareAllPages(true).build());
+        CompareResult text = textutil.compareText(getFilePath("text-compare/sample1.pdf"), getFilePath("text-compare/sample2.pdf"));
+        Assert.assertFalse(text.isMatch());
+        Assert.assertTrue(text.getStageNanos().get(MetricStage.TEXT_EXTRACTION) > 0);
+        json = text.toJson();
+        Assert.assertTrue(json.contains("\"mode\":\"TEXT_MODE\""), json);
+        Assert.assertTrue(json.contains("\"hunks\":[{\"type\":"), json);
+        Assert.assertTrue(json.contains("\"differentPixels\":-1"), json);
+    }
+
+    @Test(priority = 25)
+    public void concurrentCallsWriteToTheirOwnRunDirectory() throws Exception {
+        final String file = getFilePath("image-compare-diff/sample1.pdf");
+        File root = java.nio.file.Files.createTempDirectory("pdf-util-runs").toFile();
+        try {
+            final PDFUtil imageutil = new PDFUtil(PDFUtilConfig.builder()
+                    .renderDpi(36)
+                    .outputManager(new OutputManager(root.toPath(), 0, 3))
+                    .build());
+            ExecutorService executor = Executors.newFixedThreadPool(2);
+            try {
+                List<Future<List<String>>> calls = new ArrayList<Future<List<String>>>();
+                for (int i = 0; i < 2; i++) {
+                    calls.add(executor.submit(new Callable<List<String>>() {
+                        @Override
+                        public List<String> call() throws Exception {
+                            return imageutil.savePdfAsImage(file, 1, 2);
+                        }
+                    }));
+                }
+                List<String> images1 = calls.get(0).get();
+                List<String> images2 = calls.get(1).get();
+                Assert.assertNotEquals(new File(images1.get(0)).getParent(), new File(images2.get(0)).getParent());
+                for (String image : images1) {
+                    Assert.assertTrue(new File(image).isFile(), image);
+                }
+                for (String image : images2) {
+                    Assert.assertTrue(new File(image).isFile(), image);
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+
+            imageutil.setCompareMode(CompareMode.VISUAL_MODE);
+            imageutil.highlightPdfDifference(true);
+            CompareResult result = imageutil.compareVisual(file, getFilePath("image-compare-diff/sample2.pdf"));
+            File diff = new File(result.getImageDestinationPath(), "sample1_2_diff.png");
+            Assert.assertTrue(diff.isFile());
+            Assert.assertEquals(new File(result.getImageDestinationPath()).getParentFile(), root);
+            Assert.assertEquals(imageutil.getImageDestinationPath(), result.getImageDestinationPath());
+            // the retention keeps the 3 last runs
+            Assert.assertEquals(root.list().length, 3);
+        } finally {
+            FileUtils.deleteDirectory(root);
+        }
+    }
+
+    @Test(priority = 26)
+    public void tempDirectoryIsNotCleared() throws IOException {
+        String file = getFilePath("text-extract/sample.pdf");
+        File temp = new File(new File(file).getParentFile(), "temp");
+        temp.mkdirs();
+        // written by another instance or process sharing the directory
+        File other = new File(temp, "other_1.png");
+        FileUtils.writeStringToFile(other, "not ours", StandardCharsets.UTF_8);
+        // left by a previous call of the same file
+        File stale = new File(temp, "sample_99.png");
+        FileUtils.writeStringToFile(stale, "stale", StandardCharsets.UTF_8);
+
+        PDFUtil imageutil = new PDFUtil(PDFUtilConfig.builder().renderDpi(36).build());
+        List<String> images = imageutil.savePdfAsImage(file);
+        Assert.assertEquals(images.size(), 1);
+        Assert.assertTrue(new File(images.get(0)).isFile());
+        Assert.assertTrue(other.isFile());
+        Assert.assertFalse(stale.exists());
+        FileUtils.deleteDirectory(temp);
+    }
+
+    @Test(priority = 27, timeOut = 60000)
+    public void textExtractionErrorIsThrown() throws IOException {
+        String file = getFilePath("image-compare-diff/sample1.pdf");
+        PDFUtil parallelutil = new PDFUtil(PDFUtilConfig.builder().parallelism(3).stripperFactory(new Supplier<PDFTextStripper>() {
+            @Override
+            public PDFTextStripper get() {
+                try {
+                    return new PDFTextStripper() {
+                        @Override
+                        public void writeText(PDDocument doc, Writer output) throws IOException {
+                            if (getStartPage() == 4) {
+                                throw new OutOfMemoryError("page too large");
+                            }
+                            super.writeText(doc, output);
+                        }
+                    };
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }).build());
+        try {
+            parallelutil.getText(file);
+            Assert.fail("the extraction error is not thrown");
+        } catch (OutOfMemoryError e) {
+            Assert.assertEquals(e.getMessage(), "page too large");
+        }
+    }
+
     private String getFilePath(String filename) {
         return new File(getClass().getClassLoader().getResource(filename).getFile()).getAbsolutePath();
     }
@@ -0,0 +1,137 @@
+package com.testautomationguru.utility;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class PagePipelineTest {
+
+    private static final int[] PAGES = { 0, 1, 2, 3, 4, 5, 6, 7, 8, 9 };
+
+    @Test
+    public void comparesEveryPageInOrder() throws IOException {
+        final AtomicInteger rendered = new AtomicInteger();
+        final AtomicInteger compared = new AtomicInteger();
+        final AtomicInteger maxAhead = new AtomicInteger();
+        PagePipeline.PageRenderer renderer = new PagePipeline.PageRenderer() {
+            @Override
+            public BufferedImage render(int pageIndex) {
+                // both the documents are rendered, one page of each per compared page
+                int ahead = rendered.incrementAndGet() - 2 * compared.get();
+                maxAhead.set(Math.max(maxAhead.get(), ahead));
+                return image(pageIndex);
+            }
+        };
+        PageResult[] results = new PageResult[PAGES.length];
+        new PagePipeline(2).run(PAGES, renderer, renderer, new PagePipeline.PageComparison() {
+            @Override
+            public PageResult compare(int pageIndex, BufferedImage image1, BufferedImage image2) throws IOException {
+                Assert.assertEquals(image1.getWidth(), pageIndex + 1);
+                Assert.assertEquals(image2.getWidth(), pageIndex + 1);
+                sleep(5);
+                compared.incrementAndGet();
+                return new PageResult(pageIndex + 1, pageIndex == 3 ? PageResult.Status.DIFFERENT : PageResult.Status.MATCH, null, null);
+            }
+        }, false, results);
+
+        for (int i = 0; i < PAGES.length; i++) {
+            Assert.assertEquals(results[i].getPageNumber(), i + 1);
+        }
+        Assert.assertFalse(results[3].isMatch());
+        // queued (2) + rendering (1) + compared (1) pages of each document
+        Assert.assertTrue(maxAhead.get() <= 2 * (2 + 2), String.valueOf(maxAhead.get()));
+    }
+
+    @Test
+    public void stopsAtTheFirstMismatch() throws IOException {
+        final AtomicInteger rendered = new AtomicInteger();
+        PagePipeline.PageRenderer renderer = new PagePipeline.PageRenderer() {
+            @Override
+            public BufferedImage render(int pageIndex) {
+                rendered.incrementAndGet();
+                sleep(2);
+                return image(pageIndex);
+            }
+        };
+        PageResult[] results = new PageResult[PAGES.length];
+        new PagePipeline(1).run(PAGES, renderer, renderer, new PagePipeline.PageComparison() {
+            @Override
+            public PageResult compare(int pageIndex, BufferedImage image1, BufferedImage image2) {
+                return new PageResult(pageIndex + 1, pageIndex == 1 ? PageResult.Status.DIFFERENT : PageResult.Status.MATCH, null, null);
+            }
+        }, true, results);
+
+        Assert.assertNotNull(results[1]);
+        Assert.assertNull(results[2]);
+        Assert.assertTrue(rendered.get() < 2 * PAGES.length, String.valueOf(rendered.get()));
+    }
+
+    @Test
+    public void renderFailureIsThrown() {
+        PagePipeline.PageRenderer renderer = new PagePipeline.PageRenderer() {
+            @Override
+            public BufferedImage render(int pageIndex) throws IOException {
+                if (pageIndex == 2) {
+                    throw new IOException("broken page");
+                }
+                return image(pageIndex);
+            }
+        };
+        PageResult[] results = new PageResult[PAGES.length];
+        try {
+            new PagePipeline(2).run(PAGES, renderer, renderer, new PagePipeline.PageComparison() {
+                @Override
+                public PageResult compare(int pageIndex, BufferedImage image1, BufferedImage image2) {
+                    return new PageResult(pageIndex + 1, PageResult.Status.MATCH, null, null);
+                }
+            }, false, results);
+            Assert.fail("the render failure is not thrown");
+        } catch (IOException e) {
+            Assert.assertEquals(e.getMessage(), "broken page");
+        }
+        Assert.assertNotNull(results[1]);
+        Assert.assertNull(results[2]);
+    }
+
+    @Test(timeOut = 10000)
+    public void renderErrorIsThrown() throws IOException {
+        PagePipeline.PageRenderer renderer = new PagePipeline.PageRenderer() {
+            @Override
+            public BufferedImage render(int pageIndex) {
+                if (pageIndex == 2) {
+                    throw new OutOfMemoryError("page too large");
+                }
+                return image(pageIndex);
+            }
+        };
+        PageResult[] results = new PageResult[PAGES.length];
+        try {
+            new PagePipeline(2).run(PAGES, renderer, renderer, new PagePipeline.PageComparison() {
+                @Override
+                public PageResult compare(int pageIndex, BufferedImage image1, BufferedImage image2) {
+                    return new PageResult(pageIndex + 1, PageResult.Status.MATCH, null, null);
+                }
+            }, false, results);
+            Assert.fail("the render error is not thrown");
+        } catch (OutOfMemoryError e) {
+            Assert.assertEquals(e.getMessage(), "page too large");
+        }
+        Assert.assertNotNull(results[1]);
+        Assert.assertNull(results[2]);
+    }
+
+    private static BufferedImage image(int pageIndex) {
+        return new BufferedImage(pageIndex + 1, 1, BufferedImage.TYPE_INT_RGB);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
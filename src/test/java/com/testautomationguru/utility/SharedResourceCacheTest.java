@@ -0,0 +1,70 @@
+package com.testautomationguru.utility;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class SharedResourceCacheTest {
+
+    @Test
+    public void fontsAreSharedAcrossDocuments() throws IOException {
+        String file1 = getFilePath("text-compare/sample1.pdf");
+        String file2 = getFilePath("text-compare/sample2.pdf");
+        PDFUtil plain = new PDFUtil();
+        String expected1 = plain.getText(file1);
+        String expected2 = plain.getText(file2);
+
+        SharedResourceCache cache = new SharedResourceCache();
+        PDFUtil pdfutil = new PDFUtil(PDFUtilConfig.builder().resourceCache(cache).build());
+        Assert.assertEquals(pdfutil.getText(file1), expected1);
+        Assert.assertEquals(cache.getHits(), 0);
+        Assert.assertTrue(cache.getMisses() > 0);
+        // given back once the document is closed
+        Assert.assertEquals(cache.size(), cache.getMisses());
+
+        Assert.assertEquals(pdfutil.getText(file2), expected2);
+        Assert.assertTrue(cache.getHits() > 0);
+        Assert.assertTrue(cache.getBytes() <= cache.getMaxBytes());
+
+        // the rendering takes the fonts of the previous documents too
+        String same1 = getFilePath("image-compare-same/sample1.pdf");
+        String same2 = getFilePath("image-compare-same/sample2.pdf");
+        pdfutil.setCompareMode(CompareMode.VISUAL_MODE);
+        pdfutil.skipIdenticalPages(false);
+        Assert.assertTrue(pdfutil.compare(same1, same2));
+        long hits = cache.getHits();
+        Assert.assertTrue(pdfutil.compare(same1, same2));
+        Assert.assertTrue(cache.getHits() > hits);
+    }
+
+    @Test
+    public void leastRecentlyUsedFontsAreDropped() {
+        SharedResourceCache cache = new SharedResourceCache(3000);
+        ByteBuffer a = ByteBuffer.wrap(new byte[] { 1 });
+        ByteBuffer b = ByteBuffer.wrap(new byte[] { 2 });
+        ByteBuffer c = ByteBuffer.wrap(new byte[] { 3 });
+        cache.giveBack(a, PDType1Font.HELVETICA, 1024);
+        cache.giveBack(b, PDType1Font.TIMES_ROMAN, 1024);
+        cache.giveBack(c, PDType1Font.COURIER, 1024);
+        Assert.assertEquals(cache.size(), 2);
+        Assert.assertEquals(cache.getBytes(), 2048);
+        Assert.assertNull(cache.borrow(a));
+
+        // a font is lent to one document at a time
+        Assert.assertSame(cache.borrow(b), PDType1Font.TIMES_ROMAN);
+        Assert.assertNull(cache.borrow(b));
+        Assert.assertEquals(cache.size(), 1);
+
+        // larger than the cache
+        cache.giveBack(a, PDType1Font.HELVETICA, 4000);
+        Assert.assertEquals(cache.size(), 1);
+    }
+
+    private String getFilePath(String filename) {
+        return new File(getClass().getClassLoader().getResource(filename).getFile()).getAbsolutePath();
+    }
+}
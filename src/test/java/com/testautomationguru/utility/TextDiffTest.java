@@ -0,0 +1,77 @@
+package com.testautomationguru.utility;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TextDiffTest {
+
+    @Test
+    public void hunksDescribeTheEdits() {
+        String[] expected = { "a", "b", "c", "d", "e" };
+        String[] actual = { "A", "x", "c", "e", "f" };
+        List<DiffHunk> hunks = TextDiff.diff(3, expected, actual);
+
+        Assert.assertEquals(hunks.size(), 3);
+        Assert.assertEquals(hunks.get(0).getType(), DiffHunk.Type.CHANGE);
+        Assert.assertEquals(hunks.get(0).getExpected(), Arrays.asList("b"));
+        Assert.assertEquals(hunks.get(0).getActual(), Arrays.asList("x"));
+        Assert.assertEquals(hunks.get(1).getType(), DiffHunk.Type.DELETE);
+        Assert.assertEquals(hunks.get(1).getExpectedIndex(), 3);
+        Assert.assertEquals(hunks.get(2).getType(), DiffHunk.Type.INSERT);
+        Assert.assertEquals(hunks.get(2).getActual(), Arrays.asList("f"));
+        Assert.assertEquals(hunks.get(2).getPageNumber(), 3);
+
+        Assert.assertTrue(TextDiff.diff(1, expected, expected.clone()).isEmpty());
+    }
+
+    @Test
+    public void editScriptIsMinimal() {
+        Random random = new Random(42);
+        for (int t = 0; t < 2000; t++) {
+            String[] a = randomTokens(random, random.nextInt(30));
+            String[] b = randomTokens(random, random.nextInt(30));
+            List<DiffHunk> hunks = TextDiff.diff(1, a, b);
+
+            // applying the hunks to a gives b
+            List<String> patched = new ArrayList<String>();
+            int i = 0;
+            int removed = 0;
+            for (DiffHunk hunk : hunks) {
+                while (i < hunk.getExpectedIndex()) {
+                    patched.add(a[i++]);
+                }
+                patched.addAll(hunk.getActual());
+                i += hunk.getExpected().size();
+                removed += hunk.getExpected().size();
+            }
+            while (i < a.length) {
+                patched.add(a[i++]);
+            }
+            Assert.assertEquals(patched, Arrays.asList(b));
+            Assert.assertEquals(a.length - removed, lcsLength(a, b));
+        }
+    }
+
+    private static String[] randomTokens(Random random, int length) {
+        String[] tokens = new String[length];
+        for (int i = 0; i < length; i++) {
+            tokens[i] = String.valueOf((char) ('a' + random.nextInt(4)));
+        }
+        return tokens;
+    }
+
+    private static int lcsLength(String[] a, String[] b) {
+        int[][] lcs = new int[a.length + 1][b.length + 1];
+        for (int i = a.length - 1; i >= 0; i--) {
+            for (int j = b.length - 1; j >= 0; j--) {
+                lcs[i][j] = a[i].equals(b[j]) ? lcs[i + 1][j + 1] + 1 : Math.max(lcs[i + 1][j], lcs[i][j + 1]);
+            }
+        }
+        return lcs[0][0];
+    }
+}
@@ -0,0 +1,92 @@
+package com.testautomationguru.utility;
+
+import java.awt.Color;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TiledImageComparatorTest {
+
+    @Test
+    public void sameImagesMatch() {
+        for (int type : new int[] { BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_USHORT_565_RGB }) {
+            TiledImageComparator comparator = new TiledImageComparator(16);
+            Assert.assertTrue(comparator.compare(image(type, 100, 70), image(type, 100, 70), true, Color.MAGENTA.getRGB()));
+            Assert.assertNull(comparator.getHighlightedImage());
+        }
+    }
+
+    @Test
+    public void differencesAreHighlighted() {
+        for (int type : new int[] { BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_USHORT_565_RGB }) {
+            BufferedImage img1 = image(type, 100, 70);
+            BufferedImage img2 = image(type, 100, 70);
+            img2.setRGB(99, 69, Color.BLACK.getRGB());
+            img2.setRGB(40, 3, Color.BLACK.getRGB());
+
+            TiledImageComparator comparator = new TiledImageComparator(16);
+            Assert.assertFalse(comparator.compare(img1, img2, true, Color.MAGENTA.getRGB()));
+            Assert.assertEquals(comparator.getDifferentPixels(), 2);
+            BufferedImage out = comparator.getHighlightedImage();
+            Assert.assertEquals(out.getRGB(99, 69), Color.MAGENTA.getRGB());
+            Assert.assertEquals(out.getRGB(40, 3), Color.MAGENTA.getRGB());
+            Assert.assertEquals(out.getRGB(0, 0), img1.getRGB(0, 0));
+        }
+    }
+
+    @Test
+    public void stopsAtFirstDifferenceWithoutHighlight() {
+        BufferedImage img1 = image(BufferedImage.TYPE_INT_RGB, 100, 70);
+        BufferedImage img2 = image(BufferedImage.TYPE_INT_RGB, 100, 70);
+        img2.setRGB(0, 0, Color.BLACK.getRGB());
+
+        TiledImageComparator comparator = new TiledImageComparator(16);
+        Assert.assertFalse(comparator.compare(img1, img2, false, Color.MAGENTA.getRGB()));
+        Assert.assertNull(comparator.getHighlightedImage());
+        Assert.assertEquals(comparator.getDifferentPixels(), -1);
+    }
+
+    @Test
+    public void differencesAreGroupedIntoRegions() {
+        BufferedImage img1 = image(BufferedImage.TYPE_INT_RGB, 100, 70);
+        BufferedImage img2 = image(BufferedImage.TYPE_INT_RGB, 100, 70);
+        // two nearby pixels make one region, the far corner another
+        img2.setRGB(5, 5, Color.BLACK.getRGB());
+        img2.setRGB(20, 9, Color.BLACK.getRGB());
+        img2.setRGB(99, 69, Color.BLACK.getRGB());
+
+        TiledImageComparator comparator = new TiledImageComparator(16);
+        Assert.assertFalse(comparator.compare(img1, img2, false, true, Color.MAGENTA.getRGB()));
+        Assert.assertNull(comparator.getHighlightedImage());
+        Assert.assertEquals(comparator.getDifferentPixels(), 3);
+        List<TiledImageComparator.Region> regions = comparator.getRegions();
+        Assert.assertEquals(regions.size(), 2);
+        Assert.assertEquals(regions.get(0).bounds, new Rectangle(5, 5, 16, 5));
+        Assert.assertEquals(regions.get(0).pixels, 2);
+        Assert.assertEquals(regions.get(1).bounds, new Rectangle(99, 69, 1, 1));
+
+        Assert.assertTrue(comparator.compare(img1, img1, false, true, 0));
+        Assert.assertTrue(comparator.getRegions().isEmpty());
+    }
+
+    @Test
+    public void differentTypesAndSizes() {
+        Assert.assertTrue(new TiledImageComparator().compare(image(BufferedImage.TYPE_INT_RGB, 30, 30),
+                image(BufferedImage.TYPE_3BYTE_BGR, 30, 30), false, 0));
+        Assert.assertFalse(new TiledImageComparator().compare(image(BufferedImage.TYPE_INT_RGB, 30, 30),
+                image(BufferedImage.TYPE_INT_RGB, 30, 31), false, 0));
+    }
+
+    private BufferedImage image(int type, int w, int h) {
+        BufferedImage img = new BufferedImage(w, h, type);
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                img.setRGB(x, y, ((x * 8) << 16) | ((y * 8) << 8) | 0xF8);
+            }
+        }
+        return img;
+    }
+}
@@ -0,0 +1,77 @@
+package com.testautomationguru.utility;
+
+import java.awt.image.BufferedImage;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TolerantImageComparatorTest {
+
+    private static final int[] TYPES = { BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_BYTE_GRAY,
+            BufferedImage.TYPE_USHORT_565_RGB };
+
+    @Test
+    public void noiseWithinTheDeltaMatches() {
+        for (int type : TYPES) {
+            BufferedImage img1 = image(type, 120, 90, 0);
+            BufferedImage img2 = image(type, 120, 90, 8);
+            Assert.assertFalse(new TiledImageComparator().compare(img1, img2, false, 0), "type " + type);
+            Assert.assertTrue(new TolerantImageComparator(new VisualTolerance(16, 0)).compare(img1, img2), "type " + type);
+            TolerantImageComparator strict = new TolerantImageComparator(new VisualTolerance(1, 0.5));
+            Assert.assertFalse(strict.compare(img1, img2), "type " + type);
+            Assert.assertTrue(strict.getDifferentPixelRatio() > 0.5, "type " + type);
+        }
+    }
+
+    @Test
+    public void ratioOfDifferentPixels() {
+        BufferedImage img1 = image(BufferedImage.TYPE_INT_RGB, 100, 100, 0);
+        BufferedImage img2 = image(BufferedImage.TYPE_INT_RGB, 100, 100, 0);
+        for (int x = 0; x < 50; x++) {
+            img2.setRGB(x, 10, 0);
+        }
+        TolerantImageComparator comparator = new TolerantImageComparator(new VisualTolerance(32, 0.005));
+        Assert.assertTrue(comparator.compare(img1, img2));
+        Assert.assertEquals(comparator.getDifferentPixelRatio(), 0.005, 1e-9);
+        Assert.assertTrue(Double.isNaN(comparator.getSsim()));
+        Assert.assertFalse(new TolerantImageComparator(new VisualTolerance(32, 0.004)).compare(img1, img2));
+    }
+
+    @Test
+    public void ssimOfShiftedContent() {
+        BufferedImage img1 = image(BufferedImage.TYPE_INT_RGB, 64, 64, 0);
+        BufferedImage img2 = new BufferedImage(64, 64, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < 64; y++) {
+            for (int x = 0; x < 64; x++) {
+                img2.setRGB(x, y, img1.getRGB((x + 4) % 64, y));
+            }
+        }
+        TolerantImageComparator same = new TolerantImageComparator(new VisualTolerance(0, 1, 0.99));
+        Assert.assertTrue(same.compare(img1, img1));
+        Assert.assertEquals(same.getSsim(), 1.0, 1e-9);
+
+        TolerantImageComparator shifted = new TolerantImageComparator(new VisualTolerance(255, 1, 0.99));
+        Assert.assertFalse(shifted.compare(img1, img2));
+        Assert.assertTrue(shifted.getSsim() < 0.99, String.valueOf(shifted.getSsim()));
+    }
+
+    @Test
+    public void differentSizesDoNotMatch() {
+        Assert.assertFalse(new TolerantImageComparator(new VisualTolerance(255, 1)).compare(
+                image(BufferedImage.TYPE_INT_RGB, 30, 30, 0), image(BufferedImage.TYPE_INT_RGB, 30, 31, 0)));
+    }
+
+    /**
+     * Stripes of contrasted colors, every pixel lightened by noise.
+     */
+    private BufferedImage image(int type, int w, int h, int noise) {
+        BufferedImage img = new BufferedImage(w, h, type);
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                int level = ((x / 3 + y / 5) % 2 == 0 ? 40 : 200) + noise;
+                img.setRGB(x, y, (level << 16) | ((255 - level) << 8) | level);
+            }
+        }
+        return img;
+    }
+}